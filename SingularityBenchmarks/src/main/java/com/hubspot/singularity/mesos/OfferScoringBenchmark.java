@@ -0,0 +1,192 @@
+package com.hubspot.singularity.mesos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.hubspot.mesos.Resources;
+import com.hubspot.singularity.SingularityManagedCachedThreadPoolFactory;
+import com.hubspot.singularity.SingularityManagedScheduledExecutorServiceFactory;
+import com.hubspot.singularity.SingularitySlaveUsageWithId;
+import com.hubspot.singularity.SingularityTaskRequest;
+import com.hubspot.singularity.config.CustomExecutorConfiguration;
+import com.hubspot.singularity.config.MesosConfiguration;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.helpers.MesosUtils;
+
+/**
+ * Benchmarks the cpu-bound parts of an offer cycle in {@link SingularityMesosOfferScheduler#checkOffers}:
+ * rebuilding agent usage scores, wrapping due tasks in {@link SingularityTaskRequestHolder}s and scoring
+ * a single pending task against its candidate offers. ZooKeeper-backed checks (placement, instance counts) are left out.
+ *
+ * Run with the GC profiler (the default for {@code SingularityBenchmarkRunner}) to get allocation rate per pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class OfferScoringBenchmark {
+
+  @Param({"1000", "5000", "20000"})
+  public int numAgents;
+
+  @Param({"10000"})
+  public int numPendingTasks;
+
+  @Param({"2000"})
+  public int numRequests;
+
+  private SingularityConfiguration configuration;
+  private MesosConfiguration mesosConfiguration;
+  private Resources defaultResources;
+  private Resources defaultCustomExecutorResources;
+  private SingularityManagedScheduledExecutorServiceFactory scheduledExecutorServiceFactory;
+  private SingularityManagedCachedThreadPoolFactory cachedThreadPoolFactory;
+  private SingularityMesosOfferScheduler offerScheduler;
+
+  private List<SingularityTaskRequest> taskRequests;
+  private List<SingularityTaskRequestHolder> taskRequestHolders;
+  private List<SingularityOfferHolder> offerHolders;
+  private Map<String, SingularitySlaveUsageWithId> slaveUsagesBySlaveId;
+  private SlaveUsageScoreTable scores;
+  private SingularityOfferIndex offerIndex;
+  private int nextTaskIndex;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.configuration = new SingularityConfiguration();
+    this.mesosConfiguration = new MesosConfiguration();
+    configuration.setMesosConfiguration(mesosConfiguration);
+    CustomExecutorConfiguration customExecutorConfiguration = configuration.getCustomExecutorConfiguration();
+    this.defaultResources = new Resources(mesosConfiguration.getDefaultCpus(), mesosConfiguration.getDefaultMemory(), 0, mesosConfiguration.getDefaultDisk());
+    this.defaultCustomExecutorResources = new Resources(customExecutorConfiguration.getNumCpus(), customExecutorConfiguration.getMemoryMb(), 0, customExecutorConfiguration.getDiskMb());
+    this.scheduledExecutorServiceFactory = new SingularityManagedScheduledExecutorServiceFactory(configuration);
+    this.cachedThreadPoolFactory = new SingularityManagedCachedThreadPoolFactory(configuration);
+
+    // Only the configuration and executor factories are touched by the scoring paths benchmarked here
+    this.offerScheduler = new SingularityMesosOfferScheduler(mesosConfiguration, customExecutorConfiguration, null, null, null, configuration,
+        null, null, null, null, null, null, null, null, null, scheduledExecutorServiceFactory, cachedThreadPoolFactory, null, null, null, new AtomicLong());
+
+    SyntheticCluster cluster = new SyntheticCluster(numAgents, numPendingTasks, numRequests);
+    List<SingularitySlaveUsageWithId> slaveUsages = cluster.getSlaveUsages();
+    this.taskRequests = cluster.getTaskRequests();
+    this.taskRequestHolders = buildTaskRequestHolders();
+    this.offerHolders = cluster.buildOfferHolders(numPendingTasks);
+    this.slaveUsagesBySlaveId = new HashMap<>(numAgents);
+    for (SingularitySlaveUsageWithId usage : slaveUsages) {
+      slaveUsagesBySlaveId.put(usage.getSlaveId(), usage);
+    }
+    this.scores = buildScores();
+    this.offerIndex = new SingularityOfferIndex(offerHolders, configuration.getMaxTasksPerOffer());
+    this.nextTaskIndex = 0;
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    scheduledExecutorServiceFactory.stop();
+    cachedThreadPoolFactory.stop();
+  }
+
+  /**
+   * One full rebuild of the {@link SlaveUsageScoreTable} for every offer, as done at the start of each offer cycle.
+   */
+  @Benchmark
+  public void calculateSlaveUsageScores(Blackhole blackhole) {
+    SlaveUsageScoreTable scores = buildScores();
+    for (int slot = 0; slot < scores.size(); slot++) {
+      blackhole.consume(offerScheduler.score(offerHolders.get(slot).getHostname(), scores, slot));
+    }
+  }
+
+  /**
+   * Wraps every due task in a {@link SingularityTaskRequestHolder}, as done by {@code getSortedDueTaskRequests}.
+   */
+  @Benchmark
+  public void buildTaskRequestHolders(Blackhole blackhole) {
+    blackhole.consume(buildTaskRequestHolders());
+  }
+
+  /**
+   * One scoring pass as done for each task in {@code checkOffers}: the task's candidate offers are looked up in the
+   * {@link SingularityOfferIndex}, matched and scored using the usage scores stored in the {@link SlaveUsageScoreTable},
+   * and the best one is picked. The task isn't accepted so offers aren't used up over a trial, but the best offer is
+   * re-indexed and its slot recalculated as if it had been, so the next pass pays for rescoring that slave.
+   */
+  @Benchmark
+  public void scoreTaskAgainstCandidateOffers(Blackhole blackhole) {
+    SingularityTaskRequestHolder taskRequestHolder = taskRequestHolders.get(nextTaskIndex);
+    nextTaskIndex = (nextTaskIndex + 1) % taskRequestHolders.size();
+
+    SingularityTaskRequest taskRequest = taskRequestHolder.getTaskRequest();
+    SingularityOfferHolder bestOffer = null;
+    double bestScore = 0;
+    for (SingularityOfferHolder offerHolder : offerIndex.getCandidateOffers(taskRequestHolder)) {
+      boolean matchesResources = MesosUtils.doesOfferMatchResources(taskRequest.getRequest().getRequiredRole(),
+          taskRequestHolder.getTotalResources(), offerHolder.getCurrentResources(), taskRequestHolder.getRequestedPorts());
+      if (!matchesResources) {
+        continue;
+      }
+      int slot = scores.getSlot(offerHolder.getSlaveId());
+      double score = scores.getUsageScore(slot);
+      if (Double.isNaN(score)) {
+        score = offerScheduler.score(offerHolder.getHostname(), scores, slot);
+        scores.setUsageScore(slot, score);
+      }
+      if (score != 0 && (bestOffer == null || score > bestScore)) {
+        bestScore = score;
+        bestOffer = offerHolder;
+      }
+    }
+
+    if (bestOffer != null) {
+      offerIndex.updateOffer(bestOffer);
+      scores.recalculateScores(scores.getSlot(bestOffer.getSlaveId()));
+    }
+    blackhole.consume(bestOffer);
+  }
+
+  private List<SingularityTaskRequestHolder> buildTaskRequestHolders() {
+    List<SingularityTaskRequestHolder> holders = new ArrayList<>(taskRequests.size());
+    for (SingularityTaskRequest taskRequest : taskRequests) {
+      holders.add(new SingularityTaskRequestHolder(taskRequest, defaultResources, defaultCustomExecutorResources));
+    }
+    return holders;
+  }
+
+  private SlaveUsageScoreTable buildScores() {
+    SlaveUsageScoreTable scores = new SlaveUsageScoreTable(
+        offerHolders.size(),
+        mesosConfiguration.getScoreUsingSystemLoad(),
+        mesosConfiguration.getLoad5OverloadedThreshold(),
+        mesosConfiguration.getLoad1OverloadedThreshold());
+    for (SingularityOfferHolder offerHolder : offerHolders) {
+      SingularitySlaveUsageWithId usage = slaveUsagesBySlaveId.get(offerHolder.getSlaveId());
+      int slot = scores.add(offerHolder.getSlaveId(), usage);
+      if (usage != null) {
+        scores.addMaxProbableUsage(slot, usage.getCpusUsed(), usage.getMemoryBytesUsed(), usage.getDiskBytesUsed());
+      }
+    }
+    scores.recalculateScores();
+    return scores;
+  }
+}
@@ -0,0 +1,165 @@
+package com.hubspot.singularity.mesos;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.mesos.v1.Protos.AgentID;
+import org.apache.mesos.v1.Protos.Attribute;
+import org.apache.mesos.v1.Protos.FrameworkID;
+import org.apache.mesos.v1.Protos.Offer;
+import org.apache.mesos.v1.Protos.OfferID;
+import org.apache.mesos.v1.Protos.Resource;
+import org.apache.mesos.v1.Protos.Value.Range;
+import org.apache.mesos.v1.Protos.Value.Ranges;
+import org.apache.mesos.v1.Protos.Value.Scalar;
+import org.apache.mesos.v1.Protos.Value.Text;
+import org.apache.mesos.v1.Protos.Value.Type;
+
+import com.google.common.base.Optional;
+import com.hubspot.mesos.Resources;
+import com.hubspot.singularity.RequestType;
+import com.hubspot.singularity.SingularityDeploy;
+import com.hubspot.singularity.SingularityDeployBuilder;
+import com.hubspot.singularity.SingularityPendingRequest.PendingType;
+import com.hubspot.singularity.SingularityPendingTask;
+import com.hubspot.singularity.SingularityPendingTaskBuilder;
+import com.hubspot.singularity.SingularityPendingTaskId;
+import com.hubspot.singularity.SingularityRequest;
+import com.hubspot.singularity.SingularityRequestBuilder;
+import com.hubspot.singularity.SingularitySlaveUsage;
+import com.hubspot.singularity.SingularitySlaveUsageWithId;
+import com.hubspot.singularity.SingularityTaskRequest;
+import com.hubspot.singularity.helpers.MesosUtils;
+
+/**
+ * Deterministic, in-memory stand-in for a cluster's worth of offers, agent usage and pending tasks.
+ * Everything is generated from a fixed seed so that runs of the same benchmark are comparable.
+ */
+class SyntheticCluster {
+  private static final long SEED = 8675309L;
+  private static final int NUM_RACKS = 20;
+  private static final String RACK_ATTRIBUTE = "rackid";
+
+  private final List<Offer> offers;
+  private final List<SingularitySlaveUsageWithId> slaveUsages;
+  private final List<SingularityTaskRequest> taskRequests;
+
+  SyntheticCluster(int numAgents, int numPendingTasks, int numRequests) {
+    Random random = new Random(SEED);
+    long now = System.currentTimeMillis();
+
+    this.offers = new ArrayList<>(numAgents);
+    this.slaveUsages = new ArrayList<>(numAgents);
+    for (int i = 0; i < numAgents; i++) {
+      double cpus = 8 + random.nextInt(56);
+      long memoryMb = 16384 + random.nextInt(245760);
+      long diskMb = 102400 + random.nextInt(921600);
+      double allocatedFraction = random.nextDouble();
+
+      offers.add(buildOffer(i, cpus * (1 - allocatedFraction), memoryMb * (1 - allocatedFraction), diskMb * (1 - allocatedFraction)));
+      slaveUsages.add(buildSlaveUsage(i, random, now, cpus, memoryMb, diskMb, allocatedFraction));
+    }
+
+    List<SingularityRequest> requests = new ArrayList<>(numRequests);
+    List<SingularityDeploy> deploys = new ArrayList<>(numRequests);
+    for (int i = 0; i < numRequests; i++) {
+      String requestId = "request-" + i;
+      requests.add(new SingularityRequestBuilder(requestId, RequestType.SERVICE).setInstances(Optional.of(5)).build());
+      deploys.add(new SingularityDeployBuilder(requestId, "deploy-" + i)
+          .setCommand(Optional.of("sleep 100"))
+          .setResources(Optional.of(new Resources(0.1 + random.nextInt(40) / 10.0, 128 + random.nextInt(16384), random.nextInt(3), random.nextInt(10240))))
+          .build());
+    }
+
+    this.taskRequests = new ArrayList<>(numPendingTasks);
+    for (int i = 0; i < numPendingTasks; i++) {
+      int requestIndex = i % numRequests;
+      SingularityRequest request = requests.get(requestIndex);
+      SingularityDeploy deploy = deploys.get(requestIndex);
+      SingularityPendingTask pendingTask = new SingularityPendingTaskBuilder()
+          .setPendingTaskId(new SingularityPendingTaskId(request.getId(), deploy.getId(), now, i / numRequests + 1, PendingType.NEW_DEPLOY, now))
+          .build();
+      taskRequests.add(new SingularityTaskRequest(request, deploy, pendingTask));
+    }
+  }
+
+  List<Offer> getOffers() {
+    return offers;
+  }
+
+  List<SingularitySlaveUsageWithId> getSlaveUsages() {
+    return slaveUsages;
+  }
+
+  List<SingularityTaskRequest> getTaskRequests() {
+    return taskRequests;
+  }
+
+  List<SingularityOfferHolder> buildOfferHolders(int taskSizeHint) {
+    List<SingularityOfferHolder> offerHolders = new ArrayList<>(offers.size());
+    for (Offer offer : offers) {
+      offerHolders.add(new SingularityOfferHolder(
+          Collections.singletonList(offer),
+          taskSizeHint,
+          offer.getAttributes(0).getText().getValue(),
+          offer.getAgentId().getValue(),
+          offer.getHostname(),
+          Collections.emptyMap(),
+          Collections.emptyMap()));
+    }
+    return offerHolders;
+  }
+
+  static String hostname(int agentIndex) {
+    return "host-" + agentIndex;
+  }
+
+  static String slaveId(int agentIndex) {
+    return "slave-" + agentIndex;
+  }
+
+  private static Offer buildOffer(int agentIndex, double cpus, double memoryMb, double diskMb) {
+    return Offer.newBuilder()
+        .setId(OfferID.newBuilder().setValue("offer-" + agentIndex))
+        .setFrameworkId(FrameworkID.newBuilder().setValue("singularity-benchmarks"))
+        .setAgentId(AgentID.newBuilder().setValue(slaveId(agentIndex)))
+        .setHostname(hostname(agentIndex))
+        .addAttributes(Attribute.newBuilder().setType(Type.TEXT).setName(RACK_ATTRIBUTE).setText(Text.newBuilder().setValue("rack-" + agentIndex % NUM_RACKS)))
+        .addResources(Resource.newBuilder().setType(Type.SCALAR).setName(MesosUtils.CPUS).setScalar(Scalar.newBuilder().setValue(cpus)))
+        .addResources(Resource.newBuilder().setType(Type.SCALAR).setName(MesosUtils.MEMORY).setScalar(Scalar.newBuilder().setValue(memoryMb)))
+        .addResources(Resource.newBuilder().setType(Type.SCALAR).setName(MesosUtils.DISK).setScalar(Scalar.newBuilder().setValue(diskMb)))
+        .addResources(Resource.newBuilder().setType(Type.RANGES).setName(MesosUtils.PORTS)
+            .setRanges(Ranges.newBuilder().addRange(Range.newBuilder().setBegin(31000).setEnd(32000))))
+        .build();
+  }
+
+  private static SingularitySlaveUsageWithId buildSlaveUsage(int agentIndex, Random random, long now, double cpus, long memoryMb, long diskMb, double allocatedFraction) {
+    double usedFraction = allocatedFraction * random.nextDouble();
+    double memoryBytesTotal = memoryMb * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
+    double diskBytesTotal = diskMb * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
+
+    SingularitySlaveUsage usage = new SingularitySlaveUsage(
+        cpus * usedFraction,
+        cpus * allocatedFraction,
+        Optional.of(cpus),
+        memoryBytesTotal * usedFraction,
+        memoryMb * allocatedFraction,
+        Optional.of(memoryMb),
+        diskBytesTotal * usedFraction,
+        diskMb * allocatedFraction,
+        Optional.of(diskMb),
+        random.nextInt(50),
+        now,
+        memoryBytesTotal,
+        memoryBytesTotal * (1 - usedFraction),
+        cpus,
+        cpus * usedFraction * 1.1,
+        cpus * usedFraction,
+        cpus * usedFraction * 0.9,
+        diskBytesTotal * usedFraction,
+        diskBytesTotal);
+    return new SingularitySlaveUsageWithId(usage, slaveId(agentIndex));
+  }
+}
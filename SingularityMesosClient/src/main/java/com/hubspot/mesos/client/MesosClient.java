@@ -1,8 +1,11 @@
 package com.hubspot.mesos.client;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import com.hubspot.mesos.json.MesosMasterMetricsSnapshotObject;
+import com.hubspot.mesos.json.MesosMasterSlaveObject;
 import com.hubspot.mesos.json.MesosMasterStateObject;
 import com.hubspot.mesos.json.MesosSlaveMetricsSnapshotObject;
 import com.hubspot.mesos.json.MesosSlaveStateObject;
@@ -33,6 +36,11 @@ public interface MesosClient {
 
   public MesosMasterStateObject getMasterState(String uri);
 
+  /**
+   * Hands each slave in the master's state to the consumer as it is parsed, without reading the rest of the state
+   */
+  public void getMasterSlaves(String uri, Consumer<MesosMasterSlaveObject> consumer);
+
   public MesosMasterMetricsSnapshotObject getMasterMetricsSnapshot(String uri);
 
   default MesosSlaveMetricsSnapshotObject getSlaveMetricsSnapshot(String uri) {
@@ -41,6 +49,8 @@ public interface MesosClient {
 
   public MesosSlaveMetricsSnapshotObject getSlaveMetricsSnapshot(String uri, boolean useShortTimeout);
 
+  public CompletableFuture<MesosSlaveMetricsSnapshotObject> getSlaveMetricsSnapshotAsync(String hostname);
+
   public String getSlaveUri(String hostname);
 
   public MesosSlaveStateObject getSlaveState(String uri);
@@ -51,4 +61,6 @@ public interface MesosClient {
 
   public List<MesosTaskMonitorObject> getSlaveResourceUsage(String hostname, boolean useShortTimeout);
 
+  public CompletableFuture<List<MesosTaskMonitorObject>> getSlaveResourceUsageAsync(String hostname);
+
 }
@@ -1,20 +1,29 @@
 package com.hubspot.mesos.client;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
+import com.hubspot.horizon.AsyncHttpClient;
 import com.hubspot.horizon.HttpClient;
 import com.hubspot.horizon.HttpRequest;
 import com.hubspot.horizon.HttpRequest.Options;
 import com.hubspot.horizon.HttpResponse;
 import com.hubspot.mesos.JavaUtils;
 import com.hubspot.mesos.json.MesosMasterMetricsSnapshotObject;
+import com.hubspot.mesos.json.MesosMasterSlaveObject;
 import com.hubspot.mesos.json.MesosMasterStateObject;
 import com.hubspot.mesos.json.MesosSlaveMetricsSnapshotObject;
 import com.hubspot.mesos.json.MesosSlaveStateObject;
@@ -25,6 +34,7 @@ public class SingularityMesosClient implements MesosClient {
 
   public static final String DEFAULT_HTTP_CLIENT_NAME = "mesos.http.client";
   public static final String SHORT_TIMEOUT_HTTP_CLIENT_NAME = "mesos.http.client.short.timeout";
+  public static final String ASYNC_HTTP_CLIENT_NAME = "mesos.http.client.async";
 
   private static final Logger LOG = LoggerFactory.getLogger(SingularityMesosClient.class);
 
@@ -34,16 +44,20 @@ public class SingularityMesosClient implements MesosClient {
   private static final String MESOS_MASTER_METRICS_SNAPSHOT_URL = "http://%s/metrics/snapshot";
   private static final String MESOS_SLAVE_METRICS_SNAPSHOT_URL = "http://%s:5051/metrics/snapshot";
 
-  private static final TypeReference<List<MesosTaskMonitorObject>> TASK_MONITOR_TYPE_REFERENCE = new TypeReference<List<MesosTaskMonitorObject>>() {};
-
   private final HttpClient httpClient;
   private final HttpClient shortTimeoutHttpClient;
+  private final AsyncHttpClient asyncHttpClient;
+  private final ObjectMapper objectMapper;
 
   @Inject
   public SingularityMesosClient(@Named(DEFAULT_HTTP_CLIENT_NAME) HttpClient httpClient,
-                                @Named(SHORT_TIMEOUT_HTTP_CLIENT_NAME) HttpClient shortTimeoutHttpClient) {
+                                @Named(SHORT_TIMEOUT_HTTP_CLIENT_NAME) HttpClient shortTimeoutHttpClient,
+                                @Named(ASYNC_HTTP_CLIENT_NAME) AsyncHttpClient asyncHttpClient,
+                                @Named(SingularityMesosClientModule.MESOS_CLIENT_OBJECT_MAPPER) ObjectMapper objectMapper) {
     this.httpClient = httpClient;
     this.shortTimeoutHttpClient = shortTimeoutHttpClient;
+    this.asyncHttpClient = asyncHttpClient;
+    this.objectMapper = objectMapper;
   }
 
   @Override
@@ -79,6 +93,64 @@ public class SingularityMesosClient implements MesosClient {
     return response;
   }
 
+  private <T> CompletableFuture<T> getFromMesosAsync(String uri, ResponseParser<T> parser) {
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    final long start = System.currentTimeMillis();
+
+    LOG.debug("Fetching {} from mesos asynchronously", uri);
+
+    try {
+      asyncHttpClient.execute(HttpRequest.newBuilder().setUrl(uri).build(), new Options(), new AsyncHttpClient.Callback() {
+
+        @Override
+        public void completed(HttpResponse response) {
+          LOG.debug("Response {} - {} after {}", response.getStatusCode(), uri, JavaUtils.duration(start));
+
+          if (!response.isSuccess()) {
+            future.completeExceptionally(new MesosClientException(String.format("Invalid response code from %s : %s", uri, response.getStatusCode())));
+            return;
+          }
+
+          try (InputStream body = response.getAsInputStream()) {
+            future.complete(parser.parse(body));
+          } catch (Throwable t) {
+            future.completeExceptionally(new MesosClientException(String.format("Couldn't deserialize response from %s", uri), t));
+          }
+        }
+
+        @Override
+        public void failed(Exception e) {
+          future.completeExceptionally(new MesosClientException(String.format("Exception fetching %s after %s", uri, JavaUtils.duration(start)), e));
+        }
+      });
+    } catch (Exception e) {
+      future.completeExceptionally(new MesosClientException(String.format("Exception fetching %s after %s", uri, JavaUtils.duration(start)), e));
+    }
+
+    return future;
+  }
+
+  @FunctionalInterface
+  private interface ResponseParser<T> {
+    T parse(InputStream body) throws IOException;
+  }
+
+  /**
+   * Reads a json array one element at a time, so only the parsed objects are kept rather than a tree of the whole body
+   */
+  private <T> List<T> parseArray(InputStream body, Class<T> clazz) throws IOException {
+    List<T> values = new ArrayList<>();
+    try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IOException(String.format("Expected an array of %s", clazz.getSimpleName()));
+      }
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        values.add(objectMapper.readValue(parser, clazz));
+      }
+    }
+    return values;
+  }
+
   private <T> T getFromMesos(String uri, Class<T> clazz) {
     return getFromMesos(uri, clazz, false);
   }
@@ -98,6 +170,34 @@ public class SingularityMesosClient implements MesosClient {
     return getFromMesos(uri, MesosMasterStateObject.class);
   }
 
+  @Override
+  public void getMasterSlaves(String uri, Consumer<MesosMasterSlaveObject> consumer) {
+    HttpResponse response = getFromMesos(uri, false);
+
+    try (JsonParser parser = objectMapper.getFactory().createParser(response.getAsInputStream())) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new MesosClientException(String.format("Expected master state object from %s", uri));
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken value = parser.nextToken();
+        if ("slaves".equals(field) && value == JsonToken.START_ARRAY) {
+          while (parser.nextToken() == JsonToken.START_OBJECT) {
+            consumer.accept(objectMapper.readValue(parser, MesosMasterSlaveObject.class));
+          }
+          // The rest of the state (frameworks and all of their tasks) is never read
+          return;
+        }
+        parser.skipChildren();
+      }
+    } catch (IOException e) {
+      throw new MesosClientException(String.format("Couldn't deserialize slaves from %s", uri), e);
+    }
+
+    // Callers treat every slave that wasn't consumed as gone, so a state without slaves must not look like an empty cluster
+    throw new MesosClientException(String.format("No slaves array in master state from %s", uri));
+  }
+
   @Override
   public MesosMasterMetricsSnapshotObject getMasterMetricsSnapshot(String uri) {
     return getFromMesos(uri, MesosMasterMetricsSnapshotObject.class);
@@ -108,6 +208,11 @@ public class SingularityMesosClient implements MesosClient {
     return getFromMesos(String.format(MESOS_SLAVE_METRICS_SNAPSHOT_URL, hostname), MesosSlaveMetricsSnapshotObject.class, useShortTimeout);
   }
 
+  @Override
+  public CompletableFuture<MesosSlaveMetricsSnapshotObject> getSlaveMetricsSnapshotAsync(String hostname) {
+    return getFromMesosAsync(String.format(MESOS_SLAVE_METRICS_SNAPSHOT_URL, hostname), (body) -> objectMapper.readValue(body, MesosSlaveMetricsSnapshotObject.class));
+  }
+
   @Override
   public String getSlaveUri(String hostname) {
     return String.format(MESOS_SLAVE_JSON_URL, hostname);
@@ -124,11 +229,16 @@ public class SingularityMesosClient implements MesosClient {
 
     HttpResponse response = getFromMesos(uri, useShortTimeout);
 
-    try {
-      return response.getAs(TASK_MONITOR_TYPE_REFERENCE);
+    try (InputStream body = response.getAsInputStream()) {
+      return parseArray(body, MesosTaskMonitorObject.class);
     } catch (Exception e) {
       throw new MesosClientException(String.format("Unable to deserialize task monitor object from %s", uri), e);
     }
   }
 
+  @Override
+  public CompletableFuture<List<MesosTaskMonitorObject>> getSlaveResourceUsageAsync(String hostname) {
+    return getFromMesosAsync(String.format(MESOS_SLAVE_STATISTICS_URL, hostname), (body) -> parseArray(body, MesosTaskMonitorObject.class));
+  }
+
 }
@@ -4,9 +4,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.AbstractModule;
 import com.google.inject.Scopes;
 import com.google.inject.name.Names;
+import com.hubspot.horizon.AsyncHttpClient;
 import com.hubspot.horizon.HttpClient;
 import com.hubspot.horizon.HttpConfig;
 import com.hubspot.horizon.HttpConfig.Builder;
+import com.hubspot.horizon.ning.NingAsyncHttpClient;
 import com.hubspot.horizon.ning.NingHttpClient;
 import com.hubspot.mesos.JavaUtils;
 
@@ -24,6 +26,9 @@ public class SingularityMesosClientModule extends AbstractModule {
     bind(HttpClient.class).annotatedWith(Names.named(SingularityMesosClient.DEFAULT_HTTP_CLIENT_NAME))
         .toInstance(new NingHttpClient(httpConfigBuilder.build()));
 
+    bind(AsyncHttpClient.class).annotatedWith(Names.named(SingularityMesosClient.ASYNC_HTTP_CLIENT_NAME))
+        .toInstance(new NingAsyncHttpClient(httpConfigBuilder.build()));
+
     bind(HttpClient.class).annotatedWith(Names.named(SingularityMesosClient.SHORT_TIMEOUT_HTTP_CLIENT_NAME))
         .toInstance(new NingHttpClient(httpConfigBuilder.setRequestTimeoutSeconds(MESOS_CLIENT_HTTP_SHORT_TIMEOUT_SECONDS).build()));
 
@@ -0,0 +1,119 @@
+package com.hubspot.mesos.client;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hubspot.horizon.AsyncHttpClient;
+import com.hubspot.horizon.AsyncHttpClient.Callback;
+import com.hubspot.horizon.HttpClient;
+import com.hubspot.horizon.HttpRequest;
+import com.hubspot.horizon.HttpRequest.Options;
+import com.hubspot.horizon.HttpResponse;
+import com.hubspot.mesos.JavaUtils;
+import com.hubspot.mesos.client.MesosClient.MesosClientException;
+import com.hubspot.mesos.json.MesosMasterSlaveObject;
+import com.hubspot.mesos.json.MesosSlaveMetricsSnapshotObject;
+import com.hubspot.mesos.json.MesosTaskMonitorObject;
+
+public class SingularityMesosClientTest {
+  private static final String SLAVE = "{\"id\": \"slave1\", \"hostname\": \"host1\", \"attributes\": {\"rack\": \"rack1\"}, \"active\": true}";
+
+  private HttpClient httpClient;
+  private AsyncHttpClient asyncHttpClient;
+  private SingularityMesosClient mesosClient;
+
+  @BeforeEach
+  public void setUp() {
+    httpClient = mock(HttpClient.class);
+    asyncHttpClient = mock(AsyncHttpClient.class);
+    mesosClient = new SingularityMesosClient(httpClient, httpClient, asyncHttpClient, JavaUtils.newObjectMapper());
+  }
+
+  @Test
+  public void itStreamsSlavesOutOfTheMasterState() {
+    respondWith("{\"version\": \"1.5.0\", \"frameworks\": [{\"tasks\": [{\"id\": \"task1\"}]}], \"slaves\": [" + SLAVE + ", " + SLAVE.replace("1", "2") + "], \"orphan_tasks\": []}");
+
+    List<MesosMasterSlaveObject> slaves = new ArrayList<>();
+    mesosClient.getMasterSlaves("http://master/master/state", slaves::add);
+
+    Assertions.assertEquals(2, slaves.size());
+    Assertions.assertEquals("slave1", slaves.get(0).getId());
+    Assertions.assertEquals("host2", slaves.get(1).getHostname());
+  }
+
+  @Test
+  public void itThrowsWhenTheMasterStateHasNoSlaves() {
+    respondWith("{\"version\": \"1.5.0\", \"frameworks\": []}");
+
+    List<MesosMasterSlaveObject> slaves = new ArrayList<>();
+    Assertions.assertThrows(MesosClientException.class, () -> mesosClient.getMasterSlaves("http://master/master/state", slaves::add));
+    Assertions.assertTrue(slaves.isEmpty());
+  }
+
+  @Test
+  public void itThrowsWhenTheMasterStateSlavesAreNull() {
+    respondWith("{\"slaves\": null}");
+
+    Assertions.assertThrows(MesosClientException.class, () -> mesosClient.getMasterSlaves("http://master/master/state", (slave) -> {}));
+  }
+
+  @Test
+  public void itReadsSlaveResourceUsageAsync() {
+    respondAsyncWith(200, "[{\"executor_id\": \"executor1\", \"statistics\": {}}, {\"executor_id\": \"executor2\", \"statistics\": {}}]");
+
+    List<MesosTaskMonitorObject> usage = mesosClient.getSlaveResourceUsageAsync("host1").join();
+
+    Assertions.assertEquals(2, usage.size());
+    Assertions.assertEquals("executor2", usage.get(1).getExecutorId());
+  }
+
+  @Test
+  public void itReadsSlaveMetricsSnapshotAsync() {
+    respondAsyncWith(200, "{\"system/load_1min\": 1.5}");
+
+    MesosSlaveMetricsSnapshotObject snapshot = mesosClient.getSlaveMetricsSnapshotAsync("host1").join();
+
+    Assertions.assertEquals(1.5, snapshot.getSystemLoad1Min(), 0.001);
+  }
+
+  @Test
+  public void itFailsAsyncCallsOnErrorResponses() {
+    respondAsyncWith(500, "");
+
+    CompletionException e = Assertions.assertThrows(CompletionException.class, () -> mesosClient.getSlaveMetricsSnapshotAsync("host1").join());
+    Assertions.assertTrue(e.getCause() instanceof MesosClientException);
+  }
+
+  private void respondWith(String body) {
+    HttpResponse response = response(200, body);
+    when(httpClient.execute(any(HttpRequest.class), any(Options.class))).thenReturn(response);
+  }
+
+  private void respondAsyncWith(int statusCode, String body) {
+    HttpResponse response = response(statusCode, body);
+    doAnswer((invocation) -> {
+      invocation.<Callback>getArgument(2).completed(response);
+      return null;
+    }).when(asyncHttpClient).execute(any(HttpRequest.class), any(Options.class), any(Callback.class));
+  }
+
+  private HttpResponse response(int statusCode, String body) {
+    HttpResponse response = mock(HttpResponse.class);
+    when(response.getStatusCode()).thenReturn(statusCode);
+    when(response.isSuccess()).thenReturn(statusCode >= 200 && statusCode < 300);
+    when(response.getAsInputStream()).thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    return response;
+  }
+}
@@ -0,0 +1,89 @@
+package com.hubspot.singularity.async;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformSnapshot;
+import com.google.common.base.Throwables;
+import com.hubspot.mesos.JavaUtils;
+
+public class BoundedParallelRunner {
+  private BoundedParallelRunner() {}
+
+  /**
+   * Runs the action for each item on up to maxWorkers threads of the executor and waits for all of them. Workers take
+   * items from a shared queue, so a slow item (e.g. one request's load balancer call) only holds up its own worker. If
+   * the action throws for an item, the remaining items still run and the first exception is rethrown afterwards.
+   *
+   * @return how long each item took
+   */
+  public static <T> ItemDurations runEach(Collection<T> items, int maxWorkers, ExecutorService executor, Timer itemTimer, Consumer<T> action) {
+    final Queue<T> remaining = new ConcurrentLinkedQueue<>(items);
+    final Queue<Long> durations = new ConcurrentLinkedQueue<>();
+    final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+    Runnable worker = () -> {
+      T item;
+      while ((item = remaining.poll()) != null) {
+        final long start = System.nanoTime();
+        try {
+          action.accept(item);
+        } catch (Throwable t) {
+          failures.add(t);
+        } finally {
+          final long duration = System.nanoTime() - start;
+          itemTimer.update(duration, TimeUnit.NANOSECONDS);
+          durations.add(duration);
+        }
+      }
+    };
+
+    final int workers = Math.min(maxWorkers, remaining.size());
+    try {
+      CompletableFutures.allOf(IntStream.range(0, workers)
+          .mapToObj((i) -> CompletableFuture.runAsync(worker, executor))
+          .collect(Collectors.toList()))
+          .join();
+    } catch (CompletionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+
+    if (!failures.isEmpty()) {
+      Throwable first = failures.poll();
+      failures.forEach(first::addSuppressed);
+      throw Throwables.propagate(first);
+    }
+
+    return new ItemDurations(durations);
+  }
+
+  public static class ItemDurations {
+    private final Snapshot snapshot;
+
+    private ItemDurations(Collection<Long> durationsNanos) {
+      this.snapshot = new UniformSnapshot(durationsNanos);
+    }
+
+    public int size() {
+      return snapshot.size();
+    }
+
+    @Override
+    public String toString() {
+      return String.format("p50 %s, p99 %s, max %s",
+          JavaUtils.durationFromMillis(TimeUnit.NANOSECONDS.toMillis((long) snapshot.getMedian())),
+          JavaUtils.durationFromMillis(TimeUnit.NANOSECONDS.toMillis((long) snapshot.get99thPercentile())),
+          JavaUtils.durationFromMillis(TimeUnit.NANOSECONDS.toMillis(snapshot.getMax())));
+    }
+  }
+}
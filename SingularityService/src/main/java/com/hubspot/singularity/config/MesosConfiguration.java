@@ -52,8 +52,10 @@ public class MesosConfiguration {
   private Optional<String> credentialPrincipal = Optional.absent();
 
   private long rxEventBufferSize = 10000;
+  private int offerEventBufferSize = 100;
   private int statusUpdateConcurrencyLimit = 500;
   private int maxStatusUpdateQueueSize = 5000;
+  private int statusUpdateBatchSize = 100;
   private int offersConcurrencyLimit = 100;
   private MachineLoadMetric scoreUsingSystemLoad = MachineLoadMetric.LOAD_5;
   private double allocatedResourceWeight = 0.5;
@@ -257,6 +259,14 @@ public class MesosConfiguration {
     this.rxEventBufferSize = rxEventBufferSize;
   }
 
+  public int getOfferEventBufferSize() {
+    return offerEventBufferSize;
+  }
+
+  public void setOfferEventBufferSize(int offerEventBufferSize) {
+    this.offerEventBufferSize = offerEventBufferSize;
+  }
+
   public int getStatusUpdateConcurrencyLimit() {
     return statusUpdateConcurrencyLimit;
   }
@@ -273,6 +283,14 @@ public class MesosConfiguration {
     this.maxStatusUpdateQueueSize = maxStatusUpdateQueueSize;
   }
 
+  public int getStatusUpdateBatchSize() {
+    return statusUpdateBatchSize;
+  }
+
+  public void setStatusUpdateBatchSize(int statusUpdateBatchSize) {
+    this.statusUpdateBatchSize = statusUpdateBatchSize;
+  }
+
   public int getOffersConcurrencyLimit() {
     return offersConcurrencyLimit;
   }
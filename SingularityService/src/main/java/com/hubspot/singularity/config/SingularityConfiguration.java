@@ -68,6 +68,12 @@ public class SingularityConfiguration extends Configuration {
 
   private long checkReconcileWhenRunningEveryMillis = TimeUnit.SECONDS.toMillis(30);
 
+  @Min(1)
+  private int reconcileTaskBatchSize = 500;
+
+  @Min(0)
+  private long reconcileTaskBatchIntervalMillis = 1000;
+
   private long checkJobsEveryMillis = TimeUnit.MINUTES.toMillis(10);
 
   private long checkSchedulerEverySeconds = 5;
@@ -84,6 +90,12 @@ public class SingularityConfiguration extends Configuration {
 
   private int maxConcurrentUsageCollections = 15;
 
+  @Min(1)
+  private long slaveUsageTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+
+  @Min(1)
+  private long usageCollectionDeadlineMillis = TimeUnit.MINUTES.toMillis(1);
+
   private boolean shuffleTasksForOverloadedSlaves = false; // recommended 'true' when oversubscribing resources for larger clusters
 
   private double shuffleTasksWhenSlaveMemoryUtilizationPercentageExceeds = 0.82;
@@ -116,6 +128,16 @@ public class SingularityConfiguration extends Configuration {
 
   private boolean compressLargeDataObjects = true;
 
+  @JsonProperty("zookeeperCompression")
+  @Valid
+  private ZooKeeperCompressionConfiguration zooKeeperCompressionConfiguration = new ZooKeeperCompressionConfiguration();
+
+  /**
+   * Serialize objects stored in ZooKeeper as Smile (binary JSON) rather than JSON. Both are always readable, only enable
+   * this once every Singularity instance in the cluster can read Smile.
+   */
+  private boolean writeZkDataAsSmile = false;
+
   private long considerTaskHealthyAfterRunningForSeconds = 5;
 
   private int fastFailureCooldownCount = 3;
@@ -235,6 +257,11 @@ public class SingularityConfiguration extends Configuration {
 
   private int maxHealthcheckResponseBodyBytes = 8192;
 
+  private int maxConcurrentHealthchecksPerHost = 20;
+
+  @Min(1)
+  private int healthcheckResultBatchSize = 100;
+
   private int maxQueuedUpdatesPerWebhook = 50;
 
   private int maxTasksPerOffer = 0;
@@ -269,6 +296,12 @@ public class SingularityConfiguration extends Configuration {
 
   private int maxPendingImmediatePersists = 200;
 
+  @Min(1)
+  private int historyPersisterBatchSize = 100;
+
+  @Min(1)
+  private int historyPersisterMaxBatchesInFlight = 4;
+
   private long reconcileSlavesEveryMinutes = TimeUnit.HOURS.toMinutes(1);
 
   private long cleanInactiveHostListEveryHours = 24;
@@ -312,6 +345,25 @@ public class SingularityConfiguration extends Configuration {
 
   private long zookeeperAsyncTimeout = 5000;
 
+  private int zookeeperAsyncMaxInFlight = 1000;
+
+  @Min(1)
+  private int leaderCacheLoadThreads = 8;
+
+  @Min(1)
+  private int drainPendingQueueThreads = 8;
+
+  @Min(1)
+  private int checkDeploysThreads = 8;
+
+  @Min(1)
+  private int cleanupThreads = 8;
+
+  private boolean enablePollerWakeups = true;
+
+  @Min(0)
+  private long minMillisBetweenPollerWakeups = 1000;
+
   private int coreThreadpoolSize = 8;
 
   private long threadpoolShutdownDelayInSeconds = 10;
@@ -800,6 +852,22 @@ public class SingularityConfiguration extends Configuration {
     return maxHealthcheckResponseBodyBytes;
   }
 
+  public int getMaxConcurrentHealthchecksPerHost() {
+    return maxConcurrentHealthchecksPerHost;
+  }
+
+  public void setMaxConcurrentHealthchecksPerHost(int maxConcurrentHealthchecksPerHost) {
+    this.maxConcurrentHealthchecksPerHost = maxConcurrentHealthchecksPerHost;
+  }
+
+  public int getHealthcheckResultBatchSize() {
+    return healthcheckResultBatchSize;
+  }
+
+  public void setHealthcheckResultBatchSize(int healthcheckResultBatchSize) {
+    this.healthcheckResultBatchSize = healthcheckResultBatchSize;
+  }
+
   public int getMaxQueuedUpdatesPerWebhook() {
     return maxQueuedUpdatesPerWebhook;
   }
@@ -911,6 +979,14 @@ public class SingularityConfiguration extends Configuration {
     return zookeeperAsyncTimeout;
   }
 
+  public int getZookeeperAsyncMaxInFlight() {
+    return zookeeperAsyncMaxInFlight;
+  }
+
+  public int getLeaderCacheLoadThreads() {
+    return leaderCacheLoadThreads;
+  }
+
   public ZooKeeperConfiguration getZooKeeperConfiguration() {
     return zooKeeperConfiguration;
   }
@@ -935,6 +1011,10 @@ public class SingularityConfiguration extends Configuration {
     return compressLargeDataObjects;
   }
 
+  public boolean isWriteZkDataAsSmile() {
+    return writeZkDataAsSmile;
+  }
+
   public boolean isCreateDeployIds() {
     return createDeployIds;
   }
@@ -988,6 +1068,22 @@ public class SingularityConfiguration extends Configuration {
     this.checkReconcileWhenRunningEveryMillis = checkReconcileWhenRunningEveryMillis;
   }
 
+  public int getReconcileTaskBatchSize() {
+    return reconcileTaskBatchSize;
+  }
+
+  public void setReconcileTaskBatchSize(int reconcileTaskBatchSize) {
+    this.reconcileTaskBatchSize = reconcileTaskBatchSize;
+  }
+
+  public long getReconcileTaskBatchIntervalMillis() {
+    return reconcileTaskBatchIntervalMillis;
+  }
+
+  public void setReconcileTaskBatchIntervalMillis(long reconcileTaskBatchIntervalMillis) {
+    this.reconcileTaskBatchIntervalMillis = reconcileTaskBatchIntervalMillis;
+  }
+
   public void setCheckJobsEveryMillis(long checkJobsEveryMillis) {
     this.checkJobsEveryMillis = checkJobsEveryMillis;
   }
@@ -1020,6 +1116,10 @@ public class SingularityConfiguration extends Configuration {
     this.compressLargeDataObjects = compressLargeDataObjects;
   }
 
+  public void setWriteZkDataAsSmile(boolean writeZkDataAsSmile) {
+    this.writeZkDataAsSmile = writeZkDataAsSmile;
+  }
+
   public void setConsiderTaskHealthyAfterRunningForSeconds(long considerTaskHealthyAfterRunningForSeconds) {
     this.considerTaskHealthyAfterRunningForSeconds = considerTaskHealthyAfterRunningForSeconds;
   }
@@ -1210,6 +1310,22 @@ public class SingularityConfiguration extends Configuration {
     this.maxPendingImmediatePersists = maxPendingImmediatePersists;
   }
 
+  public int getHistoryPersisterBatchSize() {
+    return historyPersisterBatchSize;
+  }
+
+  public void setHistoryPersisterBatchSize(int historyPersisterBatchSize) {
+    this.historyPersisterBatchSize = historyPersisterBatchSize;
+  }
+
+  public int getHistoryPersisterMaxBatchesInFlight() {
+    return historyPersisterMaxBatchesInFlight;
+  }
+
+  public void setHistoryPersisterMaxBatchesInFlight(int historyPersisterMaxBatchesInFlight) {
+    this.historyPersisterMaxBatchesInFlight = historyPersisterMaxBatchesInFlight;
+  }
+
   public void setS3Configuration(S3Configuration s3Configuration) {
     this.s3Configuration = s3Configuration;
   }
@@ -1263,6 +1379,54 @@ public class SingularityConfiguration extends Configuration {
     this.zookeeperAsyncTimeout = zookeeperAsyncTimeout;
   }
 
+  public void setZookeeperAsyncMaxInFlight(int zookeeperAsyncMaxInFlight) {
+    this.zookeeperAsyncMaxInFlight = zookeeperAsyncMaxInFlight;
+  }
+
+  public void setLeaderCacheLoadThreads(int leaderCacheLoadThreads) {
+    this.leaderCacheLoadThreads = leaderCacheLoadThreads;
+  }
+
+  public int getDrainPendingQueueThreads() {
+    return drainPendingQueueThreads;
+  }
+
+  public void setDrainPendingQueueThreads(int drainPendingQueueThreads) {
+    this.drainPendingQueueThreads = drainPendingQueueThreads;
+  }
+
+  public int getCheckDeploysThreads() {
+    return checkDeploysThreads;
+  }
+
+  public void setCheckDeploysThreads(int checkDeploysThreads) {
+    this.checkDeploysThreads = checkDeploysThreads;
+  }
+
+  public int getCleanupThreads() {
+    return cleanupThreads;
+  }
+
+  public void setCleanupThreads(int cleanupThreads) {
+    this.cleanupThreads = cleanupThreads;
+  }
+
+  public boolean isEnablePollerWakeups() {
+    return enablePollerWakeups;
+  }
+
+  public void setEnablePollerWakeups(boolean enablePollerWakeups) {
+    this.enablePollerWakeups = enablePollerWakeups;
+  }
+
+  public long getMinMillisBetweenPollerWakeups() {
+    return minMillisBetweenPollerWakeups;
+  }
+
+  public void setMinMillisBetweenPollerWakeups(long minMillisBetweenPollerWakeups) {
+    this.minMillisBetweenPollerWakeups = minMillisBetweenPollerWakeups;
+  }
+
   public void setZooKeeperConfiguration(ZooKeeperConfiguration zooKeeperConfiguration) {
     this.zooKeeperConfiguration = zooKeeperConfiguration;
   }
@@ -1376,6 +1540,14 @@ public class SingularityConfiguration extends Configuration {
     this.historyPurgingConfiguration = historyPurgingConfiguration;
   }
 
+  public ZooKeeperCompressionConfiguration getZooKeeperCompressionConfiguration() {
+    return zooKeeperCompressionConfiguration;
+  }
+
+  public void setZooKeeperCompressionConfiguration(ZooKeeperCompressionConfiguration zooKeeperCompressionConfiguration) {
+    this.zooKeeperCompressionConfiguration = zooKeeperCompressionConfiguration;
+  }
+
   public Map<String, List<String>> getReserveSlavesWithAttributes() {
     return reserveSlavesWithAttributes;
   }
@@ -1537,6 +1709,22 @@ public class SingularityConfiguration extends Configuration {
     this.maxConcurrentUsageCollections = maxConcurrentUsageCollections;
   }
 
+  public long getSlaveUsageTimeoutMillis() {
+    return slaveUsageTimeoutMillis;
+  }
+
+  public void setSlaveUsageTimeoutMillis(long slaveUsageTimeoutMillis) {
+    this.slaveUsageTimeoutMillis = slaveUsageTimeoutMillis;
+  }
+
+  public long getUsageCollectionDeadlineMillis() {
+    return usageCollectionDeadlineMillis;
+  }
+
+  public void setUsageCollectionDeadlineMillis(long usageCollectionDeadlineMillis) {
+    this.usageCollectionDeadlineMillis = usageCollectionDeadlineMillis;
+  }
+
   public int getMaxTasksToShufflePerHost() {
     return maxTasksToShufflePerHost;
   }
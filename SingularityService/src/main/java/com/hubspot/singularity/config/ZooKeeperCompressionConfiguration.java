@@ -0,0 +1,90 @@
+package com.hubspot.singularity.config;
+
+import java.util.Collections;
+import java.util.Map;
+
+import javax.validation.constraints.Min;
+
+import com.google.common.base.Optional;
+
+public class ZooKeeperCompressionConfiguration {
+
+  public enum Codec {
+    SNAPPY, ZSTD;
+  }
+
+  /**
+   * Write compressed objects in the framed format (header byte naming the codec). Framed and legacy payloads are always
+   * readable, only enable this once every Singularity instance in the cluster can read the framed format.
+   */
+  private boolean writeFramedFormat = false;
+
+  private Codec codec = Codec.SNAPPY;
+
+  /**
+   * Serialized objects smaller than this are stored uncompressed (framed format only)
+   */
+  @Min(0)
+  private int minimumBytesToCompress = 512;
+
+  /**
+   * Per-transcoder override of minimumBytesToCompress, keyed by the simple class name of the stored object (e.g. SingularityTaskHistory)
+   */
+  private Map<String, Integer> minimumBytesToCompressOverrides = Collections.emptyMap();
+
+  private int zstdLevel = 3;
+
+  /**
+   * Path to a zstd dictionary (e.g. trained with `zstd --train`) used for all ZSTD compressed objects. Must stay readable
+   * for as long as objects compressed with it are still stored.
+   */
+  private Optional<String> zstdDictionaryFile = Optional.absent();
+
+  public boolean isWriteFramedFormat() {
+    return writeFramedFormat;
+  }
+
+  public void setWriteFramedFormat(boolean writeFramedFormat) {
+    this.writeFramedFormat = writeFramedFormat;
+  }
+
+  public Codec getCodec() {
+    return codec;
+  }
+
+  public void setCodec(Codec codec) {
+    this.codec = codec;
+  }
+
+  public int getMinimumBytesToCompress() {
+    return minimumBytesToCompress;
+  }
+
+  public void setMinimumBytesToCompress(int minimumBytesToCompress) {
+    this.minimumBytesToCompress = minimumBytesToCompress;
+  }
+
+  public Map<String, Integer> getMinimumBytesToCompressOverrides() {
+    return minimumBytesToCompressOverrides;
+  }
+
+  public void setMinimumBytesToCompressOverrides(Map<String, Integer> minimumBytesToCompressOverrides) {
+    this.minimumBytesToCompressOverrides = minimumBytesToCompressOverrides;
+  }
+
+  public int getZstdLevel() {
+    return zstdLevel;
+  }
+
+  public void setZstdLevel(int zstdLevel) {
+    this.zstdLevel = zstdLevel;
+  }
+
+  public Optional<String> getZstdDictionaryFile() {
+    return zstdDictionaryFile;
+  }
+
+  public void setZstdDictionaryFile(Optional<String> zstdDictionaryFile) {
+    this.zstdDictionaryFile = zstdDictionaryFile;
+  }
+}
@@ -4,13 +4,17 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.api.BackgroundCallback;
@@ -21,6 +25,7 @@ import org.slf4j.LoggerFactory;
 
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hubspot.singularity.SingularityId;
@@ -48,111 +53,75 @@ public abstract class CuratorAsyncManager extends CuratorManager {
 
   }
 
-  private <T> List<T> getAsyncChildrenThrows(final String parent, final Transcoder<T> transcoder) throws Exception {
-    try {
-      List<String> children = getChildren(parent);
-      final List<String> paths = Lists.newArrayListWithCapacity(children.size());
-
-      for (String child : children) {
-        paths.add(ZKPaths.makePath(parent, child));
-      }
-
-      List<T> result = new ArrayList<>(getAsyncThrows(parent, paths, transcoder, Optional.absent()).values());
+  /**
+   * Handles the result of a single background call. Runs on the curator event thread.
+   */
+  private interface EventHandler {
+    void handle(CuratorEvent event) throws Exception;
+  }
 
+  private <T> List<T> getAsyncChildrenThrows(final String parent, final Transcoder<T> transcoder) throws Exception {
+    List<String> children = getChildren(parent);
+    final List<String> paths = Lists.newArrayListWithCapacity(children.size());
 
-      return result;
-    } catch (Throwable t) {
-      throw t;
+    for (String child : children) {
+      paths.add(ZKPaths.makePath(parent, child));
     }
+
+    return new ArrayList<>(getAsyncThrows(parent, paths, transcoder, Optional.absent()).values());
   }
 
   private <T> Map<String, T> getAsyncThrows(final String pathNameForLogs, final Collection<String> paths, final Transcoder<T> transcoder, final Optional<ZkCache<T>> cache) throws Exception {
-    final Map<String, T> objects = new HashMap<>(paths.size());
-
-    if (cache.isPresent()) {
-      for (Iterator<String> itr = paths.iterator(); itr.hasNext();) {
-        final String path = itr.next();
-        final Optional<T> fromCache = cache.get().get(path);
-        if (fromCache.isPresent()) {
-          objects.put(path, fromCache.get());
-          itr.remove();
-        }
-      }
-    }
+    return await(getAsyncFuture(pathNameForLogs, paths, transcoder, cache), pathNameForLogs);
+  }
 
-    if (paths.isEmpty()) {
-      return objects;
-    }
+  private <T> CompletableFuture<Map<String, T>> getAsyncFuture(final String pathNameForLogs, final Collection<String> paths, final Transcoder<T> transcoder, final Optional<ZkCache<T>> cache) {
+    final Map<String, T> objects = Collections.synchronizedMap(new HashMap<>(paths.size()));
+    final List<String> pathsToFetch = new ArrayList<>(paths.size());
 
-    final Map<String, T> synchronizedObjects = Collections.synchronizedMap(objects);
+    for (String path : paths) {
+      final Optional<T> fromCache = cache.isPresent() ? cache.get().get(path) : Optional.absent();
+      if (fromCache.isPresent()) {
+        objects.put(path, fromCache.get());
+      } else {
+        pathsToFetch.add(path);
+      }
+    }
 
-    final CountDownLatch latch = new CountDownLatch(paths.size());
     final AtomicInteger bytes = new AtomicInteger();
 
-    final BackgroundCallback callback = new BackgroundCallback() {
-
-      @Override
-      public void processResult(CuratorFramework client, CuratorEvent event) throws Exception {
-        try {
-          if (event.getData() == null || event.getData().length == 0) {
-            LOG.trace("Expected active node {} but it wasn't there", event.getPath());
-            return;
-          }
-
-          bytes.getAndAdd(event.getData().length);
-          final T object = transcoder.fromBytes(event.getData());
-          synchronizedObjects.put(event.getPath(), object);
-
-          if (cache.isPresent()) {
-            cache.get().set(event.getPath(), object);
-          }
-        } finally {
-          latch.countDown();
-        }
+    return queryAsync(objects, pathsToFetch, (event) -> {
+      if (event.getData() == null || event.getData().length == 0) {
+        LOG.trace("Expected active node {} but it wasn't there", event.getPath());
+        return;
       }
-    };
 
-    return queryAndReturnResultsThrows(objects, paths, callback, latch, pathNameForLogs, bytes, CuratorQueryMethod.GET_DATA);
-  }
+      bytes.getAndAdd(event.getData().length);
+      final T object = transcoder.fromBytes(event.getData());
+      objects.put(event.getPath(), object);
 
-  private void checkLatch(CountDownLatch latch, String path) throws InterruptedException {
-    if (!latch.await(configuration.getZookeeperAsyncTimeout(), TimeUnit.MILLISECONDS)) {
-      throw new IllegalStateException(String.format("Timed out waiting response for objects from %s, waited %s millis", path, configuration.getZookeeperAsyncTimeout()));
-    }
+      if (cache.isPresent()) {
+        cache.get().set(event.getPath(), object);
+      }
+    }, pathNameForLogs, bytes, CuratorQueryMethod.GET_DATA);
   }
 
-  private <T extends SingularityId> List<T> getChildrenAsIdsForParentsThrows(final String pathNameforLogs, final Collection<String> parents, final IdTranscoder<T> idTranscoder) throws Exception {
-    if (parents.isEmpty()) {
-      return Collections.emptyList();
-    }
-
-    final List<T> objects = Lists.newArrayListWithExpectedSize(parents.size());
-    final List<T> synchronizedObjects = Collections.synchronizedList(objects);
+  private <T extends SingularityId> CompletableFuture<List<T>> getChildrenAsIdsForParentsFuture(final String pathNameforLogs, final Collection<String> parents, final IdTranscoder<T> idTranscoder) {
+    final List<T> objects = Collections.synchronizedList(Lists.newArrayListWithExpectedSize(parents.size()));
 
-    final CountDownLatch latch = new CountDownLatch(parents.size());
-
-    final BackgroundCallback callback = new BackgroundCallback() {
-
-      @Override
-      public void processResult(CuratorFramework client, CuratorEvent event) throws Exception {
-        try {
-          if (event.getChildren() == null || event.getChildren().size() == 0) {
-            LOG.trace("Expected children for node {} - but found none", event.getPath());
-            return;
-          }
-          synchronizedObjects.addAll(Lists.transform(event.getChildren(), Transcoders.getFromStringFunction(idTranscoder)));
-        } finally {
-          latch.countDown();
-        }
+    return queryAsync(objects, parents, (event) -> {
+      if (event.getChildren() == null || event.getChildren().size() == 0) {
+        LOG.trace("Expected children for node {} - but found none", event.getPath());
+        return;
       }
-    };
-
-    return queryAndReturnResultsThrows(synchronizedObjects, parents, callback, latch, pathNameforLogs, new AtomicInteger(), CuratorQueryMethod.GET_CHILDREN);
+      objects.addAll(Lists.transform(event.getChildren(), Transcoders.getFromStringFunction(idTranscoder)));
+    }, pathNameforLogs, new AtomicInteger(), CuratorQueryMethod.GET_CHILDREN);
   }
 
+
   protected <T extends SingularityId> List<T> getChildrenAsIdsForParents(final String pathNameforLogs, final Collection<String> parents, final IdTranscoder<T> idTranscoder) {
     try {
-      return getChildrenAsIdsForParentsThrows(pathNameforLogs, parents, idTranscoder);
+      return await(getChildrenAsIdsForParentsFuture(pathNameforLogs, parents, idTranscoder), pathNameforLogs);
     } catch (Throwable t) {
       throw new RuntimeException(t);
     }
@@ -163,29 +132,13 @@ public abstract class CuratorAsyncManager extends CuratorManager {
   }
 
   private <T extends SingularityId> List<T> existsThrows(final String pathNameforLogs, final Collection<String> paths, final IdTranscoder<T> idTranscoder) throws Exception {
-    if (paths.isEmpty()) {
-      return Collections.emptyList();
-    }
-
-    final List<T> objects = Lists.newArrayListWithCapacity(paths.size());
+    final List<T> objects = Collections.synchronizedList(Lists.newArrayListWithCapacity(paths.size()));
 
-    final CountDownLatch latch = new CountDownLatch(paths.size());
-
-    final BackgroundCallback callback = new BackgroundCallback() {
-
-      @Override
-      public void processResult(CuratorFramework client, CuratorEvent event) throws Exception {
-        try {
-          if (event.getStat() != null) {
-            objects.add(Transcoders.getFromStringFunction(idTranscoder).apply(ZKPaths.getNodeFromPath(event.getPath())));
-          }
-        } finally {
-          latch.countDown();
-        }
+    return await(queryAsync(objects, paths, (event) -> {
+      if (event.getStat() != null) {
+        objects.add(Transcoders.getFromStringFunction(idTranscoder).apply(ZKPaths.getNodeFromPath(event.getPath())));
       }
-    };
-
-    return queryAndReturnResultsThrows(objects, paths, callback, latch, pathNameforLogs, new AtomicInteger(), CuratorQueryMethod.GET_DATA);
+    }, pathNameforLogs, new AtomicInteger(), CuratorQueryMethod.GET_DATA), pathNameforLogs);
   }
 
   protected <T extends SingularityId> List<T> exists(final String pathNameForLogs, final Collection<String> paths, final IdTranscoder<T> idTranscoder) {
@@ -197,29 +150,13 @@ public abstract class CuratorAsyncManager extends CuratorManager {
   }
 
   private <T extends SingularityId> List<T> notExistsThrows(final String pathNameforLogs, final Map<String, T> pathsMap) throws Exception {
-    if (pathsMap.isEmpty()) {
-      return Collections.emptyList();
-    }
-
-    final List<T> objects = Lists.newArrayListWithCapacity(pathsMap.size());
-
-    final CountDownLatch latch = new CountDownLatch(pathsMap.size());
+    final List<T> objects = Collections.synchronizedList(Lists.newArrayListWithCapacity(pathsMap.size()));
 
-    final BackgroundCallback callback = new BackgroundCallback() {
-
-      @Override
-      public void processResult(CuratorFramework client, CuratorEvent event) throws Exception {
-        try {
-          if (event.getStat() == null) {
-            objects.add(pathsMap.get(event.getPath()));
-          }
-        } finally {
-          latch.countDown();
-        }
+    return await(queryAsync(objects, pathsMap.keySet(), (event) -> {
+      if (event.getStat() == null) {
+        objects.add(pathsMap.get(event.getPath()));
       }
-    };
-
-    return queryAndReturnResultsThrows(objects, pathsMap.keySet(), callback, latch, pathNameforLogs, new AtomicInteger(), CuratorQueryMethod.CHECK_EXISTS);
+    }, pathNameforLogs, new AtomicInteger(), CuratorQueryMethod.CHECK_EXISTS), pathNameforLogs);
   }
 
   protected <T extends SingularityId> List<T> notExists(final String pathNameForLogs, final Map<String, T> pathsMap) {
@@ -248,7 +185,7 @@ public abstract class CuratorAsyncManager extends CuratorManager {
 
   protected <T> Map<String, T> getAsyncWithPath(final String pathNameForLogs, final Collection<String> paths, final Transcoder<T> transcoder) {
     try {
-      return getAsyncThrows(pathNameForLogs, paths, transcoder, Optional.<ZkCache<T>> absent());
+      return new HashMap<>(getAsyncThrows(pathNameForLogs, paths, transcoder, Optional.<ZkCache<T>> absent()));
     } catch (Throwable t) {
       throw new RuntimeException(t);
     }
@@ -270,30 +207,18 @@ public abstract class CuratorAsyncManager extends CuratorManager {
       }
     }
 
-    final List<T> results = new ArrayList<>();
-    final CountDownLatch latch = new CountDownLatch(allPaths.size());
+    final List<T> results = Collections.synchronizedList(new ArrayList<>());
     final AtomicInteger bytes = new AtomicInteger();
-    final BackgroundCallback callback = new BackgroundCallback() {
-
-      @Override
-      public void processResult(CuratorFramework client, CuratorEvent event) throws Exception {
-        try {
-          if (event.getData() == null || event.getData().length == 0) {
-            LOG.trace("Expected active node {} but it wasn't there", event.getPath());
-            return;
-          }
-          bytes.getAndAdd(event.getData().length);
-
-          final T object = transcoder.fromBytes(event.getData());
-
-          results.add(object);
-        } finally {
-          latch.countDown();
-        }
+
+    return await(queryAsync(results, allPaths, (event) -> {
+      if (event.getData() == null || event.getData().length == 0) {
+        LOG.trace("Expected active node {} but it wasn't there", event.getPath());
+        return;
       }
-    };
+      bytes.getAndAdd(event.getData().length);
 
-    return queryAndReturnResultsThrows(results, allPaths, callback, latch, pathNameForLogs, bytes, CuratorQueryMethod.GET_DATA);
+      results.add(transcoder.fromBytes(event.getData()));
+    }, pathNameForLogs, bytes, CuratorQueryMethod.GET_DATA), pathNameForLogs);
   }
 
   protected <T> List<T> getAsyncNestedChildrenAsList(final String pathNameForLogs, final List<String> parentPaths, final Transcoder<T> transcoder) {
@@ -313,32 +238,21 @@ public abstract class CuratorAsyncManager extends CuratorManager {
     }
 
     final ConcurrentHashMap<T, List<Q>> resultsMap = new ConcurrentHashMap<>();
-    final CountDownLatch latch = new CountDownLatch(allPathsMap.size());
     final AtomicInteger bytes = new AtomicInteger();
-    final BackgroundCallback callback = new BackgroundCallback() {
-
-      @Override
-      public void processResult(CuratorFramework client, CuratorEvent event) throws Exception {
-        try {
-          if (event.getData() == null || event.getData().length == 0) {
-            LOG.trace("Expected active node {} but it wasn't there", event.getPath());
-            return;
-          }
-          bytes.getAndAdd(event.getData().length);
-
-          final Q object = transcoder.fromBytes(event.getData());
-
-          if (allPathsMap.get(event.getPath()) != null) {
-            resultsMap.putIfAbsent(allPathsMap.get(event.getPath()), new ArrayList<Q>());
-            resultsMap.get(allPathsMap.get(event.getPath())).add(object);
-          }
-        } finally {
-          latch.countDown();
-        }
+
+    return await(queryAsync(resultsMap, allPathsMap.keySet(), (event) -> {
+      if (event.getData() == null || event.getData().length == 0) {
+        LOG.trace("Expected active node {} but it wasn't there", event.getPath());
+        return;
       }
-    };
+      bytes.getAndAdd(event.getData().length);
+
+      final Q object = transcoder.fromBytes(event.getData());
 
-    return queryAndReturnResultsThrows(resultsMap, allPathsMap.keySet(), callback, latch, pathNameForLogs, bytes, CuratorQueryMethod.GET_DATA);
+      if (allPathsMap.get(event.getPath()) != null) {
+        resultsMap.computeIfAbsent(allPathsMap.get(event.getPath()), (k) -> Collections.synchronizedList(new ArrayList<>())).add(object);
+      }
+    }, pathNameForLogs, bytes, CuratorQueryMethod.GET_DATA), pathNameForLogs);
   }
 
   protected <T, Q> Map<T, List<Q>> getAsyncNestedChildDataAsMap(final String pathNameForLogs, final Map<String, T> parentPathsMap, final String subpath, final Transcoder<Q> transcoder) {
@@ -355,26 +269,16 @@ public abstract class CuratorAsyncManager extends CuratorManager {
       allPaths.add(ZKPaths.makePath(parentPath, child));
     }
 
-    final List<T> results = new ArrayList<>();
-    final CountDownLatch latch = new CountDownLatch(allPaths.size());
+    final List<T> results = Collections.synchronizedList(new ArrayList<>());
     final AtomicInteger bytes = new AtomicInteger();
-    final BackgroundCallback callback = new BackgroundCallback() {
-
-      @Override
-      public void processResult(CuratorFramework client, CuratorEvent event) throws Exception {
-        try {
-          event.getChildren().forEach((child) -> {
-            final T object = transcoder.fromString(child);
-            bytes.getAndAdd(child.getBytes().length);
-            results.add(object);
-          });
-        } finally {
-          latch.countDown();
-        }
-      }
-    };
 
-    return queryAndReturnResultsThrows(results, allPaths, callback, latch, pathNameForLogs, bytes, CuratorQueryMethod.GET_CHILDREN);
+    return await(queryAsync(results, allPaths, (event) -> {
+      event.getChildren().forEach((child) -> {
+        final T object = transcoder.fromString(child);
+        bytes.getAndAdd(child.getBytes().length);
+        results.add(object);
+      });
+    }, pathNameForLogs, bytes, CuratorQueryMethod.GET_CHILDREN), pathNameForLogs);
   }
 
   protected <T extends SingularityId> List<T> getAsyncNestedChildIdsAsList(final String pathNameForLogs, final String parentPath, final IdTranscoder<T> transcoder) {
@@ -385,31 +289,100 @@ public abstract class CuratorAsyncManager extends CuratorManager {
     }
   }
 
-  private <T> T queryAndReturnResultsThrows(final T results, final Collection<String> paths, final BackgroundCallback callback, final CountDownLatch latch, final String pathNameForLogs, final AtomicInteger bytes, final CuratorQueryMethod method) throws Exception {
+  private <T> T await(CompletableFuture<T> future, String pathNameForLogs) throws Exception {
+    try {
+      return future.get(configuration.getZookeeperAsyncTimeout(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException te) {
+      // Stops the query from sending the paths it hasn't got to yet
+      future.cancel(false);
+      throw new IllegalStateException(String.format("Timed out waiting response for objects from %s, waited %s millis", pathNameForLogs, configuration.getZookeeperAsyncTimeout()));
+    } catch (InterruptedException ie) {
+      future.cancel(false);
+      throw ie;
+    } catch (ExecutionException ee) {
+      Throwables.propagateIfPossible(ee.getCause(), Exception.class);
+      throw ee;
+    }
+  }
+
+  /**
+   * Issues one background call per path, keeping at most {@code zookeeperAsyncMaxInFlight} outstanding: each callback
+   * sends the next path, so no thread is parked while the calls are in flight. The future completes with {@code results}
+   * once every path has been answered, or exceptionally if a call could not be sent.
+   */
+  private <R> CompletableFuture<R> queryAsync(final R results, final Collection<String> paths, final EventHandler handler, final String pathNameForLogs, final AtomicInteger bytes, final CuratorQueryMethod method) {
+    if (paths.isEmpty()) {
+      return CompletableFuture.completedFuture(results);
+    }
+
     final long start = System.currentTimeMillis();
+    final BulkQuery<R> query = new BulkQuery<>(results, paths, handler, method);
+    // Callbacks complete on curator's event thread, so capture the caller's recorder here
+    final Optional<LongAdder> bytesReadRecorder = getBytesReadRecorder();
 
-    try {
-      for (String path : paths) {
+    query.future.whenComplete((r, t) -> log(method.operationType, Optional.of(paths.size()), bytes.get() > 0 ? Optional.of(bytes.get()) : Optional.<Integer>absent(), start, pathNameForLogs, bytesReadRecorder));
+
+    final int maxInFlight = Math.max(1, configuration.getZookeeperAsyncMaxInFlight());
+    for (int i = 0; i < Math.min(maxInFlight, paths.size()); i++) {
+      query.sendNext();
+    }
+
+    return query.future;
+  }
+
+  private class BulkQuery<R> implements BackgroundCallback {
+    private final R results;
+    private final Queue<String> remaining;
+    private final AtomicInteger outstanding;
+    private final EventHandler handler;
+    private final CuratorQueryMethod method;
+    private final CompletableFuture<R> future;
+
+    private BulkQuery(R results, Collection<String> paths, EventHandler handler, CuratorQueryMethod method) {
+      this.results = results;
+      this.remaining = new ConcurrentLinkedQueue<>(paths);
+      this.outstanding = new AtomicInteger(paths.size());
+      this.handler = handler;
+      this.method = method;
+      this.future = new CompletableFuture<>();
+    }
+
+    private void sendNext() {
+      final String path = remaining.poll();
+      if (path == null || future.isDone()) {
+        return;
+      }
+
+      try {
         switch (method) {
           case GET_DATA:
-            curator.getData().inBackground(callback).forPath(path);
+            curator.getData().inBackground(this).forPath(path);
             break;
           case GET_CHILDREN:
-            curator.getChildren().inBackground(callback).forPath(path);
+            curator.getChildren().inBackground(this).forPath(path);
             break;
           case CHECK_EXISTS:
           default:
-            curator.checkExists().inBackground(callback).forPath(path);
+            curator.checkExists().inBackground(this).forPath(path);
             break;
         }
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
       }
-
-      checkLatch(latch, pathNameForLogs);
-    } finally {
-      log(method.operationType, Optional.of(paths.size()), bytes.get() > 0 ? Optional.of(bytes.get()) : Optional.<Integer>absent(), start, pathNameForLogs);
     }
 
-    return results;
+    @Override
+    public void processResult(CuratorFramework client, CuratorEvent event) throws Exception {
+      try {
+        handler.handle(event);
+      } finally {
+        if (outstanding.decrementAndGet() == 0) {
+          future.complete(results);
+        } else {
+          sendNext();
+        }
+      }
+    }
   }
 
 }
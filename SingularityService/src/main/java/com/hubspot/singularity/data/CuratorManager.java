@@ -1,16 +1,25 @@
 package com.hubspot.singularity.data;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.api.GetDataBuilder;
 import org.apache.curator.framework.api.ProtectACLCreateModePathAndBytesable;
 import org.apache.curator.framework.api.SetDataBuilder;
+import org.apache.curator.framework.api.transaction.CuratorTransaction;
+import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.apache.zookeeper.KeeperException.NodeExistsException;
+import org.apache.zookeeper.KeeperException.NotEmptyException;
 import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +45,9 @@ public abstract class CuratorManager {
   protected final SingularityConfiguration configuration;
   protected final CuratorFramework curator;
 
+  // Lets a caller attribute the bytes read by the calls it makes on its thread, e.g. per leader cache collection
+  private static final ThreadLocal<LongAdder> BYTES_READ_RECORDER = new ThreadLocal<>();
+
   private final Map<OperationType, Metrics> typeToMetrics;
 
   public CuratorManager(CuratorFramework curator, SingularityConfiguration configuration, MetricRegistry metricRegistry) {
@@ -68,7 +80,24 @@ public abstract class CuratorManager {
     }
   }
 
+  public static <T> T recordBytesRead(LongAdder bytesRead, Supplier<T> supplier) {
+    BYTES_READ_RECORDER.set(bytesRead);
+    try {
+      return supplier.get();
+    } finally {
+      BYTES_READ_RECORDER.remove();
+    }
+  }
+
+  protected static Optional<LongAdder> getBytesReadRecorder() {
+    return Optional.fromNullable(BYTES_READ_RECORDER.get());
+  }
+
   protected void log(OperationType type, Optional<Integer> numItems, Optional<Integer> bytes, long start, String path) {
+    log(type, numItems, bytes, start, path, getBytesReadRecorder());
+  }
+
+  protected void log(OperationType type, Optional<Integer> numItems, Optional<Integer> bytes, long start, String path, Optional<LongAdder> bytesReadRecorder) {
     final String message = String.format("%s (items: %s) (bytes: %s) in %s (%s)", type.name(), numItems.or(1), bytes.or(0), JavaUtils.duration(start), path);
 
     final long duration = System.currentTimeMillis() - start;
@@ -84,6 +113,10 @@ public abstract class CuratorManager {
 
     if (bytes.isPresent()) {
       metrics.bytesMeter.mark(bytes.get());
+
+      if (bytesReadRecorder.isPresent() && type != OperationType.WRITE) {
+        bytesReadRecorder.get().add(bytes.get());
+      }
     }
 
     metrics.itemsMeter.mark(numItems.or(1));
@@ -157,6 +190,84 @@ public abstract class CuratorManager {
     }
   }
 
+  /**
+   * Deletes each path and everything under it in a single transaction, deepest nodes first. If the transaction is
+   * rejected, e.g. because a node was added or removed after the trees were listed, deletes the paths one at a time.
+   *
+   * @return the number of paths that existed and were deleted
+   */
+  protected int delete(Collection<String> paths) {
+    final long start = System.currentTimeMillis();
+    final List<String> nodes = new ArrayList<>();
+    int existing = 0;
+
+    try {
+      for (String path : paths) {
+        if (addNodesDeepestFirst(path, nodes)) {
+          existing++;
+        }
+      }
+      if (nodes.isEmpty()) {
+        return 0;
+      }
+
+      CuratorTransaction transaction = curator.inTransaction();
+      for (String node : nodes) {
+        transaction = transaction.delete().forPath(node).and();
+      }
+      ((CuratorTransactionFinal) transaction).commit();
+      log(OperationType.DELETE, Optional.of(nodes.size()), Optional.absent(), start, paths.iterator().next());
+      return existing;
+    } catch (KeeperException ke) {
+      LOG.debug("Delete of {} paths ({} nodes) was rejected ({}), deleting individually", paths.size(), nodes.size(), ke.code());
+      int deleted = 0;
+      for (String path : paths) {
+        if (delete(path) == SingularityDeleteResult.DELETED) {
+          deleted++;
+        }
+      }
+      return deleted;
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  /**
+   * Deletes the paths that have no children left, a path that has children is kept
+   */
+  protected void deleteIfEmpty(Collection<String> paths) {
+    for (String path : paths) {
+      final long start = System.currentTimeMillis();
+
+      try {
+        curator.delete().forPath(path);
+      } catch (NoNodeException | NotEmptyException e) {
+        LOG.trace("Didn't delete {} ({})", path, e.code());
+      } catch (Throwable t) {
+        throw Throwables.propagate(t);
+      } finally {
+        log(OperationType.DELETE, Optional.absent(), Optional.<Integer> absent(), start, path);
+      }
+    }
+  }
+
+  /**
+   * @return false if the path didn't exist
+   */
+  private boolean addNodesDeepestFirst(String path, List<String> nodes) throws Exception {
+    final List<String> children;
+    try {
+      children = curator.getChildren().forPath(path);
+    } catch (NoNodeException nne) {
+      return false;
+    }
+    for (String child : children) {
+      addNodesDeepestFirst(ZKPaths.makePath(path, child), nodes);
+    }
+    nodes.add(path);
+    return true;
+  }
+
   protected SingularityCreateResult create(String path) {
     return create(path, Optional.<byte[]>absent());
   }
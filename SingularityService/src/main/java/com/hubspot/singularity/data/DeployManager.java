@@ -3,6 +3,7 @@ package com.hubspot.singularity.data;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.utils.ZKPaths;
@@ -37,6 +38,8 @@ import com.hubspot.singularity.data.transcoders.IdTranscoder;
 import com.hubspot.singularity.data.transcoders.Transcoder;
 import com.hubspot.singularity.event.SingularityEventListener;
 import com.hubspot.singularity.scheduler.SingularityLeaderCache;
+import com.hubspot.singularity.scheduler.SingularityPollerWakeups;
+import com.hubspot.singularity.scheduler.SingularityPollerWakeups.WakeupType;
 
 @Singleton
 public class DeployManager extends CuratorAsyncManager {
@@ -56,6 +59,7 @@ public class DeployManager extends CuratorAsyncManager {
 
   private final ZkCache<SingularityDeploy> deploysCache;
   private final SingularityLeaderCache leaderCache;
+  private final SingularityPollerWakeups wakeups;
 
   private static final String DEPLOY_ROOT = "/deploys";
 
@@ -77,7 +81,8 @@ public class DeployManager extends CuratorAsyncManager {
   public DeployManager(CuratorFramework curator, SingularityConfiguration configuration, MetricRegistry metricRegistry, SingularityEventListener singularityEventListener, Transcoder<SingularityDeploy> deployTranscoder,
                        Transcoder<SingularityRequestDeployState> requestDeployStateTranscoder, Transcoder<SingularityPendingDeploy> pendingDeployTranscoder, Transcoder<SingularityDeployMarker> deployMarkerTranscoder,
                        Transcoder<SingularityDeployStatistics> deployStatisticsTranscoder, Transcoder<SingularityDeployResult> deployStateTranscoder, IdTranscoder<SingularityDeployKey> deployKeyTranscoder,
-                       Transcoder<SingularityUpdatePendingDeployRequest> updateRequestTranscoder, ZkCache<SingularityDeploy> deploysCache, SingularityLeaderCache leaderCache) {
+                       Transcoder<SingularityUpdatePendingDeployRequest> updateRequestTranscoder, ZkCache<SingularityDeploy> deploysCache, SingularityLeaderCache leaderCache,
+                       SingularityPollerWakeups wakeups) {
     super(curator, configuration, metricRegistry);
 
     this.singularityEventListener = singularityEventListener;
@@ -91,6 +96,7 @@ public class DeployManager extends CuratorAsyncManager {
     this.updateRequestTranscoder = updateRequestTranscoder;
     this.deploysCache = deploysCache;
     this.leaderCache = leaderCache;
+    this.wakeups = wakeups;
   }
 
   public List<SingularityDeployKey> getDeployIdsFor(String requestId) {
@@ -314,7 +320,9 @@ public class DeployManager extends CuratorAsyncManager {
   }
 
   public SingularityCreateResult createCancelDeployRequest(SingularityDeployMarker deployMarker) {
-    return create(getCancelDeployPath(deployMarker), deployMarker, deployMarkerTranscoder);
+    SingularityCreateResult result = create(getCancelDeployPath(deployMarker), deployMarker, deployMarkerTranscoder);
+    wakeups.wakeUp(WakeupType.DEPLOY);
+    return result;
   }
 
   public SingularityDeleteResult deleteRequestDeployState(String requestId) {
@@ -328,6 +336,15 @@ public class DeployManager extends CuratorAsyncManager {
     return delete(getDeployParentPath(deployKey.getRequestId(), deployKey.getDeployId()));
   }
 
+  /**
+   * @return the number of deploys that had history to delete
+   */
+  public int deleteDeployHistories(List<SingularityDeployKey> deployKeys) {
+    return delete(deployKeys.stream()
+        .map((deployKey) -> getDeployParentPath(deployKey.getRequestId(), deployKey.getDeployId()))
+        .collect(Collectors.toList()));
+  }
+
   public SingularityDeleteResult deletePendingDeploy(String requestId) {
     return delete(getPendingDeployPath(requestId));
   }
@@ -338,7 +355,9 @@ public class DeployManager extends CuratorAsyncManager {
   }
 
   public SingularityCreateResult createPendingDeploy(SingularityPendingDeploy pendingDeploy) {
-    return create(getPendingDeployPath(pendingDeploy.getDeployMarker().getRequestId()), pendingDeploy, pendingDeployTranscoder);
+    SingularityCreateResult result = create(getPendingDeployPath(pendingDeploy.getDeployMarker().getRequestId()), pendingDeploy, pendingDeployTranscoder);
+    wakeups.wakeUp(WakeupType.DEPLOY);
+    return result;
   }
 
   public SingularityCreateResult savePendingDeploy(SingularityPendingDeploy pendingDeploy) {
@@ -364,7 +383,9 @@ public class DeployManager extends CuratorAsyncManager {
   }
 
   public SingularityCreateResult createUpdatePendingDeployRequest(SingularityUpdatePendingDeployRequest updateRequest) {
-    return create(getUpdatePendingDeployPath(updateRequest), updateRequest, updateRequestTranscoder);
+    SingularityCreateResult result = create(getUpdatePendingDeployPath(updateRequest), updateRequest, updateRequestTranscoder);
+    wakeups.wakeUp(WakeupType.DEPLOY);
+    return result;
   }
 
   public SingularityDeleteResult deleteUpdatePendingDeployRequest(SingularityUpdatePendingDeployRequest updateRequest) {
@@ -393,8 +414,10 @@ public class DeployManager extends CuratorAsyncManager {
     return delete(getRequestDeployPath(requestId));
   }
 
-  public void activateLeaderCache() {
+  public int activateLeaderCache() {
     final List<String> requestIds = getChildren(BY_REQUEST_ROOT);
-    leaderCache.cacheRequestDeployStates(fetchDeployStatesByRequestIds(requestIds));
+    final Map<String, SingularityRequestDeployState> deployStates = fetchDeployStatesByRequestIds(requestIds);
+    leaderCache.cacheRequestDeployStates(deployStates);
+    return deployStates.size();
   }
 }
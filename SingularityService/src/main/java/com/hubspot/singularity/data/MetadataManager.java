@@ -22,6 +22,7 @@ public class MetadataManager extends CuratorManager {
 
   private static final String ROOT_PATH = "/metadata";
   private static final String ZK_DATA_VERSION_PATH = ZKPaths.makePath(ROOT_PATH, "ZK_DATA_VERSION");
+  private static final String SMILE_TASK_DATA_REWRITTEN_PATH = ZKPaths.makePath(ROOT_PATH, "SMILE_TASK_DATA_REWRITTEN");
   private static final String MAIL_HISTORY_PATH = ROOT_PATH + "/mails";
   private static final String MAIL_HISTORY_RECORDS_KEY = "timestamps";
   private static final String MAIL_IN_COOLDOWN_MARKER_KEY = "COOLDOWN_ACTIVE";
@@ -59,6 +60,18 @@ public class MetadataManager extends CuratorManager {
     save(ZK_DATA_VERSION_PATH, Optional.of(newVersion.getBytes(UTF_8)));
   }
 
+  public boolean isSmileTaskDataRewritten() {
+    return exists(SMILE_TASK_DATA_REWRITTEN_PATH);
+  }
+
+  public void setSmileTaskDataRewritten() {
+    save(SMILE_TASK_DATA_REWRITTEN_PATH, Optional.of(Long.toString(System.currentTimeMillis()).getBytes(UTF_8)));
+  }
+
+  public void clearSmileTaskDataRewritten() {
+    delete(SMILE_TASK_DATA_REWRITTEN_PATH);
+  }
+
   public void saveMailRecord(SingularityRequest request, SingularityEmailType emailType) {
     create(getMailRecordPathForRequestAndTypeAndTime(request.getId(), emailType.name(), Long.toString(System.currentTimeMillis())));
   }
@@ -42,8 +42,10 @@ public class RackManager extends AbstractMachineManager<SingularityRack> {
     return RACK_ROOT;
   }
 
-  public void activateLeaderCache() {
-    leaderCache.cacheRacks(getObjectsNoCache(getRoot()));
+  public int activateLeaderCache() {
+    List<SingularityRack> racks = getObjectsNoCache(getRoot());
+    leaderCache.cacheRacks(racks);
+    return racks.size();
   }
 
   @Override
@@ -43,6 +43,8 @@ import com.hubspot.singularity.expiring.SingularityExpiringRequestActionParent;
 import com.hubspot.singularity.expiring.SingularityExpiringScale;
 import com.hubspot.singularity.expiring.SingularityExpiringSkipHealthchecks;
 import com.hubspot.singularity.scheduler.SingularityLeaderCache;
+import com.hubspot.singularity.scheduler.SingularityPollerWakeups;
+import com.hubspot.singularity.scheduler.SingularityPollerWakeups.WakeupType;
 
 @Singleton
 public class RequestManager extends CuratorAsyncManager {
@@ -59,6 +61,7 @@ public class RequestManager extends CuratorAsyncManager {
 
   private final SingularityWebCache webCache;
   private final SingularityLeaderCache leaderCache;
+  private final SingularityPollerWakeups wakeups;
 
   private static final String REQUEST_ROOT = "/requests";
 
@@ -88,7 +91,7 @@ public class RequestManager extends CuratorAsyncManager {
                         Transcoder<SingularityRequestCleanup> requestCleanupTranscoder, Transcoder<SingularityRequestWithState> requestTranscoder, Transcoder<SingularityRequestLbCleanup> requestLbCleanupTranscoder,
                         Transcoder<SingularityPendingRequest> pendingRequestTranscoder, Transcoder<SingularityRequestHistory> requestHistoryTranscoder, Transcoder<SingularityExpiringBounce> expiringBounceTranscoder,
                         Transcoder<SingularityExpiringScale> expiringScaleTranscoder, Transcoder<SingularityExpiringPause> expiringPauseTranscoder, Transcoder<SingularityExpiringSkipHealthchecks> expiringSkipHealthchecksTranscoder,
-                        SingularityWebCache webCache, SingularityLeaderCache leaderCache) {
+                        SingularityWebCache webCache, SingularityLeaderCache leaderCache, SingularityPollerWakeups wakeups) {
     super(curator, configuration, metricRegistry);
     this.requestTranscoder = requestTranscoder;
     this.requestCleanupTranscoder = requestCleanupTranscoder;
@@ -105,6 +108,7 @@ public class RequestManager extends CuratorAsyncManager {
         );
 
     this.leaderCache = leaderCache;
+    this.wakeups = wakeups;
     this.webCache = webCache;
   }
 
@@ -172,10 +176,31 @@ public class RequestManager extends CuratorAsyncManager {
     return delete(getHistoryParentPath(requestId));
   }
 
+  /**
+   * @return the number of requests that had history to delete
+   */
+  public int deleteHistoryParents(List<String> requestIds) {
+    return delete(requestIds.stream().map(this::getHistoryParentPath).collect(Collectors.toList()));
+  }
+
   public SingularityDeleteResult deleteHistoryItem(SingularityRequestHistory history) {
     return delete(getHistoryPath(history));
   }
 
+  /**
+   * @return the number of history items that were still in zk
+   */
+  public int deleteHistoryItems(List<SingularityRequestHistory> histories) {
+    return delete(histories.stream().map(this::getHistoryPath).collect(Collectors.toList()));
+  }
+
+  /**
+   * Deletes the history parents that have no history items left
+   */
+  public void deleteEmptyHistoryParents(List<String> requestIds) {
+    deleteIfEmpty(requestIds.stream().map(this::getHistoryParentPath).collect(Collectors.toList()));
+  }
+
   public boolean cleanupRequestExists(String requestId) {
     for (RequestCleanupType type : RequestCleanupType.values()) {
       if (checkExists(getCleanupPath(requestId, type)).isPresent()) {
@@ -214,7 +239,9 @@ public class RequestManager extends CuratorAsyncManager {
   }
 
   public SingularityCreateResult createCleanupRequest(SingularityRequestCleanup cleanupRequest) {
-    return create(getCleanupPath(cleanupRequest.getRequestId(), cleanupRequest.getCleanupType()), cleanupRequest, requestCleanupTranscoder);
+    SingularityCreateResult result = create(getCleanupPath(cleanupRequest.getRequestId(), cleanupRequest.getCleanupType()), cleanupRequest, requestCleanupTranscoder);
+    wakeups.wakeUp(WakeupType.CLEANUP);
+    return result;
   }
 
   public SingularityCreateResult update(SingularityRequest request, long timestamp, Optional<String> user, Optional<String> message) {
@@ -250,11 +277,13 @@ public class RequestManager extends CuratorAsyncManager {
         // Fresh pending requests take priority over STARTUP-type pending requests (or if the pending request we originally found is gone, we'll go ahead and do the write now)
         set(getPendingPath(pendingRequest), pendingRequest, pendingRequestTranscoder);
         LOG.info("{} added to pending queue, overwriting an existing SingularityPendingRequest of type STARTUP. Previous pending request was {}", existingPendingRequest, result);
+        wakeups.wakeUp(WakeupType.PENDING_REQUEST);
         return result;
       }
     }
 
     LOG.info("{} added to pending queue with result: {}", pendingRequest, result);
+    wakeups.wakeUp(WakeupType.PENDING_REQUEST);
 
     return result;
   }
@@ -384,8 +413,10 @@ public class RequestManager extends CuratorAsyncManager {
     return getRequests(useWebCache, RequestState.FINISHED);
   }
 
-  public void activateLeaderCache() {
-    leaderCache.cacheRequests(fetchRequests());
+  public int activateLeaderCache() {
+    List<SingularityRequestWithState> requests = fetchRequests();
+    leaderCache.cacheRequests(requests);
+    return requests.size();
   }
 
   public List<SingularityRequestWithState> getRequests() {
@@ -46,8 +46,10 @@ public class SlaveManager extends AbstractMachineManager<SingularitySlave> {
     return SLAVE_ROOT;
   }
 
-  public void activateLeaderCache() {
-    leaderCache.cacheSlaves(getObjectsNoCache(getRoot()));
+  public int activateLeaderCache() {
+    List<SingularitySlave> slaves = getObjectsNoCache(getRoot());
+    leaderCache.cacheSlaves(slaves);
+    return slaves.size();
   }
 
   @Override
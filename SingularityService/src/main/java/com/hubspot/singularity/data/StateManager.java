@@ -1,10 +1,12 @@
 package com.hubspot.singularity.data;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
@@ -26,6 +28,8 @@ import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.hubspot.mesos.CounterMap;
 import com.hubspot.mesos.JavaUtils;
+import com.hubspot.singularity.MachineState;
+import com.hubspot.singularity.RequestState;
 import com.hubspot.singularity.RequestType;
 import com.hubspot.singularity.SingularityCreateResult;
 import com.hubspot.singularity.SingularityDeployMarker;
@@ -45,6 +49,7 @@ import com.hubspot.singularity.SingularityTaskReconciliationStatistics;
 import com.hubspot.singularity.auth.datastore.SingularityAuthDatastore;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.transcoders.Transcoder;
+import com.hubspot.singularity.scheduler.SingularityLeaderCache;
 
 @Singleton
 public class StateManager extends CuratorManager {
@@ -68,6 +73,12 @@ public class StateManager extends CuratorManager {
   private final PriorityManager priorityManager;
   private final AtomicLong statusUpdateDeltaAvg;
   private final AtomicLong lastHeartbeatTime;
+  private final SingularityLeaderCache leaderCache;
+
+  // Provisioning of each always running request as of the last generated state, only used while the leader cache is active
+  private final Object cachedProvisioningLock = new Object();
+  private final Set<String> cachedOverProvisionedRequestIds = new TreeSet<>();
+  private final Set<String> cachedPossiblyUnderProvisionedRequestIds = new HashSet<>();
 
   @Inject
   public StateManager(CuratorFramework curatorFramework,
@@ -85,7 +96,8 @@ public class StateManager extends CuratorManager {
                       PriorityManager priorityManager,
                       Transcoder<SingularityTaskReconciliationStatistics> taskReconciliationStatisticsTranscoder,
                       @Named(SingularityMainModule.STATUS_UPDATE_DELTA_30S_AVERAGE) AtomicLong statusUpdateDeltaAvg,
-                      @Named(SingularityMainModule.LAST_MESOS_MASTER_HEARTBEAT_TIME) AtomicLong lastHeartbeatTime) {
+                      @Named(SingularityMainModule.LAST_MESOS_MASTER_HEARTBEAT_TIME) AtomicLong lastHeartbeatTime,
+                      SingularityLeaderCache leaderCache) {
     super(curatorFramework, configuration, metricRegistry);
 
     this.requestManager = requestManager;
@@ -101,6 +113,7 @@ public class StateManager extends CuratorManager {
     this.taskReconciliationStatisticsTranscoder = taskReconciliationStatisticsTranscoder;
     this.statusUpdateDeltaAvg = statusUpdateDeltaAvg;
     this.lastHeartbeatTime = lastHeartbeatTime;
+    this.leaderCache = leaderCache;
   }
 
   public SingularityCreateResult saveTaskReconciliationStatistics(SingularityTaskReconciliationStatistics taskReconciliationStatistics) {
@@ -168,38 +181,43 @@ public class StateManager extends CuratorManager {
 
     final SingularityScheduledTasksInfo scheduledTasksInfo = getScheduledTasksInfo();
 
-    final List<String> overProvisionedRequestIds = new ArrayList<>();
-    final Set<String> possiblyUnderProvisionedRequestIds = new HashSet<>();
+    final RequestCounts requestCounts = new RequestCounts();
+    final MachineCounts rackCounts = new MachineCounts();
+    final MachineCounts slaveCounts = new MachineCounts();
+    final List<String> overProvisionedRequestIds;
+    final Set<String> possiblyUnderProvisionedRequestIds;
 
-    final List<SingularityRequestWithState> requests = requestManager.getRequests();
+    if (leaderCache.active()) {
+      for (RequestState state : RequestState.values()) {
+        requestCounts.add(state, leaderCache.getNumRequestsInState(state));
+      }
+      for (MachineState state : MachineState.values()) {
+        rackCounts.add(state, leaderCache.getNumRacksInState(state));
+        slaveCounts.add(state, leaderCache.getNumSlavesInState(state));
+      }
 
-    final Map<String, Long> numInstances = getNumTasks(requests);
+      synchronized (cachedProvisioningLock) {
+        updateCachedProvisioning();
+        overProvisionedRequestIds = new ArrayList<>(cachedOverProvisionedRequestIds);
+        possiblyUnderProvisionedRequestIds = new HashSet<>(cachedPossiblyUnderProvisionedRequestIds);
+      }
+    } else {
+      overProvisionedRequestIds = new ArrayList<>();
+      possiblyUnderProvisionedRequestIds = new HashSet<>();
 
-    int numActiveRequests = 0;
-    int numPausedRequests = 0;
-    int cooldownRequests = 0;
-    int numFinishedRequests = 0;
+      final List<SingularityRequestWithState> requests = requestManager.getRequests();
+      final Map<String, Long> numInstances = getNumTasks(requests);
 
-    for (SingularityRequestWithState requestWithState : requests) {
-      switch (requestWithState.getState()) {
-        case DEPLOYING_TO_UNPAUSE:
-        case ACTIVE:
-          numActiveRequests++;
-          break;
-        case FINISHED:
-          numFinishedRequests++;
-          break;
-        case PAUSED:
-          numPausedRequests++;
-          break;
-        case SYSTEM_COOLDOWN:
-          cooldownRequests++;
-          break;
-        case DELETED:
-          break;
+      for (SingularityRequestWithState requestWithState : requests) {
+        requestCounts.add(requestWithState.getState(), 1);
+        updatePossiblyUnderProvisionedAndOverProvisionedIds(requestWithState, numInstances.get(requestWithState.getRequest().getId()), overProvisionedRequestIds, possiblyUnderProvisionedRequestIds);
+      }
+      for (SingularityRack rack : rackManager.getObjects()) {
+        rackCounts.add(rack.getCurrentState().getState(), 1);
+      }
+      for (SingularitySlave slave : slaveManager.getObjects()) {
+        slaveCounts.add(slave.getCurrentState().getState(), 1);
       }
-
-      updatePossiblyUnderProvisionedAndOverProvisionedIds(requestWithState, numInstances, overProvisionedRequestIds, possiblyUnderProvisionedRequestIds);
     }
 
     filterForPendingRequests(possiblyUnderProvisionedRequestIds);
@@ -208,105 +226,143 @@ public class StateManager extends CuratorManager {
     final int pendingRequests = requestManager.getSizeOfPendingQueue();
     final int cleaningRequests = requestManager.getSizeOfCleanupQueue();
 
-    List<SingularityRack> racks = rackManager.getObjects();
+    final List<SingularityHostState> states = getHostStates();
+
+    int numDeploys = 0;
+    long oldestDeploy = 0;
+    long oldestDeployStep = 0;
+    List<SingularityDeployMarker> activeDeploys = new ArrayList<>();
+    final long now = System.currentTimeMillis();
+
+    for (SingularityPendingDeploy pendingDeploy : deployManager.getPendingDeploys()) {
+      activeDeploys.add(pendingDeploy.getDeployMarker());
+      if (pendingDeploy.getDeployProgress().isPresent() && !pendingDeploy.getDeployProgress().get().isStepComplete()) {
+        long deployStepDelta = now - pendingDeploy.getDeployProgress().get().getTimestamp();
+        if (deployStepDelta > oldestDeployStep) {
+          oldestDeployStep = deployStepDelta;
+        }
+      }
+      long delta = now - pendingDeploy.getDeployMarker().getTimestamp();
+      if (delta > oldestDeploy) {
+        oldestDeploy = delta;
+      }
+      numDeploys++;
+    }
+
+    final Optional<Boolean> authDatastoreHealthy = authDatastore.isHealthy();
+
+    final Optional<Double> minimumPriorityLevel = getMinimumPriorityLevel();
+
+    return new SingularityState(activeTasks, launchingTasks, requestCounts.active, requestCounts.cooldown, requestCounts.paused, scheduledTasks, pendingRequests, lbCleanupTasks, lbCleanupRequests, cleaningRequests, slaveCounts.active,
+        slaveCounts.dead, slaveCounts.decommissioning, rackCounts.active, rackCounts.dead, rackCounts.decommissioning, cleaningTasks, states, oldestDeploy, numDeploys, oldestDeployStep, activeDeploys, scheduledTasksInfo.getLateTasks().size(),
+        scheduledTasksInfo.getLateTasks(), scheduledTasksInfo.getOnDemandLateTasks().size(), scheduledTasksInfo.getOnDemandLateTasks(),
+        scheduledTasksInfo.getNumFutureTasks(), scheduledTasksInfo.getMaxTaskLag(), System.currentTimeMillis(), includeRequestIds ? overProvisionedRequestIds : null,
+        includeRequestIds ? underProvisionedRequestIds : null, overProvisionedRequestIds.size(), underProvisionedRequestIds.size(), requestCounts.finished, rackCounts.unknown, slaveCounts.unknown, authDatastoreHealthy, minimumPriorityLevel,
+        statusUpdateDeltaAvg.get(), lastHeartbeatTime.get());
+  }
 
-    int activeRacks = 0;
-    int deadRacks = 0;
-    int decommissioningRacks = 0;
-    int unknownRacks = 0;
+  private static class RequestCounts {
+    private int active;
+    private int paused;
+    private int cooldown;
+    private int finished;
 
-    for (SingularityRack rack : racks) {
-      switch (rack.getCurrentState().getState()) {
+    private void add(RequestState state, int count) {
+      switch (state) {
+        case DEPLOYING_TO_UNPAUSE:
         case ACTIVE:
-          activeRacks++;
+          active += count;
           break;
-        case DEAD:
-          deadRacks++;
+        case FINISHED:
+          finished += count;
           break;
-        case MISSING_ON_STARTUP:
-          unknownRacks++;
+        case PAUSED:
+          paused += count;
           break;
-        case DECOMMISSIONED:
-        case STARTING_DECOMMISSION:
-        case DECOMMISSIONING:
-          decommissioningRacks++;
+        case SYSTEM_COOLDOWN:
+          cooldown += count;
           break;
-        default:
-          unknownRacks++;
+        case DELETED:
           break;
       }
     }
+  }
 
-    List<SingularitySlave> slaves = slaveManager.getObjects();
-
-    int activeSlaves = 0;
-    int deadSlaves = 0;
-    int decommissioningSlaves = 0;
-    int unknownSlaves = 0;
+  private static class MachineCounts {
+    private int active;
+    private int dead;
+    private int decommissioning;
+    private int unknown;
 
-    for (SingularitySlave slave : slaves) {
-      switch (slave.getCurrentState().getState()) {
+    private void add(MachineState state, int count) {
+      switch (state) {
         case ACTIVE:
-          activeSlaves++;
+          active += count;
           break;
         case DEAD:
-          deadSlaves++;
+          dead += count;
           break;
         case MISSING_ON_STARTUP:
-          unknownSlaves++;
+          unknown += count;
           break;
         case DECOMMISSIONED:
         case STARTING_DECOMMISSION:
         case DECOMMISSIONING:
-          decommissioningSlaves++;
+          decommissioning += count;
           break;
         default:
-          unknownSlaves++;
+          unknown += count;
           break;
       }
     }
+  }
 
-    final List<SingularityHostState> states = getHostStates();
+  /**
+   * Re-evaluates provisioning only for requests whose tasks, pending tasks, cleanups or request changed since the last
+   * state was generated, see {@link SingularityLeaderCache#drainRequestsWithChangedInstances()}
+   */
+  private void updateCachedProvisioning() {
+    Optional<Set<String>> maybeChanged = leaderCache.drainRequestsWithChangedInstances();
+    Collection<String> changedRequestIds;
+    if (maybeChanged.isPresent()) {
+      changedRequestIds = maybeChanged.get();
+    } else {
+      cachedOverProvisionedRequestIds.clear();
+      cachedPossiblyUnderProvisionedRequestIds.clear();
+      changedRequestIds = leaderCache.getRequests().stream().map((r) -> r.getRequest().getId()).collect(Collectors.toList());
+    }
 
-    int numDeploys = 0;
-    long oldestDeploy = 0;
-    long oldestDeployStep = 0;
-    List<SingularityDeployMarker> activeDeploys = new ArrayList<>();
-    final long now = System.currentTimeMillis();
+    if (changedRequestIds.isEmpty()) {
+      return;
+    }
 
-    for (SingularityPendingDeploy pendingDeploy : deployManager.getPendingDeploys()) {
-      activeDeploys.add(pendingDeploy.getDeployMarker());
-      if (pendingDeploy.getDeployProgress().isPresent() && !pendingDeploy.getDeployProgress().get().isStepComplete()) {
-        long deployStepDelta = now - pendingDeploy.getDeployProgress().get().getTimestamp();
-        if (deployStepDelta > oldestDeployStep) {
-          oldestDeployStep = deployStepDelta;
-        }
-      }
-      long delta = now - pendingDeploy.getDeployMarker().getTimestamp();
-      if (delta > oldestDeploy) {
-        oldestDeploy = delta;
-      }
-      numDeploys++;
+    final CounterMap<String> cleaningTasks = new CounterMap<>();
+    for (SingularityTaskId cleaningTaskId : leaderCache.getCleanupTaskIds()) {
+      cleaningTasks.incr(cleaningTaskId.getRequestId());
     }
 
-    final Optional<Boolean> authDatastoreHealthy = authDatastore.isHealthy();
+    for (String requestId : changedRequestIds) {
+      cachedOverProvisionedRequestIds.remove(requestId);
+      cachedPossiblyUnderProvisionedRequestIds.remove(requestId);
 
-    final Optional<Double> minimumPriorityLevel = getMinimumPriorityLevel();
+      Optional<SingularityRequestWithState> maybeRequest = leaderCache.getRequest(requestId);
+      if (!maybeRequest.isPresent()) {
+        continue;
+      }
 
-    return new SingularityState(activeTasks, launchingTasks, numActiveRequests, cooldownRequests, numPausedRequests, scheduledTasks, pendingRequests, lbCleanupTasks, lbCleanupRequests, cleaningRequests, activeSlaves,
-        deadSlaves, decommissioningSlaves, activeRacks, deadRacks, decommissioningRacks, cleaningTasks, states, oldestDeploy, numDeploys, oldestDeployStep, activeDeploys, scheduledTasksInfo.getLateTasks().size(),
-        scheduledTasksInfo.getLateTasks(), scheduledTasksInfo.getOnDemandLateTasks().size(), scheduledTasksInfo.getOnDemandLateTasks(),
-        scheduledTasksInfo.getNumFutureTasks(), scheduledTasksInfo.getMaxTaskLag(), System.currentTimeMillis(), includeRequestIds ? overProvisionedRequestIds : null,
-        includeRequestIds ? underProvisionedRequestIds : null, overProvisionedRequestIds.size(), underProvisionedRequestIds.size(), numFinishedRequests, unknownRacks, unknownSlaves, authDatastoreHealthy, minimumPriorityLevel,
-        statusUpdateDeltaAvg.get(), lastHeartbeatTime.get());
+      long numInstances = leaderCache.getActiveTaskIdsForRequest(requestId).size() + leaderCache.getPendingTaskIdsForRequest(requestId).size();
+      if (!maybeRequest.get().getRequest().isScheduled()) {
+        numInstances -= cleaningTasks.getCount(requestId);
+      }
+
+      updatePossiblyUnderProvisionedAndOverProvisionedIds(maybeRequest.get(), numInstances, cachedOverProvisionedRequestIds, cachedPossiblyUnderProvisionedRequestIds);
+    }
   }
 
   private SingularityScheduledTasksInfo getScheduledTasksInfo() {
     long now = System.currentTimeMillis();
-    List<SingularityPendingTaskId> allPendingTaskIds = taskManager.getPendingTaskIds();
-    List<SingularityPendingTaskId> lateTasks = allPendingTaskIds.stream()
-        .filter((p) -> now - p.getNextRunAt() > singularityConfiguration.getDeltaAfterWhichTasksAreLateMillis())
-        .collect(Collectors.toList());
+    int numPendingTasks = taskManager.getNumScheduledTasks();
+    List<SingularityPendingTaskId> lateTasks = taskManager.getPendingTaskIdsDueBy(now - singularityConfiguration.getDeltaAfterWhichTasksAreLateMillis() - 1);
 
     Map<Boolean, List<SingularityPendingTaskId>> lateTasksPartitionedByOnDemand = lateTasks.stream()
         .collect(Collectors.partitioningBy(this::requestTypeIsOnDemand));
@@ -328,7 +384,7 @@ public class StateManager extends CuratorManager {
     return new SingularityScheduledTasksInfo(
         generalLateTasks,
         onDemandLateTasks,
-        allPendingTaskIds.size() - generalLateTasks.size() - onDemandLateTasks.size(),
+        numPendingTasks - generalLateTasks.size() - onDemandLateTasks.size(),
         maxTaskLag,
         now
       );
@@ -380,13 +436,11 @@ public class StateManager extends CuratorManager {
     return numTasks.toCountMap();
   }
 
-  private void updatePossiblyUnderProvisionedAndOverProvisionedIds(SingularityRequestWithState requestWithState, Map<String, Long> numInstances, List<String> overProvisionedRequestIds, Set<String> possiblyUnderProvisionedRequestIds) {
+  private void updatePossiblyUnderProvisionedAndOverProvisionedIds(SingularityRequestWithState requestWithState, Long numActualInstances, Collection<String> overProvisionedRequestIds, Set<String> possiblyUnderProvisionedRequestIds) {
     if (requestWithState.getState().isRunnable() && requestWithState.getRequest().isAlwaysRunning()) {
       SingularityRequest request = requestWithState.getRequest();
       final int expectedInstances = request.getInstancesSafe();
 
-      final Long numActualInstances = numInstances.get(request.getId());
-
       if (numActualInstances == null || numActualInstances < expectedInstances) {
         possiblyUnderProvisionedRequestIds.add(request.getId());
       } else if (numActualInstances > expectedInstances) {
@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorTransaction;
 import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
 import org.apache.curator.utils.ZKPaths;
 import org.apache.zookeeper.KeeperException;
@@ -62,6 +63,8 @@ import com.hubspot.singularity.data.transcoders.StringTranscoder;
 import com.hubspot.singularity.data.transcoders.Transcoder;
 import com.hubspot.singularity.event.SingularityEventListener;
 import com.hubspot.singularity.scheduler.SingularityLeaderCache;
+import com.hubspot.singularity.scheduler.SingularityPollerWakeups;
+import com.hubspot.singularity.scheduler.SingularityPollerWakeups.WakeupType;
 
 @Singleton
 public class TaskManager extends CuratorAsyncManager {
@@ -119,6 +122,7 @@ public class TaskManager extends CuratorAsyncManager {
   private final ZkCache<SingularityTask> taskCache;
   private final SingularityWebCache webCache;
   private final SingularityLeaderCache leaderCache;
+  private final SingularityPollerWakeups wakeups;
 
   private final SingularityEventListener singularityEventListener;
   private final String serverId;
@@ -131,7 +135,7 @@ public class TaskManager extends CuratorAsyncManager {
       Transcoder<SingularityKilledTaskIdRecord> killedTaskIdRecordTranscoder, Transcoder<SingularityTaskShellCommandRequest> taskShellCommandRequestTranscoder,
       Transcoder<SingularityTaskShellCommandUpdate> taskShellCommandUpdateTranscoder,  Transcoder<SingularityTaskMetadata> taskMetadataTranscoder,
       ZkCache<SingularityTask> taskCache, SingularityWebCache webCache, SingularityLeaderCache leaderCache,
-      @Named(SingularityMainModule.SERVER_ID_PROPERTY) String serverId) {
+      SingularityPollerWakeups wakeups, @Named(SingularityMainModule.SERVER_ID_PROPERTY) String serverId) {
     super(curator, configuration, metricRegistry);
 
     this.healthcheckResultTranscoder = healthcheckResultTranscoder;
@@ -152,6 +156,7 @@ public class TaskManager extends CuratorAsyncManager {
 
     this.webCache = webCache;
     this.leaderCache = leaderCache;
+    this.wakeups = wakeups;
     this.serverId = serverId;
   }
 
@@ -280,6 +285,9 @@ public class TaskManager extends CuratorAsyncManager {
   }
 
   public int getNumCleanupTasks() {
+    if (leaderCache.active()) {
+      return leaderCache.getNumCleanupTasks();
+    }
     return getNumChildren(CLEANUP_PATH_ROOT);
   }
 
@@ -347,6 +355,48 @@ public class TaskManager extends CuratorAsyncManager {
     }
   }
 
+  /**
+   * Saves results for tasks that already have a healthcheck result in one transaction, falling back to saving them
+   * one at a time if the transaction is rejected
+   */
+  public void saveHealthcheckResults(List<SingularityTaskHealthcheckResult> healthcheckResults) {
+    List<SingularityTaskHealthcheckResult> toSave = new ArrayList<>(healthcheckResults.size());
+    for (SingularityTaskHealthcheckResult healthcheckResult : healthcheckResults) {
+      if (canSaveNewHealthcheck(healthcheckResult)) {
+        toSave.add(healthcheckResult);
+      } else {
+        LOG.warn("Healthchecks have finished, could not save new result {}", healthcheckResult);
+      }
+    }
+    if (toSave.isEmpty()) {
+      return;
+    }
+
+    final long start = System.currentTimeMillis();
+    int bytes = 0;
+
+    try {
+      CuratorTransaction transaction = curator.inTransaction();
+      for (SingularityTaskHealthcheckResult healthcheckResult : toSave) {
+        byte[] data = healthcheckResultTranscoder.toBytes(healthcheckResult);
+        bytes += data.length;
+        transaction = transaction.create().forPath(getHealthcheckPath(healthcheckResult), data).and()
+            .setData().forPath(getLastHealthcheckPath(healthcheckResult.getTaskId()), data).and();
+      }
+      ((CuratorTransactionFinal) transaction).commit();
+      log(OperationType.WRITE, Optional.of(toSave.size() * 2), Optional.of(bytes), start, HISTORY_PATH_ROOT);
+    } catch (KeeperException ke) {
+      LOG.debug("Batch of {} healthcheck results was rejected ({}), saving individually", toSave.size(), ke.code());
+      for (SingularityTaskHealthcheckResult healthcheckResult : toSave) {
+        final Optional<byte[]> bytesToSave = Optional.of(healthcheckResultTranscoder.toBytes(healthcheckResult));
+        save(getHealthcheckPath(healthcheckResult), bytesToSave);
+        save(getLastHealthcheckPath(healthcheckResult.getTaskId()), bytesToSave);
+      }
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
   private boolean canSaveNewHealthcheck(SingularityTaskHealthcheckResult healthcheckResult) {
     return !exists(getHealthchecksFinishedPath(healthcheckResult.getTaskId()));
   }
@@ -508,6 +558,24 @@ public class TaskManager extends CuratorAsyncManager {
         .collect(Collectors.toList());
   }
 
+  public List<SingularityTaskId> getActiveTaskIdsOnSlave(SingularitySlave slave, boolean useWebCache) {
+    if (leaderCache.active()) {
+      return leaderCache.getActiveTaskIdsForHost(JavaUtils.getReplaceHyphensWithUnderscores(slave.getHost()));
+    }
+
+    return getTaskIdsOnSlave(getActiveTaskIds(useWebCache), slave);
+  }
+
+  public List<SingularityTaskId> getActiveTaskIdsForHost(String sanitizedHost) {
+    if (leaderCache.active()) {
+      return leaderCache.getActiveTaskIdsForHost(sanitizedHost);
+    }
+
+    return getActiveTaskIds().stream()
+        .filter((t) -> t.getSanitizedHost().equals(sanitizedHost))
+        .collect(Collectors.toList());
+  }
+
   public List<SingularityTaskHistoryUpdate> getTaskHistoryUpdates(SingularityTaskId taskId) {
     if (leaderCache.active()) {
       return leaderCache.getTaskHistoryUpdates(taskId);
@@ -616,6 +684,63 @@ public class TaskManager extends CuratorAsyncManager {
     }
   }
 
+  /**
+   * Saves new history updates and last active statuses for a batch of status updates in one ZooKeeper transaction.
+   * Statuses must be for tasks that already have a last active status. If the transaction is rejected (e.g. one of the
+   * history updates already exists) each write is applied on its own instead.
+   */
+  @Timed
+  public void saveTaskStatusUpdates(List<SingularityTaskHistoryUpdate> taskHistoryUpdates, List<SingularityTaskStatusHolder> lastActiveTaskStatuses) {
+    if (taskHistoryUpdates.isEmpty() && lastActiveTaskStatuses.isEmpty()) {
+      return;
+    }
+
+    final long start = System.currentTimeMillis();
+    int bytes = 0;
+
+    try {
+      CuratorTransaction transaction = curator.inTransaction();
+      for (SingularityTaskHistoryUpdate taskHistoryUpdate : taskHistoryUpdates) {
+        byte[] data = taskHistoryUpdateTranscoder.toBytes(taskHistoryUpdate);
+        bytes += data.length;
+        transaction = transaction.create().forPath(getUpdatePath(taskHistoryUpdate.getTaskId(), taskHistoryUpdate.getTaskState()), data).and();
+      }
+      for (SingularityTaskStatusHolder taskStatus : lastActiveTaskStatuses) {
+        byte[] data = taskStatusTranscoder.toBytes(taskStatus);
+        bytes += data.length;
+        transaction = transaction.setData().forPath(getLastActiveTaskStatusPath(taskStatus.getTaskId()), data).and();
+      }
+      ((CuratorTransactionFinal) transaction).commit();
+      log(OperationType.WRITE, Optional.of(taskHistoryUpdates.size() + lastActiveTaskStatuses.size()), Optional.of(bytes), start, LAST_ACTIVE_TASK_STATUSES_PATH_ROOT);
+      taskHistoryUpdates.forEach(this::taskHistoryUpdateSaved);
+    } catch (KeeperException ke) {
+      LOG.debug("Batch of {} task updates and {} statuses was rejected ({}), saving individually", taskHistoryUpdates.size(), lastActiveTaskStatuses.size(), ke.code());
+      for (SingularityTaskHistoryUpdate taskHistoryUpdate : taskHistoryUpdates) {
+        create(getUpdatePath(taskHistoryUpdate.getTaskId(), taskHistoryUpdate.getTaskState()), taskHistoryUpdate, taskHistoryUpdateTranscoder);
+        taskHistoryUpdateSaved(taskHistoryUpdate);
+      }
+      for (SingularityTaskStatusHolder taskStatus : lastActiveTaskStatuses) {
+        save(getLastActiveTaskStatusPath(taskStatus.getTaskId()), taskStatus, taskStatusTranscoder);
+      }
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  /**
+   * Only sends the webhook and updates the leader cache once the update is in ZooKeeper, so neither can get ahead of
+   * a batch that fails to save
+   */
+  private void taskHistoryUpdateSaved(SingularityTaskHistoryUpdate taskHistoryUpdate) {
+    Optional<SingularityTask> task = getTask(taskHistoryUpdate.getTaskId());
+    if (task.isPresent()) {
+      singularityEventListener.taskHistoryUpdateEvent(new SingularityTaskWebhook(task.get(), taskHistoryUpdate));
+    }
+    if (leaderCache.active()) {
+      leaderCache.saveTaskHistoryUpdate(taskHistoryUpdate, false);
+    }
+  }
+
   public SingularityDeleteResult deleteTaskHistoryUpdate(SingularityTaskId taskId, ExtendedTaskState state, Optional<SingularityTaskHistoryUpdate> previousStateUpdate) {
     if (previousStateUpdate.isPresent()) {
       Optional<SingularityTask> task = getTask(previousStateUpdate.get().getTaskId());
@@ -705,6 +830,10 @@ public class TaskManager extends CuratorAsyncManager {
   }
 
   public List<SingularityTaskId> getActiveTaskIdsForRequest(String requestId) {
+    if (leaderCache.active()) {
+      return leaderCache.getActiveTaskIdsForRequest(requestId);
+    }
+
     return getTaskIdsForRequest(requestId, TaskFilter.ACTIVE);
   }
 
@@ -723,6 +852,10 @@ public class TaskManager extends CuratorAsyncManager {
   }
 
   public int getNumLaunchingTasks() {
+    if (leaderCache.active()) {
+      return leaderCache.getNumLaunchingTasks();
+    }
+
     List<SingularityTaskId> activeTaskIds = getActiveTaskIds();
 
     final Map<String, SingularityTaskId> paths = Maps.newHashMapWithExpectedSize(activeTaskIds.size());
@@ -773,6 +906,10 @@ public class TaskManager extends CuratorAsyncManager {
   }
 
   public List<SingularityTaskId> getActiveTaskIdsForDeploy(String requestId, final String deployId) {
+    if (leaderCache.active()) {
+      return leaderCache.getActiveTaskIdsForDeploy(requestId, deployId);
+    }
+
     return getTaskIdsForDeploy(requestId, deployId, TaskFilter.ACTIVE);
   }
 
@@ -874,13 +1011,27 @@ public class TaskManager extends CuratorAsyncManager {
     return checkExists(getTaskPath(taskId)).isPresent();
   }
 
-  public void activateLeaderCache() {
-    leaderCache.cachePendingTasks(fetchPendingTasks());
-    leaderCache.cachePendingTasksToDelete(getPendingTasksMarkedForDeletion());
-    leaderCache.cacheActiveTaskIds(getActiveTaskIds(false));
-    leaderCache.cacheCleanupTasks(fetchCleanupTasks());
-    leaderCache.cacheKilledTasks(fetchKilledTaskIdRecords());
-    leaderCache.cacheTaskHistoryUpdates(getAllTaskHistoryUpdates());
+  public int activateLeaderCache() {
+    List<SingularityPendingTask> pendingTasks = fetchPendingTasks();
+    List<SingularityPendingTaskId> pendingTasksToDelete = getPendingTasksMarkedForDeletion();
+    List<SingularityTaskId> activeTaskIds = getActiveTaskIds(false);
+    List<SingularityTaskCleanup> cleanupTasks = fetchCleanupTasks();
+    List<SingularityKilledTaskIdRecord> killedTasks = fetchKilledTaskIdRecords();
+
+    leaderCache.cachePendingTasks(pendingTasks);
+    leaderCache.cachePendingTasksToDelete(pendingTasksToDelete);
+    leaderCache.cacheActiveTaskIds(activeTaskIds);
+    leaderCache.cacheCleanupTasks(cleanupTasks);
+    leaderCache.cacheKilledTasks(killedTasks);
+
+    return pendingTasks.size() + pendingTasksToDelete.size() + activeTaskIds.size() + cleanupTasks.size() + killedTasks.size();
+  }
+
+  // Separate from activateLeaderCache so the largest collection can load alongside the others
+  public int activateTaskHistoryUpdatesLeaderCache() {
+    Map<SingularityTaskId, List<SingularityTaskHistoryUpdate>> historyUpdates = getAllTaskHistoryUpdates();
+    leaderCache.cacheTaskHistoryUpdates(historyUpdates);
+    return historyUpdates.values().stream().mapToInt(List::size).sum();
   }
 
   private List<SingularityPendingTask> fetchPendingTasks() {
@@ -909,14 +1060,16 @@ public class TaskManager extends CuratorAsyncManager {
   }
 
   public List<SingularityPendingTaskId> getPendingTaskIdsForRequest(final String requestId) {
+    if (leaderCache.active()) {
+      return leaderCache.getPendingTaskIdsForRequest(requestId);
+    }
+
     return getChildrenAsIds(getPendingForRequestPath(requestId), pendingTaskIdTranscoder);
   }
 
   public List<SingularityPendingTask> getPendingTasksForRequest(final String requestId, boolean useWebCache) {
     if (leaderCache.active()) {
-      return leaderCache.getPendingTasks().stream()
-          .filter((p) -> p.getPendingTaskId().getRequestId().equals(requestId))
-          .collect(Collectors.toList());
+      return leaderCache.getPendingTasksForRequest(requestId);
     }
 
     if (useWebCache && webCache.useCachedPendingTasks()) {
@@ -931,6 +1084,26 @@ public class TaskManager extends CuratorAsyncManager {
     return getPendingTasks(false);
   }
 
+  public List<SingularityPendingTaskId> getPendingTaskIdsDueBy(long timestamp) {
+    if (leaderCache.active()) {
+      return leaderCache.getPendingTaskIdsDueBy(timestamp);
+    }
+
+    return getPendingTaskIds().stream()
+        .filter((p) -> p.getNextRunAt() <= timestamp)
+        .collect(Collectors.toList());
+  }
+
+  public List<SingularityPendingTask> getPendingTasksDueBy(long timestamp) {
+    if (leaderCache.active()) {
+      return leaderCache.getPendingTasksDueBy(timestamp);
+    }
+
+    return getPendingTasks().stream()
+        .filter((p) -> p.getPendingTaskId().getNextRunAt() <= timestamp)
+        .collect(Collectors.toList());
+  }
+
   public List<SingularityPendingTask> getPendingTasks(boolean useWebCache) {
     if (leaderCache.active()) {
       return leaderCache.getPendingTasks();
@@ -1034,6 +1207,40 @@ public class TaskManager extends CuratorAsyncManager {
     return create(getLBCleanupPath(taskId));
   }
 
+  /**
+   * Saves killed records in one transaction, falling back to saving them one at a time if the transaction is rejected
+   * (e.g. because a task already has a record from an earlier kill)
+   */
+  public void saveKilledRecords(List<SingularityKilledTaskIdRecord> killedTaskIdRecords) {
+    if (killedTaskIdRecords.isEmpty()) {
+      return;
+    }
+    if (leaderCache.active()) {
+      killedTaskIdRecords.forEach(leaderCache::addKilledTask);
+    }
+
+    final long start = System.currentTimeMillis();
+    int bytes = 0;
+
+    try {
+      CuratorTransaction transaction = curator.inTransaction();
+      for (SingularityKilledTaskIdRecord killedTaskIdRecord : killedTaskIdRecords) {
+        byte[] data = killedTaskIdRecordTranscoder.toBytes(killedTaskIdRecord);
+        bytes += data.length;
+        transaction = transaction.create().forPath(getKilledPath(killedTaskIdRecord.getTaskId()), data).and();
+      }
+      ((CuratorTransactionFinal) transaction).commit();
+      log(OperationType.WRITE, Optional.of(killedTaskIdRecords.size()), Optional.of(bytes), start, DRIVER_KILLED_PATH_ROOT);
+    } catch (KeeperException ke) {
+      LOG.debug("Batch of {} killed records was rejected ({}), saving individually", killedTaskIdRecords.size(), ke.code());
+      for (SingularityKilledTaskIdRecord killedTaskIdRecord : killedTaskIdRecords) {
+        save(getKilledPath(killedTaskIdRecord.getTaskId()), killedTaskIdRecord, killedTaskIdRecordTranscoder);
+      }
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
   public SingularityCreateResult saveKilledRecord(SingularityKilledTaskIdRecord killedTaskIdRecord) {
     if (leaderCache.active()) {
       leaderCache.addKilledTask(killedTaskIdRecord);
@@ -1149,6 +1356,7 @@ public class TaskManager extends CuratorAsyncManager {
 
     if (result == SingularityCreateResult.CREATED) {
       saveTaskHistoryUpdate(cleanup);
+      wakeups.wakeUp(WakeupType.CLEANUP);
     }
 
     return result;
@@ -1186,6 +1394,23 @@ public class TaskManager extends CuratorAsyncManager {
     return delete(getHistoryPath(taskId));
   }
 
+  /**
+   * Deletes the history of the tasks in one zk transaction
+   *
+   * @return the number of tasks that had history to delete
+   */
+  public int deleteTaskHistories(List<SingularityTaskId> taskIds) {
+    List<String> paths = new ArrayList<>(taskIds.size());
+    for (SingularityTaskId taskId : taskIds) {
+      taskCache.delete(getTaskPath(taskId));
+      if (leaderCache.active()) {
+        leaderCache.deleteTaskHistory(taskId);
+      }
+      paths.add(getHistoryPath(taskId));
+    }
+    return delete(paths);
+  }
+
   public void purgeStaleRequests(List<String> activeRequestIds, long deleteBeforeTime) {
     final List<String> requestIds = getChildren(HISTORY_PATH_ROOT);
     for (String requestId : requestIds) {
@@ -24,6 +24,16 @@ public interface HistoryJDBI extends SqlObject {
   void insertTaskHistory(String requestId, String taskId, SingularityTaskHistory taskHistory, Date updatedAt,
                          String lastTaskStatus, String runId, String deployId, String host, Date startedAt);
 
+  void insertRequestHistories(List<String> requestIds, List<SingularityRequest> requests, List<Date> createdAts, List<String> requestStates, List<String> users, List<String> messages);
+
+  void insertDeployHistories(List<String> requestIds, List<String> deployIds, List<Date> createdAts, List<String> users, List<String> messages, List<Date> deployStateAts,
+                             List<String> deployStates, List<SingularityDeployHistory> deployHistories);
+
+  void insertTaskHistories(List<String> requestIds, List<String> taskIds, List<SingularityTaskHistory> taskHistories, List<Date> updatedAts,
+                           List<String> lastTaskStatuses, List<String> runIds, List<String> deployIds, List<String> hosts, List<Date> startedAts);
+
+  List<String> getTaskIdsInHistory(List<String> taskIds);
+
   SingularityTaskHistory getTaskHistoryForTask(String taskId);
 
   SingularityTaskHistory getTaskHistoryForTaskByRunId(String requestId, String runId);
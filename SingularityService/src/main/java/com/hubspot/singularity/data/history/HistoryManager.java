@@ -20,6 +20,21 @@ public interface HistoryManager {
 
   void saveDeployHistory(SingularityDeployHistory deployHistory);
 
+  /**
+   * Saves the request history updates in a single batch, none of them are saved if the batch fails
+   */
+  void saveRequestHistoryUpdates(List<SingularityRequestHistory> requestHistories);
+
+  /**
+   * Saves the task histories that are not in history yet in a single batch, none of them are saved if the batch fails
+   */
+  void saveTaskHistories(List<SingularityTaskHistory> taskHistories);
+
+  /**
+   * Saves the deploy histories in a single batch, none of them are saved if the batch fails
+   */
+  void saveDeployHistories(List<SingularityDeployHistory> deployHistories);
+
   Optional<SingularityDeployHistory> getDeployHistory(String requestId, String deployId);
 
   List<SingularityDeployHistory> getDeployHistoryForRequest(String requestId, Integer limitStart, Integer limitCount);
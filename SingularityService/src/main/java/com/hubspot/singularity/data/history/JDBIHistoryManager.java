@@ -1,10 +1,14 @@
 package com.hubspot.singularity.data.history;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +20,7 @@ import com.hubspot.singularity.DeployState;
 import com.hubspot.singularity.ExtendedTaskState;
 import com.hubspot.singularity.OrderDirection;
 import com.hubspot.singularity.SingularityDeployHistory;
+import com.hubspot.singularity.SingularityRequest;
 import com.hubspot.singularity.SingularityRequestHistory;
 import com.hubspot.singularity.SingularityTaskHistory;
 import com.hubspot.singularity.SingularityTaskIdHistory;
@@ -121,6 +126,64 @@ public class JDBIHistoryManager implements HistoryManager {
         deployHistory);
   }
 
+  @Override
+  public void saveRequestHistoryUpdates(List<SingularityRequestHistory> requestHistories) {
+    if (requestHistories.isEmpty()) {
+      return;
+    }
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("saveRequestHistoryUpdates {}", requestHistories);
+    }
+
+    int size = requestHistories.size();
+    List<String> requestIds = new ArrayList<>(size);
+    List<SingularityRequest> requests = new ArrayList<>(size);
+    List<Date> createdAts = new ArrayList<>(size);
+    List<String> requestStates = new ArrayList<>(size);
+    List<String> users = new ArrayList<>(size);
+    List<String> messages = new ArrayList<>(size);
+    for (SingularityRequestHistory requestHistory : requestHistories) {
+      requestIds.add(requestHistory.getRequest().getId());
+      requests.add(requestHistory.getRequest());
+      createdAts.add(new Date(requestHistory.getCreatedAt()));
+      requestStates.add(requestHistory.getEventType().name());
+      users.add(getUserField(requestHistory.getUser()));
+      messages.add(getMessageField(requestHistory.getMessage()));
+    }
+
+    history.insertRequestHistories(requestIds, requests, createdAts, requestStates, users, messages);
+  }
+
+  @Override
+  public void saveDeployHistories(List<SingularityDeployHistory> deployHistories) {
+    if (deployHistories.isEmpty()) {
+      return;
+    }
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("saveDeployHistories {}", deployHistories);
+    }
+
+    int size = deployHistories.size();
+    List<String> requestIds = new ArrayList<>(size);
+    List<String> deployIds = new ArrayList<>(size);
+    List<Date> createdAts = new ArrayList<>(size);
+    List<String> users = new ArrayList<>(size);
+    List<String> messages = new ArrayList<>(size);
+    List<Date> deployStateAts = new ArrayList<>(size);
+    List<String> deployStates = new ArrayList<>(size);
+    for (SingularityDeployHistory deployHistory : deployHistories) {
+      requestIds.add(deployHistory.getDeployMarker().getRequestId());
+      deployIds.add(deployHistory.getDeployMarker().getDeployId());
+      createdAts.add(new Date(deployHistory.getDeployMarker().getTimestamp()));
+      users.add(getUserField(deployHistory.getDeployMarker().getUser()));
+      messages.add(getMessageField(deployHistory.getDeployMarker().getMessage()));
+      deployStateAts.add(deployHistory.getDeployResult().isPresent() ? new Date(deployHistory.getDeployResult().get().getTimestamp()) : new Date(deployHistory.getDeployMarker().getTimestamp()));
+      deployStates.add(deployHistory.getDeployResult().isPresent() ? deployHistory.getDeployResult().get().getDeployState().name() : DeployState.CANCELED.name());
+    }
+
+    history.insertDeployHistories(requestIds, deployIds, createdAts, users, messages, deployStateAts, deployStates, deployHistories);
+  }
+
   @Override
   public Optional<SingularityDeployHistory> getDeployHistory(String requestId, String deployId) {
     Optional<SingularityDeployHistory> maybeHistory =  Optional.fromNullable(history.getDeployHistoryForDeploy(requestId, deployId));
@@ -212,6 +275,55 @@ public class JDBIHistoryManager implements HistoryManager {
         new Date(taskIdHistory.getTaskId().getStartedAt()));
   }
 
+  @Override
+  public void saveTaskHistories(List<SingularityTaskHistory> taskHistories) {
+    if (taskHistories.isEmpty()) {
+      return;
+    }
+
+    List<String> taskIdsToCheck = taskHistories.stream().map((taskHistory) -> taskHistory.getTask().getTaskId().getId()).collect(Collectors.toList());
+    Set<String> taskIdsInHistory = new HashSet<>(history.getTaskIdsInHistory(taskIdsToCheck));
+
+    int size = taskHistories.size();
+    List<String> requestIds = new ArrayList<>(size);
+    List<String> taskIds = new ArrayList<>(size);
+    List<SingularityTaskHistory> toInsert = new ArrayList<>(size);
+    List<Date> updatedAts = new ArrayList<>(size);
+    List<String> lastTaskStatuses = new ArrayList<>(size);
+    List<String> runIds = new ArrayList<>(size);
+    List<String> deployIds = new ArrayList<>(size);
+    List<String> hosts = new ArrayList<>(size);
+    List<Date> startedAts = new ArrayList<>(size);
+    for (SingularityTaskHistory taskHistory : taskHistories) {
+      if (!taskIdsInHistory.add(taskHistory.getTask().getTaskId().getId())) {
+        if (LOG.isTraceEnabled()) {
+          LOG.trace("saveTaskHistories -- existing taskHistory {}", taskHistory);
+        }
+        continue;
+      }
+
+      SingularityTaskIdHistory taskIdHistory = SingularityTaskIdHistory.fromTaskIdAndTaskAndUpdates(taskHistory.getTask().getTaskId(), taskHistory.getTask(), taskHistory.getTaskUpdates());
+      requestIds.add(taskIdHistory.getTaskId().getRequestId());
+      taskIds.add(taskIdHistory.getTaskId().getId());
+      toInsert.add(taskHistory);
+      updatedAts.add(new Date(taskIdHistory.getUpdatedAt()));
+      lastTaskStatuses.add(taskIdHistory.getLastTaskState().isPresent() ? taskIdHistory.getLastTaskState().get().name() : null);
+      runIds.add(taskHistory.getTask().getTaskRequest().getPendingTask().getRunId().orNull());
+      deployIds.add(taskIdHistory.getTaskId().getDeployId());
+      hosts.add(taskIdHistory.getTaskId().getHost());
+      startedAts.add(new Date(taskIdHistory.getTaskId().getStartedAt()));
+    }
+
+    if (toInsert.isEmpty()) {
+      return;
+    }
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("saveTaskHistories -- will insert taskHistories {}", toInsert);
+    }
+
+    history.insertTaskHistories(requestIds, taskIds, toInsert, updatedAts, lastTaskStatuses, runIds, deployIds, hosts, startedAts);
+  }
+
   @Override
   public Optional<SingularityTaskHistory> getTaskHistory(String taskId) {
     Optional<SingularityTaskHistory> maybeTaskHistory = Optional.fromNullable(history.getTaskHistoryForTask(taskId));
@@ -38,6 +38,21 @@ public class NoopHistoryManager implements HistoryManager {
     throw new UnsupportedOperationException("NoopHistoryManager can not save");
   }
 
+  @Override
+  public void saveRequestHistoryUpdates(List<SingularityRequestHistory> requestHistories) {
+    throw new UnsupportedOperationException("NoopHistoryManager can not save");
+  }
+
+  @Override
+  public void saveTaskHistories(List<SingularityTaskHistory> taskHistories) {
+    throw new UnsupportedOperationException("NoopHistoryManager can not save");
+  }
+
+  @Override
+  public void saveDeployHistories(List<SingularityDeployHistory> deployHistories) {
+    throw new UnsupportedOperationException("NoopHistoryManager can not save");
+  }
+
   @Override
   public Optional<SingularityDeployHistory> getDeployHistory(String requestId, String deployId) {
     return Optional.absent();
@@ -6,7 +6,9 @@ import java.util.List;
 import org.jdbi.v3.json.Json;
 import org.jdbi.v3.sqlobject.SingleValue;
 import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.customizer.BindList;
 import org.jdbi.v3.sqlobject.customizer.Define;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 
@@ -31,6 +33,23 @@ public interface PostgresHistoryJDBI extends AbstractHistoryJDBI {
                          @Bind("lastTaskStatus") String lastTaskStatus, @Bind("runId") String runId, @Bind("deployId") String deployId, @Bind("host") String host,
                          @Bind("startedAt") Date startedAt);
 
+  @SqlBatch("INSERT INTO requestHistory (requestId, json, createdAt, requestState, f_user, message) VALUES (:requestId, :json, :createdAt, :requestState, :user, :message)")
+  void insertRequestHistories(@Bind("requestId") List<String> requestIds, @Bind("json") @Json List<SingularityRequest> requests, @Bind("createdAt") List<Date> createdAts,
+                              @Bind("requestState") List<String> requestStates, @Bind("user") List<String> users, @Bind("message") List<String> messages);
+
+  @SqlBatch("INSERT INTO deployHistory (requestId, deployId, createdAt, f_user, message, deployStateAt, deployState, json) VALUES (:requestId, :deployId, :createdAt, :user, :message, :deployStateAt, :deployState, :json)")
+  void insertDeployHistories(@Bind("requestId") List<String> requestIds, @Bind("deployId") List<String> deployIds, @Bind("createdAt") List<Date> createdAts, @Bind("user") List<String> users,
+                             @Bind("message") List<String> messages, @Bind("deployStateAt") List<Date> deployStateAts, @Bind("deployState") List<String> deployStates,
+                             @Bind("json") @Json List<SingularityDeployHistory> deployHistories);
+
+  @SqlBatch("INSERT INTO taskHistory (requestId, taskId, json, updatedAt, lastTaskStatus, runId, deployId, host, startedAt, purged) VALUES (:requestId, :taskId, :json, :updatedAt, :lastTaskStatus, :runId, :deployId, :host, :startedAt, false)")
+  void insertTaskHistories(@Bind("requestId") List<String> requestIds, @Bind("taskId") List<String> taskIds, @Bind("json") @Json List<SingularityTaskHistory> taskHistories,
+                           @Bind("updatedAt") List<Date> updatedAts, @Bind("lastTaskStatus") List<String> lastTaskStatuses, @Bind("runId") List<String> runIds,
+                           @Bind("deployId") List<String> deployIds, @Bind("host") List<String> hosts, @Bind("startedAt") List<Date> startedAts);
+
+  @SqlQuery("SELECT taskId FROM taskHistory WHERE taskId IN (<taskIds>)")
+  List<String> getTaskIdsInHistory(@BindList("taskIds") List<String> taskIds);
+
   @SingleValue
   @SqlQuery("SELECT json FROM taskHistory WHERE taskId = :taskId")
   @Json
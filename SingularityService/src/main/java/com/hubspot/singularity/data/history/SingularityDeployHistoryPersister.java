@@ -1,5 +1,6 @@
 package com.hubspot.singularity.data.history;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -18,9 +19,9 @@ import com.google.common.base.Optional;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.hubspot.mesos.JavaUtils;
-import com.hubspot.singularity.SingularityDeleteResult;
 import com.hubspot.singularity.SingularityDeployHistory;
 import com.hubspot.singularity.SingularityDeployKey;
+import com.hubspot.singularity.SingularityManagedCachedThreadPoolFactory;
 import com.hubspot.singularity.SingularityRequestDeployState;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.DeployManager;
@@ -40,8 +41,9 @@ public class SingularityDeployHistoryPersister extends SingularityHistoryPersist
                                            DeployManager deployManager,
                                            HistoryManager historyManager,
                                            SingularitySchedulerLock schedulerLock,
-                                           @Named(SingularityHistoryModule.PERSISTER_LOCK) ReentrantLock persisterLock) {
-    super(configuration, persisterLock);
+                                           @Named(SingularityHistoryModule.PERSISTER_LOCK) ReentrantLock persisterLock,
+                                           SingularityManagedCachedThreadPoolFactory cachedThreadPoolFactory) {
+    super(configuration, persisterLock, cachedThreadPoolFactory, "deploy-history-persister");
 
     this.schedulerLock = schedulerLock;
     this.deployManager = deployManager;
@@ -52,13 +54,13 @@ public class SingularityDeployHistoryPersister extends SingularityHistoryPersist
   public void runActionOnPoll() {
     LOG.info("Attempting to grab persister lock");
     persisterLock.lock();
+    final HistoryBatcher batcher = new HistoryBatcher();
     try {
       LOG.info("Acquired persister lock");
       LOG.info("Checking inactive deploys for deploy history persistence");
 
       final long start = System.currentTimeMillis();
       final LongAdder numTotal = new LongAdder();
-      final LongAdder numTransferred = new LongAdder();
       final Map<String, List<SingularityDeployKey>> allDeployIdsByRequest = deployManager.getAllDeployIds()
           .stream()
           .collect(Collectors.groupingBy(
@@ -66,9 +68,9 @@ public class SingularityDeployHistoryPersister extends SingularityHistoryPersist
               Collectors.toList()
           ));
 
-
       for (String requestId : deployManager.getAllRequestDeployStatesByRequestId().keySet()) {
         LOG.info("Checking deploy histories to persist for request {}", requestId);
+        final List<SingularityDeployHistory> toTransfer = new ArrayList<>();
         schedulerLock.runWithRequestLock(() -> {
           Optional<SingularityRequestDeployState> deployState = deployManager.getRequestDeployState(requestId);
 
@@ -93,15 +95,21 @@ public class SingularityDeployHistoryPersister extends SingularityHistoryPersist
             }
 
             LOG.info("Persisting deploy {} for request {}", deployHistory.getDeployMarker().getDeployId(), requestId);
-            if (moveToHistoryOrCheckForPurge(deployHistory, i++)) {
-              numTransferred.increment();
+            if (shouldMoveToHistoryOrPurge(deployHistory, i++)) {
+              toTransfer.add(deployHistory);
             }
           }
         }, requestId, getClass().getSimpleName());
+
+        // Inactive deploys can't become active again, so they are written outside of the request lock
+        toTransfer.forEach(batcher::add);
       }
 
+      final int numTransferred = batcher.finish();
       LOG.info("Transferred {} out of {} deploys in {}", numTransferred, numTotal, JavaUtils.duration(start));
     } finally {
+      // The next poll must not pick up deploys that are still being written
+      batcher.awaitInFlight();
       persisterLock.unlock();
     }
   }
@@ -134,20 +142,15 @@ public class SingularityDeployHistoryPersister extends SingularityHistoryPersist
   }
 
   @Override
-  protected boolean moveToHistory(SingularityDeployHistory deployHistory) {
-    try {
-      historyManager.saveDeployHistory(deployHistory);
-    } catch (Throwable t) {
-      LOG.warn("Failed to persist deploy {}", SingularityDeployKey.fromDeployMarker(deployHistory.getDeployMarker()), t);
-      return false;
-    }
-
-    return true;
+  protected void saveToHistory(List<SingularityDeployHistory> deployHistories) {
+    historyManager.saveDeployHistories(deployHistories);
   }
 
   @Override
-  protected SingularityDeleteResult purgeFromZk(SingularityDeployHistory deployHistory) {
-    return deployManager.deleteDeployHistory(SingularityDeployKey.fromDeployMarker(deployHistory.getDeployMarker()));
+  protected int purgeFromZk(List<SingularityDeployHistory> deployHistories) {
+    return deployManager.deleteDeployHistories(deployHistories.stream()
+        .map((deployHistory) -> SingularityDeployKey.fromDeployMarker(deployHistory.getDeployMarker()))
+        .collect(Collectors.toList()));
   }
 
 }
@@ -1,5 +1,12 @@
 package com.hubspot.singularity.data.history;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -8,8 +15,8 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Optional;
 import com.hubspot.mesos.JavaUtils;
-import com.hubspot.singularity.SingularityDeleteResult;
 import com.hubspot.singularity.SingularityHistoryItem;
+import com.hubspot.singularity.SingularityManagedCachedThreadPoolFactory;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.scheduler.SingularityLeaderOnlyPoller;
 
@@ -19,12 +26,14 @@ public abstract class SingularityHistoryPersister<T extends SingularityHistoryIt
 
   protected final SingularityConfiguration configuration;
   protected final ReentrantLock persisterLock;
+  private final ExecutorService batchExecutor;
 
-  public SingularityHistoryPersister(SingularityConfiguration configuration, ReentrantLock persisterLock) {
+  public SingularityHistoryPersister(SingularityConfiguration configuration, ReentrantLock persisterLock, SingularityManagedCachedThreadPoolFactory cachedThreadPoolFactory, String name) {
     super(configuration.getPersistHistoryEverySeconds(), TimeUnit.SECONDS);
 
     this.configuration = configuration;
     this.persisterLock = persisterLock;
+    this.batchExecutor = cachedThreadPoolFactory.get(name);
   }
 
   @Override
@@ -45,25 +54,65 @@ public abstract class SingularityHistoryPersister<T extends SingularityHistoryIt
 
   protected abstract Optional<Integer> getMaxNumberOfItems();
 
-  protected abstract boolean moveToHistory(T object);
-
-  protected abstract SingularityDeleteResult purgeFromZk(T object);
+  /**
+   * Saves the objects into the database in a single batch, throws if the batch could not be saved
+   */
+  protected abstract void saveToHistory(List<T> objects);
+
+  /**
+   * @return the number of objects that were still in zk
+   */
+  protected abstract int purgeFromZk(List<T> objects);
+
+  /**
+   * Persists the objects if there is a database, then deletes the ones that were persisted from zk
+   *
+   * @return the number of objects moved to history or purged
+   */
+  protected int moveToHistoryAndPurge(List<T> objects) {
+    if (objects.isEmpty()) {
+      return 0;
+    }
 
-  public boolean moveToHistoryOrCheckForPurge(T object, int index) {
     final long start = System.currentTimeMillis();
 
-    if (moveToHistoryOrCheckForPurgeAndShouldDelete(object, index)) {
-      SingularityDeleteResult deleteResult = purgeFromZk(object);
-      LOG.debug("{} {} (deleted: {}) in {}", persistsHistoryInsteadOfPurging() ? "Persisted" : "Purged", object, deleteResult, JavaUtils.duration(start));
-      return true;
+    List<T> toPurge = persistsHistoryInsteadOfPurging() ? moveToHistory(objects) : objects;
+    int deleted = toPurge.isEmpty() ? 0 : purgeFromZk(toPurge);
+
+    LOG.debug("{} {} of {} items (deleted: {}) in {}", persistsHistoryInsteadOfPurging() ? "Persisted" : "Purged", toPurge.size(), objects.size(), deleted, JavaUtils.duration(start));
+    return toPurge.size();
+  }
+
+  private List<T> moveToHistory(List<T> objects) {
+    try {
+      saveToHistory(objects);
+      return objects;
+    } catch (Throwable t) {
+      if (objects.size() == 1) {
+        LOG.warn("Failed to persist {} into History", objects.get(0), t);
+        return Collections.emptyList();
+      }
+      LOG.warn("Failed to persist a batch of {} items into History, retrying them one at a time", objects.size(), t);
     }
 
-    return false;
+    List<T> persisted = new ArrayList<>(objects.size());
+    for (T object : objects) {
+      try {
+        saveToHistory(Collections.singletonList(object));
+        persisted.add(object);
+      } catch (Throwable t) {
+        LOG.warn("Failed to persist {} into History", object, t);
+      }
+    }
+    return persisted;
   }
 
-  private boolean moveToHistoryOrCheckForPurgeAndShouldDelete(T object, int index) {
+  /**
+   * @return whether the object should be moved to history, or purged if there is no database
+   */
+  protected boolean shouldMoveToHistoryOrPurge(T object, int index) {
     if (persistsHistoryInsteadOfPurging()) {
-      return moveToHistory(object);
+      return true;
     }
 
     final long age = System.currentTimeMillis() - object.getCreateTimestampForCalculatingHistoryAge();
@@ -81,4 +130,70 @@ public abstract class SingularityHistoryPersister<T extends SingularityHistoryIt
     return false;
   }
 
+  /**
+   * Groups objects into batches and moves each full batch to history in the background while the caller keeps
+   * reading from zk. Once the max number of batches are being written, adding waits for the oldest one to finish.
+   */
+  protected class HistoryBatcher {
+    private final Deque<CompletableFuture<Integer>> inFlight = new ArrayDeque<>();
+    private List<T> batch = new ArrayList<>();
+    private int moved = 0;
+
+    protected void add(T object) {
+      batch.add(object);
+      if (batch.size() >= configuration.getHistoryPersisterBatchSize()) {
+        flush();
+      }
+    }
+
+    /**
+     * Writes the last partial batch and waits for every batch to finish
+     *
+     * @return the number of objects moved to history or purged
+     */
+    protected int finish() {
+      flush();
+      awaitInFlight();
+      return moved;
+    }
+
+    /**
+     * Waits for the batches that were already submitted, without writing the last partial batch
+     */
+    protected void awaitInFlight() {
+      while (!inFlight.isEmpty()) {
+        awaitOldest();
+      }
+    }
+
+    private void awaitOldest() {
+      try {
+        moved += inFlight.removeFirst().join();
+      } catch (Throwable t) {
+        LOG.error("Failed waiting for a batch to be moved to history", t);
+      }
+    }
+
+    private void flush() {
+      if (batch.isEmpty()) {
+        return;
+      }
+
+      while (inFlight.size() >= configuration.getHistoryPersisterMaxBatchesInFlight()) {
+        awaitOldest();
+      }
+
+      final List<T> toMove = batch;
+      batch = new ArrayList<>();
+      inFlight.addLast(CompletableFuture.supplyAsync(() -> {
+        try {
+          return moveToHistoryAndPurge(toMove);
+        } catch (Throwable t) {
+          LOG.error("Failed to move a batch of {} items to history", toMove.size(), t);
+          return 0;
+        }
+      }, batchExecutor));
+    }
+  }
+
 }
@@ -7,6 +7,7 @@ import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
 
@@ -18,8 +19,8 @@ import com.google.common.primitives.Longs;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.hubspot.mesos.JavaUtils;
-import com.hubspot.singularity.SingularityDeleteResult;
 import com.hubspot.singularity.SingularityHistoryItem;
+import com.hubspot.singularity.SingularityManagedCachedThreadPoolFactory;
 import com.hubspot.singularity.SingularityRequestHistory;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.RequestManager;
@@ -40,8 +41,9 @@ public class SingularityRequestHistoryPersister extends SingularityHistoryPersis
                                             RequestManager requestManager,
                                             HistoryManager historyManager,
                                             SingularitySchedulerLock lock,
-                                            @Named(SingularityHistoryModule.PERSISTER_LOCK) ReentrantLock persisterLock) {
-    super(configuration, persisterLock);
+                                            @Named(SingularityHistoryModule.PERSISTER_LOCK) ReentrantLock persisterLock,
+                                            SingularityManagedCachedThreadPoolFactory cachedThreadPoolFactory) {
+    super(configuration, persisterLock, cachedThreadPoolFactory, "request-history-persister");
 
     this.requestManager = requestManager;
     this.historyManager = historyManager;
@@ -134,7 +136,7 @@ public class SingularityRequestHistoryPersister extends SingularityHistoryPersis
       AtomicInteger i = new AtomicInteger();
       for (SingularityRequestHistoryParent requestHistoryParent : requestHistoryParents) {
         lock.runWithRequestLock(() -> {
-          if (moveToHistoryOrCheckForPurge(requestHistoryParent, i.getAndIncrement())) {
+          if (shouldMoveToHistoryOrPurge(requestHistoryParent, i.getAndIncrement()) && moveToHistoryAndPurge(Collections.singletonList(requestHistoryParent)) > 0) {
             numHistoryTransferred.getAndAdd(requestHistoryParent.history.size());
           }
         }, requestHistoryParent.requestId, "request history purger");
@@ -157,24 +159,26 @@ public class SingularityRequestHistoryPersister extends SingularityHistoryPersis
   }
 
   @Override
-  protected boolean moveToHistory(SingularityRequestHistoryParent object) {
-    for (SingularityRequestHistory requestHistory : object.history) {
-      try {
-        historyManager.saveRequestHistoryUpdate(requestHistory);
-      } catch (Throwable t) {
-        LOG.warn("Failed to persist {} into History", requestHistory, t);
-        return false;
-      }
+  protected void saveToHistory(List<SingularityRequestHistoryParent> objects) {
+    historyManager.saveRequestHistoryUpdates(flattenHistory(objects));
+  }
 
-      requestManager.deleteHistoryItem(requestHistory);
+  @Override
+  protected int purgeFromZk(List<SingularityRequestHistoryParent> objects) {
+    List<String> requestIds = objects.stream().map(SingularityRequestHistoryParent::getRequestId).collect(Collectors.toList());
+
+    if (persistsHistoryInsteadOfPurging()) {
+      // Only delete what was persisted, updates may have been added since the history was read
+      int deleted = requestManager.deleteHistoryItems(flattenHistory(objects));
+      requestManager.deleteEmptyHistoryParents(requestIds);
+      return deleted;
     }
 
-    return true;
+    return requestManager.deleteHistoryParents(requestIds);
   }
 
-  @Override
-  protected SingularityDeleteResult purgeFromZk(SingularityRequestHistoryParent object) {
-    return requestManager.deleteHistoryParent(object.requestId);
+  private List<SingularityRequestHistory> flattenHistory(List<SingularityRequestHistoryParent> objects) {
+    return objects.stream().flatMap((object) -> object.history.stream()).collect(Collectors.toList());
   }
 
 }
@@ -1,5 +1,6 @@
 package com.hubspot.singularity.data.history;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -18,7 +19,7 @@ import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.hubspot.mesos.JavaUtils;
 import com.hubspot.singularity.ExtendedTaskState;
-import com.hubspot.singularity.SingularityDeleteResult;
+import com.hubspot.singularity.SingularityManagedCachedThreadPoolFactory;
 import com.hubspot.singularity.SingularityPendingDeploy;
 import com.hubspot.singularity.SingularityTaskHistory;
 import com.hubspot.singularity.SingularityTaskHistoryUpdate;
@@ -44,8 +45,8 @@ public class SingularityTaskHistoryPersister extends SingularityHistoryPersister
   @Inject
   public SingularityTaskHistoryPersister(SingularityConfiguration configuration, TaskManager taskManager,
                                          DeployManager deployManager, HistoryManager historyManager, @Named(SingularityHistoryModule.PERSISTER_LOCK) ReentrantLock persisterLock,
-                                         RequestManager requestManager, SingularitySchedulerLock lock) {
-    super(configuration, persisterLock);
+                                         RequestManager requestManager, SingularitySchedulerLock lock, SingularityManagedCachedThreadPoolFactory cachedThreadPoolFactory) {
+    super(configuration, persisterLock, cachedThreadPoolFactory, "task-history-persister");
 
     this.taskManager = taskManager;
     this.historyManager = historyManager;
@@ -59,6 +60,7 @@ public class SingularityTaskHistoryPersister extends SingularityHistoryPersister
   public void runActionOnPoll() {
     LOG.info("Attempting to grab persister lock");
     persisterLock.lock();
+    HistoryBatcher batcher = new HistoryBatcher();
     try {
       LOG.info("Checking inactive task ids for task history persistence");
 
@@ -67,32 +69,37 @@ public class SingularityTaskHistoryPersister extends SingularityHistoryPersister
       allTaskIds.sort(SingularityTaskId.STARTED_AT_COMPARATOR_DESC);
 
       AtomicInteger numTotal = new AtomicInteger();
-      AtomicInteger numTransferred = new AtomicInteger();
 
       for (String requestId : requestManager.getAllRequestIds()) {
+        List<SingularityTaskId> toTransfer = new ArrayList<>();
         lock.runWithRequestLock(() -> {
           List<SingularityTaskId> activeForRequest = taskManager.getActiveTaskIdsForRequest(requestId);
           Set<SingularityTaskId> lbCleaningTaskIds = Sets.newHashSet(taskManager.getLBCleanupTasks());
           List<SingularityPendingDeploy> pendingDeploys = deployManager.getPendingDeploys();
 
-          AtomicInteger transferred = new AtomicInteger();
+          AtomicInteger index = new AtomicInteger();
           allTaskIds.stream()
               .filter((t) -> t.getRequestId().equals(requestId))
               .filter((t) -> !(activeForRequest.contains(t) || lbCleaningTaskIds.contains(t) || isPartOfPendingDeploy(pendingDeploys, t) || couldReturnWithRecoveredAgent(t)))
               .forEach((t) -> {
-                if (moveToHistoryOrCheckForPurge(t, transferred.getAndIncrement())) {
-                  numTransferred.getAndIncrement();
+                if (shouldMoveToHistoryOrPurge(t, index.getAndIncrement())) {
+                  toTransfer.add(t);
                 }
 
                 numTotal.getAndIncrement();
               });
-
-
         }, requestId, "task history persister");
+
+        // Inactive tasks don't change anymore, so they are written outside of the request lock
+        toTransfer.forEach(batcher::add);
       }
 
+      int numTransferred = batcher.finish();
+
       LOG.info("Transferred {} out of {} inactive task ids (total {}) in {}", numTransferred, numTotal, allTaskIds.size(), JavaUtils.duration(start));
     } finally {
+      // The next poll must not pick up tasks that are still being written
+      batcher.awaitInFlight();
       persisterLock.unlock();
     }
   }
@@ -143,27 +150,25 @@ public class SingularityTaskHistoryPersister extends SingularityHistoryPersister
   }
 
   @Override
-  protected boolean moveToHistory(SingularityTaskId object) {
-    final Optional<SingularityTaskHistory> taskHistory = taskManager.getTaskHistory(object);
-
-    if (taskHistory.isPresent()) {
-      LOG.debug("Moving {} to history", object);
-      try {
-        historyManager.saveTaskHistory(taskHistory.get());
-      } catch (Throwable t) {
-        LOG.warn("Failed to persist task into History for task {}", object, t);
-        return false;
+  protected void saveToHistory(List<SingularityTaskId> taskIds) {
+    List<SingularityTaskHistory> taskHistories = new ArrayList<>(taskIds.size());
+    for (SingularityTaskId taskId : taskIds) {
+      final Optional<SingularityTaskHistory> taskHistory = taskManager.getTaskHistory(taskId);
+
+      if (taskHistory.isPresent()) {
+        LOG.debug("Moving {} to history", taskId);
+        taskHistories.add(taskHistory.get());
+      } else {
+        LOG.warn("Inactive task {} did not have a task to persist", taskId);
       }
-    } else {
-      LOG.warn("Inactive task {} did not have a task to persist", object);
     }
 
-    return true;
+    historyManager.saveTaskHistories(taskHistories);
   }
 
   @Override
-  protected SingularityDeleteResult purgeFromZk(SingularityTaskId object) {
-    return taskManager.deleteTaskHistory(object);
+  protected int purgeFromZk(List<SingularityTaskId> taskIds) {
+    return taskManager.deleteTaskHistories(taskIds);
   }
 
 }
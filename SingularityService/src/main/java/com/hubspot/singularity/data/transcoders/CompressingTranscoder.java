@@ -2,20 +2,98 @@ package com.hubspot.singularity.data.transcoders;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 import javax.annotation.Nullable;
 
 import org.iq80.snappy.CorruptionException;
 import org.iq80.snappy.Snappy;
 
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.google.common.base.Optional;
 import com.hubspot.singularity.config.SingularityConfiguration;
-
+import com.hubspot.singularity.config.ZooKeeperCompressionConfiguration;
+
+/**
+ * Compresses the serialized form of an object.
+ *
+ * Legacy payloads are either the raw bytes or a bare Snappy block, depending on compressLargeDataObjects. With
+ * zookeeperCompression.writeFramedFormat enabled, payloads are written as [FRAME_MAGIC][codec][data] instead, so the
+ * codec can vary per object and small objects can skip compression entirely. Both formats are always readable.
+ */
 public abstract class CompressingTranscoder<T> implements Transcoder<T> {
 
-  private final boolean compressLargeDataObjects;
+  // Never the first byte of a legacy payload: serialized JSON can't start with it, and a Snappy block only does for an empty input, which is never compressed
+  static final byte FRAME_MAGIC = 0;
+  static final int FRAME_HEADER_LENGTH = 2;
+
+  enum FrameCodec {
+    NONE((byte) 0), SNAPPY((byte) 1), ZSTD((byte) 2), ZSTD_DICTIONARY((byte) 3);
+
+    private final byte id;
+
+    FrameCodec(byte id) {
+      this.id = id;
+    }
+
+    static FrameCodec fromId(byte id) {
+      for (FrameCodec codec : values()) {
+        if (codec.id == id) {
+          return codec;
+        }
+      }
+      throw new SingularityTranscoderException("Unknown compression codec %s", id);
+    }
+  }
 
-  protected CompressingTranscoder(SingularityConfiguration configuration) {
+  private final boolean compressLargeDataObjects;
+  private final boolean writeFramedFormat;
+  private final FrameCodec codec;
+  private final int minimumBytesToCompress;
+  private final int zstdLevel;
+  private final Optional<ZstdDictCompress> zstdDictCompress;
+  private final Optional<ZstdDictDecompress> zstdDictDecompress;
+
+  protected CompressingTranscoder(SingularityConfiguration configuration, String name) {
     checkNotNull(configuration, "configuration is null");
+    ZooKeeperCompressionConfiguration compressionConfiguration = configuration.getZooKeeperCompressionConfiguration();
+
     this.compressLargeDataObjects = configuration.isCompressLargeDataObjects();
+    this.writeFramedFormat = compressionConfiguration.isWriteFramedFormat();
+    this.minimumBytesToCompress = compressionConfiguration.getMinimumBytesToCompressOverrides().getOrDefault(name, compressionConfiguration.getMinimumBytesToCompress());
+    this.zstdLevel = compressionConfiguration.getZstdLevel();
+
+    if (compressionConfiguration.getZstdDictionaryFile().isPresent()) {
+      byte[] dictionary = readDictionary(compressionConfiguration.getZstdDictionaryFile().get());
+      this.zstdDictCompress = Optional.of(new ZstdDictCompress(dictionary, zstdLevel));
+      this.zstdDictDecompress = Optional.of(new ZstdDictDecompress(dictionary));
+    } else {
+      this.zstdDictCompress = Optional.absent();
+      this.zstdDictDecompress = Optional.absent();
+    }
+
+    switch (compressionConfiguration.getCodec()) {
+      case ZSTD:
+        this.codec = zstdDictCompress.isPresent() ? FrameCodec.ZSTD_DICTIONARY : FrameCodec.ZSTD;
+        break;
+      case SNAPPY:
+      default:
+        this.codec = FrameCodec.SNAPPY;
+        break;
+    }
+  }
+
+  private static byte[] readDictionary(String path) {
+    try {
+      return Files.readAllBytes(Paths.get(path));
+    } catch (IOException e) {
+      throw new SingularityTranscoderException(e, "Unable to read zstd dictionary %s", path);
+    }
   }
 
   protected abstract T actualFromBytes(byte[] data) throws SingularityTranscoderException;
@@ -34,11 +112,38 @@ public abstract class CompressingTranscoder<T> implements Transcoder<T> {
 
   private byte[] getMaybeCompressedBytes(@Nullable byte[] bytes) throws SingularityTranscoderException {
 
-    if (bytes == null || bytes.length == 0) {
+    if (bytes == null || bytes.length == 0 || !compressLargeDataObjects) {
       return bytes;
     }
 
-    return compressLargeDataObjects ? Snappy.compress(bytes) : bytes;
+    if (!writeFramedFormat) {
+      return Snappy.compress(bytes);
+    }
+
+    if (bytes.length < minimumBytesToCompress) {
+      return frame(FrameCodec.NONE, bytes);
+    }
+
+    final byte[] framed;
+    switch (codec) {
+      case ZSTD:
+        framed = frame(codec, Zstd.compress(bytes, zstdLevel));
+        break;
+      case ZSTD_DICTIONARY:
+        framed = frame(codec, Zstd.compress(bytes, zstdDictCompress.get()));
+        break;
+      case SNAPPY:
+      default:
+        byte[] compressed = new byte[FRAME_HEADER_LENGTH + Snappy.maxCompressedLength(bytes.length)];
+        int compressedLength = Snappy.compress(bytes, 0, bytes.length, compressed, FRAME_HEADER_LENGTH);
+        compressed[0] = FRAME_MAGIC;
+        compressed[1] = codec.id;
+        framed = Arrays.copyOf(compressed, FRAME_HEADER_LENGTH + compressedLength);
+        break;
+    }
+
+    // Not worth paying for decompression on every read if nothing was saved
+    return framed.length < bytes.length + FRAME_HEADER_LENGTH ? framed : frame(FrameCodec.NONE, bytes);
   }
 
   private byte[] getMaybeUncompressedBytes(@Nullable byte[] bytes) throws SingularityTranscoderException {
@@ -47,10 +152,59 @@ public abstract class CompressingTranscoder<T> implements Transcoder<T> {
       return bytes;
     }
 
+    if (bytes[0] == FRAME_MAGIC && bytes.length >= FRAME_HEADER_LENGTH) {
+      return unframe(bytes);
+    }
+
+    if (!compressLargeDataObjects) {
+      return bytes;
+    }
+
     try {
-      return compressLargeDataObjects ? Snappy.uncompress(bytes, 0, bytes.length) : bytes;
+      return Snappy.uncompress(bytes, 0, bytes.length);
     } catch (CorruptionException ce) {
+      // Written while compressLargeDataObjects was disabled
+      if (bytes[0] == '{' || bytes[0] == '[' || JacksonSerializer.isSmile(bytes)) {
+        return bytes;
+      }
       throw new SingularityTranscoderException(ce);
     }
   }
+
+  private byte[] frame(FrameCodec frameCodec, byte[] data) {
+    byte[] framed = new byte[FRAME_HEADER_LENGTH + data.length];
+    framed[0] = FRAME_MAGIC;
+    framed[1] = frameCodec.id;
+    System.arraycopy(data, 0, framed, FRAME_HEADER_LENGTH, data.length);
+    return framed;
+  }
+
+  private byte[] unframe(byte[] bytes) throws SingularityTranscoderException {
+    final FrameCodec frameCodec = FrameCodec.fromId(bytes[1]);
+
+    try {
+      switch (frameCodec) {
+        case NONE:
+          return Arrays.copyOfRange(bytes, FRAME_HEADER_LENGTH, bytes.length);
+        case SNAPPY:
+          return Snappy.uncompress(bytes, FRAME_HEADER_LENGTH, bytes.length - FRAME_HEADER_LENGTH);
+        case ZSTD:
+        case ZSTD_DICTIONARY:
+        default:
+          byte[] compressed = Arrays.copyOfRange(bytes, FRAME_HEADER_LENGTH, bytes.length);
+          int uncompressedLength = (int) Zstd.decompressedSize(compressed);
+          if (frameCodec == FrameCodec.ZSTD) {
+            return Zstd.decompress(compressed, uncompressedLength);
+          }
+          if (!zstdDictDecompress.isPresent()) {
+            throw new SingularityTranscoderException("Object was compressed with a zstd dictionary, but no zookeeperCompression.zstdDictionaryFile is configured");
+          }
+          return Zstd.decompress(compressed, zstdDictDecompress.get(), uncompressedLength);
+      }
+    } catch (SingularityTranscoderException ste) {
+      throw ste;
+    } catch (RuntimeException e) {
+      throw new SingularityTranscoderException(e);
+    }
+  }
 }
@@ -0,0 +1,58 @@
+package com.hubspot.singularity.data.transcoders;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+
+import javax.annotation.Nullable;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Reads JSON or Smile (detected from the Smile header), writes whichever format is configured. Uses the same
+ * ObjectMapper configuration for both so the two formats always map to the same objects.
+ */
+class JacksonSerializer<T> {
+  private static final byte[] EMPTY_BYTES = new byte[0];
+
+  private final ObjectReader jsonReader;
+  private final ObjectReader smileReader;
+  private final ObjectWriter writer;
+
+  JacksonSerializer(ObjectMapper objectMapper, Class<T> clazz, boolean writeSmile) {
+    checkNotNull(objectMapper, "objectMapper is null");
+    checkNotNull(clazz, "clazz is null");
+
+    SmileFactory smileFactory = new SmileFactory();
+    this.jsonReader = objectMapper.readerFor(clazz);
+    this.smileReader = jsonReader.with(smileFactory);
+    this.writer = writeSmile ? objectMapper.writer().with(smileFactory) : objectMapper.writer();
+  }
+
+  static boolean isSmile(byte[] data) {
+    return data.length >= 3 && data[0] == ':' && data[1] == ')' && data[2] == '\n';
+  }
+
+  T fromBytes(@Nullable byte[] data) throws SingularityTranscoderException {
+    if (data == null || data.length == 0) {
+      return null;
+    }
+
+    try {
+      return isSmile(data) ? smileReader.readValue(data) : jsonReader.readValue(data);
+    } catch (IOException e) {
+      throw new SingularityTranscoderException(e);
+    }
+  }
+
+  byte[] toBytes(@Nullable T object) throws SingularityTranscoderException {
+    try {
+      return object == null ? EMPTY_BYTES : writer.writeValueAsBytes(object);
+    } catch (IOException e) {
+      throw new SingularityTranscoderException(e);
+    }
+  }
+}
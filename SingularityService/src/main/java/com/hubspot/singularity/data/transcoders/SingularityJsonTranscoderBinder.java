@@ -51,21 +51,24 @@ public final class SingularityJsonTranscoderBinder {
   static class JsonTranscoderProvider<T> implements Provider<JsonTranscoder<T>> {
     private final Class<T> clazz;
     private ObjectMapper objectMapper;
+    private SingularityConfiguration singularityConfiguration;
 
     JsonTranscoderProvider(Class<T> clazz) {
       this.clazz = clazz;
     }
 
     @Inject
-    void inject(ObjectMapper objectMapper) {
+    void inject(ObjectMapper objectMapper, SingularityConfiguration singularityConfiguration) {
       this.objectMapper = checkNotNull(objectMapper, "objectMapper is null");
+      this.singularityConfiguration = checkNotNull(singularityConfiguration, "singularityConfiguration is null");
     }
 
     @Override
     public JsonTranscoder<T> get() {
       checkState(objectMapper != null, "objectMapper was never injected!");
+      checkState(singularityConfiguration != null, "singularityConfiguration was never injected!");
 
-      return new JsonTranscoder<T>(objectMapper, clazz);
+      return new JsonTranscoder<T>(objectMapper, clazz, singularityConfiguration.isWriteZkDataAsSmile());
     }
   }
 
@@ -60,9 +60,14 @@ public class UsageManager extends CuratorAsyncManager implements TaskUsageManage
     this.requestUtilizationTranscoder = requestUtilizationTranscoder;
   }
 
-  public void activateLeaderCache() {
-    leaderCache.cacheRequestUtilizations(getRequestUtilizations(false));
-    leaderCache.cacheSlaveUsages(getAllCurrentSlaveUsage());
+  public int activateLeaderCache() {
+    Map<String, RequestUtilization> requestUtilizations = getRequestUtilizations(false);
+    Map<String, SingularitySlaveUsageWithId> slaveUsages = getAllCurrentSlaveUsage();
+    leaderCache.cacheRequestUtilizations(requestUtilizations);
+    leaderCache.cacheSlaveUsages(slaveUsages);
+    // Task usage is loaded per task the first time it's read, most are read on the next usage poll anyway
+    leaderCache.clearTaskUsages();
+    return requestUtilizations.size() + slaveUsages.size();
   }
 
   public SingularityCreateResult saveClusterUtilization(SingularityClusterUtilization utilization) {
@@ -164,19 +169,39 @@ public class UsageManager extends CuratorAsyncManager implements TaskUsageManage
   }
 
   // Task Usage
+  // Writes go to zk before the leader cache, so a read that starts caching a task's usage either sees them in zk or
+  // has its series updated by them
   public void deleteTaskUsage(SingularityTaskId taskId) {
     taskUsageManager.deleteTaskUsage(taskId);
+    if (leaderCache.active()) {
+      leaderCache.removeTaskUsage(taskId);
+    }
   }
 
   public void deleteSpecificTaskUsage(SingularityTaskId taskId, long timestamp) {
     taskUsageManager.deleteSpecificTaskUsage(taskId, timestamp);
+    if (leaderCache.active()) {
+      leaderCache.removeTaskUsage(taskId, timestamp);
+    }
   }
 
   public void saveSpecificTaskUsage(SingularityTaskId taskId, SingularityTaskUsage usage) {
     taskUsageManager.saveSpecificTaskUsage(taskId, usage);
+    if (leaderCache.active()) {
+      leaderCache.addTaskUsage(taskId, usage, configuration.getNumUsageToKeep());
+    }
   }
 
   public List<SingularityTaskUsage> getTaskUsage(SingularityTaskId taskId) {
+    if (leaderCache.active()) {
+      Optional<List<SingularityTaskUsage>> maybeCached = leaderCache.getTaskUsage(taskId);
+      if (maybeCached.isPresent()) {
+        return maybeCached.get();
+      }
+      leaderCache.startCachingTaskUsage(taskId, configuration.getNumUsageToKeep());
+      List<SingularityTaskUsage> usages = taskUsageManager.getTaskUsage(taskId);
+      return leaderCache.finishCachingTaskUsage(taskId, usages, configuration.getNumUsageToKeep()).or(usages);
+    }
     return taskUsageManager.getTaskUsage(taskId);
   }
 
@@ -185,6 +210,9 @@ public class UsageManager extends CuratorAsyncManager implements TaskUsageManage
   }
 
   public void cleanOldUsages(List<SingularityTaskId> activeTaskIds) {
+    if (leaderCache.active()) {
+      leaderCache.retainTaskUsages(activeTaskIds);
+    }
     taskUsageManager.cleanOldUsages(activeTaskIds);
   }
 }
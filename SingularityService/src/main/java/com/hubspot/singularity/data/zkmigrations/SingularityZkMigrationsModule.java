@@ -16,6 +16,7 @@ public class SingularityZkMigrationsModule implements Module {
   @Override
   public void configure(Binder binder) {
     binder.bind(ZkDataMigrationRunner.class).in(Scopes.SINGLETON);
+    binder.bind(SmileTaskDataRewriter.class).in(Scopes.SINGLETON);
 
     Multibinder<ZkDataMigration> dataMigrations = Multibinder.newSetBinder(binder, ZkDataMigration.class);
     dataMigrations.addBinding().to(LastTaskStatusMigration.class);
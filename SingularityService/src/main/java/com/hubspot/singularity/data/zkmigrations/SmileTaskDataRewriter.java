@@ -0,0 +1,119 @@
+package com.hubspot.singularity.data.zkmigrations;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.hubspot.singularity.SingularityPendingTask;
+import com.hubspot.singularity.SingularityPendingTaskId;
+import com.hubspot.singularity.SingularityTask;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.MetadataManager;
+import com.hubspot.singularity.data.TaskManager;
+import com.hubspot.singularity.data.transcoders.Transcoder;
+
+/**
+ * Rewrites the nodes the leader reads most (active tasks, their updates and pending tasks) as Smile the first time a
+ * leader starts with writeZkDataAsSmile enabled. Not a ZkDataMigration, since the flag can be turned on long after the
+ * data version has moved past it. A marker node records that the rewrite is done, and is removed whenever a leader
+ * starts with the flag off so that turning it back on rewrites the tasks written as JSON in the meantime. Everything
+ * else is converted the next time it is saved, since both formats are always readable.
+ */
+@Singleton
+public class SmileTaskDataRewriter {
+  private static final Logger LOG = LoggerFactory.getLogger(SmileTaskDataRewriter.class);
+
+  private static final String PENDING_TASKS_ROOT = "/tasks/scheduled";
+  private static final String TASK_HISTORY_ROOT = "/tasks/history";
+
+  private final CuratorFramework curator;
+  private final SingularityConfiguration configuration;
+  private final TaskManager taskManager;
+  private final MetadataManager metadataManager;
+  private final Transcoder<SingularityTask> taskTranscoder;
+  private final Transcoder<SingularityTaskHistoryUpdate> taskHistoryUpdateTranscoder;
+  private final Transcoder<SingularityPendingTask> pendingTaskTranscoder;
+
+  @Inject
+  public SmileTaskDataRewriter(CuratorFramework curator,
+                               SingularityConfiguration configuration,
+                               TaskManager taskManager,
+                               MetadataManager metadataManager,
+                               Transcoder<SingularityTask> taskTranscoder,
+                               Transcoder<SingularityTaskHistoryUpdate> taskHistoryUpdateTranscoder,
+                               Transcoder<SingularityPendingTask> pendingTaskTranscoder) {
+    this.curator = curator;
+    this.configuration = configuration;
+    this.taskManager = taskManager;
+    this.metadataManager = metadataManager;
+    this.taskTranscoder = taskTranscoder;
+    this.taskHistoryUpdateTranscoder = taskHistoryUpdateTranscoder;
+    this.pendingTaskTranscoder = pendingTaskTranscoder;
+  }
+
+  /**
+   * @return the number of nodes rewritten, 0 if the flag is off or the rewrite was already done
+   */
+  public int rewriteIfNecessary() {
+    if (!configuration.isWriteZkDataAsSmile()) {
+      if (metadataManager.isSmileTaskDataRewritten()) {
+        LOG.info("writeZkDataAsSmile is disabled, task data will be rewritten again if it is re-enabled");
+        metadataManager.clearSmileTaskDataRewritten();
+      }
+      return 0;
+    }
+
+    if (metadataManager.isSmileTaskDataRewritten()) {
+      return 0;
+    }
+
+    int rewritten = 0;
+
+    try {
+      for (SingularityTaskId taskId : taskManager.getActiveTaskIds()) {
+        String historyPath = ZKPaths.makePath(ZKPaths.makePath(TASK_HISTORY_ROOT, taskId.getRequestId()), taskId.getId());
+        rewritten += rewrite(ZKPaths.makePath(historyPath, "TASK"), taskTranscoder);
+
+        String updatesPath = ZKPaths.makePath(historyPath, "updates");
+        try {
+          for (String state : curator.getChildren().forPath(updatesPath)) {
+            rewritten += rewrite(ZKPaths.makePath(updatesPath, state), taskHistoryUpdateTranscoder);
+          }
+        } catch (NoNodeException nne) {
+          LOG.debug("No updates for {}", taskId);
+        }
+      }
+
+      for (SingularityPendingTaskId pendingTaskId : taskManager.getPendingTaskIds()) {
+        rewritten += rewrite(ZKPaths.makePath(ZKPaths.makePath(PENDING_TASKS_ROOT, pendingTaskId.getRequestId()), pendingTaskId.getId()), pendingTaskTranscoder);
+      }
+    } catch (Throwable t) {
+      throw new RuntimeException(t);
+    }
+
+    metadataManager.setSmileTaskDataRewritten();
+    LOG.info("Rewrote {} task nodes as Smile", rewritten);
+
+    return rewritten;
+  }
+
+  private <T> int rewrite(String path, Transcoder<T> transcoder) throws Exception {
+    try {
+      byte[] data = curator.getData().forPath(path);
+      if (data == null || data.length == 0) {
+        return 0;
+      }
+      curator.setData().forPath(path, transcoder.toBytes(transcoder.fromBytes(data)));
+      return 1;
+    } catch (NoNodeException nne) {
+      // Task finished or was launched while migrating
+      return 0;
+    }
+  }
+}
@@ -19,11 +19,13 @@ public class ZkDataMigrationRunner {
 
   private final MetadataManager metadataManager;
   private final List<ZkDataMigration> migrations;
+  private final SmileTaskDataRewriter smileTaskDataRewriter;
 
   @Inject
-  public ZkDataMigrationRunner(MetadataManager metadataManager, List<ZkDataMigration> migrations) {
+  public ZkDataMigrationRunner(MetadataManager metadataManager, List<ZkDataMigration> migrations, SmileTaskDataRewriter smileTaskDataRewriter) {
     this.metadataManager = metadataManager;
     this.migrations = migrations;
+    this.smileTaskDataRewriter = smileTaskDataRewriter;
   }
 
   public int checkMigrations() {
@@ -59,6 +61,8 @@ public class ZkDataMigrationRunner {
 
     LOG.info("Applied {} migrations in {}", numMigrationsApplied, JavaUtils.duration(start));
 
+    smileTaskDataRewriter.rewriteIfNecessary();
+
     return numMigrationsApplied;
   }
 
@@ -0,0 +1,171 @@
+package com.hubspot.singularity.mesos;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.apache.mesos.v1.scheduler.Protos.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * A bounded queue of mesos events with its own consumer thread, so events in one lane never wait behind a backlog in
+ * another. When full, a lane either drops its oldest droppable event (handing it to the overflow handler, e.g. to
+ * decline the offers in it) or rejects the new one and reports it to the overflow handler.
+ */
+class MesosEventLane {
+  private static final Logger LOG = LoggerFactory.getLogger(MesosEventLane.class);
+
+  private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+  enum OverflowStrategy {
+    DROP_OLDEST, REJECT
+  }
+
+  private static class QueuedEvent {
+    private final Event event;
+    private final long queuedAt;
+
+    private QueuedEvent(Event event) {
+      this.event = event;
+      this.queuedAt = System.nanoTime();
+    }
+  }
+
+  private final String name;
+  private final int capacity;
+  private final OverflowStrategy overflowStrategy;
+  private final Consumer<Event> consumer;
+  private final Consumer<Event> onOverflow;
+  private final Predicate<Event> droppable;
+  private final BlockingDeque<QueuedEvent> queue;
+  private final Meter dropped;
+  private final Timer waitTimer;
+  private final Timer processTimer;
+
+  private volatile Thread consumerThread;
+
+  MesosEventLane(String name, int capacity, OverflowStrategy overflowStrategy, Consumer<Event> consumer, Consumer<Event> onOverflow, MetricRegistry metricRegistry) {
+    this(name, capacity, overflowStrategy, consumer, onOverflow, (event) -> true, metricRegistry);
+  }
+
+  MesosEventLane(String name, int capacity, OverflowStrategy overflowStrategy, Consumer<Event> consumer, Consumer<Event> onOverflow, Predicate<Event> droppable, MetricRegistry metricRegistry) {
+    this.name = name;
+    this.capacity = capacity;
+    this.overflowStrategy = overflowStrategy;
+    this.consumer = consumer;
+    this.onOverflow = onOverflow;
+    this.droppable = droppable;
+    this.queue = new LinkedBlockingDeque<>(capacity);
+    this.dropped = metricRegistry.meter(MetricRegistry.name("mesos.events", name, "dropped"));
+    this.waitTimer = metricRegistry.timer(MetricRegistry.name("mesos.events", name, "wait"));
+    this.processTimer = metricRegistry.timer(MetricRegistry.name("mesos.events", name, "process"));
+    metricRegistry.register(MetricRegistry.name("mesos.events", name, "queued"), (Gauge<Integer>) queue::size);
+  }
+
+  synchronized void start() {
+    if (consumerThread != null) {
+      return;
+    }
+    consumerThread = new Thread(this::consume, String.format("mesos-%s-events", name));
+    consumerThread.setDaemon(true);
+    consumerThread.start();
+  }
+
+  /**
+   * Waits a bounded time for the event being handled, a consumer that outlives it stops before its next event
+   */
+  synchronized void stop() {
+    Thread stopping = consumerThread;
+    consumerThread = null;
+    queue.clear();
+    if (stopping != null) {
+      stopping.interrupt();
+      if (stopping != Thread.currentThread()) {
+        try {
+          stopping.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+        }
+        if (stopping.isAlive()) {
+          LOG.warn("{} event lane consumer did not stop within {}ms", name, STOP_TIMEOUT_MILLIS);
+        }
+      }
+    }
+  }
+
+  /**
+   * Only called from the thread reading the event stream
+   */
+  void offer(Event event) {
+    QueuedEvent queuedEvent = new QueuedEvent(event);
+    while (!queue.offerLast(queuedEvent)) {
+      dropped.mark();
+      if (overflowStrategy == OverflowStrategy.REJECT) {
+        LOG.error("{} event lane is full ({}), rejecting {} event", name, capacity, event.getType());
+        onOverflow.accept(event);
+        return;
+      }
+
+      QueuedEvent oldest = pollOldestDroppable();
+      if (oldest == null) {
+        LOG.error("{} event lane is full ({}) of events that can't be dropped, rejecting {} event", name, capacity, event.getType());
+        onOverflow.accept(event);
+        return;
+      }
+
+      LOG.warn("{} event lane is full ({}), dropping oldest {} event", name, capacity, oldest.event.getType());
+      onOverflow.accept(oldest.event);
+    }
+  }
+
+  private QueuedEvent pollOldestDroppable() {
+    for (QueuedEvent queuedEvent : queue) {
+      if (droppable.test(queuedEvent.event) && queue.removeFirstOccurrence(queuedEvent)) {
+        return queuedEvent;
+      }
+    }
+    return null;
+  }
+
+  int size() {
+    return queue.size();
+  }
+
+  private void consume() {
+    while (isCurrentConsumer()) {
+      final QueuedEvent queuedEvent;
+      try {
+        queuedEvent = queue.take();
+      } catch (InterruptedException ie) {
+        return;
+      }
+
+      if (!isCurrentConsumer()) {
+        // Stopped while waiting, the scheduler code may have swallowed the interrupt
+        return;
+      }
+
+      final long start = System.nanoTime();
+      waitTimer.update(start - queuedEvent.queuedAt, TimeUnit.NANOSECONDS);
+      try {
+        consumer.accept(queuedEvent.event);
+      } catch (Throwable t) {
+        LOG.error("Uncaught exception handling {} event", queuedEvent.event.getType(), t);
+      } finally {
+        processTimer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
+  private boolean isCurrentConsumer() {
+    return consumerThread == Thread.currentThread() && !Thread.currentThread().isInterrupted();
+  }
+}
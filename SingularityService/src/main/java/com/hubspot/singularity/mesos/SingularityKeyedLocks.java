@@ -0,0 +1,44 @@
+package com.hubspot.singularity.mesos;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One lock per key (e.g. request id), kept only while some thread holds or is waiting on it.
+ *
+ * Each entry is reference counted inside {@link ConcurrentHashMap#compute}, so a lock is removed as soon as the
+ * last caller releases it and a new caller for the same key can never end up with a different lock instance
+ * than a thread still holding it.
+ */
+class SingularityKeyedLocks {
+
+  private final ConcurrentHashMap<String, CountedLock> locks;
+
+  SingularityKeyedLocks() {
+    this.locks = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Takes a reference on the lock for this key without locking it. Must be paired with {@link #release}.
+   */
+  ReentrantLock acquire(String key) {
+    return locks.compute(key, (k, existing) -> {
+      CountedLock lock = existing == null ? new CountedLock() : existing;
+      lock.references++;
+      return lock;
+    });
+  }
+
+  void release(String key) {
+    locks.computeIfPresent(key, (k, existing) -> --existing.references == 0 ? null : existing);
+  }
+
+  int size() {
+    return locks.size();
+  }
+
+  private static class CountedLock extends ReentrantLock {
+    // Only read or written inside ConcurrentHashMap#compute for this key
+    private int references;
+  }
+}
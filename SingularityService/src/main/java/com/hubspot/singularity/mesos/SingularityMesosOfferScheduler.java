@@ -57,7 +57,6 @@ import com.hubspot.singularity.helpers.MesosUtils;
 import com.hubspot.singularity.helpers.SingularityMesosTaskHolder;
 import com.hubspot.singularity.mesos.SingularityOfferCache.CachedOffer;
 import com.hubspot.singularity.mesos.SingularitySlaveAndRackManager.CheckResult;
-import com.hubspot.singularity.mesos.SingularitySlaveUsageWithCalculatedScores.MaxProbableUsage;
 import com.hubspot.singularity.scheduler.SingularityLeaderCache;
 import com.hubspot.singularity.scheduler.SingularityScheduler;
 import com.hubspot.singularity.scheduler.SingularityUsageHelper;
@@ -67,6 +66,9 @@ public class SingularityMesosOfferScheduler {
 
   private static final Logger LOG = LoggerFactory.getLogger(SingularityMesosOfferScheduler.class);
 
+  // Below this many candidate offers for a task, scoring them inline is cheaper than handing each one to the scoring executor
+  private static final int MIN_CANDIDATE_OFFERS_FOR_ASYNC_SCORING = 50;
+
   private final Resources defaultResources;
   private final Resources defaultCustomExecutorResources;
   private final TaskManager taskManager;
@@ -348,7 +350,6 @@ public class SingularityMesosOfferScheduler {
 
     final AtomicInteger tasksScheduled = new AtomicInteger(0);
     Map<String, RequestUtilization> requestUtilizations = usageManager.getRequestUtilizations(false);
-    List<SingularityTaskId> activeTaskIds = taskManager.getActiveTaskIds();
 
     Map<String, SingularitySlaveUsageWithId> currentSlaveUsages = usageManager.getAllCurrentSlaveUsage();
 
@@ -359,8 +360,8 @@ public class SingularityMesosOfferScheduler {
         Optional<SingularitySlaveUsageWithId> maybeSlaveUsage = Optional.fromNullable(currentSlaveUsages.get(slaveId));
 
         if (configuration.isReCheckMetricsForLargeNewTaskCount() && maybeSlaveUsage.isPresent()) {
-          long newTaskCount = taskManager.getActiveTaskIds().stream()
-              .filter((t) -> t.getStartedAt() > maybeSlaveUsage.get().getTimestamp() && t.getSanitizedHost().equals(offerHolder.getSanitizedHost()))
+          long newTaskCount = taskManager.getActiveTaskIdsForHost(offerHolder.getSanitizedHost()).stream()
+              .filter((t) -> t.getStartedAt() > maybeSlaveUsage.get().getTimestamp())
               .count();
           if (newTaskCount >= maybeSlaveUsage.get().getNumTasks() / 2) {
             try {
@@ -384,42 +385,58 @@ public class SingularityMesosOfferScheduler {
     }
     CompletableFutures.allOf(currentSlaveUsagesFutures).join();
 
+    SlaveUsageScoreTable slaveUsages = new SlaveUsageScoreTable(
+        offerHolders.size(),
+        mesosConfiguration.getScoreUsingSystemLoad(),
+        mesosConfiguration.getLoad5OverloadedThreshold(),
+        mesosConfiguration.getLoad1OverloadedThreshold());
+    for (SingularityOfferHolder offerHolder : offerHolders.values()) {
+      slaveUsages.add(offerHolder.getSlaveId(), currentSlaveUsages.get(offerHolder.getSlaveId()));
+    }
+
     List<CompletableFuture<Void>> usagesWithScoresFutures = new ArrayList<>();
-    Map<String, SingularitySlaveUsageWithCalculatedScores> currentSlaveUsagesBySlaveId = new ConcurrentHashMap<>();
-    for (SingularitySlaveUsageWithId usage : currentSlaveUsages.values()) {
-      if (offerHolders.containsKey(usage.getSlaveId())) {
-        usagesWithScoresFutures.add(
-            runAsync(() -> currentSlaveUsagesBySlaveId.put(usage.getSlaveId(),
-                new SingularitySlaveUsageWithCalculatedScores(
-                    usage,
-                    mesosConfiguration.getScoreUsingSystemLoad(),
-                    getMaxProbableUsageForSlave(activeTaskIds, requestUtilizations, offerHolders.get(usage.getSlaveId()).getSanitizedHost()),
-                    mesosConfiguration.getLoad5OverloadedThreshold(),
-                    mesosConfiguration.getLoad1OverloadedThreshold(),
-                    usage.getTimestamp()))
-            ));
+    for (SingularityOfferHolder offerHolder : offerHolders.values()) {
+      int slot = slaveUsages.getSlot(offerHolder.getSlaveId());
+      if (!slaveUsages.isMissingUsageData(slot)) {
+        usagesWithScoresFutures.add(runAsync(() -> addMaxProbableUsage(slaveUsages, slot, requestUtilizations, offerHolder.getSanitizedHost())));
       }
     }
 
     CompletableFutures.allOf(usagesWithScoresFutures).join();
+    slaveUsages.recalculateScores();
 
-    LOG.trace("Found slave usages {}", currentSlaveUsagesBySlaveId);
+    if (LOG.isTraceEnabled()) {
+      for (int slot = 0; slot < slaveUsages.size(); slot++) {
+        LOG.trace("Found slave usage {}", slaveUsages.toString(slot));
+      }
+    }
 
     Map<String, Integer> tasksPerOfferHost = new ConcurrentHashMap<>();
+    SingularityOfferIndex offerIndex = new SingularityOfferIndex(offerHolders.values(), configuration.getMaxTasksPerOffer());
+    // Each candidate only writes its own slot, so async scoring can share this between tasks without locking
+    double[] scorePerSlot = new double[slaveUsages.size()];
 
     for (SingularityTaskRequestHolder taskRequestHolder : sortedTaskRequestHolders) {
       lock.runWithRequestLock(() -> {
-        Map<String, Double> scorePerOffer = new ConcurrentHashMap<>();
         List<SingularityTaskId> activeTaskIdsForRequest = leaderCache.getActiveTaskIdsForRequest(taskRequestHolder.getTaskRequest().getRequest().getId());
+        RequestUtilization requestUtilization = requestUtilizations.get(taskRequestHolder.getTaskRequest().getRequest().getId());
+
+        List<SingularityOfferHolder> candidateOffers = offerIndex.getCandidateOffers(taskRequestHolder);
+        LOG.trace("Scoring {} of {} offers for task {}", candidateOffers.size(), offerIndex.size(), taskRequestHolder.getTaskRequest().getPendingTask().getPendingTaskId());
 
-        List<CompletableFuture<Void>> scoringFutures = new ArrayList<>();
         AtomicReference<Throwable> scoringException = new AtomicReference<>(null);
-        for (SingularityOfferHolder offerHolder : offerHolders.values()) {
-          scoringFutures.add(runAsync(() -> calculateScore(requestUtilizations, currentSlaveUsagesBySlaveId, tasksPerOfferHost, taskRequestHolder, scorePerOffer, activeTaskIdsForRequest, scoringException, offerHolder)));
+        if (candidateOffers.size() >= MIN_CANDIDATE_OFFERS_FOR_ASYNC_SCORING) {
+          List<CompletableFuture<Void>> scoringFutures = new ArrayList<>(candidateOffers.size());
+          for (SingularityOfferHolder offerHolder : candidateOffers) {
+            scoringFutures.add(runAsync(() -> calculateScore(requestUtilization, slaveUsages, tasksPerOfferHost, taskRequestHolder, scorePerSlot, activeTaskIdsForRequest, scoringException, offerHolder)));
+          }
+          CompletableFutures.allOf(scoringFutures).join();
+        } else {
+          for (SingularityOfferHolder offerHolder : candidateOffers) {
+            calculateScore(requestUtilization, slaveUsages, tasksPerOfferHost, taskRequestHolder, scorePerSlot, activeTaskIdsForRequest, scoringException, offerHolder);
+          }
         }
 
-        CompletableFutures.allOf(scoringFutures).join();
-
         if (scoringException.get() != null) {
           LOG.warn("Exception caught in offer scoring futures, semaphore info: (concurrentRequests: {}, queueSize: {})",
               offerScoringSemaphore.getConcurrentRequests(), offerScoringSemaphore.getQueueSize());
@@ -427,13 +444,24 @@ public class SingularityMesosOfferScheduler {
           throw new RuntimeException(scoringException.get());
         }
 
-        if (!scorePerOffer.isEmpty()) {
-          SingularityOfferHolder bestOffer = offerHolders.get(Collections.max(scorePerOffer.entrySet(), Map.Entry.comparingByValue()).getKey());
-          LOG.info("Best offer {}/1 is on {}", scorePerOffer.get(bestOffer.getSlaveId()), bestOffer.getSanitizedHost());
+        // A score of 0 means the offer can't take the task, any other score (even a negative one) can be picked
+        SingularityOfferHolder bestOffer = null;
+        double bestScore = 0;
+        for (SingularityOfferHolder offerHolder : candidateOffers) {
+          double score = scorePerSlot[slaveUsages.getSlot(offerHolder.getSlaveId())];
+          if (score != 0 && (bestOffer == null || score > bestScore)) {
+            bestOffer = offerHolder;
+            bestScore = score;
+          }
+        }
+
+        if (bestOffer != null) {
+          LOG.info("Best offer {}/1 is on {}", bestScore, bestOffer.getSanitizedHost());
           SingularityMesosTaskHolder taskHolder = acceptTask(bestOffer, tasksPerOfferHost, taskRequestHolder);
           tasksScheduled.getAndIncrement();
           bestOffer.addMatchedTask(taskHolder);
-          updateSlaveUsageScores(taskRequestHolder, currentSlaveUsagesBySlaveId, bestOffer.getSlaveId(), requestUtilizations);
+          offerIndex.updateOffer(bestOffer);
+          updateSlaveUsageScores(taskRequestHolder, slaveUsages, slaveUsages.getSlot(bestOffer.getSlaveId()), requestUtilizations);
         }
       }, taskRequestHolder.getTaskRequest().getRequest().getId(), String.format("%s#%s", getClass().getSimpleName(), "checkOffers"));
     }
@@ -448,89 +476,71 @@ public class SingularityMesosOfferScheduler {
   }
 
   private void calculateScore(
-      Map<String, RequestUtilization> requestUtilizations,
-      Map<String, SingularitySlaveUsageWithCalculatedScores> currentSlaveUsagesBySlaveId,
+      RequestUtilization requestUtilization,
+      SlaveUsageScoreTable slaveUsages,
       Map<String, Integer> tasksPerOfferHost,
       SingularityTaskRequestHolder taskRequestHolder,
-      Map<String, Double> scorePerOffer,
+      double[] scorePerSlot,
       List<SingularityTaskId> activeTaskIdsForRequest,
       AtomicReference<Throwable> scoringException,
       SingularityOfferHolder offerHolder) {
+    int slot = slaveUsages.getSlot(offerHolder.getSlaveId());
+    scorePerSlot[slot] = 0;
     if (isOfferFull(offerHolder)) {
       return;
     }
-    String slaveId = offerHolder.getSlaveId();
 
     try {
-      double score = calculateScore(offerHolder, currentSlaveUsagesBySlaveId, tasksPerOfferHost, taskRequestHolder, activeTaskIdsForRequest, requestUtilizations.get(taskRequestHolder.getTaskRequest().getRequest().getId()));
-      if (score != 0) {
-        scorePerOffer.put(slaveId, score);
-      }
+      scorePerSlot[slot] = calculateScore(offerHolder, slaveUsages, slot, tasksPerOfferHost, taskRequestHolder, activeTaskIdsForRequest, requestUtilization);
     } catch (Throwable t) {
       LOG.error("Uncaught exception while scoring offers", t);
       scoringException.set(t);
     }
   }
 
-  private MaxProbableUsage getMaxProbableUsageForSlave(List<SingularityTaskId> activeTaskIds, Map<String, RequestUtilization> requestUtilizations, String sanitizedHostname) {
-    double cpu = 0;
-    double memBytes = 0;
-    double diskBytes = 0;
-    for (SingularityTaskId taskId : activeTaskIds) {
-      if (taskId.getSanitizedHost().equals(sanitizedHostname)) {
-        if (requestUtilizations.containsKey(taskId.getRequestId())) {
-          RequestUtilization utilization = requestUtilizations.get(taskId.getRequestId());
-          cpu += getEstimatedCpuUsageForRequest(utilization);
-          memBytes += utilization.getMaxMemBytesUsed();
-          diskBytes += utilization.getMaxDiskBytesUsed();
-        } else {
-          Optional<SingularityTask> maybeTask = taskManager.getTask(taskId);
-          if (maybeTask.isPresent()) {
-            Resources resources = maybeTask.get().getTaskRequest().getPendingTask().getResources()
-                .or(maybeTask.get().getTaskRequest().getDeploy().getResources())
-                .or(defaultResources);
-            cpu += resources.getCpus();
-            memBytes += resources.getMemoryMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
-            diskBytes += resources.getDiskMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
-          }
+  private void addMaxProbableUsage(SlaveUsageScoreTable slaveUsages, int slot, Map<String, RequestUtilization> requestUtilizations, String sanitizedHostname) {
+    for (SingularityTaskId taskId : taskManager.getActiveTaskIdsForHost(sanitizedHostname)) {
+      RequestUtilization utilization = requestUtilizations.get(taskId.getRequestId());
+      if (utilization != null) {
+        slaveUsages.addMaxProbableUsage(slot, getEstimatedCpuUsageForRequest(utilization), utilization.getMaxMemBytesUsed(), utilization.getMaxDiskBytesUsed());
+      } else {
+        Optional<SingularityTask> maybeTask = taskManager.getTask(taskId);
+        if (maybeTask.isPresent()) {
+          Resources resources = maybeTask.get().getTaskRequest().getPendingTask().getResources()
+              .or(maybeTask.get().getTaskRequest().getDeploy().getResources())
+              .or(defaultResources);
+          slaveUsages.addMaxProbableUsage(slot, resources.getCpus(),
+              resources.getMemoryMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE, resources.getDiskMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE);
         }
       }
     }
-    return new MaxProbableUsage(cpu, memBytes, diskBytes);
   }
 
   private boolean isOfferFull(SingularityOfferHolder offerHolder) {
     return configuration.getMaxTasksPerOffer() > 0 && offerHolder.getAcceptedTasks().size() >= configuration.getMaxTasksPerOffer();
   }
 
-  private void updateSlaveUsageScores(SingularityTaskRequestHolder taskHolder, Map<String, SingularitySlaveUsageWithCalculatedScores> currentSlaveUsagesBySlaveId, String slaveId, Map<String, RequestUtilization> requestUtilizations) {
-    Optional<SingularitySlaveUsageWithCalculatedScores> maybeUsage = Optional.fromNullable(currentSlaveUsagesBySlaveId.get(slaveId));
-    if (maybeUsage.isPresent() && !maybeUsage.get().isMissingUsageData()) {
-      SingularitySlaveUsageWithCalculatedScores usage = maybeUsage.get();
-      usage.addEstimatedCpuReserved(taskHolder.getTotalResources().getCpus());
-      usage.addEstimatedMemoryReserved(taskHolder.getTotalResources().getMemoryMb());
-      usage.addEstimatedDiskReserved(taskHolder.getTotalResources().getDiskMb());
-      if (requestUtilizations.containsKey(taskHolder.getTaskRequest().getRequest().getId())) {
-        RequestUtilization requestUtilization = requestUtilizations.get(taskHolder.getTaskRequest().getRequest().getId());
-        usage.addEstimatedCpuUsage(requestUtilization.getMaxCpuUsed());
-        usage.addEstimatedMemoryBytesUsage(requestUtilization.getMaxMemBytesUsed());
-        usage.addEstimatedDiskBytesUsage(requestUtilization.getMaxDiskBytesUsed());
-      } else {
-        usage.addEstimatedCpuUsage(taskHolder.getTotalResources().getCpus());
-        usage.addEstimatedMemoryBytesUsage(taskHolder.getTotalResources().getMemoryMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE);
-        usage.addEstimatedDiskBytesUsage(taskHolder.getTotalResources().getDiskMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE);
-      }
-      usage.recalculateScores();
+  private void updateSlaveUsageScores(SingularityTaskRequestHolder taskHolder, SlaveUsageScoreTable slaveUsages, int slot, Map<String, RequestUtilization> requestUtilizations) {
+    if (slaveUsages.isMissingUsageData(slot)) {
+      return;
+    }
+    slaveUsages.addEstimatedReserved(slot, taskHolder.getTotalResources().getCpus(), taskHolder.getTotalResources().getMemoryMb(), taskHolder.getTotalResources().getDiskMb());
+    RequestUtilization requestUtilization = requestUtilizations.get(taskHolder.getTaskRequest().getRequest().getId());
+    if (requestUtilization != null) {
+      slaveUsages.addEstimatedUsage(slot, requestUtilization.getMaxCpuUsed(), requestUtilization.getMaxMemBytesUsed(), requestUtilization.getMaxDiskBytesUsed());
+    } else {
+      slaveUsages.addEstimatedUsage(slot, taskHolder.getTotalResources().getCpus(),
+          taskHolder.getTotalResources().getMemoryMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE, taskHolder.getTotalResources().getDiskMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE);
     }
+    slaveUsages.recalculateScores(slot);
   }
 
-  private double calculateScore(SingularityOfferHolder offerHolder, Map<String, SingularitySlaveUsageWithCalculatedScores> currentSlaveUsagesBySlaveId, Map<String, Integer> tasksPerOffer,
-                                SingularityTaskRequestHolder taskRequestHolder, List<SingularityTaskId> activeTaskIdsForRequest, RequestUtilization requestUtilization) {
-    Optional<SingularitySlaveUsageWithCalculatedScores> maybeSlaveUsage = Optional.fromNullable(currentSlaveUsagesBySlaveId.get(offerHolder.getSlaveId()));
-    double score = score(offerHolder, tasksPerOffer, taskRequestHolder, maybeSlaveUsage, activeTaskIdsForRequest, requestUtilization);
+  private double calculateScore(SingularityOfferHolder offerHolder, SlaveUsageScoreTable slaveUsages, int slot,
+                                Map<String, Integer> tasksPerOffer, SingularityTaskRequestHolder taskRequestHolder, List<SingularityTaskId> activeTaskIdsForRequest, RequestUtilization requestUtilization) {
+    double score = score(offerHolder, tasksPerOffer, taskRequestHolder, slaveUsages, slot, activeTaskIdsForRequest, requestUtilization);
     if (LOG.isTraceEnabled()) {
-      LOG.trace("Scored {} | Task {} | Offer - mem {} - cpu {} | Slave {} | maybeSlaveUsage - {}", score, taskRequestHolder.getTaskRequest().getPendingTask().getPendingTaskId().getId(),
-          MesosUtils.getMemory(offerHolder.getCurrentResources(), Optional.absent()), MesosUtils.getNumCpus(offerHolder.getCurrentResources(), Optional.absent()), offerHolder.getHostname(), maybeSlaveUsage);
+      LOG.trace("Scored {} | Task {} | Offer - mem {} - cpu {} | Slave {} | slaveUsage - {}", score, taskRequestHolder.getTaskRequest().getPendingTask().getPendingTaskId().getId(),
+          MesosUtils.getMemory(offerHolder.getCurrentResources(), Optional.absent()), MesosUtils.getNumCpus(offerHolder.getCurrentResources(), Optional.absent()), offerHolder.getHostname(), slaveUsages.toString(slot));
     }
     return score;
   }
@@ -553,8 +563,7 @@ public class SingularityMesosOfferScheduler {
   }
 
   private double score(SingularityOfferHolder offerHolder, Map<String, Integer> tasksPerOffer, SingularityTaskRequestHolder taskRequestHolder,
-                       Optional<SingularitySlaveUsageWithCalculatedScores> maybeSlaveUsage, List<SingularityTaskId> activeTaskIdsForRequest,
-                       RequestUtilization requestUtilization) {
+                       SlaveUsageScoreTable slaveUsages, int slot, List<SingularityTaskId> activeTaskIdsForRequest, RequestUtilization requestUtilization) {
 
     final SingularityTaskRequest taskRequest = taskRequestHolder.getTaskRequest();
     final SingularityPendingTaskId pendingTaskId = taskRequest.getPendingTask().getPendingTaskId();
@@ -573,13 +582,13 @@ public class SingularityMesosOfferScheduler {
     if (requestUtilization != null) {
       estimatedCpusToAdd = getEstimatedCpuUsageForRequest(requestUtilization);
     }
-    if (mesosConfiguration.isOmitOverloadedHosts() && maybeSlaveUsage.isPresent() && maybeSlaveUsage.get().isCpuOverloaded(estimatedCpusToAdd)) {
+    if (mesosConfiguration.isOmitOverloadedHosts() && slaveUsages.isCpuOverloaded(slot, estimatedCpusToAdd)) {
       LOG.debug("Slave {} is overloaded (load5 {}/{}, load1 {}/{}, estimated cpus to add: {}, already committed cpus: {}), ignoring offer",
           offerHolder.getHostname(),
-          maybeSlaveUsage.get().getSlaveUsage().getSystemLoad5Min(), maybeSlaveUsage.get().getSlaveUsage().getSystemCpusTotal(),
-          maybeSlaveUsage.get().getSlaveUsage().getSystemLoad1Min(), maybeSlaveUsage.get().getSlaveUsage().getSystemCpusTotal(),
+          slaveUsages.getSlaveUsage(slot).getSystemLoad5Min(), slaveUsages.getSlaveUsage(slot).getSystemCpusTotal(),
+          slaveUsages.getSlaveUsage(slot).getSystemLoad1Min(), slaveUsages.getSlaveUsage(slot).getSystemCpusTotal(),
           estimatedCpusToAdd,
-          maybeSlaveUsage.get().getEstimatedAddedCpusUsage());
+          slaveUsages.getEstimatedAddedCpusUsage(slot));
       return 0;
     }
 
@@ -597,7 +606,13 @@ public class SingularityMesosOfferScheduler {
     final SlaveMatchState slaveMatchState = slaveAndRackManager.doesOfferMatch(offerHolder, taskRequest, activeTaskIdsForRequest, isPreemptibleTask(taskRequest));
 
     if (slaveMatchState.isMatchAllowed()) {
-      return score(offerHolder.getHostname(), maybeSlaveUsage);
+      // Usage-based scores only change for the slave a task was just accepted on, keep the rest between tasks
+      double score = slaveUsages.getUsageScore(slot);
+      if (Double.isNaN(score)) {
+        score = score(offerHolder.getHostname(), slaveUsages, slot);
+        slaveUsages.setUsageScore(slot, score);
+      }
+      return score;
     } else if (LOG.isTraceEnabled()) {
       LOG.trace("Ignoring offer on host {} with roles {} on {} for task {}; matched resources: {}, slave match state: {}", offerHolder.getHostname(),
           offerHolder.getRoles(), offerHolder.getHostname(), pendingTaskId, matchesResources, slaveMatchState);
@@ -620,26 +635,28 @@ public class SingularityMesosOfferScheduler {
   }
 
   @VisibleForTesting
-  double score(String hostname, Optional<SingularitySlaveUsageWithCalculatedScores> maybeSlaveUsage) {
-    if (!maybeSlaveUsage.isPresent() || maybeSlaveUsage.get().isMissingUsageData()) {
-      if (mesosConfiguration.isOmitForMissingUsageData()) {
-        LOG.info("Skipping slave {} with missing usage data ({})", hostname, maybeSlaveUsage);
-        return 0.0;
-      } else {
-        LOG.info("Slave {} has missing usage data ({}). Will default to {}", hostname, maybeSlaveUsage, 0.5);
-        return 0.5;
-      }
+  double score(String hostname, SlaveUsageScoreTable slaveUsages, int slot) {
+    if (slaveUsages.isMissingUsageData(slot)) {
+      return scoreForMissingUsageData(hostname, Optional.fromNullable(slaveUsages.getSlaveUsage(slot)));
     }
 
-    SingularitySlaveUsageWithCalculatedScores slaveUsageWithScores = maybeSlaveUsage.get();
-
     return calculateScore(
-        1 - slaveUsageWithScores.getMemAllocatedScore(), slaveUsageWithScores.getMemInUseScore(),
-        1 - slaveUsageWithScores.getCpusAllocatedScore(), slaveUsageWithScores.getCpusInUseScore(),
-        1 - slaveUsageWithScores.getDiskAllocatedScore(), slaveUsageWithScores.getDiskInUseScore(),
+        1 - slaveUsages.getMemAllocatedScore(slot), slaveUsages.getMemInUseScore(slot),
+        1 - slaveUsages.getCpusAllocatedScore(slot), slaveUsages.getCpusInUseScore(slot),
+        1 - slaveUsages.getDiskAllocatedScore(slot), slaveUsages.getDiskInUseScore(slot),
         mesosConfiguration.getInUseResourceWeight(), mesosConfiguration.getAllocatedResourceWeight());
   }
 
+  private double scoreForMissingUsageData(String hostname, Optional<SingularitySlaveUsage> maybeSlaveUsage) {
+    if (mesosConfiguration.isOmitForMissingUsageData()) {
+      LOG.info("Skipping slave {} with missing usage data ({})", hostname, maybeSlaveUsage);
+      return 0.0;
+    } else {
+      LOG.info("Slave {} has missing usage data ({}). Will default to {}", hostname, maybeSlaveUsage, 0.5);
+      return 0.5;
+    }
+  }
+
   private double calculateScore(double memAllocatedScore, double memInUseScore, double cpusAllocatedScore, double cpusInUseScore, double diskAllocatedScore, double diskInUseScore, double inUseResourceWeight, double allocatedResourceWeight) {
     double score = 0;
 
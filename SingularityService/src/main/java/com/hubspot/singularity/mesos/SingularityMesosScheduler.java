@@ -14,6 +14,7 @@ import org.apache.mesos.v1.scheduler.Protos.Event;
 
 import com.google.common.base.Optional;
 import com.hubspot.singularity.RequestCleanupType;
+import com.hubspot.singularity.SingularityTaskCleanup;
 import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.TaskCleanupType;
 
@@ -170,6 +171,11 @@ public abstract class SingularityMesosScheduler {
     killAndRecord(taskId, Optional.absent(), Optional.of(taskCleanupType), Optional.absent(), Optional.absent(), user);
   }
 
+  /**
+   * Kills the task of each cleanup and saves all of their killed records together
+   */
+  public abstract void killAndRecord(List<SingularityTaskCleanup> taskCleanups);
+
   public abstract Optional<Long> getLastOfferTimestamp();
 
   public abstract Optional<Double> getHeartbeatIntervalSeconds();
@@ -3,7 +3,9 @@ package com.hubspot.singularity.mesos;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.apache.mesos.v1.Protos.AgentID;
 import org.apache.mesos.v1.Protos.ExecutorID;
@@ -14,6 +16,7 @@ import org.apache.mesos.v1.Protos.KillPolicy;
 import org.apache.mesos.v1.Protos.Offer;
 import org.apache.mesos.v1.Protos.OfferID;
 import org.apache.mesos.v1.Protos.TaskID;
+import org.apache.mesos.v1.Protos.TaskStatus;
 import org.apache.mesos.v1.scheduler.Protos.Call;
 import org.apache.mesos.v1.scheduler.Protos.Call.Accept;
 import org.apache.mesos.v1.scheduler.Protos.Call.Acknowledge;
@@ -29,6 +32,9 @@ import org.apache.mesos.v1.scheduler.Protos.Event;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.google.protobuf.ByteString;
@@ -44,9 +50,9 @@ import com.hubspot.mesos.rx.java.SinkOperation;
 import com.hubspot.mesos.rx.java.SinkOperations;
 import com.hubspot.mesos.rx.java.protobuf.ProtobufMesosClientBuilder;
 import com.hubspot.mesos.rx.java.util.UserAgentEntries;
+import com.hubspot.singularity.mesos.MesosEventLane.OverflowStrategy;
 
 import rx.BackpressureOverflow;
-import rx.Observable;
 import rx.subjects.PublishSubject;
 import rx.subjects.SerializedSubject;
 
@@ -59,20 +65,25 @@ import rx.subjects.SerializedSubject;
 public class SingularityMesosSchedulerClient {
   private static final Logger LOG = LoggerFactory.getLogger(SingularityMesosSchedulerClient.class);
 
+  private static final int CONTROL_EVENT_BUFFER_SIZE = 1000;
+
   private final SingularityConfiguration configuration;
   private final MesosConfiguration mesosConfiguration;
   private final String singularityUriBase;
+  private final Map<Event.Type, MesosEventLane> lanes;
 
   private SerializedSubject<Optional<SinkOperation<Call>>, Optional<SinkOperation<Call>>> publisher;
   private FrameworkID frameworkId;
   private AwaitableSubscription openStream;
   private Thread subscriberThread;
+  private volatile SingularityMesosScheduler scheduler;
 
   @Inject
-  public SingularityMesosSchedulerClient(SingularityConfiguration configuration, @Named(SingularityServiceUIModule.SINGULARITY_URI_BASE) final String singularityUriBase) {
+  public SingularityMesosSchedulerClient(SingularityConfiguration configuration, @Named(SingularityServiceUIModule.SINGULARITY_URI_BASE) final String singularityUriBase, MetricRegistry metricRegistry) {
     this.configuration = configuration;
     this.mesosConfiguration = configuration.getMesosConfiguration();
     this.singularityUriBase = singularityUriBase;
+    this.lanes = buildLanes(metricRegistry);
   }
 
   /**
@@ -173,58 +184,11 @@ public class SingularityMesosSchedulerClient {
 
     subscribe.processStream(unicastEvents -> {
 
-      final Observable<Event> events = unicastEvents.share();
-
-      events.filter(event -> event.getType() == Event.Type.ERROR)
-          .map(event -> event.getError().getMessage())
-          .subscribe(scheduler::error, scheduler::onUncaughtException);
-
-      events.filter(event -> event.getType() == Event.Type.FAILURE)
-          .map(Event::getFailure)
-          .subscribe(scheduler::failure, scheduler::onUncaughtException);
-
-      events.filter(event -> event.getType() == Event.Type.HEARTBEAT)
-          .subscribe(scheduler::heartbeat, scheduler::onUncaughtException);
-
-      events.filter(event -> event.getType() == Event.Type.INVERSE_OFFERS)
-          .map(event -> event.getInverseOffers().getInverseOffersList())
-          .subscribe(scheduler::inverseOffers, scheduler::onUncaughtException);
-
-      events.filter(event -> event.getType() == Event.Type.MESSAGE)
-          .map(Event::getMessage)
-          .subscribe(scheduler::message, scheduler::onUncaughtException);
-
-      events.filter(event -> event.getType() == Event.Type.OFFERS)
-          .map(event -> event.getOffers().getOffersList())
-          .subscribe(scheduler::resourceOffers, scheduler::onUncaughtException);
-
-      events.filter(event -> event.getType() == Event.Type.RESCIND)
-          .map(event -> event.getRescind().getOfferId())
-          .subscribe(scheduler::rescind, scheduler::onUncaughtException);
-
-      events.filter(event -> event.getType() == Event.Type.RESCIND_INVERSE_OFFER)
-          .map(event -> event.getRescindInverseOffer().getInverseOfferId())
-          .subscribe(scheduler::rescindInverseOffer, scheduler::onUncaughtException);
-
-      events.filter(event -> event.getType() == Event.Type.SUBSCRIBED)
-          .map(Event::getSubscribed)
-          .subscribe(subscribed -> {
-            this.frameworkId = subscribed.getFrameworkId();
-            scheduler.subscribed(subscribed);
-            }, scheduler::onUncaughtException
-          );
-
-      events.filter(event -> event.getType() == Event.Type.UPDATE)
-          .map(event -> event.getUpdate().getStatus())
-          .filter(status -> {
-            if (!status.hasAgentId() || !status.getAgentId().hasValue()) {
-              LOG.warn("Filtering out status update without agentId {}", status);
-              return false;
-            } else {
-              return true;
-            }
-          })
-          .subscribe(scheduler::statusUpdate, scheduler::onUncaughtException);
+      startLanes(scheduler);
+
+      unicastEvents
+          .filter(event -> event.getType() != Event.Type.UPDATE || hasAgentId(event.getUpdate().getStatus()))
+          .subscribe(this::dispatch, scheduler::onUncaughtException);
 
       // This is the observable that is responsible for sending calls to mesos master.
       PublishSubject<Optional<SinkOperation<Call>>> p = PublishSubject.create();
@@ -241,6 +205,113 @@ public class SingularityMesosSchedulerClient {
     } catch (Throwable t) {
       LOG.error("Observable was unexpectedly closed", t);
       scheduler.onConnectException(t);
+    } finally {
+      stopLanes();
+    }
+  }
+
+  @VisibleForTesting
+  void startLanes(SingularityMesosScheduler scheduler) {
+    this.scheduler = scheduler;
+    lanes.values().forEach(MesosEventLane::start);
+  }
+
+  @VisibleForTesting
+  void stopLanes() {
+    lanes.values().forEach(MesosEventLane::stop);
+  }
+
+  @VisibleForTesting
+  void dispatch(Event event) {
+    MesosEventLane lane = lanes.get(event.getType());
+    if (lane == null) {
+      handleEvent(event);
+    } else {
+      lane.offer(event);
+    }
+  }
+
+  private boolean hasAgentId(TaskStatus status) {
+    if (!status.hasAgentId() || !status.getAgentId().hasValue()) {
+      LOG.warn("Filtering out status update without agentId {}", status);
+      return false;
+    }
+    return true;
+  }
+
+  private void handleEvent(Event event) {
+    try {
+      switch (event.getType()) {
+        case ERROR:
+          scheduler.error(event.getError().getMessage());
+          break;
+        case FAILURE:
+          scheduler.failure(event.getFailure());
+          break;
+        case HEARTBEAT:
+          scheduler.heartbeat(event);
+          break;
+        case INVERSE_OFFERS:
+          scheduler.inverseOffers(event.getInverseOffers().getInverseOffersList());
+          break;
+        case MESSAGE:
+          scheduler.message(event.getMessage());
+          break;
+        case OFFERS:
+          scheduler.resourceOffers(event.getOffers().getOffersList());
+          break;
+        case RESCIND:
+          scheduler.rescind(event.getRescind().getOfferId());
+          break;
+        case RESCIND_INVERSE_OFFER:
+          scheduler.rescindInverseOffer(event.getRescindInverseOffer().getInverseOfferId());
+          break;
+        case SUBSCRIBED:
+          this.frameworkId = event.getSubscribed().getFrameworkId();
+          scheduler.subscribed(event.getSubscribed());
+          break;
+        case UPDATE:
+          scheduler.statusUpdate(event.getUpdate().getStatus());
+          break;
+        default:
+          LOG.debug("Ignoring {} event", event.getType());
+      }
+    } catch (Throwable t) {
+      scheduler.onUncaughtException(t);
+    }
+  }
+
+  private Map<Event.Type, MesosEventLane> buildLanes(MetricRegistry metricRegistry) {
+    // Subscribed, error and failure events are handled as they arrive, anything after them depends on them
+    MesosEventLane updates = new MesosEventLane("updates", (int) mesosConfiguration.getRxEventBufferSize(), OverflowStrategy.REJECT, this::handleEvent,
+        (event) -> scheduler.onUncaughtException(new EventBufferOverflowException(String.format("Overflow of status update buffer (%s), singularity could not keep up!", mesosConfiguration.getRxEventBufferSize()))),
+        metricRegistry);
+    // Rescinds share the offers lane, mesos sends them after their offer and they must be handled in that order. Only
+    // offers are dropped when the lane is full, a dropped rescind would leave a dead offer in the offer cache
+    MesosEventLane offers = new MesosEventLane("offers", mesosConfiguration.getOfferEventBufferSize(), OverflowStrategy.DROP_OLDEST, this::handleEvent,
+        this::onOfferLaneOverflow, (event) -> event.getType() == Event.Type.OFFERS, metricRegistry);
+    MesosEventLane heartbeats = new MesosEventLane("heartbeats", CONTROL_EVENT_BUFFER_SIZE, OverflowStrategy.DROP_OLDEST, this::handleEvent, (event) -> {}, metricRegistry);
+    MesosEventLane other = new MesosEventLane("other", CONTROL_EVENT_BUFFER_SIZE, OverflowStrategy.REJECT, this::handleEvent,
+        (event) -> scheduler.onUncaughtException(new EventBufferOverflowException(String.format("Overflow of event buffer (%s), singularity could not keep up!", CONTROL_EVENT_BUFFER_SIZE))),
+        metricRegistry);
+
+    return ImmutableMap.<Event.Type, MesosEventLane>builder()
+        .put(Event.Type.UPDATE, updates)
+        .put(Event.Type.OFFERS, offers)
+        .put(Event.Type.RESCIND, offers)
+        .put(Event.Type.RESCIND_INVERSE_OFFER, offers)
+        .put(Event.Type.HEARTBEAT, heartbeats)
+        .put(Event.Type.INVERSE_OFFERS, other)
+        .put(Event.Type.MESSAGE, other)
+        .build();
+  }
+
+  private void onOfferLaneOverflow(Event event) {
+    if (event.getType() == Event.Type.OFFERS) {
+      decline(event.getOffers().getOffersList().stream().map(Offer::getId).collect(Collectors.toList()));
+    } else {
+      // The lane is full of rescinds, none of which can be for an offer still waiting in it
+      handleEvent(event);
     }
   }
 
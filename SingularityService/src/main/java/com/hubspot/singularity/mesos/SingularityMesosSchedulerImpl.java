@@ -1,6 +1,7 @@
 package com.hubspot.singularity.mesos;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
@@ -44,6 +45,7 @@ import com.hubspot.singularity.SingularityAbort.AbortReason;
 import com.hubspot.singularity.SingularityKilledTaskIdRecord;
 import com.hubspot.singularity.SingularityMainModule;
 import com.hubspot.singularity.SingularityTask;
+import com.hubspot.singularity.SingularityTaskCleanup;
 import com.hubspot.singularity.SingularityTaskDestroyFrameworkMessage;
 import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.TaskCleanupType;
@@ -366,6 +368,20 @@ public class SingularityMesosSchedulerImpl extends SingularityMesosScheduler {
   public void killAndRecord(SingularityTaskId taskId, Optional<RequestCleanupType> requestCleanupType, Optional<TaskCleanupType> taskCleanupType, Optional<Long> originalTimestamp, Optional<Integer> retries, Optional<String> user) {
     Preconditions.checkState(isRunning());
 
+    taskManager.saveKilledRecord(kill(taskId, requestCleanupType, taskCleanupType, originalTimestamp, retries, user));
+  }
+
+  public void killAndRecord(List<SingularityTaskCleanup> taskCleanups) {
+    Preconditions.checkState(isRunning());
+
+    List<SingularityKilledTaskIdRecord> killedRecords = new ArrayList<>(taskCleanups.size());
+    for (SingularityTaskCleanup taskCleanup : taskCleanups) {
+      killedRecords.add(kill(taskCleanup.getTaskId(), Optional.absent(), Optional.of(taskCleanup.getCleanupType()), Optional.absent(), Optional.absent(), taskCleanup.getUser()));
+    }
+    taskManager.saveKilledRecords(killedRecords);
+  }
+
+  private SingularityKilledTaskIdRecord kill(SingularityTaskId taskId, Optional<RequestCleanupType> requestCleanupType, Optional<TaskCleanupType> taskCleanupType, Optional<Long> originalTimestamp, Optional<Integer> retries, Optional<String> user) {
     Optional<TaskCleanupType> maybeCleanupFromRequestAndTask = getTaskCleanupType(requestCleanupType, taskCleanupType);
 
     if (maybeCleanupFromRequestAndTask.isPresent() && (maybeCleanupFromRequestAndTask.get() == TaskCleanupType.USER_REQUESTED_DESTROY || maybeCleanupFromRequestAndTask.get() == TaskCleanupType.REQUEST_DELETING)) {
@@ -389,7 +405,7 @@ public class SingularityMesosSchedulerImpl extends SingularityMesosScheduler {
     }
     mesosSchedulerClient.kill(TaskID.newBuilder().setValue(taskId.toString()).build());
 
-    taskManager.saveKilledRecord(new SingularityKilledTaskIdRecord(taskId, System.currentTimeMillis(), originalTimestamp.or(System.currentTimeMillis()), requestCleanupType, taskCleanupType, retries.or(-1) + 1));
+    return new SingularityKilledTaskIdRecord(taskId, System.currentTimeMillis(), originalTimestamp.or(System.currentTimeMillis()), requestCleanupType, taskCleanupType, retries.or(-1) + 1);
   }
 
   private Optional<TaskCleanupType> getTaskCleanupType(Optional<RequestCleanupType> requestCleanupType, Optional<TaskCleanupType> taskCleanupType) {
@@ -1,9 +1,15 @@
 package com.hubspot.singularity.mesos;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.mesos.v1.Protos;
 import org.apache.mesos.v1.Protos.TaskState;
@@ -12,7 +18,10 @@ import org.apache.mesos.v1.Protos.TaskStatus.Reason;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSet;
@@ -28,7 +37,6 @@ import com.hubspot.singularity.RequestType;
 import com.hubspot.singularity.SingularityCreateResult;
 import com.hubspot.singularity.SingularityMainModule;
 import com.hubspot.singularity.SingularityManagedCachedThreadPoolFactory;
-import com.hubspot.singularity.SingularityManagedScheduledExecutorServiceFactory;
 import com.hubspot.singularity.SingularityPendingDeploy;
 import com.hubspot.singularity.SingularityPendingRequest;
 import com.hubspot.singularity.SingularityPendingRequest.PendingType;
@@ -40,7 +48,6 @@ import com.hubspot.singularity.SingularityTaskHistory;
 import com.hubspot.singularity.SingularityTaskHistoryUpdate;
 import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.SingularityTaskStatusHolder;
-import com.hubspot.singularity.async.AsyncSemaphore;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.DeployManager;
 import com.hubspot.singularity.data.RequestManager;
@@ -49,6 +56,8 @@ import com.hubspot.singularity.data.transcoders.IdTranscoder;
 import com.hubspot.singularity.data.transcoders.SingularityTranscoderException;
 import com.hubspot.singularity.helpers.MesosProtosUtils;
 import com.hubspot.singularity.helpers.MesosUtils;
+import com.hubspot.singularity.mesos.StatusUpdateQueue.QueuedStatusUpdate;
+import com.hubspot.singularity.mesos.StatusUpdateQueue.TaskStatusUpdates;
 import com.hubspot.singularity.scheduler.SingularityHealthchecker;
 import com.hubspot.singularity.scheduler.SingularityLeaderCache;
 import com.hubspot.singularity.scheduler.SingularityNewTaskChecker;
@@ -83,7 +92,9 @@ public class SingularityMesosStatusUpdateHandler {
   private final ConcurrentHashMap<Long, Long> statusUpdateDeltas;
 
   private final ExecutorService statusUpdatesExecutor;
-  private final AsyncSemaphore<StatusUpdateResult> statusUpdatesSemaphore;
+  private final StatusUpdateQueue statusUpdateQueue;
+  private final AtomicInteger activeBatchWorkers;
+  private final Timer batchTimer;
 
   @Inject
   public SingularityMesosStatusUpdateHandler(TaskManager taskManager,
@@ -101,8 +112,8 @@ public class SingularityMesosStatusUpdateHandler {
                                              SingularityConfiguration configuration,
                                              SingularityLeaderCache leaderCache,
                                              MesosProtosUtils mesosProtosUtils,
-                                             SingularityManagedScheduledExecutorServiceFactory executorServiceFactory,
                                              SingularityManagedCachedThreadPoolFactory cachedThreadPoolFactory,
+                                             MetricRegistry metricRegistry,
                                              @Named(SingularityMesosModule.TASK_LOST_REASONS_COUNTER) Multiset<Protos.TaskStatus.Reason> taskLostReasons,
                                              @Named(SingularityMainModule.LOST_TASKS_METER) Meter lostTasksMeter,
                                              @Named(SingularityMainModule.STATUS_UPDATE_DELTAS) ConcurrentHashMap<Long, Long> statusUpdateDeltas) {
@@ -125,10 +136,11 @@ public class SingularityMesosStatusUpdateHandler {
     this.lostTasksMeter = lostTasksMeter;
     this.statusUpdateDeltas = statusUpdateDeltas;
     this.statusUpdatesExecutor = cachedThreadPoolFactory.get("status-updates");
-    this.statusUpdatesSemaphore = AsyncSemaphore
-        .newBuilder(() -> configuration.getMesosConfiguration().getStatusUpdateConcurrencyLimit(), executorServiceFactory.get("status-update-semaphore", 5))
-        .withQueueSize(configuration.getMesosConfiguration().getMaxStatusUpdateQueueSize())
-        .build();
+    this.statusUpdateQueue = new StatusUpdateQueue();
+    this.activeBatchWorkers = new AtomicInteger();
+    this.batchTimer = metricRegistry.timer("statusUpdates.batch");
+    metricRegistry.register("statusUpdates.queued", (Gauge<Integer>) statusUpdateQueue::size);
+    metricRegistry.register("statusUpdates.coalesced", (Gauge<Long>) statusUpdateQueue::getCoalescedCount);
   }
 
   private boolean isRecoveryStatusUpdate(Optional<SingularityTaskStatusHolder> previousTaskStatusHolder, Reason reason, ExtendedTaskState taskState, final SingularityTaskStatusHolder newTaskStatusHolder) {
@@ -229,7 +241,7 @@ public class SingularityMesosStatusUpdateHandler {
     requestManager.addToPendingQueue(pendingRequest);
   }
 
-  private StatusUpdateResult unsafeProcessStatusUpdate(Protos.TaskStatus status, SingularityTaskId taskIdObj) {
+  private StatusUpdateResult unsafeProcessStatusUpdate(Protos.TaskStatus status, SingularityTaskId taskIdObj, BatchedWrites batchedWrites) {
     final String taskId = status.getTaskId().getValue();
 
     long timestamp = System.currentTimeMillis();
@@ -273,7 +285,11 @@ public class SingularityMesosStatusUpdateHandler {
       }
     } else if (isDuplicateOrIgnorableStatusUpdate(previousTaskStatusHolder, newTaskStatusHolder)) {
       LOG.trace("Ignoring status update {} to {}", taskState, taskIdObj);
-      saveNewTaskStatusHolder(taskIdObj, newTaskStatusHolder, taskState);
+      if (previousTaskStatusHolder.isPresent() && !taskState.isDone()) {
+        batchedWrites.lastActiveTaskStatuses.add(newTaskStatusHolder);
+      } else {
+        saveNewTaskStatusHolder(taskIdObj, newTaskStatusHolder, taskState);
+      }
       return StatusUpdateResult.IGNORED;
     }
 
@@ -329,18 +345,25 @@ public class SingularityMesosStatusUpdateHandler {
 
     final SingularityTaskHistoryUpdate taskUpdate =
         new SingularityTaskHistoryUpdate(taskIdObj, timestamp, taskState, statusMessage, status.hasReason() ? Optional.of(status.getReason().name()) : Optional.<String>absent());
+
+    if (!taskState.isDone()) {
+      // Nothing below depends on these being written yet, so they are committed with the rest of the batch
+      batchedWrites.taskHistoryUpdates.add(taskUpdate);
+      batchedWrites.lastActiveTaskStatuses.add(newTaskStatusHolder);
+      logSupport.checkDirectoryAndContainerId(taskIdObj);
+      return StatusUpdateResult.DONE;
+    }
+
     final SingularityCreateResult taskHistoryUpdateCreateResult = taskManager.saveTaskHistoryUpdate(taskUpdate);
 
     logSupport.checkDirectoryAndContainerId(taskIdObj);
 
-    if (taskState.isDone()) {
-      healthchecker.cancelHealthcheck(taskId);
-      newTaskChecker.cancelNewTaskCheck(taskId);
+    healthchecker.cancelHealthcheck(taskId);
+    newTaskChecker.cancelNewTaskCheck(taskId);
 
-      taskManager.deleteKilledRecord(taskIdObj);
+    taskManager.deleteKilledRecord(taskIdObj);
 
-      handleCompletedTaskState(status, taskIdObj, taskState, taskHistoryUpdateCreateResult, task, timestamp);
-    }
+    handleCompletedTaskState(status, taskIdObj, taskState, taskHistoryUpdateCreateResult, task, timestamp);
 
     saveNewTaskStatusHolder(taskIdObj, newTaskStatusHolder, taskState);
     return StatusUpdateResult.DONE;
@@ -355,21 +378,121 @@ public class SingularityMesosStatusUpdateHandler {
     scheduler.handleCompletedTask(task, taskIdObj, timestamp, taskState, taskHistoryUpdateCreateResult, status);
   }
 
+  /**
+   * Queues the update behind any others waiting for the same task (replacing the last of them if this one supersedes
+   * it) and completes once the batch it is processed in has been committed, so it is only acknowledged after that.
+   */
   public CompletableFuture<StatusUpdateResult> processStatusUpdateAsync(Protos.TaskStatus status) {
-    return statusUpdatesSemaphore.call(() -> CompletableFuture.supplyAsync(() -> {
-        final String taskId = status.getTaskId().getValue();
-        final Optional<SingularityTaskId> maybeTaskId = getTaskId(taskId);
+    final Optional<SingularityTaskId> maybeTaskId = getTaskId(status.getTaskId().getValue());
+
+    if (!maybeTaskId.isPresent()) {
+      return CompletableFuture.completedFuture(StatusUpdateResult.INVALID_TASK_ID);
+    }
+
+    CompletableFuture<StatusUpdateResult> result = new CompletableFuture<>();
+    if (!statusUpdateQueue.add(maybeTaskId.get(), status, result, configuration.getMesosConfiguration().getMaxStatusUpdateQueueSize())) {
+      result.completeExceptionally(new RejectedExecutionException("Could not queue status update for processing."));
+      return result;
+    }
+
+    startBatchWorkerIfNeeded();
+    return result;
+  }
+
+  private void startBatchWorkerIfNeeded() {
+    while (true) {
+      int active = activeBatchWorkers.get();
+      if (active >= configuration.getMesosConfiguration().getStatusUpdateConcurrencyLimit()) {
+        return;
+      }
+      if (activeBatchWorkers.compareAndSet(active, active + 1)) {
+        break;
+      }
+    }
 
-        if (!maybeTaskId.isPresent()) {
-          return StatusUpdateResult.INVALID_TASK_ID;
+    try {
+      statusUpdatesExecutor.submit(this::processBatches);
+    } catch (RejectedExecutionException ree) {
+      activeBatchWorkers.decrementAndGet();
+      throw ree;
+    }
+  }
+
+  private void processBatches() {
+    try {
+      List<TaskStatusUpdates> batch;
+      while (!(batch = statusUpdateQueue.takeBatch(configuration.getMesosConfiguration().getStatusUpdateBatchSize())).isEmpty()) {
+        try {
+          processBatch(batch);
+        } finally {
+          statusUpdateQueue.finished(batch);
         }
+      }
+    } finally {
+      activeBatchWorkers.decrementAndGet();
+    }
 
-        return schedulerLock.runWithRequestLockAndReturn(
-            () -> unsafeProcessStatusUpdate(status, maybeTaskId.get()),
-            maybeTaskId.get().getRequestId(),
-            getClass().getSimpleName()
-        );
-      }, statusUpdatesExecutor)
-    );
+    // An update may have been queued (or a task released by another worker) after this worker found nothing to take
+    if (statusUpdateQueue.hasAvailable()) {
+      startBatchWorkerIfNeeded();
+    }
+  }
+
+  private void processBatch(List<TaskStatusUpdates> batch) {
+    final long start = System.currentTimeMillis();
+    final List<QueuedStatusUpdate> processed = new ArrayList<>();
+    final List<StatusUpdateResult> results = new ArrayList<>();
+    BatchedWrites batchedWrites = new BatchedWrites();
+
+    for (TaskStatusUpdates forTask : batch) {
+      SingularityTaskId taskId = forTask.getTaskId();
+      for (QueuedStatusUpdate update : forTask.getUpdates()) {
+        if (batchedWrites.taskIds.contains(taskId)) {
+          // A later update for the same task reads what the earlier one wrote
+          commit(batchedWrites, processed, results);
+          batchedWrites = new BatchedWrites();
+        }
+
+        final BatchedWrites writes = batchedWrites;
+        try {
+          StatusUpdateResult result = schedulerLock.runWithRequestLockAndReturn(
+              () -> unsafeProcessStatusUpdate(update.getStatus(), taskId, writes),
+              taskId.getRequestId(),
+              getClass().getSimpleName()
+          );
+          batchedWrites.taskIds.add(taskId);
+          processed.add(update);
+          results.add(result);
+        } catch (Throwable t) {
+          update.completeExceptionally(t);
+        }
+      }
+    }
+
+    commit(batchedWrites, processed, results);
+    batchTimer.update(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Writes everything deferred so far in one transaction, then completes the updates processed so far.
+   */
+  private void commit(BatchedWrites batchedWrites, List<QueuedStatusUpdate> processed, List<StatusUpdateResult> results) {
+    try {
+      taskManager.saveTaskStatusUpdates(batchedWrites.taskHistoryUpdates, batchedWrites.lastActiveTaskStatuses);
+      for (int i = 0; i < processed.size(); i++) {
+        processed.get(i).complete(results.get(i));
+      }
+    } catch (Throwable t) {
+      processed.forEach((update) -> update.completeExceptionally(t));
+    } finally {
+      processed.clear();
+      results.clear();
+    }
+  }
+
+  private static class BatchedWrites {
+    private final Set<SingularityTaskId> taskIds = new HashSet<>();
+    private final List<SingularityTaskHistoryUpdate> taskHistoryUpdates = new ArrayList<>();
+    private final List<SingularityTaskStatusHolder> lastActiveTaskStatuses = new ArrayList<>();
   }
 }
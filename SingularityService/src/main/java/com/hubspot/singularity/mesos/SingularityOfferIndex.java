@@ -0,0 +1,181 @@
+package com.hubspot.singularity.mesos;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.common.base.Optional;
+import com.hubspot.mesos.Resources;
+import com.hubspot.singularity.SingularityTaskRequest;
+import com.hubspot.singularity.helpers.MesosUtils;
+
+/**
+ * Narrows down which offers need to be scored for a given task during a single offer check.
+ *
+ * Offers are bucketed by their remaining cpus (per required role, using the same role matching as
+ * {@link MesosUtils#doesOfferMatchResources}) and indexed by text attribute, rack and reserved attributes.
+ * Offers that can never fit a task's resources, required attributes or rack affinity are skipped
+ * before any scoring happens. Once a task is accepted, only the offer it was placed on is re-indexed.
+ *
+ * Not thread safe, callers must not update the index while candidates are being scored.
+ */
+class SingularityOfferIndex {
+
+  private final Map<String, SingularityOfferHolder> offerHolders;
+  private final int maxTasksPerOffer;
+
+  private final Map<String, Map<String, Set<String>>> slaveIdsByAttribute;
+  private final Map<String, Set<String>> slaveIdsByRack;
+  private final Set<String> reservedSlaveIds;
+  private final Map<Optional<String>, RoleIndex> roleIndexes;
+
+  SingularityOfferIndex(Collection<SingularityOfferHolder> offerHolders, int maxTasksPerOffer) {
+    this.offerHolders = new HashMap<>(offerHolders.size());
+    this.maxTasksPerOffer = maxTasksPerOffer;
+    this.slaveIdsByAttribute = new HashMap<>();
+    this.slaveIdsByRack = new HashMap<>();
+    this.reservedSlaveIds = new HashSet<>();
+    this.roleIndexes = new HashMap<>();
+
+    for (SingularityOfferHolder offerHolder : offerHolders) {
+      String slaveId = offerHolder.getSlaveId();
+      this.offerHolders.put(slaveId, offerHolder);
+      slaveIdsByRack.computeIfAbsent(offerHolder.getRackId(), (r) -> new HashSet<>()).add(slaveId);
+      for (Map.Entry<String, String> attribute : offerHolder.getTextAttributes().entrySet()) {
+        slaveIdsByAttribute.computeIfAbsent(attribute.getKey(), (k) -> new HashMap<>())
+            .computeIfAbsent(attribute.getValue(), (v) -> new HashSet<>())
+            .add(slaveId);
+      }
+      if (offerHolder.hasReservedSlaveAttributes()) {
+        reservedSlaveIds.add(slaveId);
+      }
+    }
+  }
+
+  int size() {
+    return offerHolders.size();
+  }
+
+  /**
+   * @return offers which have enough free resources for the task and are not excluded by its attributes or rack affinity.
+   * Remaining checks (ports, placement, usage) are left to offer scoring.
+   */
+  List<SingularityOfferHolder> getCandidateOffers(SingularityTaskRequestHolder taskRequestHolder) {
+    final SingularityTaskRequest taskRequest = taskRequestHolder.getTaskRequest();
+    final Resources required = taskRequestHolder.getTotalResources();
+    final RoleIndex roleIndex = getRoleIndex(taskRequest.getRequest().getRequiredRole());
+    final Optional<Set<String>> allowedSlaveIds = getAllowedSlaveIds(taskRequest);
+    final boolean canUseReservedSlaves = !SingularitySlaveAndRackManager.getRequiredAttributes(taskRequest).isEmpty()
+        || !SingularitySlaveAndRackManager.getAllowedAttributes(taskRequest).isEmpty();
+
+    List<SingularityOfferHolder> candidates = new ArrayList<>();
+    if (allowedSlaveIds.isPresent()) {
+      for (String slaveId : allowedSlaveIds.get()) {
+        Resources free = roleIndex.freeResourcesBySlaveId.get(slaveId);
+        if (free != null && free.getCpus() >= required.getCpus() && isCandidate(slaveId, free, required, canUseReservedSlaves)) {
+          candidates.add(offerHolders.get(slaveId));
+        }
+      }
+    } else {
+      for (Set<String> slaveIds : roleIndex.slaveIdsByFreeCpus.tailMap(required.getCpus(), true).values()) {
+        for (String slaveId : slaveIds) {
+          if (isCandidate(slaveId, roleIndex.freeResourcesBySlaveId.get(slaveId), required, canUseReservedSlaves)) {
+            candidates.add(offerHolders.get(slaveId));
+          }
+        }
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Re-index an offer after a task has been matched to it and its resources have been subtracted.
+   */
+  void updateOffer(SingularityOfferHolder offerHolder) {
+    boolean full = maxTasksPerOffer > 0 && offerHolder.getAcceptedTasks().size() >= maxTasksPerOffer;
+    for (Map.Entry<Optional<String>, RoleIndex> entry : roleIndexes.entrySet()) {
+      entry.getValue().remove(offerHolder.getSlaveId());
+      if (!full) {
+        entry.getValue().add(offerHolder, entry.getKey());
+      }
+    }
+  }
+
+  private boolean isCandidate(String slaveId, Resources free, Resources required, boolean canUseReservedSlaves) {
+    return free.getMemoryMb() >= required.getMemoryMb()
+        && free.getDiskMb() >= required.getDiskMb()
+        && free.getNumPorts() >= required.getNumPorts()
+        && (canUseReservedSlaves || !reservedSlaveIds.contains(slaveId));
+  }
+
+  private Optional<Set<String>> getAllowedSlaveIds(SingularityTaskRequest taskRequest) {
+    Set<String> allowed = null;
+
+    for (Map.Entry<String, String> attribute : SingularitySlaveAndRackManager.getRequiredAttributes(taskRequest).entrySet()) {
+      Set<String> withAttribute = slaveIdsByAttribute.getOrDefault(attribute.getKey(), new HashMap<>()).getOrDefault(attribute.getValue(), new HashSet<>());
+      allowed = intersect(allowed, withAttribute);
+    }
+
+    List<String> rackAffinity = taskRequest.getRequest().getRackAffinity().or(new ArrayList<>());
+    if (!rackAffinity.isEmpty()) {
+      Set<String> inRacks = new HashSet<>();
+      for (String rackId : rackAffinity) {
+        inRacks.addAll(slaveIdsByRack.getOrDefault(rackId, new HashSet<>()));
+      }
+      allowed = intersect(allowed, inRacks);
+    }
+
+    return Optional.fromNullable(allowed);
+  }
+
+  private Set<String> intersect(Set<String> current, Set<String> other) {
+    if (current == null) {
+      return new HashSet<>(other);
+    }
+    current.retainAll(other);
+    return current;
+  }
+
+  private RoleIndex getRoleIndex(Optional<String> requiredRole) {
+    return roleIndexes.computeIfAbsent(requiredRole, (role) -> {
+      RoleIndex roleIndex = new RoleIndex();
+      for (SingularityOfferHolder offerHolder : offerHolders.values()) {
+        if (maxTasksPerOffer <= 0 || offerHolder.getAcceptedTasks().size() < maxTasksPerOffer) {
+          roleIndex.add(offerHolder, role);
+        }
+      }
+      return roleIndex;
+    });
+  }
+
+  private static class RoleIndex {
+    private final Map<String, Resources> freeResourcesBySlaveId = new HashMap<>();
+    private final NavigableMap<Double, Set<String>> slaveIdsByFreeCpus = new TreeMap<>();
+
+    void add(SingularityOfferHolder offerHolder, Optional<String> role) {
+      Resources free = MesosUtils.buildResourcesFromMesosResourceList(offerHolder.getCurrentResources(), role);
+      freeResourcesBySlaveId.put(offerHolder.getSlaveId(), free);
+      slaveIdsByFreeCpus.computeIfAbsent(free.getCpus(), (c) -> new HashSet<>()).add(offerHolder.getSlaveId());
+    }
+
+    void remove(String slaveId) {
+      Resources free = freeResourcesBySlaveId.remove(slaveId);
+      if (free == null) {
+        return;
+      }
+      Set<String> slaveIds = slaveIdsByFreeCpus.get(free.getCpus());
+      if (slaveIds != null) {
+        slaveIds.remove(slaveId);
+        if (slaveIds.isEmpty()) {
+          slaveIdsByFreeCpus.remove(free.getCpus());
+        }
+      }
+    }
+  }
+}
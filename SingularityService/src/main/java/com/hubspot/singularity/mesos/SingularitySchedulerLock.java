@@ -1,107 +1,141 @@
 package com.hubspot.singularity.mesos;
 
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.inject.Inject;
 import com.hubspot.mesos.JavaUtils;
 
+/**
+ * Scheduler-wide lock manager.
+ *
+ * - state: held by scheduler state transitions (subscribe, abort)
+ * - offers: exclusive lock around a single offer cycle
+ * - request: one lock per request id, so that work on different requests can run in parallel. These are dropped once
+ *   no caller holds them, the live count is exported as {@code locks.request.live}
+ *
+ * Every acquisition records the time spent waiting for the lock and the time it was held, as timers named
+ * {@code locks.<type>.<caller name>.wait} and {@code locks.<type>.<caller name>.hold}.
+ */
 public class SingularitySchedulerLock {
 
   private static final Logger LOG = LoggerFactory.getLogger(SingularitySchedulerLock.class);
 
+  enum LockType {
+    STATE, OFFERS, REQUEST;
+  }
+
   private final ReentrantLock stateLock;
   private final ReentrantLock offersLock;
-  private final ConcurrentHashMap<String, ReentrantLock> requestLocks;
+  private final SingularityKeyedLocks requestLocks;
+
+  private final MetricRegistry metricRegistry;
+  private final Map<LockType, ConcurrentHashMap<String, LockTimers>> timers;
 
   @Inject
-  public SingularitySchedulerLock() {
+  public SingularitySchedulerLock(MetricRegistry metricRegistry) {
     this.stateLock = new ReentrantLock();
     this.offersLock = new ReentrantLock();
-    this.requestLocks = new ConcurrentHashMap<>();
-  }
-
-  private long lock(String requestId, String name) {
-    final long start = System.currentTimeMillis();
-    LOG.trace("{} - Locking {}", name, requestId);
-    ReentrantLock lock = requestLocks.computeIfAbsent(requestId, (r) -> new ReentrantLock());
-    lock.lock();
-    LOG.trace("{} - Acquired lock on {} ({})", name, requestId, JavaUtils.duration(start));
-    return System.currentTimeMillis();
-  }
-
-  private void unlock(String requestId, String name, long start) {
-    LOG.trace("{} - Unlocking {} ({})", name, requestId, JavaUtils.duration(start));
-    ReentrantLock lock = requestLocks.computeIfAbsent(requestId, (r) -> new ReentrantLock());
-    lock.unlock();
+    this.requestLocks = new SingularityKeyedLocks();
+    this.metricRegistry = metricRegistry;
+    metricRegistry.register("locks.request.live", (Gauge<Integer>) requestLocks::size);
+    this.timers = new ConcurrentHashMap<>();
+    for (LockType lockType : LockType.values()) {
+      timers.put(lockType, new ConcurrentHashMap<>());
+    }
   }
 
   public void runWithRequestLock(Runnable function, String requestId, String name) {
-    long start = lock(requestId, name);
+    Lock lock = requestLocks.acquire(requestId);
     try {
-      function.run();
+      runWithLock(lock, LockType.REQUEST, requestId, function, name);
     } finally {
-      unlock(requestId, name, start);
+      requestLocks.release(requestId);
     }
   }
 
   public <T> T runWithRequestLockAndReturn(Callable<T> function, String requestId, String name) {
-    long start = lock(requestId, name);
+    Lock lock = requestLocks.acquire(requestId);
     try {
-      return function.call();
-    } catch (Exception e) {
-      throw new RuntimeException(e);
+      return callWithLock(lock, LockType.REQUEST, requestId, function, name);
     } finally {
-      unlock(requestId, name, start);
+      requestLocks.release(requestId);
     }
   }
 
   void runWithStateLock(Runnable function, String name) {
-    long start = lockState(name);
+    runWithLock(stateLock, LockType.STATE, "state", function, name);
+  }
+
+  public void runWithOffersLock(Runnable function, String name) {
+    runWithLock(offersLock, LockType.OFFERS, "offers", function, name);
+  }
+
+  private void runWithLock(Lock lock, LockType lockType, String lockName, Runnable function, String name) {
+    LockTimers lockTimers = getTimers(lockType, name);
+    long acquired = lock(lock, lockTimers, lockName, name);
     try {
       function.run();
     } finally {
-      unlockState(name, start);
+      unlock(lock, lockTimers, lockName, name, acquired);
     }
   }
 
-  private long lockState(String name) {
-    final long start = System.currentTimeMillis();
-    LOG.info("{} - Locking state lock", name);
-    stateLock.lock();
-    LOG.info("{} - Acquired state lock ({})", name, JavaUtils.duration(start));
-    return System.currentTimeMillis();
+  private <T> T callWithLock(Lock lock, LockType lockType, String lockName, Callable<T> function, String name) {
+    LockTimers lockTimers = getTimers(lockType, name);
+    long acquired = lock(lock, lockTimers, lockName, name);
+    try {
+      return function.call();
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    } finally {
+      unlock(lock, lockTimers, lockName, name, acquired);
+    }
   }
 
-  private void unlockState(String name, long start) {
-    LOG.info("{} - Unlocking state lock ({})", name, JavaUtils.duration(start));
-    stateLock.unlock();
+  private long lock(Lock lock, LockTimers lockTimers, String lockName, String name) {
+    final long start = System.nanoTime();
+    LOG.trace("{} - Locking {}", name, lockName);
+    lock.lock();
+    final long acquired = System.nanoTime();
+    lockTimers.wait.update(acquired - start, TimeUnit.NANOSECONDS);
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("{} - Acquired lock on {} ({})", name, lockName, JavaUtils.durationFromMillis(TimeUnit.NANOSECONDS.toMillis(acquired - start)));
+    }
+    return acquired;
   }
 
-  public void runWithOffersLock(Runnable function,  String name) {
-    long start = lockOffers(name);
-    try {
-      function.run();
-    } finally {
-      unlockOffers(name, start);
+  private void unlock(Lock lock, LockTimers lockTimers, String lockName, String name, long acquired) {
+    final long held = System.nanoTime() - acquired;
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("{} - Unlocking {} ({})", name, lockName, JavaUtils.durationFromMillis(TimeUnit.NANOSECONDS.toMillis(held)));
     }
+    lock.unlock();
+    lockTimers.hold.update(held, TimeUnit.NANOSECONDS);
   }
 
-  private long lockOffers(String name) {
-    final long start = System.currentTimeMillis();
-    LOG.debug("{} - Locking offers lock", name);
-    offersLock.lock();
-    LOG.debug("{} - Acquired offers lock ({})", name, JavaUtils.duration(start));
-    return System.currentTimeMillis();
+  private LockTimers getTimers(LockType lockType, String name) {
+    return timers.get(lockType).computeIfAbsent(name, (n) -> new LockTimers(metricRegistry, lockType, n));
   }
 
-  private void unlockOffers(String name, long start) {
-    LOG.debug("{} - Unlocking offers lock ({})", name, JavaUtils.duration(start));
-    offersLock.unlock();
-  }
+  private static class LockTimers {
+    private final Timer wait;
+    private final Timer hold;
 
+    LockTimers(MetricRegistry registry, LockType lockType, String name) {
+      String prefix = MetricRegistry.name("locks", lockType.name().toLowerCase(), name.replaceAll("[^A-Za-z0-9#_-]+", "_"));
+      this.wait = registry.timer(MetricRegistry.name(prefix, "wait"));
+      this.hold = registry.timer(MetricRegistry.name(prefix, "hold"));
+    }
+  }
 }
@@ -9,6 +9,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
@@ -286,7 +287,7 @@ public class SingularitySlaveAndRackManager {
 
   }
 
-  private Map<String, String> getRequiredAttributes(SingularityTaskRequest taskRequest) {
+  static Map<String, String> getRequiredAttributes(SingularityTaskRequest taskRequest) {
     if (!taskRequest.getPendingTask().getRequiredSlaveAttributeOverrides().isEmpty()) {
       return taskRequest.getPendingTask().getRequiredSlaveAttributeOverrides();
     } else if ((taskRequest.getRequest().getRequiredSlaveAttributes().isPresent() && !taskRequest.getRequest().getRequiredSlaveAttributes().get().isEmpty())) {
@@ -295,7 +296,7 @@ public class SingularitySlaveAndRackManager {
     return new HashMap<>();
   }
 
-  private Map<String, String> getAllowedAttributes(SingularityTaskRequest taskRequest) {
+  static Map<String, String> getAllowedAttributes(SingularityTaskRequest taskRequest) {
     if (!taskRequest.getPendingTask().getAllowedSlaveAttributeOverrides().isEmpty()) {
       return taskRequest.getPendingTask().getAllowedSlaveAttributeOverrides();
     } else if ((taskRequest.getRequest().getAllowedSlaveAttributes().isPresent() && !taskRequest.getRequest().getAllowedSlaveAttributes().get().isEmpty())){
@@ -423,15 +424,23 @@ public class SingularitySlaveAndRackManager {
   }
 
   public void loadSlavesAndRacksFromMaster(MesosMasterStateObject state, boolean isStartup) {
+    loadSlavesAndRacksFromMaster((slaveConsumer) -> state.getSlaves().forEach(slaveConsumer), isStartup);
+  }
+
+  /**
+   * @param masterSlaves passes each slave known to the master to the given consumer, e.g. while streaming it from the
+   *                     master's state, so slaves are checked one at a time rather than after the whole state is read
+   */
+  public void loadSlavesAndRacksFromMaster(Consumer<Consumer<MesosMasterSlaveObject>> masterSlaves, boolean isStartup) {
     Map<String, SingularitySlave> activeSlavesById = slaveManager.getObjectsByIdForState(MachineState.ACTIVE);
     Map<String, SingularityRack> activeRacksById = rackManager.getObjectsByIdForState(MachineState.ACTIVE);
 
     Map<String, SingularityRack> remainingActiveRacks = Maps.newHashMap(activeRacksById);
 
-    int slaves = 0;
-    int racks = 0;
+    AtomicInteger slaves = new AtomicInteger(0);
+    AtomicInteger racks = new AtomicInteger(0);
 
-    for (MesosMasterSlaveObject slaveJsonObject : state.getSlaves()) {
+    masterSlaves.accept((slaveJsonObject) -> {
       String slaveId = slaveJsonObject.getId();
       String rackId = slaveAndRackHelper.getRackId(slaveJsonObject.getAttributes());
       Map<String, String> textAttributes = slaveAndRackHelper.getTextAttributes(slaveJsonObject.getAttributes());
@@ -448,7 +457,7 @@ public class SingularitySlaveAndRackManager {
         SingularitySlave newSlave = new SingularitySlave(slaveId, host, rackId, textAttributes, Optional.of(slaveJsonObject.getResources()));
 
         if (check(newSlave, slaveManager) == CheckResult.NEW) {
-          slaves++;
+          slaves.incrementAndGet();
         }
       }
 
@@ -458,10 +467,10 @@ public class SingularitySlaveAndRackManager {
         SingularityRack rack = new SingularityRack(rackId);
 
         if (check(rack, rackManager) == CheckResult.NEW) {
-          racks++;
+          racks.incrementAndGet();
         }
       }
-    }
+    });
 
     for (SingularitySlave leftOverSlave : activeSlavesById.values()) {
       slaveManager.changeState(leftOverSlave, isStartup ? MachineState.MISSING_ON_STARTUP : MachineState.DEAD, Optional.absent(), Optional.absent());
@@ -471,7 +480,7 @@ public class SingularitySlaveAndRackManager {
       rackManager.changeState(leftOverRack, isStartup ? MachineState.MISSING_ON_STARTUP : MachineState.DEAD, Optional.absent(), Optional.absent());
     }
 
-    LOG.info("Found {} new racks ({} missing) and {} new slaves ({} missing)", racks, remainingActiveRacks.size(), slaves, activeSlavesById.size());
+    LOG.info("Found {} new racks ({} missing) and {} new slaves ({} missing)", racks.get(), remainingActiveRacks.size(), slaves.get(), activeSlavesById.size());
   }
 
   public enum CheckResult {
@@ -569,8 +578,8 @@ public class SingularitySlaveAndRackManager {
   }
 
   private boolean hasTaskLeftOnRack(SingularityTaskId taskId, SingularityLeaderCache leaderCache) {
-    for (SingularityTaskId activeTaskId : leaderCache.getActiveTaskIds()) {
-      if (!activeTaskId.equals(taskId) && activeTaskId.getSanitizedRackId().equals(taskId.getSanitizedRackId())) {
+    for (SingularityTaskId activeTaskId : leaderCache.getActiveTaskIdsForRack(taskId.getSanitizedRackId())) {
+      if (!activeTaskId.equals(taskId)) {
         return true;
       }
     }
@@ -579,8 +588,8 @@ public class SingularitySlaveAndRackManager {
   }
 
   private boolean hasTaskLeftOnSlave(SingularityTaskId taskId, String slaveId, SingularityLeaderCache stateCache) {
-    for (SingularityTaskId activeTaskId : stateCache.getActiveTaskIds()) {
-      if (!activeTaskId.equals(taskId) && activeTaskId.getSanitizedHost().equals(taskId.getSanitizedHost())) {
+    for (SingularityTaskId activeTaskId : stateCache.getActiveTaskIdsForHost(taskId.getSanitizedHost())) {
+      if (!activeTaskId.equals(taskId)) {
         Optional<SingularityTask> maybeTask = taskManager.getTask(activeTaskId);
         if (maybeTask.isPresent() && slaveId.equals(maybeTask.get().getAgentId().getValue())) {
           return true;
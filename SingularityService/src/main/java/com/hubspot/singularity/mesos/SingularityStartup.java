@@ -16,7 +16,6 @@ import com.google.inject.Inject;
 import com.hubspot.mesos.JavaUtils;
 import com.hubspot.singularity.helpers.MesosUtils;
 import com.hubspot.mesos.client.MesosClient;
-import com.hubspot.mesos.json.MesosMasterStateObject;
 import com.hubspot.singularity.RequestType;
 import com.hubspot.singularity.SingularityAction;
 import com.hubspot.singularity.SingularityDeployKey;
@@ -84,9 +83,7 @@ class SingularityStartup {
 
     LOG.info("Starting up... fetching state data from: " + uri);
 
-    MesosMasterStateObject state = mesosClient.getMasterState(uri);
-
-    slaveAndRackManager.loadSlavesAndRacksFromMaster(state, true);
+    slaveAndRackManager.loadSlavesAndRacksFromMaster((slaves) -> mesosClient.getMasterSlaves(uri, slaves), true);
 
     checkSchedulerForInconsistentState();
 
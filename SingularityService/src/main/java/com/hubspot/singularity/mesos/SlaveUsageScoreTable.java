@@ -0,0 +1,295 @@
+package com.hubspot.singularity.mesos;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.hubspot.singularity.MachineLoadMetric;
+import com.hubspot.singularity.SingularitySlaveUsage;
+
+/**
+ * Usage and scores of every slave with offers in one offer check, kept as one primitive array per field and indexed by
+ * the slave's slot. Accepting a task only recalculates that slave's slot, so scoring offers against it reads arrays
+ * without allocating. Slots are added from a single thread, after which different slots may be written concurrently.
+ */
+class SlaveUsageScoreTable {
+  private final MachineLoadMetric systemLoadMetric;
+  private final double load5Threshold;
+  private final double load1Threshold;
+
+  private final Map<String, Integer> slotBySlaveId;
+  private final SingularitySlaveUsage[] slaveUsages;
+  private final boolean[] missingUsageData;
+
+  private final double[] cpusReserved;
+  private final double[] cpusTotal;
+  private final double[] memoryBytesReserved;
+  private final double[] memoryBytesTotal;
+  private final double[] diskBytesReserved;
+  private final double[] diskBytesTotal;
+  private final double[] systemLoad;
+  private final double[] systemLoad1Min;
+  private final double[] systemLoad5Min;
+  private final double[] systemCpusTotal;
+  private final double[] systemMemTotalBytes;
+  private final double[] systemMemUsedBytes;
+  private final double[] slaveDiskUsed;
+  private final double[] slaveDiskTotal;
+
+  private final double[] maxProbableCpu;
+  private final double[] maxProbableMemBytes;
+  private final double[] maxProbableDiskBytes;
+
+  private final double[] estimatedAddedCpusUsage;
+  private final double[] estimatedAddedMemoryBytesUsage;
+  private final double[] estimatedAddedDiskBytesUsage;
+  private final double[] estimatedAddedCpusReserved;
+  private final double[] estimatedAddedMemoryBytesReserved;
+  private final double[] estimatedAddedDiskBytesReserved;
+
+  private final double[] cpusAllocatedScore;
+  private final double[] memAllocatedScore;
+  private final double[] diskAllocatedScore;
+  private final double[] cpusInUseScore;
+  private final double[] memInUseScore;
+  private final double[] diskInUseScore;
+  private final double[] usageScore;
+
+  private int size;
+
+  SlaveUsageScoreTable(int capacity, MachineLoadMetric systemLoadMetric, double load5Threshold, double load1Threshold) {
+    this.systemLoadMetric = systemLoadMetric;
+    this.load5Threshold = load5Threshold;
+    this.load1Threshold = load1Threshold;
+
+    this.slotBySlaveId = new HashMap<>(capacity);
+    this.slaveUsages = new SingularitySlaveUsage[capacity];
+    this.missingUsageData = new boolean[capacity];
+
+    this.cpusReserved = new double[capacity];
+    this.cpusTotal = new double[capacity];
+    this.memoryBytesReserved = new double[capacity];
+    this.memoryBytesTotal = new double[capacity];
+    this.diskBytesReserved = new double[capacity];
+    this.diskBytesTotal = new double[capacity];
+    this.systemLoad = new double[capacity];
+    this.systemLoad1Min = new double[capacity];
+    this.systemLoad5Min = new double[capacity];
+    this.systemCpusTotal = new double[capacity];
+    this.systemMemTotalBytes = new double[capacity];
+    this.systemMemUsedBytes = new double[capacity];
+    this.slaveDiskUsed = new double[capacity];
+    this.slaveDiskTotal = new double[capacity];
+
+    this.maxProbableCpu = new double[capacity];
+    this.maxProbableMemBytes = new double[capacity];
+    this.maxProbableDiskBytes = new double[capacity];
+
+    this.estimatedAddedCpusUsage = new double[capacity];
+    this.estimatedAddedMemoryBytesUsage = new double[capacity];
+    this.estimatedAddedDiskBytesUsage = new double[capacity];
+    this.estimatedAddedCpusReserved = new double[capacity];
+    this.estimatedAddedMemoryBytesReserved = new double[capacity];
+    this.estimatedAddedDiskBytesReserved = new double[capacity];
+
+    this.cpusAllocatedScore = new double[capacity];
+    this.memAllocatedScore = new double[capacity];
+    this.diskAllocatedScore = new double[capacity];
+    this.cpusInUseScore = new double[capacity];
+    this.memInUseScore = new double[capacity];
+    this.diskInUseScore = new double[capacity];
+    this.usageScore = new double[capacity];
+    Arrays.fill(usageScore, Double.NaN);
+  }
+
+  /**
+   * @param slaveUsage the slave's last collected usage, or null if there is none
+   * @return the slot of the slave, whose scores are calculated once its max probable usage has been added
+   */
+  int add(String slaveId, SingularitySlaveUsage slaveUsage) {
+    int slot = add(slaveUsage);
+    slotBySlaveId.put(slaveId, slot);
+    return slot;
+  }
+
+  /**
+   * Adds a slot that can't be found by slave id
+   */
+  int add(SingularitySlaveUsage slaveUsage) {
+    int slot = size++;
+    slaveUsages[slot] = slaveUsage;
+
+    if (slaveUsage == null) {
+      missingUsageData[slot] = true;
+      return slot;
+    }
+
+    systemLoad[slot] = getSystemLoadMetric(slaveUsage);
+    systemLoad1Min[slot] = slaveUsage.getSystemLoad1Min();
+    systemLoad5Min[slot] = slaveUsage.getSystemLoad5Min();
+    systemCpusTotal[slot] = slaveUsage.getSystemCpusTotal();
+    systemMemTotalBytes[slot] = slaveUsage.getSystemMemTotalBytes();
+    systemMemUsedBytes[slot] = slaveUsage.getSystemMemTotalBytes() - slaveUsage.getSystemMemFreeBytes();
+    slaveDiskUsed[slot] = slaveUsage.getSlaveDiskUsed();
+    slaveDiskTotal[slot] = slaveUsage.getSlaveDiskTotal();
+
+    if (missingUsageData(slaveUsage)) {
+      missingUsageData[slot] = true;
+      return slot;
+    }
+
+    cpusReserved[slot] = slaveUsage.getCpusReserved();
+    cpusTotal[slot] = slaveUsage.getCpusTotal().get();
+    memoryBytesReserved[slot] = slaveUsage.getMemoryMbReserved() * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
+    memoryBytesTotal[slot] = slaveUsage.getMemoryBytesTotal().get();
+    diskBytesReserved[slot] = slaveUsage.getDiskMbReserved() * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
+    diskBytesTotal[slot] = slaveUsage.getDiskBytesTotal().get();
+    return slot;
+  }
+
+  private boolean missingUsageData(SingularitySlaveUsage slaveUsage) {
+    return !slaveUsage.getCpusTotal().isPresent() ||
+        !slaveUsage.getMemoryMbTotal().isPresent() ||
+        !slaveUsage.getDiskMbTotal().isPresent();
+  }
+
+  private double getSystemLoadMetric(SingularitySlaveUsage slaveUsage) {
+    switch (systemLoadMetric) {
+      case LOAD_1:
+        return slaveUsage.getSystemLoad1Min();
+      case LOAD_15:
+        return slaveUsage.getSystemLoad15Min();
+      case LOAD_5:
+      default:
+        return slaveUsage.getSystemLoad5Min();
+    }
+  }
+
+  /**
+   * @return the slot of the slave, or -1 if it was never added
+   */
+  int getSlot(String slaveId) {
+    Integer slot = slotBySlaveId.get(slaveId);
+    return slot == null ? -1 : slot;
+  }
+
+  int size() {
+    return size;
+  }
+
+  void addMaxProbableUsage(int slot, double cpu, double memBytes, double diskBytes) {
+    maxProbableCpu[slot] += cpu;
+    maxProbableMemBytes[slot] += memBytes;
+    maxProbableDiskBytes[slot] += diskBytes;
+  }
+
+  void addEstimatedUsage(int slot, double cpus, double memoryBytes, double diskBytes) {
+    estimatedAddedCpusUsage[slot] += cpus;
+    estimatedAddedMemoryBytesUsage[slot] += memoryBytes;
+    estimatedAddedDiskBytesUsage[slot] += diskBytes;
+  }
+
+  void addEstimatedReserved(int slot, double cpus, double memoryMb, double diskMb) {
+    estimatedAddedCpusReserved[slot] += cpus;
+    estimatedAddedMemoryBytesReserved[slot] += memoryMb;
+    estimatedAddedDiskBytesReserved[slot] += diskMb;
+  }
+
+  void recalculateScores(int slot) {
+    usageScore[slot] = Double.NaN;
+    if (missingUsageData[slot]) {
+      return;
+    }
+
+    cpusAllocatedScore[slot] = (cpusReserved[slot] + estimatedAddedCpusUsage[slot]) / cpusTotal[slot];
+    memAllocatedScore[slot] = (memoryBytesReserved[slot] + estimatedAddedMemoryBytesUsage[slot]) / memoryBytesTotal[slot];
+    diskAllocatedScore[slot] = (diskBytesReserved[slot] + estimatedAddedDiskBytesUsage[slot]) / diskBytesTotal[slot];
+
+    double maxProbableCpuWithEstimatedUsage = Math.max(systemLoad[slot], maxProbableCpu[slot]) + estimatedAddedCpusUsage[slot];
+    double maxProbableMemBytesWithEstimatedUsage = Math.max(systemMemUsedBytes[slot], maxProbableMemBytes[slot]) + estimatedAddedMemoryBytesUsage[slot];
+    double maxProbableDiskBytesWithEstimatedUsage = Math.max(slaveDiskUsed[slot], maxProbableDiskBytes[slot]) + estimatedAddedDiskBytesUsage[slot];
+    cpusInUseScore[slot] = Math.max(0, 1 - (maxProbableCpuWithEstimatedUsage / systemCpusTotal[slot]));
+    memInUseScore[slot] = 1 - (maxProbableMemBytesWithEstimatedUsage / systemMemTotalBytes[slot]);
+    diskInUseScore[slot] = 1 - (maxProbableDiskBytesWithEstimatedUsage / slaveDiskTotal[slot]);
+  }
+
+  void recalculateScores() {
+    for (int slot = 0; slot < size; slot++) {
+      recalculateScores(slot);
+    }
+  }
+
+  boolean isCpuOverloaded(int slot, double estimatedNumCpusToAdd) {
+    if (slaveUsages[slot] == null) {
+      return false;
+    }
+    return ((systemLoad5Min[slot] + estimatedAddedCpusUsage[slot] + estimatedNumCpusToAdd) / systemCpusTotal[slot]) > load5Threshold
+        || ((systemLoad1Min[slot] + estimatedAddedCpusUsage[slot] + estimatedNumCpusToAdd) / systemCpusTotal[slot]) > load1Threshold;
+  }
+
+  boolean isMissingUsageData(int slot) {
+    return missingUsageData[slot];
+  }
+
+  SingularitySlaveUsage getSlaveUsage(int slot) {
+    return slaveUsages[slot];
+  }
+
+  double getCpusAllocatedScore(int slot) {
+    return cpusAllocatedScore[slot];
+  }
+
+  double getMemAllocatedScore(int slot) {
+    return memAllocatedScore[slot];
+  }
+
+  double getDiskAllocatedScore(int slot) {
+    return diskAllocatedScore[slot];
+  }
+
+  double getCpusInUseScore(int slot) {
+    return cpusInUseScore[slot];
+  }
+
+  double getMemInUseScore(int slot) {
+    return memInUseScore[slot];
+  }
+
+  double getDiskInUseScore(int slot) {
+    return diskInUseScore[slot];
+  }
+
+  double getEstimatedAddedCpusUsage(int slot) {
+    return estimatedAddedCpusUsage[slot];
+  }
+
+  /**
+   * @return the combined score last stored for the slot, or NaN if its scores changed since
+   */
+  double getUsageScore(int slot) {
+    return usageScore[slot];
+  }
+
+  void setUsageScore(int slot, double score) {
+    usageScore[slot] = score;
+  }
+
+  String toString(int slot) {
+    return "SlaveUsageScoreTable{" +
+        "slaveUsage=" + slaveUsages[slot] +
+        ", missingUsageData=" + missingUsageData[slot] +
+        ", cpusAllocatedScore=" + cpusAllocatedScore[slot] +
+        ", memAllocatedScore=" + memAllocatedScore[slot] +
+        ", diskAllocatedScore=" + diskAllocatedScore[slot] +
+        ", cpusInUseScore=" + cpusInUseScore[slot] +
+        ", memInUseScore=" + memInUseScore[slot] +
+        ", diskInUseScore=" + diskInUseScore[slot] +
+        ", estimatedAddedCpusUsage=" + estimatedAddedCpusUsage[slot] +
+        ", estimatedAddedMemoryBytesUsage=" + estimatedAddedMemoryBytesUsage[slot] +
+        ", estimatedAddedDiskBytesUsage=" + estimatedAddedDiskBytesUsage[slot] +
+        ", estimatedAddedCpusReserved=" + estimatedAddedCpusReserved[slot] +
+        ", estimatedAddedMemoryBytesReserved=" + estimatedAddedMemoryBytesReserved[slot] +
+        ", estimatedAddedDiskBytesReserved=" + estimatedAddedDiskBytesReserved[slot] +
+        '}';
+  }
+}
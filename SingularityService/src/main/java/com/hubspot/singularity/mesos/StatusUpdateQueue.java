@@ -0,0 +1,177 @@
+package com.hubspot.singularity.mesos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.mesos.v1.Protos.TaskState;
+import org.apache.mesos.v1.Protos.TaskStatus;
+import org.apache.mesos.v1.Protos.TaskStatus.Reason;
+
+import com.google.common.collect.ImmutableList;
+import com.hubspot.singularity.SingularityTaskId;
+
+/**
+ * Status updates waiting to be processed, grouped by task. A task is handed to at most one batch at a time so its
+ * updates are always applied in the order they arrived, and an update for a task that is still waiting replaces the
+ * last one queued for it when that one is no longer worth applying (a duplicate, or an active state that a later
+ * state has already moved past). Terminal and agent recovery updates are never replaced.
+ *
+ * Tasks that can be taken are kept apart from those whose earlier updates are still in a batch, so taking a batch
+ * only touches the tasks it returns.
+ */
+class StatusUpdateQueue {
+  // In the order a task moves through them
+  private static final List<TaskState> SUPERSEDABLE_STATES = ImmutableList.of(
+      TaskState.TASK_STAGING, TaskState.TASK_STARTING, TaskState.TASK_RUNNING
+  );
+
+  static class QueuedStatusUpdate {
+    private final TaskStatus status;
+    private final CompletableFuture<StatusUpdateResult> future;
+    private final List<CompletableFuture<StatusUpdateResult>> superseded;
+
+    private QueuedStatusUpdate(TaskStatus status, CompletableFuture<StatusUpdateResult> future) {
+      this.status = status;
+      this.future = future;
+      this.superseded = new ArrayList<>();
+    }
+
+    TaskStatus getStatus() {
+      return status;
+    }
+
+    void complete(StatusUpdateResult result) {
+      future.complete(result);
+      superseded.forEach((f) -> f.complete(StatusUpdateResult.IGNORED));
+    }
+
+    void completeExceptionally(Throwable t) {
+      future.completeExceptionally(t);
+      superseded.forEach((f) -> f.completeExceptionally(t));
+    }
+  }
+
+  static class TaskStatusUpdates {
+    private final SingularityTaskId taskId;
+    private final List<QueuedStatusUpdate> updates;
+
+    private TaskStatusUpdates(SingularityTaskId taskId) {
+      this.taskId = taskId;
+      this.updates = new ArrayList<>();
+    }
+
+    SingularityTaskId getTaskId() {
+      return taskId;
+    }
+
+    List<QueuedStatusUpdate> getUpdates() {
+      return updates;
+    }
+
+    private boolean canSupersedeLast(TaskStatus status) {
+      return !updates.isEmpty() && isSupersededBy(updates.get(updates.size() - 1).status, status);
+    }
+
+    private void supersedeLast(TaskStatus status, CompletableFuture<StatusUpdateResult> future) {
+      QueuedStatusUpdate last = updates.get(updates.size() - 1);
+      QueuedStatusUpdate replacement = new QueuedStatusUpdate(status, future);
+      replacement.superseded.add(last.future);
+      replacement.superseded.addAll(last.superseded);
+      updates.set(updates.size() - 1, replacement);
+    }
+  }
+
+  // Not part of a batch, in the order they became available
+  private final Map<String, TaskStatusUpdates> available = new LinkedHashMap<>();
+  // Queued while an earlier batch for the same task is still being applied
+  private final Map<String, TaskStatusUpdates> waitingOnInFlight = new HashMap<>();
+  private final Set<String> inFlight = new HashSet<>();
+  private int size;
+  private long coalesced;
+
+  static boolean isSupersededBy(TaskStatus queued, TaskStatus next) {
+    if (queued.hasReason() && queued.getReason() == Reason.REASON_AGENT_REREGISTERED) {
+      return false;
+    }
+    if (queued.getState() == next.getState()) {
+      return true;
+    }
+    int queuedIndex = SUPERSEDABLE_STATES.indexOf(queued.getState());
+    return queuedIndex >= 0 && SUPERSEDABLE_STATES.indexOf(next.getState()) >= queuedIndex;
+  }
+
+  /**
+   * @return false, without queueing the update, if maxSize updates are already waiting
+   */
+  synchronized boolean add(SingularityTaskId taskId, TaskStatus status, CompletableFuture<StatusUpdateResult> future, int maxSize) {
+    TaskStatusUpdates forTask = getWaiting(taskId.getId());
+    if (forTask != null && forTask.canSupersedeLast(status)) {
+      forTask.supersedeLast(status, future);
+      coalesced++;
+      return true;
+    }
+
+    if (maxSize >= 0 && size >= maxSize) {
+      return false;
+    }
+    if (forTask == null) {
+      forTask = new TaskStatusUpdates(taskId);
+      (inFlight.contains(taskId.getId()) ? waitingOnInFlight : available).put(taskId.getId(), forTask);
+    }
+    forTask.updates.add(new QueuedStatusUpdate(status, future));
+    size++;
+    return true;
+  }
+
+  /**
+   * Removes up to maxTasks tasks that aren't already part of another batch, in the order they became available. Each
+   * one must be passed to {@link #finished} once its updates are applied.
+   */
+  synchronized List<TaskStatusUpdates> takeBatch(int maxTasks) {
+    List<TaskStatusUpdates> batch = new ArrayList<>(Math.min(maxTasks, available.size()));
+    Iterator<TaskStatusUpdates> iterator = available.values().iterator();
+    while (iterator.hasNext() && batch.size() < maxTasks) {
+      TaskStatusUpdates forTask = iterator.next();
+      iterator.remove();
+      inFlight.add(forTask.taskId.getId());
+      size -= forTask.updates.size();
+      batch.add(forTask);
+    }
+    return batch;
+  }
+
+  synchronized void finished(List<TaskStatusUpdates> batch) {
+    for (TaskStatusUpdates forTask : batch) {
+      String taskId = forTask.taskId.getId();
+      inFlight.remove(taskId);
+      TaskStatusUpdates queuedSince = waitingOnInFlight.remove(taskId);
+      if (queuedSince != null) {
+        available.put(taskId, queuedSince);
+      }
+    }
+  }
+
+  synchronized boolean hasAvailable() {
+    return !available.isEmpty();
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  synchronized long getCoalescedCount() {
+    return coalesced;
+  }
+
+  private TaskStatusUpdates getWaiting(String taskId) {
+    TaskStatusUpdates forTask = available.get(taskId);
+    return forTask != null ? forTask : waitingOnInFlight.get(taskId);
+  }
+}
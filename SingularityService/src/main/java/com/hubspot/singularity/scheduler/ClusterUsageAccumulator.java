@@ -0,0 +1,118 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.util.concurrent.AtomicDouble;
+import com.hubspot.singularity.RequestUtilization;
+import com.hubspot.singularity.SingularitySlaveUsage;
+import com.hubspot.singularity.scheduler.SlaveUsageResult.TaskUtilization;
+
+/**
+ * Request utilizations and cluster totals for one usage poll, folded in one slave at a time as each collection
+ * finishes. Once closed, later results are rejected so a poll can publish what it has without racing slow slaves.
+ */
+class ClusterUsageAccumulator {
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private boolean closed = false;
+
+  private final Map<String, RequestUtilization> utilizationPerRequestId = new ConcurrentHashMap<>();
+  private final Map<SingularitySlaveUsage, List<TaskIdWithUsage>> overLoadedHosts = new ConcurrentHashMap<>();
+  private final AtomicInteger slavesCollected = new AtomicInteger(0);
+
+  private final AtomicLong totalMemBytesUsed = new AtomicLong(0);
+  private final AtomicLong totalMemBytesAvailable = new AtomicLong(0);
+  private final AtomicDouble totalCpuUsed = new AtomicDouble(0.00);
+  private final AtomicDouble totalCpuAvailable = new AtomicDouble(0.00);
+  private final AtomicLong totalDiskBytesUsed = new AtomicLong(0);
+  private final AtomicLong totalDiskBytesAvailable = new AtomicLong(0);
+
+  /**
+   * @return false if the accumulator was already closed and the result was dropped
+   */
+  boolean add(SlaveUsageResult result) {
+    lock.readLock().lock();
+    try {
+      if (closed) {
+        return false;
+      }
+
+      for (TaskUtilization taskUtilization : result.getTaskUtilizations()) {
+        utilizationPerRequestId.compute(taskUtilization.getRequestId(), (requestId, current) -> taskUtilization.addTo(current));
+      }
+
+      SingularitySlaveUsage slaveUsage = result.getSlaveUsage();
+      if (result.isOverloaded()) {
+        overLoadedHosts.put(slaveUsage, result.getPossibleTasksToShuffle());
+      }
+
+      if (slaveUsage.getMemoryBytesTotal().isPresent() && slaveUsage.getCpusTotal().isPresent()) {
+        totalMemBytesUsed.getAndAdd((long) slaveUsage.getMemoryBytesUsed());
+        totalCpuUsed.getAndAdd(slaveUsage.getCpusUsed());
+        totalDiskBytesUsed.getAndAdd((long) slaveUsage.getDiskBytesUsed());
+
+        totalMemBytesAvailable.getAndAdd(slaveUsage.getMemoryBytesTotal().get());
+        totalCpuAvailable.getAndAdd(slaveUsage.getCpusTotal().get());
+        totalDiskBytesAvailable.getAndAdd(slaveUsage.getDiskBytesTotal().get());
+      }
+
+      slavesCollected.incrementAndGet();
+      return true;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Stops accepting results. Waits for any result being added, so the values read afterwards no longer change
+   */
+  void close() {
+    lock.writeLock().lock();
+    try {
+      closed = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  Map<String, RequestUtilization> getUtilizationPerRequestId() {
+    return utilizationPerRequestId;
+  }
+
+  Map<SingularitySlaveUsage, List<TaskIdWithUsage>> getOverLoadedHosts() {
+    return overLoadedHosts;
+  }
+
+  int getSlavesCollected() {
+    return slavesCollected.get();
+  }
+
+  long getTotalMemBytesUsed() {
+    return totalMemBytesUsed.get();
+  }
+
+  long getTotalMemBytesAvailable() {
+    return totalMemBytesAvailable.get();
+  }
+
+  double getTotalCpuUsed() {
+    return totalCpuUsed.get();
+  }
+
+  double getTotalCpuAvailable() {
+    return totalCpuAvailable.get();
+  }
+
+  long getTotalDiskBytesUsed() {
+    return totalDiskBytesUsed.get();
+  }
+
+  long getTotalDiskBytesAvailable() {
+    return totalDiskBytesAvailable.get();
+  }
+}
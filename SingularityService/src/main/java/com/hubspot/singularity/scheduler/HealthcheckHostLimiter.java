@@ -0,0 +1,90 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Caps the number of healthchecks in flight against a single agent host. Checks over the cap wait, in the order they
+ * were submitted, and are started on the given executor by the {@link #release} of a check that finished against the
+ * same host. Waiting checks that were cancelled in the meantime are dropped instead of started.
+ */
+class HealthcheckHostLimiter {
+
+  private static class WaitingCheck {
+    private final Runnable check;
+    private final BooleanSupplier cancelled;
+
+    private WaitingCheck(Runnable check, BooleanSupplier cancelled) {
+      this.check = check;
+      this.cancelled = cancelled;
+    }
+  }
+
+  private static class HostSlots {
+    private int inFlight;
+    private final Queue<WaitingCheck> waiting = new ArrayDeque<>();
+  }
+
+  private final int maxPerHost;
+  private final Executor waitingCheckExecutor;
+  private final Map<String, HostSlots> hosts;
+  private int waitingCount;
+
+  HealthcheckHostLimiter(int maxPerHost, Executor waitingCheckExecutor) {
+    this.maxPerHost = maxPerHost;
+    this.waitingCheckExecutor = waitingCheckExecutor;
+    this.hosts = new HashMap<>();
+  }
+
+  /**
+   * Runs the check now if the host is under its cap, otherwise once a slot frees up, unless {@code cancelled} is true
+   * by then. Every check that is run must call {@link #release} exactly once when it finishes.
+   */
+  void submit(String host, Runnable check, BooleanSupplier cancelled) {
+    synchronized (this) {
+      HostSlots slots = hosts.computeIfAbsent(host, (h) -> new HostSlots());
+      if (maxPerHost > 0 && slots.inFlight >= maxPerHost) {
+        slots.waiting.add(new WaitingCheck(check, cancelled));
+        waitingCount++;
+        return;
+      }
+      slots.inFlight++;
+    }
+    check.run();
+  }
+
+  void release(String host) {
+    WaitingCheck next;
+    synchronized (this) {
+      HostSlots slots = hosts.get(host);
+      if (slots == null) {
+        return;
+      }
+      while ((next = slots.waiting.poll()) != null) {
+        waitingCount--;
+        if (!next.cancelled.getAsBoolean()) {
+          break;
+        }
+      }
+      if (next == null && --slots.inFlight <= 0) {
+        hosts.remove(host);
+      }
+    }
+    if (next != null) {
+      waitingCheckExecutor.execute(next.check);
+    }
+  }
+
+  synchronized int getWaitingCount() {
+    return waitingCount;
+  }
+
+  synchronized int getInFlight(String host) {
+    HostSlots slots = hosts.get(host);
+    return slots == null ? 0 : slots.inFlight;
+  }
+}
@@ -0,0 +1,145 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Timer;
+import com.hubspot.singularity.SingularityTaskHealthcheckResult;
+import com.hubspot.singularity.data.TaskManager;
+
+/**
+ * Group commits healthcheck results. Results that arrive while a batch is being written are written together in the
+ * next one, so the number of zk writes stays flat as the number of concurrent checks grows, and a lone result is
+ * written right away. The first result for a task is saved on its own since it creates the task's healthcheck nodes.
+ * Callbacks run on the executor once their result is written.
+ */
+class HealthcheckResultBatcher {
+  private static final Logger LOG = LoggerFactory.getLogger(HealthcheckResultBatcher.class);
+
+  private static class PendingResult {
+    private final SingularityTaskHealthcheckResult result;
+    private final Runnable onSaved;
+    private final Consumer<Throwable> onFailure;
+
+    private PendingResult(SingularityTaskHealthcheckResult result, Runnable onSaved, Consumer<Throwable> onFailure) {
+      this.result = result;
+      this.onSaved = onSaved;
+      this.onFailure = onFailure;
+    }
+  }
+
+  private final TaskManager taskManager;
+  private final ExecutorService executor;
+  private final int maxBatchSize;
+  private final Timer batchTimer;
+  private final Queue<PendingResult> pending;
+  private final AtomicBoolean writing;
+  private final Set<String> tasksWithSavedResults;
+
+  HealthcheckResultBatcher(TaskManager taskManager, ExecutorService executor, int maxBatchSize, Timer batchTimer) {
+    this.taskManager = taskManager;
+    this.executor = executor;
+    this.maxBatchSize = maxBatchSize;
+    this.batchTimer = batchTimer;
+    this.pending = new ConcurrentLinkedQueue<>();
+    this.writing = new AtomicBoolean(false);
+    this.tasksWithSavedResults = ConcurrentHashMap.newKeySet();
+  }
+
+  void save(SingularityTaskHealthcheckResult result, Runnable onSaved, Consumer<Throwable> onFailure) {
+    pending.add(new PendingResult(result, onSaved, onFailure));
+    if (writing.compareAndSet(false, true)) {
+      try {
+        executor.execute(this::writePending);
+      } catch (RejectedExecutionException ree) {
+        writing.set(false);
+        throw ree;
+      }
+    }
+  }
+
+  void forget(String taskId) {
+    tasksWithSavedResults.remove(taskId);
+  }
+
+  private void writePending() {
+    do {
+      try {
+        List<PendingResult> batch;
+        while (!(batch = takeBatch()).isEmpty()) {
+          write(batch);
+        }
+      } finally {
+        writing.set(false);
+      }
+    } while (!pending.isEmpty() && writing.compareAndSet(false, true));
+  }
+
+  private List<PendingResult> takeBatch() {
+    List<PendingResult> batch = new ArrayList<>();
+    PendingResult next;
+    while (batch.size() < maxBatchSize && (next = pending.poll()) != null) {
+      batch.add(next);
+    }
+    return batch;
+  }
+
+  private void write(List<PendingResult> batch) {
+    List<PendingResult> grouped = new ArrayList<>(batch.size());
+
+    try (Timer.Context context = batchTimer.time()) {
+      for (PendingResult pendingResult : batch) {
+        String taskId = pendingResult.result.getTaskId().getId();
+        if (tasksWithSavedResults.contains(taskId)) {
+          grouped.add(pendingResult);
+          continue;
+        }
+
+        try {
+          taskManager.saveHealthcheckResult(pendingResult.result);
+          tasksWithSavedResults.add(taskId);
+          complete(pendingResult, null);
+        } catch (Throwable t) {
+          complete(pendingResult, t);
+        }
+      }
+
+      if (grouped.isEmpty()) {
+        return;
+      }
+
+      Throwable failure = null;
+      try {
+        taskManager.saveHealthcheckResults(grouped.stream().map((p) -> p.result).collect(Collectors.toList()));
+      } catch (Throwable t) {
+        LOG.error("Failed to save {} healthcheck results", grouped.size(), t);
+        failure = t;
+      }
+      for (PendingResult pendingResult : grouped) {
+        complete(pendingResult, failure);
+      }
+    }
+  }
+
+  private void complete(PendingResult pendingResult, Throwable failure) {
+    executor.execute(() -> {
+      if (failure == null) {
+        pendingResult.onSaved.run();
+      } else {
+        pendingResult.onFailure.accept(failure);
+      }
+    });
+  }
+}
@@ -0,0 +1,208 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A set with secondary indexes (e.g. task ids by request or host) kept in step with it, so lookups by an indexed key
+ * cost O(result) rather than a scan of the whole set. Optionally ordered, for in-order prefix reads.
+ *
+ * Writers serialize on this object and bump a version before and after each change. Readers never take the lock: they
+ * copy from the concurrent collections and keep the copy only if no write overlapped it (checked against the version),
+ * so a reader always sees a consistent view and a large listing never holds up a writer. Full listings are cached per
+ * version and shared between readers until the next write.
+ */
+class IndexedSet<T> {
+  private static final int MAX_OPTIMISTIC_READS = 16;
+
+  static final class Index<T> {
+    private final Function<T, ?> keyFunction;
+
+    private Index(Function<T, ?> keyFunction) {
+      this.keyFunction = keyFunction;
+    }
+
+    static <T> Index<T> by(Function<T, ?> keyFunction) {
+      return new Index<>(keyFunction);
+    }
+  }
+
+  private static final class Snapshot<T> {
+    private final long version;
+    private final List<T> values;
+
+    private Snapshot(long version, List<T> values) {
+      this.version = version;
+      this.values = values;
+    }
+  }
+
+  private final Set<T> values;
+  private final Map<Index<T>, ConcurrentMap<Object, Set<T>>> indexes;
+
+  // Odd while a write is in progress
+  private volatile long version;
+  private volatile Snapshot<T> snapshot;
+
+  IndexedSet(Collection<Index<T>> indexes) {
+    this(indexes, Optional.absent());
+  }
+
+  IndexedSet(Collection<Index<T>> indexes, Optional<Comparator<T>> order) {
+    this.values = order.isPresent() ? new ConcurrentSkipListSet<>(order.get()) : ConcurrentHashMap.newKeySet();
+    this.indexes = new IdentityHashMap<>();
+    indexes.forEach((index) -> this.indexes.put(index, new ConcurrentHashMap<>()));
+    this.snapshot = new Snapshot<>(0, ImmutableList.of());
+  }
+
+  synchronized void replaceAll(Collection<T> newValues) {
+    beginWrite();
+    try {
+      values.clear();
+      indexes.values().forEach(Map::clear);
+      newValues.forEach(this::addUnversioned);
+    } finally {
+      endWrite();
+    }
+  }
+
+  synchronized boolean add(T value) {
+    beginWrite();
+    try {
+      return addUnversioned(value);
+    } finally {
+      endWrite();
+    }
+  }
+
+  synchronized boolean remove(T value) {
+    beginWrite();
+    try {
+      if (!values.remove(value)) {
+        return false;
+      }
+      for (Map.Entry<Index<T>, ConcurrentMap<Object, Set<T>>> index : indexes.entrySet()) {
+        index.getValue().computeIfPresent(index.getKey().keyFunction.apply(value), (k, indexed) -> {
+          indexed.remove(value);
+          return indexed.isEmpty() ? null : indexed;
+        });
+      }
+      return true;
+    } finally {
+      endWrite();
+    }
+  }
+
+  synchronized void clear() {
+    beginWrite();
+    try {
+      values.clear();
+      indexes.values().forEach(Map::clear);
+    } finally {
+      endWrite();
+    }
+  }
+
+  boolean contains(T value) {
+    return values.contains(value);
+  }
+
+  int size() {
+    return values.size();
+  }
+
+  /**
+   * An immutable, consistent snapshot of every value, shared by all readers until the next write
+   */
+  List<T> getAll() {
+    Snapshot<T> current = snapshot;
+    if (current.version == version) {
+      return current.values;
+    }
+
+    long readVersion = version;
+    List<T> copy = read(() -> ImmutableList.copyOf(values));
+    // Only cache it if nothing was written since, a later reader would otherwise get a stale listing
+    if (readVersion == version && (readVersion & 1) == 0) {
+      snapshot = new Snapshot<>(readVersion, copy);
+    }
+    return copy;
+  }
+
+  List<T> get(Index<T> index, Object key) {
+    ConcurrentMap<Object, Set<T>> indexed = indexes.get(index);
+    return read(() -> {
+      Set<T> matching = indexed.get(key);
+      return matching == null ? Collections.emptyList() : new ArrayList<>(matching);
+    });
+  }
+
+  /**
+   * Values in iteration order (the set's order, if it has one) until the first one that doesn't match.
+   */
+  List<T> getWhile(Predicate<T> predicate) {
+    return read(() -> {
+      List<T> matching = new ArrayList<>();
+      Iterator<T> iterator = values.iterator();
+      while (iterator.hasNext()) {
+        T value = iterator.next();
+        if (!predicate.test(value)) {
+          break;
+        }
+        matching.add(value);
+      }
+      return matching;
+    });
+  }
+
+  private <R> R read(Supplier<R> reader) {
+    for (int i = 0; i < MAX_OPTIMISTIC_READS; i++) {
+      long before = version;
+      if ((before & 1) == 0) {
+        R result = reader.get();
+        if (version == before) {
+          return result;
+        }
+      }
+    }
+
+    // Writes keep landing mid-read, wait for a gap instead
+    synchronized (this) {
+      return reader.get();
+    }
+  }
+
+  private boolean addUnversioned(T value) {
+    if (!values.add(value)) {
+      return false;
+    }
+    for (Map.Entry<Index<T>, ConcurrentMap<Object, Set<T>>> index : indexes.entrySet()) {
+      index.getValue().computeIfAbsent(index.getKey().keyFunction.apply(value), (k) -> ConcurrentHashMap.newKeySet()).add(value);
+    }
+    return true;
+  }
+
+  private void beginWrite() {
+    version++;
+  }
+
+  private void endWrite() {
+    version++;
+  }
+}
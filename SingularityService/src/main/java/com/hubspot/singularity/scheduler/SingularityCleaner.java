@@ -2,12 +2,15 @@ package com.hubspot.singularity.scheduler;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
@@ -15,6 +18,9 @@ import javax.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Optional;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableMap;
@@ -32,6 +38,7 @@ import com.hubspot.singularity.SingularityDeploy;
 import com.hubspot.singularity.SingularityDeployKey;
 import com.hubspot.singularity.SingularityKilledTaskIdRecord;
 import com.hubspot.singularity.SingularityLoadBalancerUpdate;
+import com.hubspot.singularity.SingularityManagedCachedThreadPoolFactory;
 import com.hubspot.singularity.SingularityPendingRequest;
 import com.hubspot.singularity.SingularityPendingRequest.PendingType;
 import com.hubspot.singularity.SingularityPendingTaskId;
@@ -48,6 +55,7 @@ import com.hubspot.singularity.SingularityTaskShellCommandRequest;
 import com.hubspot.singularity.SingularityTaskShellCommandRequestId;
 import com.hubspot.singularity.SingularityTaskShellCommandUpdate;
 import com.hubspot.singularity.TaskCleanupType;
+import com.hubspot.singularity.async.BoundedParallelRunner;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.DeployManager;
 import com.hubspot.singularity.data.RequestGroupManager;
@@ -67,6 +75,30 @@ public class SingularityCleaner {
 
   private static final Logger LOG = LoggerFactory.getLogger(SingularityCleaner.class);
 
+  private enum CleanupCategory {
+    REQUEST_CLEANUP("requestCleanup"), TASK_CLEANUP("taskCleanup"), LB_TASK_CLEANUP("lbTaskCleanup"), LB_REQUEST_CLEANUP("lbRequestCleanup"),
+    KILLED_TASK_RECORDS("killedTaskRecords");
+
+    private final String metricName;
+
+    CleanupCategory(String metricName) {
+      this.metricName = metricName;
+    }
+  }
+
+  private static class CleanupMetrics {
+    private final Timer pass;
+    private final Timer request;
+    private final AtomicInteger remainingRequests;
+
+    private CleanupMetrics(CleanupCategory category, MetricRegistry metricRegistry) {
+      this.pass = metricRegistry.timer(MetricRegistry.name("cleaner", category.metricName));
+      this.request = metricRegistry.timer(MetricRegistry.name("cleaner", category.metricName, "request"));
+      this.remainingRequests = new AtomicInteger(0);
+      metricRegistry.register(MetricRegistry.name("cleaner", category.metricName, "remainingRequests"), (Gauge<Integer>) remainingRequests::get);
+    }
+  }
+
   private final TaskManager taskManager;
   private final DeployManager deployManager;
   private final RequestManager requestManager;
@@ -81,12 +113,14 @@ public class SingularityCleaner {
 
   private final SingularityConfiguration configuration;
   private final long killNonLongRunningTasksInCleanupAfterMillis;
+  private final ExecutorService cleanupExecutor;
+  private final Map<CleanupCategory, CleanupMetrics> cleanupMetrics;
 
   @Inject
   public SingularityCleaner(TaskManager taskManager, SingularityDeployHealthHelper deployHealthHelper, DeployManager deployManager, RequestManager requestManager,
                             SingularityConfiguration configuration, LoadBalancerClient lbClient, SingularityExceptionNotifier exceptionNotifier,
                             RequestHistoryHelper requestHistoryHelper, SingularityMesosScheduler scheduler, SingularitySchedulerLock lock, UsageManager usageManager,
-                            RequestGroupManager requestGroupManager) {
+                            RequestGroupManager requestGroupManager, SingularityManagedCachedThreadPoolFactory cachedThreadPoolFactory, MetricRegistry metricRegistry) {
     this.taskManager = taskManager;
     this.lbClient = lbClient;
     this.deployHealthHelper = deployHealthHelper;
@@ -102,6 +136,34 @@ public class SingularityCleaner {
     this.configuration = configuration;
 
     this.killNonLongRunningTasksInCleanupAfterMillis = TimeUnit.SECONDS.toMillis(configuration.getKillNonLongRunningTasksInCleanupAfterSeconds());
+
+    this.cleanupExecutor = cachedThreadPoolFactory.get("cleaner");
+    this.cleanupMetrics = new EnumMap<>(CleanupCategory.class);
+    for (CleanupCategory category : CleanupCategory.values()) {
+      cleanupMetrics.put(category, new CleanupMetrics(category, metricRegistry));
+    }
+  }
+
+  /**
+   * Runs the action for each request's items under that request's lock. Requests are spread over up to
+   * cleanupThreads workers, so one request with a slow load balancer or a lot of tasks doesn't hold up the rest.
+   */
+  private <T> void forEachRequest(CleanupCategory category, Map<String, List<T>> itemsByRequest, BiConsumer<String, List<T>> action) {
+    final CleanupMetrics metrics = cleanupMetrics.get(category);
+    final String lockOwner = String.format("%s#%s", getClass().getSimpleName(), category.metricName);
+    metrics.remainingRequests.set(itemsByRequest.size());
+
+    try (Timer.Context context = metrics.pass.time()) {
+      BoundedParallelRunner.runEach(itemsByRequest.entrySet(), configuration.getCleanupThreads(), cleanupExecutor, metrics.request, (itemsForRequest) -> {
+        try {
+          lock.runWithRequestLock(() -> action.accept(itemsForRequest.getKey(), itemsForRequest.getValue()), itemsForRequest.getKey(), lockOwner);
+        } finally {
+          metrics.remainingRequests.decrementAndGet();
+        }
+      });
+    } finally {
+      metrics.remainingRequests.set(0);
+    }
   }
 
   private boolean shouldKillTask(SingularityTaskCleanup taskCleanup, List<SingularityTaskId> activeTaskIds, Set<SingularityTaskId> cleaningTasks, Multiset<SingularityDeployKey> incrementalCleaningTasks) {
@@ -333,10 +395,10 @@ public class SingularityCleaner {
     AtomicInteger numTasksKilled = new AtomicInteger(0);
     AtomicInteger numScheduledTasksRemoved = new AtomicInteger(0);
 
-    cleanupRequests.parallelStream().forEach((requestCleanup) -> {
-      lock.runWithRequestLock(() -> {
+    forEachRequest(CleanupCategory.REQUEST_CLEANUP, cleanupRequests.stream().collect(Collectors.groupingBy(SingularityRequestCleanup::getRequestId)), (requestId, requestCleanups) -> {
+      for (SingularityRequestCleanup requestCleanup : requestCleanups) {
         processRequestCleanup(start, numTasksKilled, numScheduledTasksRemoved, requestCleanup);
-      }, requestCleanup.getRequestId(), String.format("%s#%s", getClass().getSimpleName(), "drainRequestCleanupQueue"));
+      }
     });
 
     LOG.info("Killed {} tasks (removed {} scheduled) in {}", numTasksKilled.get(), numScheduledTasksRemoved.get(), JavaUtils.duration(start));
@@ -559,40 +621,36 @@ public class SingularityCleaner {
     AtomicInteger waiting = new AtomicInteger(0);
     AtomicInteger rekilled = new AtomicInteger(0);
 
-    killedTaskIdRecords.stream()
-        .collect(Collectors.groupingBy((record) -> record.getTaskId().getRequestId()))
-        .entrySet().parallelStream()
-        .forEach((killedTaskIdRecordsForRequest) -> {
-          lock.runWithRequestLock(() -> {
-            for (SingularityKilledTaskIdRecord killedTaskIdRecord : killedTaskIdRecordsForRequest.getValue()) {
-              if (!taskManager.isActiveTask(killedTaskIdRecord.getTaskId())) {
-                SingularityDeleteResult deleteResult = taskManager.deleteKilledRecord(killedTaskIdRecord.getTaskId());
+    forEachRequest(CleanupCategory.KILLED_TASK_RECORDS, killedTaskIdRecords.stream().collect(Collectors.groupingBy((record) -> record.getTaskId().getRequestId())),
+        (requestId, killedTaskIdRecordsForRequest) -> {
+          for (SingularityKilledTaskIdRecord killedTaskIdRecord : killedTaskIdRecordsForRequest) {
+            if (!taskManager.isActiveTask(killedTaskIdRecord.getTaskId())) {
+              SingularityDeleteResult deleteResult = taskManager.deleteKilledRecord(killedTaskIdRecord.getTaskId());
 
-                LOG.debug("Deleting obsolete {} - {}", killedTaskIdRecord, deleteResult);
+              LOG.debug("Deleting obsolete {} - {}", killedTaskIdRecord, deleteResult);
 
-                obsolete.getAndIncrement();
+              obsolete.getAndIncrement();
 
-                continue;
-              }
+              continue;
+            }
 
-              long duration = start - killedTaskIdRecord.getTimestamp();
+            long duration = start - killedTaskIdRecord.getTimestamp();
 
-              if (duration > configuration.getAskDriverToKillTasksAgainAfterMillis()) {
-                LOG.info("{} is still active, and time since last kill {} is greater than configured (askDriverToKillTasksAgainAfterMillis) {} - asking driver to kill again",
-                    killedTaskIdRecord, JavaUtils.durationFromMillis(duration), JavaUtils.durationFromMillis(configuration.getAskDriverToKillTasksAgainAfterMillis()));
+            if (duration > configuration.getAskDriverToKillTasksAgainAfterMillis()) {
+              LOG.info("{} is still active, and time since last kill {} is greater than configured (askDriverToKillTasksAgainAfterMillis) {} - asking driver to kill again",
+                  killedTaskIdRecord, JavaUtils.durationFromMillis(duration), JavaUtils.durationFromMillis(configuration.getAskDriverToKillTasksAgainAfterMillis()));
 
-                scheduler.killAndRecord(killedTaskIdRecord.getTaskId(), killedTaskIdRecord.getRequestCleanupType(),
-                    killedTaskIdRecord.getTaskCleanupType(), Optional.of(killedTaskIdRecord.getOriginalTimestamp()), Optional.of(killedTaskIdRecord.getRetries()), Optional.absent());
+              scheduler.killAndRecord(killedTaskIdRecord.getTaskId(), killedTaskIdRecord.getRequestCleanupType(),
+                  killedTaskIdRecord.getTaskCleanupType(), Optional.of(killedTaskIdRecord.getOriginalTimestamp()), Optional.of(killedTaskIdRecord.getRetries()), Optional.absent());
 
-                rekilled.getAndIncrement();
-              } else {
-                LOG.trace("Ignoring {}, because duration {} is less than configured (askDriverToKillTasksAgainAfterMillis) {}", killedTaskIdRecord, JavaUtils.durationFromMillis(duration),
-                    JavaUtils.durationFromMillis(configuration.getAskDriverToKillTasksAgainAfterMillis()));
+              rekilled.getAndIncrement();
+            } else {
+              LOG.trace("Ignoring {}, because duration {} is less than configured (askDriverToKillTasksAgainAfterMillis) {}", killedTaskIdRecord, JavaUtils.durationFromMillis(duration),
+                  JavaUtils.durationFromMillis(configuration.getAskDriverToKillTasksAgainAfterMillis()));
 
-                waiting.getAndIncrement();
-              }
+              waiting.getAndIncrement();
             }
-          }, killedTaskIdRecordsForRequest.getKey(), String.format("%s#%s", getClass().getSimpleName(), "checkKilledTaskIdRecords"));
+          }
         });
 
     LOG.info("{} obsolete, {} waiting, {} rekilled tasks based on {} killedTaskIdRecords", obsolete, waiting, rekilled, killedTaskIdRecords.size());
@@ -611,13 +669,7 @@ public class SingularityCleaner {
     }
 
     AtomicInteger killedTasks = new AtomicInteger(0);
-    cleanupTasks.entrySet()
-        .parallelStream()
-        .forEach((taskCleanupsForRequest) -> {
-          lock.runWithRequestLock(() -> {
-            processTaskCleanupsForRequest(taskCleanupsForRequest.getKey(), taskCleanupsForRequest.getValue(), killedTasks);
-          }, taskCleanupsForRequest.getKey(), String.format("%s#%s", getClass().getSimpleName(), "drainTaskCleanupQueue"));
-        });
+    forEachRequest(CleanupCategory.TASK_CLEANUP, cleanupTasks, (requestId, taskCleanupsForRequest) -> processTaskCleanupsForRequest(requestId, taskCleanupsForRequest, killedTasks));
 
     LOG.info("Killed {} tasks in {}", killedTasks, JavaUtils.duration(start));
     return cleanupTasks.size();
@@ -643,7 +695,9 @@ public class SingularityCleaner {
 
     LOG.info("Cleaning up {} tasks for request {}", cleanupTasks.size(), requestId);
 
-    final List<SingularityTaskId> activeTaskIds = taskManager.getActiveTaskIds();
+    // Only this request's tasks are considered when deciding whether a cleanup can kill its task
+    final List<SingularityTaskId> activeTaskIds = taskManager.getActiveTaskIdsForRequest(requestId);
+    final List<SingularityTaskCleanup> toKill = new ArrayList<>();
 
     for (SingularityTaskCleanup cleanupTask : cleanupTasks) {
       SingularityTaskId taskId = cleanupTask.getTaskId();
@@ -652,12 +706,19 @@ public class SingularityCleaner {
         LOG.info("Couldn't find a matching active task for cleanup task {}, deleting..", cleanupTask);
         taskManager.deleteCleanupTask(taskId.getId());
       } else if (shouldKillTask(cleanupTask, activeTaskIds, cleaningTasks, incrementalCleaningTasks) && checkLBStateAndShouldKillTask(cleanupTask)) {
-        scheduler.killAndRecord(taskId, cleanupTask.getCleanupType(), cleanupTask.getUser());
-        taskManager.deleteCleanupTask(taskId.getId());
+        toKill.add(cleanupTask);
+      }
+    }
 
-        killedTasks.getAndIncrement();
+    if (!toKill.isEmpty()) {
+      scheduler.killAndRecord(toKill);
+      for (SingularityTaskCleanup cleanupTask : toKill) {
+        taskManager.deleteCleanupTask(cleanupTask.getTaskId().getId());
       }
+      killedTasks.addAndGet(toKill.size());
+    }
 
+    for (SingularityTaskCleanup cleanupTask : cleanupTasks) {
       cleanupRequestIfNoRemainingTasks(cleanupTask, taskIdsForDeletedRequest, isRequestDeleting);
     }
   }
@@ -826,34 +887,30 @@ public class SingularityCleaner {
     AtomicInteger cleanedTasks = new AtomicInteger(0);
     AtomicInteger ignoredTasks = new AtomicInteger(0);
 
-    lbCleanupTasks.stream()
-        .collect(Collectors.groupingBy(SingularityTaskId::getRequestId))
-        .entrySet().parallelStream()
-        .forEach((lbCleanupsForRequest) -> {
-          lock.runWithRequestLock(() -> {
-            for (SingularityTaskId taskId : lbCleanupsForRequest.getValue()) {
-              final long checkStart = System.currentTimeMillis();
-
-              final CheckLBState checkLbState = checkLbState(taskId);
-
-              LOG.debug("LB cleanup for task {} had state {} after {}", taskId, checkLbState, JavaUtils.duration(checkStart));
-
-              switch (checkLbState) {
-                case WAITING:
-                case RETRY:
-                  continue;
-                case DONE:
-                case MISSING_TASK:
-                  cleanedTasks.getAndIncrement();
-                  break;
-                case NOT_LOAD_BALANCED:
-                case LOAD_BALANCE_FAILED:
-                  ignoredTasks.getAndIncrement();
-              }
-
-              taskManager.deleteLBCleanupTask(taskId);
+    forEachRequest(CleanupCategory.LB_TASK_CLEANUP, lbCleanupTasks.stream().collect(Collectors.groupingBy(SingularityTaskId::getRequestId)),
+        (requestId, lbCleanupsForRequest) -> {
+          for (SingularityTaskId taskId : lbCleanupsForRequest) {
+            final long checkStart = System.currentTimeMillis();
+
+            final CheckLBState checkLbState = checkLbState(taskId);
+
+            LOG.debug("LB cleanup for task {} had state {} after {}", taskId, checkLbState, JavaUtils.duration(checkStart));
+
+            switch (checkLbState) {
+              case WAITING:
+              case RETRY:
+                continue;
+              case DONE:
+              case MISSING_TASK:
+                cleanedTasks.getAndIncrement();
+                break;
+              case NOT_LOAD_BALANCED:
+              case LOAD_BALANCE_FAILED:
+                ignoredTasks.getAndIncrement();
             }
-          }, lbCleanupsForRequest.getKey(), String.format("%s#%s", getClass().getSimpleName(), "drainLBTaskCleanupQueue"));
+
+            taskManager.deleteLBCleanupTask(taskId);
+          }
         });
 
     LOG.info("LB cleaned {} tasks ({} left, {} obsolete) in {}", cleanedTasks, lbCleanupTasks.size() - (ignoredTasks.get() + cleanedTasks.get()), ignoredTasks, JavaUtils.duration(start));
@@ -874,8 +931,8 @@ public class SingularityCleaner {
     AtomicInteger cleanedRequests = new AtomicInteger(0);
     AtomicInteger ignoredRequests = new AtomicInteger(0);
 
-    lbCleanupRequests.parallelStream().forEach((cleanup) -> {
-      lock.runWithRequestLock(() -> {
+    forEachRequest(CleanupCategory.LB_REQUEST_CLEANUP, lbCleanupRequests.stream().collect(Collectors.groupingBy(SingularityRequestLbCleanup::getRequestId)), (requestId, cleanups) -> {
+      for (SingularityRequestLbCleanup cleanup : cleanups) {
         final long checkStart = System.currentTimeMillis();
 
         final CheckLBState checkLbState = checkRequestLbState(cleanup, lbCleanupTasks);
@@ -885,7 +942,7 @@ public class SingularityCleaner {
         switch (checkLbState) {
           case WAITING:
           case RETRY:
-            return;
+            continue;
           case DONE:
           case MISSING_TASK:
             cleanedRequests.getAndIncrement();
@@ -896,7 +953,7 @@ public class SingularityCleaner {
         }
 
         requestManager.deleteLbCleanupRequest(cleanup.getRequestId());
-      }, cleanup.getRequestId(), String.format("%s#%s", getClass().getSimpleName(), "drainLBRequestCleanupQueue"));
+      }
     });
     LOG.info("LB cleaned {} requests ({} left, {} obsolete) in {}", cleanedRequests, lbCleanupRequests.size() - (ignoredRequests.get() + cleanedRequests.get()), ignoredRequests, JavaUtils.duration(start));
   }
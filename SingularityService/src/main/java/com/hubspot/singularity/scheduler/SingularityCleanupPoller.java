@@ -1,5 +1,6 @@
 package com.hubspot.singularity.scheduler;
 
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Singleton;
@@ -7,10 +8,12 @@ import javax.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import com.hubspot.singularity.SingularityAction;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.DisasterManager;
+import com.hubspot.singularity.scheduler.SingularityPollerWakeups.WakeupType;
 
 @Singleton
 public class SingularityCleanupPoller extends SingularityLeaderOnlyPoller {
@@ -28,6 +31,11 @@ public class SingularityCleanupPoller extends SingularityLeaderOnlyPoller {
     this.disasterManager = disasterManager;
   }
 
+  @Override
+  protected Set<WakeupType> getWakeupTypes() {
+    return ImmutableSet.of(WakeupType.CLEANUP);
+  }
+
   @Override
   public void runActionOnPoll() {
     if (!disasterManager.isDisabled(SingularityAction.RUN_CLEANUP_POLLER)) {
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -17,6 +18,8 @@ import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Optional;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
@@ -36,6 +39,7 @@ import com.hubspot.singularity.SingularityDeployMarker;
 import com.hubspot.singularity.SingularityDeployProgress;
 import com.hubspot.singularity.SingularityDeployResult;
 import com.hubspot.singularity.SingularityLoadBalancerUpdate;
+import com.hubspot.singularity.SingularityManagedCachedThreadPoolFactory;
 import com.hubspot.singularity.SingularityPendingDeploy;
 import com.hubspot.singularity.SingularityPendingRequest;
 import com.hubspot.singularity.SingularityPendingRequest.PendingType;
@@ -52,6 +56,8 @@ import com.hubspot.singularity.SingularityTaskShellCommandRequestId;
 import com.hubspot.singularity.SingularityUpdatePendingDeployRequest;
 import com.hubspot.singularity.TaskCleanupType;
 import com.hubspot.singularity.api.SingularityRunNowRequest;
+import com.hubspot.singularity.async.BoundedParallelRunner;
+import com.hubspot.singularity.async.BoundedParallelRunner.ItemDurations;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.DeployManager;
 import com.hubspot.singularity.data.RequestManager;
@@ -74,10 +80,14 @@ public class SingularityDeployChecker {
   private final SingularityConfiguration configuration;
   private final LoadBalancerClient lbClient;
   private final SingularitySchedulerLock lock;
+  private final ExecutorService checkDeploysExecutor;
+  private final Timer checkDeploysTimer;
+  private final Timer checkDeployTimer;
 
   @Inject
   public SingularityDeployChecker(DeployManager deployManager, SingularityDeployHealthHelper deployHealthHelper, LoadBalancerClient lbClient, RequestManager requestManager, TaskManager taskManager,
-                                  SingularityConfiguration configuration, SingularitySchedulerLock lock) {
+                                  SingularityConfiguration configuration, SingularitySchedulerLock lock, SingularityManagedCachedThreadPoolFactory cachedThreadPoolFactory,
+                                  MetricRegistry metricRegistry) {
     this.configuration = configuration;
     this.lbClient = lbClient;
     this.deployHealthHelper = deployHealthHelper;
@@ -85,6 +95,9 @@ public class SingularityDeployChecker {
     this.deployManager = deployManager;
     this.taskManager = taskManager;
     this.lock = lock;
+    this.checkDeploysExecutor = cachedThreadPoolFactory.get("deploy-checker");
+    this.checkDeploysTimer = metricRegistry.timer("deploys.checkDeploys");
+    this.checkDeployTimer = metricRegistry.timer("deploys.checkDeploy");
   }
 
   public int checkDeploys() {
@@ -99,11 +112,23 @@ public class SingularityDeployChecker {
     final Map<SingularityPendingDeploy, SingularityDeployKey> pendingDeployToKey = SingularityDeployKey.fromPendingDeploys(pendingDeploys);
     final Map<SingularityDeployKey, SingularityDeploy> deployKeyToDeploy = deployManager.getDeploysForKeys(pendingDeployToKey.values());
 
-    pendingDeploys.parallelStream().forEach((pendingDeploy) -> {
-      lock.runWithRequestLock(() -> {
-        checkDeploy(pendingDeploy, cancelDeploys, pendingDeployToKey, deployKeyToDeploy, updateRequests);
-      }, pendingDeploy.getDeployMarker().getRequestId(), getClass().getSimpleName());
-    });
+    // Each deploy is checked under its own request lock by one of a bounded number of workers, so a slow load balancer
+    // response for one deploy only holds up that deploy
+    final long start = System.currentTimeMillis();
+    final ItemDurations deployDurations;
+    try {
+      deployDurations = BoundedParallelRunner.runEach(pendingDeploys, configuration.getCheckDeploysThreads(), checkDeploysExecutor, checkDeployTimer, (pendingDeploy) -> {
+        lock.runWithRequestLock(() -> {
+          checkDeploy(pendingDeploy, cancelDeploys, pendingDeployToKey, deployKeyToDeploy, updateRequests);
+        }, pendingDeploy.getDeployMarker().getRequestId(), getClass().getSimpleName());
+      });
+    } finally {
+      checkDeploysTimer.update(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
+    }
+
+    if (deployDurations.size() > 0) {
+      LOG.debug("Checked {} deploys in {} (per deploy {})", deployDurations.size(), JavaUtils.duration(start), deployDurations);
+    }
 
     cancelDeploys.forEach(deployManager::deleteCancelDeployRequest);
     updateRequests.forEach(deployManager::deleteUpdatePendingDeployRequest);
@@ -189,9 +214,8 @@ public class SingularityDeployChecker {
   }
 
   private void deleteObsoletePendingTasks(SingularityPendingDeploy pendingDeploy) {
-    List<SingularityPendingTaskId> obsoletePendingTasks = taskManager.getPendingTaskIds()
+    List<SingularityPendingTaskId> obsoletePendingTasks = taskManager.getPendingTaskIdsForRequest(pendingDeploy.getDeployMarker().getRequestId())
         .stream()
-        .filter(taskId -> taskId.getRequestId().equals(pendingDeploy.getDeployMarker().getRequestId()))
         .filter(taskId -> !taskId.getDeployId().equals(pendingDeploy.getDeployMarker().getDeployId()))
         .collect(Collectors.toList());
 
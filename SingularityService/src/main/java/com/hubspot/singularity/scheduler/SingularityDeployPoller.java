@@ -1,5 +1,6 @@
 package com.hubspot.singularity.scheduler;
 
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Singleton;
@@ -7,11 +8,13 @@ import javax.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import com.hubspot.mesos.JavaUtils;
 import com.hubspot.singularity.SingularityAction;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.DisasterManager;
+import com.hubspot.singularity.scheduler.SingularityPollerWakeups.WakeupType;
 
 @Singleton
 public class SingularityDeployPoller extends SingularityLeaderOnlyPoller {
@@ -29,6 +32,11 @@ public class SingularityDeployPoller extends SingularityLeaderOnlyPoller {
     this.disasterManager = disasterManager;
   }
 
+  @Override
+  protected Set<WakeupType> getWakeupTypes() {
+    return ImmutableSet.of(WakeupType.DEPLOY);
+  }
+
   @Override
   public void runActionOnPoll() {
     if (!disasterManager.isDisabled(SingularityAction.RUN_DEPLOY_POLLER)) {
@@ -115,13 +115,13 @@ public class SingularityDisasterDetectionPoller extends SingularityLeaderOnlyPol
     long now = System.currentTimeMillis();
 
     int numActiveTasks = taskManager.getNumActiveTasks();
-    List<SingularityPendingTaskId> pendingTasks = taskManager.getPendingTaskIds();
-    int numPendingTasks = pendingTasks.size();
+    int numPendingTasks = taskManager.getNumScheduledTasks();
     int numLateTasks = 0;
     long totalTaskLagMillis = 0;
     int numPastDueTasks = 0;
 
-    for (SingularityPendingTaskId pendingTask : pendingTasks) {
+    // Tasks that aren't due yet have no lag, skip them
+    for (SingularityPendingTaskId pendingTask : taskManager.getPendingTaskIdsDueBy(now - 1)) {
       long taskLagMillis = now - pendingTask.getNextRunAt();
       if (taskLagMillis > 0) {
         numPastDueTasks++;
@@ -329,19 +329,16 @@ public class SingularityExpiringUserActionPoller extends SingularityLeaderOnlyPo
       SingularitySlave slave = (SingularitySlave) machine;
       slaveManager.changeState(slave, expiringObject.getRevertToState(), Optional.of("Updated due to expiring action"), expiringObject.getUser());
       if (expiringObject.isKillTasksOnDecommissionTimeout() && expiringObject.getRevertToState() == MachineState.DECOMMISSIONED) {
-        List<SingularityTaskId> activeTasksIdsOnSlave = taskManager.getActiveTaskIds();
-        String sanitizedHost = JavaUtils.getReplaceHyphensWithUnderscores(slave.getHost());
+        List<SingularityTaskId> activeTasksIdsOnSlave = taskManager.getActiveTaskIdsForHost(JavaUtils.getReplaceHyphensWithUnderscores(slave.getHost()));
         long now = System.currentTimeMillis();
         for (SingularityTaskId taskId : activeTasksIdsOnSlave) {
-          if (taskId.getSanitizedHost().equals(sanitizedHost)) {
-            taskManager.saveTaskCleanup(new SingularityTaskCleanup(
-              expiringObject.getUser(),
-              TaskCleanupType.DECOMMISSION_TIMEOUT,
-              now, taskId,
-              Optional.of(String.format("Slave decommission (started by: %s) timed out after %sms", expiringObject.getUser(), now - expiringObject.getStartMillis())),
-              Optional.<String> absent(),
-              Optional.<SingularityTaskShellCommandRequestId> absent()));
-          }
+          taskManager.saveTaskCleanup(new SingularityTaskCleanup(
+            expiringObject.getUser(),
+            TaskCleanupType.DECOMMISSION_TIMEOUT,
+            now, taskId,
+            Optional.of(String.format("Slave decommission (started by: %s) timed out after %sms", expiringObject.getUser(), now - expiringObject.getStartMillis())),
+            Optional.<String> absent(),
+            Optional.<SingularityTaskShellCommandRequestId> absent()));
         }
       }
     }
@@ -64,8 +64,14 @@ public class SingularityHealthcheckAsyncHandler {
 
       LOG.trace("Saving healthcheck result {}", result);
 
-      taskManager.saveHealthcheckResult(result);
+      healthchecker.saveHealthcheckResult(result, () -> onResultSaved(result, statusCode, inStartup), (t) -> onSaveFailed(t, inStartup));
+    } catch (Throwable t) {
+      onSaveFailed(t, inStartup);
+    }
+  }
 
+  private void onResultSaved(SingularityTaskHealthcheckResult result, Optional<Integer> statusCode, boolean inStartup) {
+    try {
       if (result.isFailed()) {
         if (!taskManager.isActiveTask(task.getTaskId())) {
           LOG.trace("Task {} is not active, not re-enqueueing healthcheck", task.getTaskId());
@@ -86,12 +92,15 @@ public class SingularityHealthcheckAsyncHandler {
         newTaskChecker.runNewTaskCheckImmediately(task, healthchecker);
       }
     } catch (Throwable t) {
-      LOG.error("Caught throwable while saving health check result for {}, will re-enqueue", task.getTaskId(), t);
-      exceptionNotifier.notify(String.format("Error saving healthcheck (%s)", t.getMessage()), t, ImmutableMap.of("taskId", task.getTaskId().toString()));
-
-      healthchecker.reEnqueueOrAbort(task, inStartup);
+      onSaveFailed(t, inStartup);
     }
   }
 
+  private void onSaveFailed(Throwable t, boolean inStartup) {
+    LOG.error("Caught throwable while saving health check result for {}, will re-enqueue", task.getTaskId(), t);
+    exceptionNotifier.notify(String.format("Error saving healthcheck (%s)", t.getMessage()), t, ImmutableMap.of("taskId", task.getTaskId().toString()));
+
+    healthchecker.reEnqueueOrAbort(task, inStartup);
+  }
 
 }
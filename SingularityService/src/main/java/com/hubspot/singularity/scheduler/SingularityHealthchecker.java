@@ -3,10 +3,13 @@ package com.hubspot.singularity.scheduler;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import javax.inject.Singleton;
 
@@ -14,6 +17,8 @@ import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.annotation.Timed;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
@@ -26,6 +31,7 @@ import com.hubspot.singularity.HealthcheckMethod;
 import com.hubspot.singularity.HealthcheckProtocol;
 import com.hubspot.singularity.SingularityAbort;
 import com.hubspot.singularity.SingularityAction;
+import com.hubspot.singularity.SingularityManagedCachedThreadPoolFactory;
 import com.hubspot.singularity.SingularityManagedScheduledExecutorServiceFactory;
 import com.hubspot.singularity.SingularityPendingDeploy;
 import com.hubspot.singularity.SingularityRequestWithState;
@@ -61,6 +67,9 @@ public class SingularityHealthchecker {
   private final SingularityNewTaskChecker newTaskChecker;
 
   private final Map<String, ScheduledFuture<?>> taskIdToHealthcheck;
+  private final Map<Integer, OkHttpClient> http2ClientsByTimeout;
+  private final HealthcheckHostLimiter hostLimiter;
+  private final HealthcheckResultBatcher resultBatcher;
 
   private final ScheduledExecutorService executorService;
 
@@ -72,7 +81,7 @@ public class SingularityHealthchecker {
   public SingularityHealthchecker(SingularityManagedScheduledExecutorServiceFactory executorServiceFactory,
                                   AsyncHttpClient http, OkHttpClient http2, SingularityConfiguration configuration, SingularityNewTaskChecker newTaskChecker,
                                   TaskManager taskManager, SingularityAbort abort, SingularityExceptionNotifier exceptionNotifier, DisasterManager disasterManager,
-                                  MesosProtosUtils mesosProtosUtils) {
+                                  MesosProtosUtils mesosProtosUtils, SingularityManagedCachedThreadPoolFactory cachedThreadPoolFactory, MetricRegistry metricRegistry) {
     this.http = http;
     this.http2 = http2;
     this.configuration = configuration;
@@ -82,8 +91,13 @@ public class SingularityHealthchecker {
     this.exceptionNotifier = exceptionNotifier;
 
     this.taskIdToHealthcheck = Maps.newConcurrentMap();
+    this.http2ClientsByTimeout = new ConcurrentHashMap<>();
 
     this.executorService = executorServiceFactory.get("health-checker", configuration.getHealthcheckStartThreads());
+    this.hostLimiter = new HealthcheckHostLimiter(configuration.getMaxConcurrentHealthchecksPerHost(), executorService);
+    this.resultBatcher = new HealthcheckResultBatcher(taskManager, cachedThreadPoolFactory.get("healthcheck-results"), configuration.getHealthcheckResultBatchSize(),
+        metricRegistry.timer("healthchecks.saveBatch"));
+    metricRegistry.register("healthchecks.waitingForHost", (Gauge<Integer>) hostLimiter::getWaitingCount);
     this.disasterManager = disasterManager;
     this.mesosProtosUtils = mesosProtosUtils;
   }
@@ -174,9 +188,11 @@ public class SingularityHealthchecker {
 
   public void markHealthcheckFinished(String taskId) {
     taskIdToHealthcheck.remove(taskId);
+    resultBatcher.forget(taskId);
   }
 
   public boolean cancelHealthcheck(String taskId) {
+    resultBatcher.forget(taskId);
     ScheduledFuture<?> future = taskIdToHealthcheck.remove(taskId);
 
     if (future == null) {
@@ -250,6 +266,10 @@ public class SingularityHealthchecker {
     return Optional.of(String.format("%s://%s:%d/%s", protocol.getProtocol(), hostname, healthcheckPort.get(), uri));
   }
 
+  void saveHealthcheckResult(SingularityTaskHealthcheckResult result, Runnable onSaved, Consumer<Throwable> onFailure) {
+    resultBatcher.save(result, onSaved, onFailure);
+  }
+
   private void saveFailure(SingularityHealthcheckAsyncHandler handler, String message) {
     handler.saveResult(Optional.<Integer> absent(), Optional.<String> absent(), Optional.of(message), Optional.<Throwable>absent());
   }
@@ -286,15 +306,17 @@ public class SingularityHealthchecker {
     return true;
   }
 
-  private Callback wrappedHttp2Handler(final SingularityHealthcheckAsyncHandler handler) {
+  private Callback wrappedHttp2Handler(final SingularityHealthcheckAsyncHandler handler, final Runnable releaseHost) {
     return new Callback() {
       @Override
       public void onFailure(Call call, IOException e) {
+        releaseHost.run();
         handler.onFailed(e);
       }
 
       @Override
       public void onResponse(Call call, okhttp3.Response response) throws IOException {
+        releaseHost.run();
         Optional<String> maybeResponseExcerpt = Optional.absent();
 
         String responseExcerpt = response.peekBody(configuration.getMaxHealthcheckResponseBodyBytes()).string();
@@ -307,15 +329,17 @@ public class SingularityHealthchecker {
     };
   }
 
-  private AsyncCompletionHandler<com.ning.http.client.Response> wrappedHttp1Handler(final SingularityHealthcheckAsyncHandler handler) {
+  private AsyncCompletionHandler<com.ning.http.client.Response> wrappedHttp1Handler(final SingularityHealthcheckAsyncHandler handler, final Runnable releaseHost) {
     return new AsyncCompletionHandler<com.ning.http.client.Response>() {
       @Override
       public void onThrowable(Throwable t) {
+        releaseHost.run();
         handler.onFailed(t);
       }
 
       @Override
       public com.ning.http.client.Response onCompleted(com.ning.http.client.Response response) throws Exception {
+        releaseHost.run();
         Optional<String> maybeResponseExcerpt = Optional.absent();
 
         if (response.hasResponseBody()) {
@@ -332,13 +356,27 @@ public class SingularityHealthchecker {
   @VisibleForTesting
   void asyncHealthcheck(final SingularityTask task) {
     final Optional<String> uri = getHealthcheckUri(task);
-    final SingularityHealthcheckAsyncHandler handler = new SingularityHealthcheckAsyncHandler(exceptionNotifier, configuration, this, newTaskChecker, taskManager, task);
 
     if (!uri.isPresent()) {
-      saveFailure(handler, "Invalid healthcheck uri or ports not present");
+      saveFailure(new SingularityHealthcheckAsyncHandler(exceptionNotifier, configuration, this, newTaskChecker, taskManager, task), "Invalid healthcheck uri or ports not present");
       return;
     }
-    handler.setHealthcheckUri(uri.get());
+
+    final String host = task.getHostname();
+    final AtomicBoolean released = new AtomicBoolean(false);
+    final Runnable releaseHost = () -> {
+      if (released.compareAndSet(false, true)) {
+        hostLimiter.release(host);
+      }
+    };
+
+    // Cancelling or finishing the task's healthchecks removes it from taskIdToHealthcheck while this check may still be waiting
+    hostLimiter.submit(host, () -> issueHealthcheck(task, uri.get(), releaseHost), () -> !taskIdToHealthcheck.containsKey(task.getTaskId().getId()));
+  }
+
+  private void issueHealthcheck(final SingularityTask task, final String uri, final Runnable releaseHost) {
+    final SingularityHealthcheckAsyncHandler handler = new SingularityHealthcheckAsyncHandler(exceptionNotifier, configuration, this, newTaskChecker, taskManager, task);
+    handler.setHealthcheckUri(uri);
 
     final Integer timeoutSeconds;
     final String method;
@@ -356,36 +394,44 @@ public class SingularityHealthchecker {
     try {
       HealthcheckProtocol protocol = task.getTaskRequest().getDeploy().getHealthcheck().get().getProtocol().or(HealthcheckProtocol.HTTP);
 
-      LOG.trace("Issuing a healthcheck ({}) for task {} with timeout {}s", uri.get(), task.getTaskId(), timeoutSeconds);
+      LOG.trace("Issuing a healthcheck ({}) for task {} with timeout {}s", uri, task.getTaskId(), timeoutSeconds);
 
       if (protocol == HealthcheckProtocol.HTTP2 || protocol == HealthcheckProtocol.HTTPS2) {
-        // Creates a lightweight new client which shares the underlying resource pools of the original instance.
-        http2.newBuilder()
-            .retryOnConnectionFailure(false)
-            .followRedirects(true)
-            .connectTimeout(timeoutSeconds, TimeUnit.SECONDS)
-            .readTimeout(timeoutSeconds, TimeUnit.SECONDS)
-            .cache(null)
-            .build()
+        getHttp2Client(timeoutSeconds)
             .newCall(
                 new okhttp3.Request.Builder()
                     .method(method, null)
-                    .url(uri.get())
+                    .url(uri)
                     .build()
-            ).enqueue(wrappedHttp2Handler(handler));
+            ).enqueue(wrappedHttp2Handler(handler, releaseHost));
       } else {
         RequestBuilder builder = new RequestBuilder("GET");
         builder.setFollowRedirects(true);
-        builder.setUrl(uri.get());
+        builder.setUrl(uri);
         builder.setRequestTimeout((int) TimeUnit.SECONDS.toMillis(timeoutSeconds));
 
-        http.prepareRequest(builder.build()).execute(wrappedHttp1Handler(handler));
+        http.prepareRequest(builder.build()).execute(wrappedHttp1Handler(handler, releaseHost));
       }
     } catch (Throwable t) {
-      LOG.debug("Exception while preparing healthcheck ({}) for task ({})", uri.get(), task.getTaskId(), t);
+      releaseHost.run();
+      LOG.debug("Exception while preparing healthcheck ({}) for task ({})", uri, task.getTaskId(), t);
       exceptionNotifier.notify(String.format("Error preparing healthcheck (%s)", t.getMessage()), t, ImmutableMap.of("taskId", task.getTaskId().toString()));
-      saveFailure(handler, String.format("Healthcheck (%s) failed due to exception: %s", uri.get(), t.getMessage()));
+      saveFailure(handler, String.format("Healthcheck (%s) failed due to exception: %s", uri, t.getMessage()));
     }
   }
 
+  /**
+   * One client per timeout, all sharing the connection pool of the original instance, so checks against the same
+   * host:port reuse keep-alive connections instead of building a new client for every check
+   */
+  private OkHttpClient getHttp2Client(int timeoutSeconds) {
+    return http2ClientsByTimeout.computeIfAbsent(timeoutSeconds, (timeout) -> http2.newBuilder()
+        .retryOnConnectionFailure(false)
+        .followRedirects(true)
+        .connectTimeout(timeout, TimeUnit.SECONDS)
+        .readTimeout(timeout, TimeUnit.SECONDS)
+        .cache(null)
+        .build());
+  }
+
 }
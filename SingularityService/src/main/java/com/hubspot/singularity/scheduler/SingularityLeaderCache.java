@@ -3,12 +3,15 @@ package com.hubspot.singularity.scheduler;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -16,10 +19,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.hubspot.singularity.ExtendedTaskState;
+import com.hubspot.singularity.MachineState;
+import com.hubspot.singularity.RequestState;
 import com.hubspot.singularity.RequestUtilization;
+import com.hubspot.singularity.SingularityDeployKey;
 import com.hubspot.singularity.SingularityKilledTaskIdRecord;
 import com.hubspot.singularity.SingularityPendingTask;
 import com.hubspot.singularity.SingularityPendingTaskId;
@@ -31,14 +38,26 @@ import com.hubspot.singularity.SingularitySlaveUsageWithId;
 import com.hubspot.singularity.SingularityTaskCleanup;
 import com.hubspot.singularity.SingularityTaskHistoryUpdate;
 import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.SingularityTaskUsage;
+import com.hubspot.singularity.scheduler.IndexedSet.Index;
 
 @Singleton
 public class SingularityLeaderCache {
 
   private static final Logger LOG = LoggerFactory.getLogger(SingularityLeaderCache.class);
 
+  private static final Index<SingularityTaskId> ACTIVE_BY_REQUEST = Index.by(SingularityTaskId::getRequestId);
+  private static final Index<SingularityTaskId> ACTIVE_BY_DEPLOY = Index.by(SingularityDeployKey::fromTaskId);
+  private static final Index<SingularityTaskId> ACTIVE_BY_HOST = Index.by(SingularityTaskId::getSanitizedHost);
+  private static final Index<SingularityTaskId> ACTIVE_BY_RACK = Index.by(SingularityTaskId::getSanitizedRackId);
+  private static final Index<SingularityPendingTaskId> PENDING_BY_REQUEST = Index.by(SingularityPendingTaskId::getRequestId);
+
+  private final IndexedSet<SingularityTaskId> activeTaskIds = new IndexedSet<>(ImmutableList.of(ACTIVE_BY_REQUEST, ACTIVE_BY_DEPLOY, ACTIVE_BY_HOST, ACTIVE_BY_RACK));
+  // Guards pendingTaskIdToPendingTask writes, so the map and its indexes always change together. Reads take no lock,
+  // see IndexedSet for how listings stay consistent while tasks are being written. Ordered by nextRunAt (natural order).
+  private final IndexedSet<SingularityPendingTaskId> pendingTaskIds = new IndexedSet<>(ImmutableList.of(PENDING_BY_REQUEST), Optional.of(Comparator.naturalOrder()));
+
   private Map<SingularityPendingTaskId, SingularityPendingTask> pendingTaskIdToPendingTask;
-  private Set<SingularityTaskId> activeTaskIds;
   private Map<String, SingularityRequestWithState> requests;
   private Map<SingularityTaskId, SingularityTaskCleanup> cleanupTasks;
   private Map<String, SingularityRequestDeployState> requestIdToDeployState;
@@ -49,6 +68,18 @@ public class SingularityLeaderCache {
   private Set<SingularityPendingTaskId> pendingTaskIdsToDelete;
   private Map<String, RequestUtilization> requestUtilizations;
   private Map<String, SingularitySlaveUsageWithId> slaveUsages;
+  // Loaded per task the first time its usage is read, see UsageManager
+  private final Map<SingularityTaskId, TaskUsageSeries> taskUsages = new ConcurrentHashMap<>();
+
+  // Kept up to date as the collections above change, so SingularityState can be generated without walking them
+  private final Map<RequestState, AtomicInteger> requestStateCounts = newStateCounts(RequestState.class);
+  private final Map<MachineState, AtomicInteger> slaveStateCounts = newStateCounts(MachineState.class);
+  private final Map<MachineState, AtomicInteger> rackStateCounts = newStateCounts(MachineState.class);
+  // Active tasks without a TASK_RUNNING update. Guarded by itself, since a task's membership depends on both
+  // activeTaskIds and historyUpdates
+  private final Set<SingularityTaskId> launchingTaskIds = new HashSet<>();
+  private final Set<String> requestsWithChangedInstances = ConcurrentHashMap.newKeySet();
+  private volatile boolean allRequestsChanged = true;
 
   private volatile boolean active;
 
@@ -58,17 +89,21 @@ public class SingularityLeaderCache {
   }
 
   public void activate() {
+    // Collections are loaded in parallel, launching tasks can only be counted once both tasks and history are in
+    recountLaunchingTasks();
+    allRequestsChanged = true;
     active = true;
   }
 
   // Only for unit testing
   public void clear() {
-    if (pendingTaskIdToPendingTask != null) {
-      pendingTaskIdToPendingTask.clear();
-    }
-    if (activeTaskIds != null) {
-      activeTaskIds.clear();
+    synchronized (pendingTaskIds) {
+      if (pendingTaskIdToPendingTask != null) {
+        pendingTaskIdToPendingTask.clear();
+      }
+      pendingTaskIds.clear();
     }
+    activeTaskIds.clear();
     if (requests != null) {
       requests.clear();
     }
@@ -99,31 +134,104 @@ public class SingularityLeaderCache {
     if (slaveUsages != null) {
       slaveUsages.clear();
     }
+    taskUsages.clear();
+    requestStateCounts.values().forEach((c) -> c.set(0));
+    slaveStateCounts.values().forEach((c) -> c.set(0));
+    rackStateCounts.values().forEach((c) -> c.set(0));
+    synchronized (launchingTaskIds) {
+      launchingTaskIds.clear();
+    }
+    requestsWithChangedInstances.clear();
+    allRequestsChanged = true;
+  }
+
+  private static <T extends Enum<T>> Map<T, AtomicInteger> newStateCounts(Class<T> stateType) {
+    Map<T, AtomicInteger> counts = new EnumMap<>(stateType);
+    for (T state : stateType.getEnumConstants()) {
+      counts.put(state, new AtomicInteger());
+    }
+    return counts;
+  }
+
+  private static <T, S extends Enum<S>> void recountStates(Map<S, AtomicInteger> counts, Collection<T> values, Function<T, S> getState) {
+    counts.values().forEach((c) -> c.set(0));
+    values.forEach((v) -> counts.get(getState.apply(v)).incrementAndGet());
+  }
+
+  private static <S extends Enum<S>> void moveState(Map<S, AtomicInteger> counts, S previous, S current) {
+    if (previous == current) {
+      return;
+    }
+    if (previous != null) {
+      counts.get(previous).decrementAndGet();
+    }
+    if (current != null) {
+      counts.get(current).incrementAndGet();
+    }
+  }
+
+  private static MachineState getSlaveState(SingularitySlave slave) {
+    return slave == null ? null : slave.getCurrentState().getState();
+  }
+
+  private static MachineState getRackState(SingularityRack rack) {
+    return rack == null ? null : rack.getCurrentState().getState();
+  }
+
+  private static RequestState getRequestState(SingularityRequestWithState requestWithState) {
+    return requestWithState == null ? null : requestWithState.getState();
+  }
+
+  private boolean hasRunningUpdate(SingularityTaskId taskId) {
+    Map<ExtendedTaskState, SingularityTaskHistoryUpdate> updates = historyUpdates == null ? null : historyUpdates.get(taskId);
+    return updates != null && updates.containsKey(ExtendedTaskState.TASK_RUNNING);
+  }
+
+  private void recountLaunchingTasks() {
+    synchronized (launchingTaskIds) {
+      launchingTaskIds.clear();
+      for (SingularityTaskId taskId : activeTaskIds.getAll()) {
+        if (!hasRunningUpdate(taskId)) {
+          launchingTaskIds.add(taskId);
+        }
+      }
+    }
+  }
+
+  private void markInstancesChanged(String requestId) {
+    requestsWithChangedInstances.add(requestId);
   }
 
   public void cachePendingTasks(List<SingularityPendingTask> pendingTasks) {
-    this.pendingTaskIdToPendingTask = new ConcurrentHashMap<>(pendingTasks.size());
-    pendingTasks.forEach((t) -> pendingTaskIdToPendingTask.put(t.getPendingTaskId(), t));
+    synchronized (pendingTaskIds) {
+      this.pendingTaskIdToPendingTask = new ConcurrentHashMap<>(pendingTasks.size());
+      pendingTasks.forEach((t) -> pendingTaskIdToPendingTask.put(t.getPendingTaskId(), t));
+      pendingTaskIds.replaceAll(pendingTaskIdToPendingTask.keySet());
+    }
+    allRequestsChanged = true;
   }
 
   public void cachePendingTasksToDelete(List<SingularityPendingTaskId> pendingTaskIds) {
-    this.pendingTaskIdsToDelete = new HashSet<>(pendingTaskIds.size());
+    this.pendingTaskIdsToDelete = ConcurrentHashMap.newKeySet(pendingTaskIds.size());
     pendingTaskIdsToDelete.addAll(pendingTaskIds);
   }
 
   public void cacheActiveTaskIds(List<SingularityTaskId> activeTaskIds) {
-    this.activeTaskIds = Collections.synchronizedSet(new HashSet<SingularityTaskId>(activeTaskIds.size()));
-    activeTaskIds.forEach(this.activeTaskIds::add);
+    this.activeTaskIds.replaceAll(activeTaskIds);
+    allRequestsChanged = true;
   }
 
   public void cacheRequests(List<SingularityRequestWithState> requestsWithState) {
     this.requests = new ConcurrentHashMap<>(requestsWithState.size());
     requestsWithState.forEach((r) -> requests.put(r.getRequest().getId(), r));
+    recountStates(requestStateCounts, requestsWithState, SingularityRequestWithState::getState);
+    allRequestsChanged = true;
   }
 
   public void cacheCleanupTasks(List<SingularityTaskCleanup> cleanups) {
     this.cleanupTasks = new ConcurrentHashMap<>(cleanups.size());
     cleanups.forEach((c) -> cleanupTasks.put(c.getTaskId(), c));
+    allRequestsChanged = true;
   }
 
   public void cacheRequestDeployStates(Map<String, SingularityRequestDeployState> requestDeployStates) {
@@ -148,11 +256,14 @@ public class SingularityLeaderCache {
 
   public void cacheSlaves(List<SingularitySlave> slaves) {
     this.slaves = slaves.stream().collect(Collectors.toConcurrentMap(SingularitySlave::getId, Function.identity()));
+    recountStates(slaveStateCounts, slaves, SingularityLeaderCache::getSlaveState);
   }
 
   public void cacheRacks(List<SingularityRack> racks) {
     this.racks = racks.stream().collect(Collectors.toConcurrentMap(SingularityRack::getId, Function.identity()));
+    recountStates(rackStateCounts, racks, SingularityLeaderCache::getRackState);
   }
+
   public void stop() {
     active = false;
   }
@@ -165,29 +276,58 @@ public class SingularityLeaderCache {
     this.slaveUsages = new ConcurrentHashMap<>(slaveUsages);
   }
 
+  public void clearTaskUsages() {
+    taskUsages.clear();
+  }
+
   public boolean active() {
     return active;
   }
 
   public List<SingularityPendingTask> getPendingTasks() {
-    return new ArrayList<>(pendingTaskIdToPendingTask.values());
+    return getPendingTasks(pendingTaskIds.getAll());
   }
 
   public List<SingularityPendingTaskId> getPendingTaskIds() {
-    return new ArrayList<>(pendingTaskIdToPendingTask.keySet());
+    return new ArrayList<>(pendingTaskIds.getAll());
   }
 
   public List<SingularityPendingTaskId> getPendingTaskIdsForRequest(String requestId) {
-    Set<SingularityPendingTaskId> allPendingTaskIds = new HashSet<>(pendingTaskIdToPendingTask.keySet());
-    return allPendingTaskIds.stream()
-        .filter(t -> t.getRequestId().equals(requestId))
-        .collect(Collectors.toList());
+    return pendingTaskIds.get(PENDING_BY_REQUEST, requestId);
   }
 
-  public List<SingularityPendingTaskId> getPendingTaskIdsToDelete() {
-    synchronized (pendingTaskIdsToDelete) {
-      return new ArrayList<>(pendingTaskIdsToDelete);
+  public List<SingularityPendingTask> getPendingTasksForRequest(String requestId) {
+    return getPendingTasks(pendingTaskIds.get(PENDING_BY_REQUEST, requestId));
+  }
+
+  /**
+   * Pending tasks with a nextRunAt at or before the given time, in nextRunAt order
+   */
+  public List<SingularityPendingTask> getPendingTasksDueBy(long timestamp) {
+    return getPendingTasks(getPendingTaskIdsDueBy(timestamp));
+  }
+
+  /**
+   * Pending task ids with a nextRunAt at or before the given time, in nextRunAt order. Only touches the ids returned.
+   */
+  public List<SingularityPendingTaskId> getPendingTaskIdsDueBy(long timestamp) {
+    return pendingTaskIds.getWhile((p) -> p.getNextRunAt() <= timestamp);
+  }
+
+  private List<SingularityPendingTask> getPendingTasks(List<SingularityPendingTaskId> ids) {
+    List<SingularityPendingTask> pendingTasks = new ArrayList<>(ids.size());
+    for (SingularityPendingTaskId id : ids) {
+      SingularityPendingTask pendingTask = pendingTaskIdToPendingTask.get(id);
+      // Deleted between the index read and now
+      if (pendingTask != null) {
+        pendingTasks.add(pendingTask);
+      }
     }
+    return pendingTasks;
+  }
+
+  public List<SingularityPendingTaskId> getPendingTaskIdsToDelete() {
+    return new ArrayList<>(pendingTaskIdsToDelete);
   }
 
   public void markPendingTaskForDeletion(SingularityPendingTaskId taskId) {
@@ -202,7 +342,11 @@ public class SingularityLeaderCache {
     if (pendingTaskIdsToDelete.contains(pendingTaskId)) {
       pendingTaskIdsToDelete.remove(pendingTaskId);
     }
-    pendingTaskIdToPendingTask.remove(pendingTaskId);
+    synchronized (pendingTaskIds) {
+      pendingTaskIdToPendingTask.remove(pendingTaskId);
+      pendingTaskIds.remove(pendingTaskId);
+    }
+    markInstancesChanged(pendingTaskId.getRequestId());
   }
 
   public Optional<SingularityPendingTask> getPendingTask(SingularityPendingTaskId pendingTaskId) {
@@ -215,7 +359,11 @@ public class SingularityLeaderCache {
       return;
     }
 
-    pendingTaskIdToPendingTask.put(pendingTask.getPendingTaskId(), pendingTask);
+    synchronized (pendingTaskIds) {
+      pendingTaskIdToPendingTask.put(pendingTask.getPendingTaskId(), pendingTask);
+      pendingTaskIds.add(pendingTask.getPendingTaskId());
+    }
+    markInstancesChanged(pendingTask.getPendingTaskId().getRequestId());
   }
 
   public void deleteActiveTaskId(SingularityTaskId taskId) {
@@ -224,7 +372,11 @@ public class SingularityLeaderCache {
       return;
     }
 
-    activeTaskIds.remove(taskId);
+    synchronized (launchingTaskIds) {
+      activeTaskIds.remove(taskId);
+      launchingTaskIds.remove(taskId);
+    }
+    markInstancesChanged(taskId.getRequestId());
   }
 
   public List<SingularityTaskId> exists(List<SingularityTaskId> taskIds) {
@@ -237,18 +389,25 @@ public class SingularityLeaderCache {
     return activeTaskIds;
   }
 
+  // Callers are free to modify the returned list, copying the shared snapshot takes no lock
   public List<SingularityTaskId> getActiveTaskIds() {
-    return new ArrayList<>(activeTaskIds);
+    return new ArrayList<>(activeTaskIds.getAll());
   }
 
   public List<SingularityTaskId> getActiveTaskIdsForRequest(String requestId) {
-    Set<SingularityTaskId> allActiveTaskIds;
-    synchronized (activeTaskIds) {
-      allActiveTaskIds = new HashSet<>(activeTaskIds);
-    }
-    return allActiveTaskIds.stream()
-        .filter(t -> t.getRequestId().equals(requestId))
-        .collect(Collectors.toList());
+    return activeTaskIds.get(ACTIVE_BY_REQUEST, requestId);
+  }
+
+  public List<SingularityTaskId> getActiveTaskIdsForDeploy(String requestId, String deployId) {
+    return activeTaskIds.get(ACTIVE_BY_DEPLOY, new SingularityDeployKey(requestId, deployId));
+  }
+
+  public List<SingularityTaskId> getActiveTaskIdsForHost(String sanitizedHost) {
+    return activeTaskIds.get(ACTIVE_BY_HOST, sanitizedHost);
+  }
+
+  public List<SingularityTaskId> getActiveTaskIdsForRack(String sanitizedRackId) {
+    return activeTaskIds.get(ACTIVE_BY_RACK, sanitizedRackId);
   }
 
   public List<String> getActiveTaskIdsAsStrings() {
@@ -278,6 +437,46 @@ public class SingularityLeaderCache {
     return pendingTaskIdToPendingTask.size();
   }
 
+  public int getNumLaunchingTasks() {
+    synchronized (launchingTaskIds) {
+      return launchingTaskIds.size();
+    }
+  }
+
+  public int getNumCleanupTasks() {
+    return cleanupTasks.size();
+  }
+
+  public int getNumRequestsInState(RequestState state) {
+    return requestStateCounts.get(state).get();
+  }
+
+  public int getNumSlavesInState(MachineState state) {
+    return slaveStateCounts.get(state).get();
+  }
+
+  public int getNumRacksInState(MachineState state) {
+    return rackStateCounts.get(state).get();
+  }
+
+  /**
+   * Ids of requests whose request, active or pending tasks or task cleanups changed since the last call. Absent if
+   * every request should be looked at again, e.g. because the cache was just loaded.
+   */
+  public Optional<Set<String>> drainRequestsWithChangedInstances() {
+    if (allRequestsChanged) {
+      allRequestsChanged = false;
+      requestsWithChangedInstances.clear();
+      return Optional.absent();
+    }
+    Set<String> changed = new HashSet<>();
+    for (String requestId : requestsWithChangedInstances) {
+      requestsWithChangedInstances.remove(requestId);
+      changed.add(requestId);
+    }
+    return Optional.of(changed);
+  }
+
   public boolean isActiveTask(SingularityTaskId taskId) {
     return activeTaskIds.contains(taskId);
   }
@@ -288,7 +487,13 @@ public class SingularityLeaderCache {
       return;
     }
 
-    activeTaskIds.add(taskId);
+    synchronized (launchingTaskIds) {
+      activeTaskIds.add(taskId);
+      if (!hasRunningUpdate(taskId)) {
+        launchingTaskIds.add(taskId);
+      }
+    }
+    markInstancesChanged(taskId.getRequestId());
   }
 
   public List<SingularityRequestWithState> getRequests() {
@@ -305,7 +510,9 @@ public class SingularityLeaderCache {
       return;
     }
 
-    requests.put(requestWithState.getRequest().getId(), requestWithState);
+    SingularityRequestWithState previous = requests.put(requestWithState.getRequest().getId(), requestWithState);
+    moveState(requestStateCounts, getRequestState(previous), requestWithState.getState());
+    markInstancesChanged(requestWithState.getRequest().getId());
   }
 
   public void deleteRequest(String reqeustId) {
@@ -314,7 +521,8 @@ public class SingularityLeaderCache {
       return;
     }
 
-    requests.remove(reqeustId);
+    moveState(requestStateCounts, getRequestState(requests.remove(reqeustId)), null);
+    markInstancesChanged(reqeustId);
   }
 
   public List<SingularityTaskCleanup> getCleanupTasks() {
@@ -336,6 +544,7 @@ public class SingularityLeaderCache {
     }
 
     cleanupTasks.remove(taskId);
+    markInstancesChanged(taskId.getRequestId());
   }
 
   public void saveTaskCleanup(SingularityTaskCleanup cleanup) {
@@ -345,6 +554,7 @@ public class SingularityLeaderCache {
     }
 
     cleanupTasks.put(cleanup.getTaskId(), cleanup);
+    markInstancesChanged(cleanup.getTaskId().getRequestId());
   }
 
   public void createTaskCleanupIfNotExists(SingularityTaskCleanup cleanup) {
@@ -354,6 +564,7 @@ public class SingularityLeaderCache {
     }
 
     cleanupTasks.putIfAbsent(cleanup.getTaskId(), cleanup);
+    markInstancesChanged(cleanup.getTaskId().getRequestId());
   }
 
   public Optional<SingularityRequestDeployState> getRequestDeployState(String requestId) {
@@ -429,11 +640,16 @@ public class SingularityLeaderCache {
       LOG.warn("saveTaskHistoryUpdate {}, but not active", taskHistoryUpdate);
       return;
     }
-    historyUpdates.putIfAbsent(taskHistoryUpdate.getTaskId(), new ConcurrentHashMap<>());
-    if (overwrite) {
-      historyUpdates.get(taskHistoryUpdate.getTaskId()).put(taskHistoryUpdate.getTaskState(), taskHistoryUpdate);
-    } else {
-      historyUpdates.get(taskHistoryUpdate.getTaskId()).putIfAbsent(taskHistoryUpdate.getTaskState(), taskHistoryUpdate);
+    synchronized (launchingTaskIds) {
+      historyUpdates.putIfAbsent(taskHistoryUpdate.getTaskId(), new ConcurrentHashMap<>());
+      if (overwrite) {
+        historyUpdates.get(taskHistoryUpdate.getTaskId()).put(taskHistoryUpdate.getTaskState(), taskHistoryUpdate);
+      } else {
+        historyUpdates.get(taskHistoryUpdate.getTaskId()).putIfAbsent(taskHistoryUpdate.getTaskState(), taskHistoryUpdate);
+      }
+      if (taskHistoryUpdate.getTaskState() == ExtendedTaskState.TASK_RUNNING) {
+        launchingTaskIds.remove(taskHistoryUpdate.getTaskId());
+      }
     }
   }
 
@@ -442,7 +658,12 @@ public class SingularityLeaderCache {
       LOG.warn("deleteTaskHistoryUpdate {}, but not active", taskId);
       return;
     }
-    historyUpdates.getOrDefault(taskId, new HashMap<>()).remove(state);
+    synchronized (launchingTaskIds) {
+      historyUpdates.getOrDefault(taskId, new HashMap<>()).remove(state);
+      if (state == ExtendedTaskState.TASK_RUNNING && activeTaskIds.contains(taskId)) {
+        launchingTaskIds.add(taskId);
+      }
+    }
   }
 
   public void deleteTaskHistory(SingularityTaskId taskId) {
@@ -450,7 +671,12 @@ public class SingularityLeaderCache {
       LOG.warn("deleteTaskHistory {}, but not active", taskId);
       return;
     }
-    historyUpdates.remove(taskId);
+    synchronized (launchingTaskIds) {
+      historyUpdates.remove(taskId);
+      if (activeTaskIds.contains(taskId)) {
+        launchingTaskIds.add(taskId);
+      }
+    }
   }
 
   public List<SingularitySlave> getSlaves() {
@@ -466,7 +692,7 @@ public class SingularityLeaderCache {
       LOG.warn("putSlave {}, but not active", slave);
     }
 
-    slaves.put(slave.getId(), slave);
+    moveState(slaveStateCounts, getSlaveState(slaves.put(slave.getId(), slave)), getSlaveState(slave));
   }
 
   public void removeSlave(String slaveId) {
@@ -474,7 +700,7 @@ public class SingularityLeaderCache {
       LOG.warn("remove slave {}, but not active", slaveId);
       return;
     }
-    slaves.remove(slaveId);
+    moveState(slaveStateCounts, getSlaveState(slaves.remove(slaveId)), null);
   }
 
   public List<SingularityRack> getRacks() {
@@ -490,7 +716,7 @@ public class SingularityLeaderCache {
       LOG.warn("putSlave {}, but not active", rack);
     }
 
-    racks.put(rack.getId(), rack);
+    moveState(rackStateCounts, getRackState(racks.put(rack.getId(), rack)), getRackState(rack));
   }
 
   public void removeRack(String rackId) {
@@ -498,7 +724,7 @@ public class SingularityLeaderCache {
       LOG.warn("remove rack {}, but not active", rackId);
       return;
     }
-    racks.remove(rackId);
+    moveState(rackStateCounts, getRackState(racks.remove(rackId)), null);
   }
 
   public void putRequestUtilization(RequestUtilization requestUtilization) {
@@ -544,4 +770,91 @@ public class SingularityLeaderCache {
   public Optional<SingularitySlaveUsageWithId> getSlaveUsage(String slaveId) {
     return Optional.fromNullable(slaveUsages.get(slaveId));
   }
+
+  public Optional<List<SingularityTaskUsage>> getTaskUsage(SingularityTaskId taskId) {
+    TaskUsageSeries series = taskUsages.get(taskId);
+    if (series == null) {
+      return Optional.absent();
+    }
+    synchronized (series) {
+      return series.isLoaded() ? Optional.of(series.toList()) : Optional.absent();
+    }
+  }
+
+  /**
+   * Starts caching a task's usage before it is read from zk. Samples added or removed until
+   * {@link #finishCachingTaskUsage} are kept and merged with what was read.
+   */
+  public void startCachingTaskUsage(SingularityTaskId taskId, int maxUsages) {
+    if (!active) {
+      LOG.warn("startCachingTaskUsage {}, but not active", taskId);
+      return;
+    }
+    taskUsages.computeIfAbsent(taskId, (t) -> TaskUsageSeries.loading(maxUsages));
+  }
+
+  /**
+   * @return the cached usage, or absent if the task's usage was removed while it was being read
+   */
+  public Optional<List<SingularityTaskUsage>> finishCachingTaskUsage(SingularityTaskId taskId, List<SingularityTaskUsage> usages, int maxUsages) {
+    if (!active) {
+      LOG.warn("finishCachingTaskUsage {}, but not active", taskId);
+      return Optional.absent();
+    }
+    TaskUsageSeries series = taskUsages.get(taskId);
+    if (series == null) {
+      return Optional.absent();
+    }
+    synchronized (series) {
+      series.finishLoading(usages, maxUsages);
+      return Optional.of(series.toList());
+    }
+  }
+
+  /**
+   * Only adds to tasks whose usage has been or is being cached, others are loaded in full on their next read. Must be
+   * called after the sample is saved, so a read that starts caching after this call finds it in zk.
+   */
+  public void addTaskUsage(SingularityTaskId taskId, SingularityTaskUsage usage, int maxUsages) {
+    if (!active) {
+      LOG.warn("addTaskUsage {}, but not active", taskId);
+      return;
+    }
+    TaskUsageSeries series = taskUsages.get(taskId);
+    if (series != null) {
+      synchronized (series) {
+        series.add(usage, maxUsages);
+      }
+    }
+  }
+
+  public void removeTaskUsage(SingularityTaskId taskId, long timestamp) {
+    if (!active) {
+      LOG.warn("removeTaskUsage {}, but not active", taskId);
+      return;
+    }
+    TaskUsageSeries series = taskUsages.get(taskId);
+    if (series != null) {
+      synchronized (series) {
+        series.remove(timestamp);
+      }
+    }
+  }
+
+  public void removeTaskUsage(SingularityTaskId taskId) {
+    if (!active) {
+      LOG.warn("removeTaskUsage {}, but not active", taskId);
+      return;
+    }
+    taskUsages.remove(taskId);
+  }
+
+  public void retainTaskUsages(Collection<SingularityTaskId> taskIds) {
+    if (!active) {
+      LOG.warn("retainTaskUsages, but not active");
+      return;
+    }
+    Set<SingularityTaskId> toRetain = new HashSet<>(taskIds);
+    taskUsages.keySet().removeIf((taskId) -> !toRetain.contains(taskId));
+  }
 }
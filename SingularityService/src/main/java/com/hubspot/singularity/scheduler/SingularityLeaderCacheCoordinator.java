@@ -1,7 +1,32 @@
 package com.hubspot.singularity.scheduler;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.hubspot.mesos.JavaUtils;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.CuratorManager;
 import com.hubspot.singularity.data.DeployManager;
 import com.hubspot.singularity.data.RackManager;
 import com.hubspot.singularity.data.RequestManager;
@@ -12,13 +37,11 @@ import com.hubspot.singularity.data.usage.UsageManager;
 @Singleton
 public class SingularityLeaderCacheCoordinator {
 
-  private final TaskManager taskManager;
-  private final DeployManager deployManager;
-  private final RequestManager requestManager;
-  private final SlaveManager slaveManager;
-  private final RackManager rackManager;
-  private final UsageManager usageManager;
+  private static final Logger LOG = LoggerFactory.getLogger(SingularityLeaderCacheCoordinator.class);
+
   private final SingularityLeaderCache leaderCache;
+  private final SingularityConfiguration configuration;
+  private final List<CollectionLoader> loaders;
 
   @Inject
   public SingularityLeaderCacheCoordinator(TaskManager taskManager,
@@ -27,28 +50,89 @@ public class SingularityLeaderCacheCoordinator {
                                            SlaveManager slaveManager,
                                            RackManager rackManager,
                                            UsageManager usageManager,
-                                           SingularityLeaderCache leaderCache) {
-    this.taskManager = taskManager;
-    this.deployManager = deployManager;
-    this.requestManager = requestManager;
-    this.slaveManager = slaveManager;
-    this.rackManager = rackManager;
-    this.usageManager = usageManager;
+                                           SingularityLeaderCache leaderCache,
+                                           SingularityConfiguration configuration,
+                                           MetricRegistry metricRegistry) {
     this.leaderCache = leaderCache;
+    this.configuration = configuration;
+    this.loaders = ImmutableList.of(
+        new CollectionLoader("tasks", taskManager::activateLeaderCache, metricRegistry),
+        new CollectionLoader("taskHistoryUpdates", taskManager::activateTaskHistoryUpdatesLeaderCache, metricRegistry),
+        new CollectionLoader("deploys", deployManager::activateLeaderCache, metricRegistry),
+        new CollectionLoader("requests", requestManager::activateLeaderCache, metricRegistry),
+        new CollectionLoader("slaves", slaveManager::activateLeaderCache, metricRegistry),
+        new CollectionLoader("racks", rackManager::activateLeaderCache, metricRegistry),
+        new CollectionLoader("usage", usageManager::activateLeaderCache, metricRegistry));
   }
 
+  /**
+   * Loads every collection concurrently, each one reading and deserializing its nodes through the async curator calls, and
+   * only activates the cache once all of them have loaded.
+   */
   public void activateLeaderCache() {
-    taskManager.activateLeaderCache();
-    deployManager.activateLeaderCache();
-    requestManager.activateLeaderCache();
-    slaveManager.activateLeaderCache();
-    rackManager.activateLeaderCache();
-    usageManager.activateLeaderCache();
+    final long start = System.currentTimeMillis();
+    final ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(configuration.getLeaderCacheLoadThreads(), loaders.size()),
+        new ThreadFactoryBuilder().setNameFormat("leader-cache-loader-%d").setDaemon(true).build());
+
+    try {
+      CompletableFuture.allOf(loaders.stream()
+          .map((loader) -> CompletableFuture.runAsync(loader::load, executor))
+          .toArray(CompletableFuture[]::new))
+          .join();
+    } catch (CompletionException e) {
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
     leaderCache.activate();
+
+    LOG.info("Loaded leader cache in {} ({})", JavaUtils.duration(start), loaders.stream().map(CollectionLoader::toString).collect(Collectors.joining(", ")));
   }
 
   public void stopLeaderCache() {
     leaderCache.stop();
   }
 
+  Map<String, Long> getLastLoadedObjectCounts() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    loaders.forEach((loader) -> counts.put(loader.name, loader.lastObjects.get()));
+    return counts;
+  }
+
+  private static class CollectionLoader {
+    private final String name;
+    private final Supplier<Integer> activate;
+    private final Timer timer;
+    private final AtomicLong lastMillis = new AtomicLong();
+    private final AtomicLong lastBytes = new AtomicLong();
+    private final AtomicLong lastObjects = new AtomicLong();
+
+    CollectionLoader(String name, Supplier<Integer> activate, MetricRegistry metricRegistry) {
+      this.name = name;
+      this.activate = activate;
+      this.timer = metricRegistry.timer(String.format("leaderCache.load.%s", name));
+      metricRegistry.register(String.format("leaderCache.load.%s.bytes", name), (Gauge<Long>) lastBytes::get);
+      metricRegistry.register(String.format("leaderCache.load.%s.objects", name), (Gauge<Long>) lastObjects::get);
+    }
+
+    void load() {
+      final long start = System.currentTimeMillis();
+      final LongAdder bytes = new LongAdder();
+
+      int objects = CuratorManager.recordBytesRead(bytes, activate);
+
+      final long duration = System.currentTimeMillis() - start;
+      timer.update(duration, TimeUnit.MILLISECONDS);
+      lastMillis.set(duration);
+      lastBytes.set(bytes.sum());
+      lastObjects.set(objects);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %s objects, %s bytes in %sms", name, lastObjects.get(), lastBytes.get(), lastMillis.get());
+    }
+  }
 }
@@ -2,6 +2,9 @@ package com.hubspot.singularity.scheduler;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -21,6 +24,7 @@ import com.hubspot.singularity.SingularityMainModule;
 import com.hubspot.singularity.SingularityManagedScheduledExecutorServiceFactory;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.mesos.SingularityMesosScheduler;
+import com.hubspot.singularity.scheduler.SingularityPollerWakeups.WakeupType;
 import com.hubspot.singularity.sentry.SingularityExceptionNotifier;
 
 public abstract class SingularityLeaderOnlyPoller {
@@ -31,6 +35,7 @@ public abstract class SingularityLeaderOnlyPoller {
   private final TimeUnit pollTimeUnit;
   private final boolean delayWhenLargeStatusUpdateDelta;
   private final AtomicBoolean stopped = new AtomicBoolean(false);
+  private final AtomicBoolean wakeupScheduled = new AtomicBoolean(false);
 
   private ScheduledExecutorService executorService;
   private LeaderLatch leaderLatch;
@@ -39,6 +44,10 @@ public abstract class SingularityLeaderOnlyPoller {
   private SingularityMesosScheduler mesosScheduler;
   private long delayPollersWhenDeltaOverMs;
   private AtomicLong statusUpdateDelta30sAverage;
+  private SingularityPollerWakeups wakeups;
+  private boolean wakeupsEnabled;
+  private long minMillisBetweenWakeups;
+  private volatile long lastRunAt;
 
   protected SingularityLeaderOnlyPoller(long pollDelay, TimeUnit pollTimeUnit) {
     this(pollDelay, pollTimeUnit, false);
@@ -57,7 +66,8 @@ public abstract class SingularityLeaderOnlyPoller {
                                 SingularityAbort abort,
                                 SingularityMesosScheduler mesosScheduler,
                                 SingularityConfiguration configuration,
-                                @Named(SingularityMainModule.STATUS_UPDATE_DELTA_30S_AVERAGE) AtomicLong statusUpdateDelta30sAverage) {
+                                @Named(SingularityMainModule.STATUS_UPDATE_DELTA_30S_AVERAGE) AtomicLong statusUpdateDelta30sAverage,
+                                SingularityPollerWakeups wakeups) {
     this.executorService = executorServiceFactory.get(getClass().getSimpleName());
     this.leaderLatch = checkNotNull(leaderLatch, "leaderLatch is null");
     this.exceptionNotifier = checkNotNull(exceptionNotifier, "exceptionNotifier is null");
@@ -65,6 +75,9 @@ public abstract class SingularityLeaderOnlyPoller {
     this.mesosScheduler = checkNotNull(mesosScheduler, "mesosScheduler is null");
     this.delayPollersWhenDeltaOverMs = configuration.getDelayPollersWhenDeltaOverMs();
     this.statusUpdateDelta30sAverage = checkNotNull(statusUpdateDelta30sAverage, "statusUpdateDeltaAverage is null");
+    this.wakeups = checkNotNull(wakeups, "wakeups is null");
+    this.wakeupsEnabled = configuration.isEnablePollerWakeups();
+    this.minMillisBetweenWakeups = configuration.getMinMillisBetweenPollerWakeups();
   }
 
   public void start() {
@@ -92,6 +105,30 @@ public abstract class SingularityLeaderOnlyPoller {
       }
 
     }, pollDelay, pollDelay, pollTimeUnit);
+
+    if (wakeupsEnabled) {
+      getWakeupTypes().forEach((type) -> wakeups.register(type, this::wakeUp));
+    }
+  }
+
+  /**
+   * Runs the poller early, at most once per minMillisBetweenPollerWakeups since its last run. Any number of wakeups
+   * before that run starts are coalesced into it.
+   */
+  private void wakeUp() {
+    if (stopped.get() || !wakeupScheduled.compareAndSet(false, true)) {
+      return;
+    }
+
+    long delay = Math.max(0, lastRunAt + minMillisBetweenWakeups - System.currentTimeMillis());
+    try {
+      executorService.schedule(() -> {
+        wakeupScheduled.set(false);
+        runActionIfLeaderAndMesosIsRunning();
+      }, delay, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException ree) {
+      LOG.debug("Not waking up {}, executor is shut down", getClass().getSimpleName());
+    }
   }
 
   private void runActionIfLeaderAndMesosIsRunning() {
@@ -117,6 +154,7 @@ public abstract class SingularityLeaderOnlyPoller {
     LOG.trace("Running {} (period: {})", getClass().getSimpleName(), JavaUtils.durationFromMillis(pollTimeUnit.toMillis(pollDelay)));
 
     long start = System.currentTimeMillis();
+    lastRunAt = start;
 
     try {
       runActionOnPoll();
@@ -139,6 +177,13 @@ public abstract class SingularityLeaderOnlyPoller {
     return true;
   }
 
+  /**
+   * Kinds of writes that should run this poller right away instead of at its next interval
+   */
+  protected Set<WakeupType> getWakeupTypes() {
+    return Collections.emptySet();
+  }
+
   public abstract void runActionOnPoll();
 
   public void stop() {
@@ -0,0 +1,40 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Lets the managers tell leader only pollers that there is new work for them (a pending request, a cleanup, a deploy),
+ * so the poller can run now rather than at its next interval. Pollers coalesce and rate limit these themselves, see
+ * {@link SingularityLeaderOnlyPoller#getWakeupTypes()}.
+ */
+@Singleton
+public class SingularityPollerWakeups {
+
+  public enum WakeupType {
+    PENDING_REQUEST, CLEANUP, DEPLOY
+  }
+
+  private final Map<WakeupType, List<Runnable>> listeners;
+
+  @Inject
+  public SingularityPollerWakeups() {
+    this.listeners = new ConcurrentHashMap<>();
+  }
+
+  void register(WakeupType type, Runnable listener) {
+    listeners.computeIfAbsent(type, (t) -> new CopyOnWriteArrayList<>()).add(listener);
+  }
+
+  public void wakeUp(WakeupType type) {
+    List<Runnable> forType = listeners.get(type);
+    if (forType != null) {
+      forType.forEach(Runnable::run);
+    }
+  }
+}
@@ -11,6 +11,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -24,6 +25,8 @@ import org.quartz.CronExpression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.codahale.metrics.annotation.Timed;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
@@ -49,6 +52,7 @@ import com.hubspot.singularity.SingularityDeployStatistics;
 import com.hubspot.singularity.SingularityDeployStatisticsBuilder;
 import com.hubspot.singularity.SingularityKilledTaskIdRecord;
 import com.hubspot.singularity.SingularityMachineAbstraction;
+import com.hubspot.singularity.SingularityManagedCachedThreadPoolFactory;
 import com.hubspot.singularity.SingularityPendingDeploy;
 import com.hubspot.singularity.SingularityPendingRequest;
 import com.hubspot.singularity.SingularityPendingRequest.PendingType;
@@ -66,6 +70,8 @@ import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.SingularityTaskRequest;
 import com.hubspot.singularity.SingularityTaskShellCommandRequestId;
 import com.hubspot.singularity.TaskCleanupType;
+import com.hubspot.singularity.async.BoundedParallelRunner;
+import com.hubspot.singularity.async.BoundedParallelRunner.ItemDurations;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.AbstractMachineManager;
 import com.hubspot.singularity.data.DeployManager;
@@ -97,12 +103,16 @@ public class SingularityScheduler {
   private final SingularityMailer mailer;
   private final SingularityLeaderCache leaderCache;
   private final SingularitySchedulerLock lock;
+  private final ExecutorService drainPendingQueueExecutor;
+  private final Timer drainTimer;
+  private final Timer drainRequestTimer;
 
   @Inject
   public SingularityScheduler(TaskRequestManager taskRequestManager, SingularityConfiguration configuration, SingularityCooldown cooldown, DeployManager deployManager,
                               TaskManager taskManager, RequestManager requestManager, SlaveManager slaveManager, RebalancingHelper rebalancingHelper,
                               RackManager rackManager, SingularityMailer mailer,
-                              SingularityLeaderCache leaderCache, SingularitySchedulerLock lock) {
+                              SingularityLeaderCache leaderCache, SingularitySchedulerLock lock,
+                              SingularityManagedCachedThreadPoolFactory cachedThreadPoolFactory, MetricRegistry metricRegistry) {
     this.taskRequestManager = taskRequestManager;
     this.configuration = configuration;
     this.deployManager = deployManager;
@@ -115,6 +125,9 @@ public class SingularityScheduler {
     this.cooldown = cooldown;
     this.leaderCache = leaderCache;
     this.lock = lock;
+    this.drainPendingQueueExecutor = cachedThreadPoolFactory.get("drain-pending-queue");
+    this.drainTimer = metricRegistry.timer("scheduler.drainPendingQueue");
+    this.drainRequestTimer = metricRegistry.timer("scheduler.drainPendingQueue.request");
   }
 
   private void cleanupTaskDueToDecomission(final Map<String, Optional<String>> requestIdsToUserToReschedule, final Set<SingularityTaskId> matchingTaskIds, SingularityTask task,
@@ -233,21 +246,29 @@ public class SingularityScheduler {
 
     LOG.info("Pending queue had {} requests", pendingRequests.size());
 
-    Map<SingularityDeployKey, List<SingularityPendingRequest>> deployKeyToPendingRequests = pendingRequests.stream()
-        .collect(Collectors.groupingBy((request) -> new SingularityDeployKey(request.getRequestId(), request.getDeployId())));
+    // Requests are independent of each other, so each one's deploy keys are handled in turn by one of the workers
+    final Collection<Map<SingularityDeployKey, List<SingularityPendingRequest>>> pendingRequestsByRequest = pendingRequests.stream()
+        .collect(Collectors.groupingBy(SingularityPendingRequest::getRequestId,
+            Collectors.groupingBy((request) -> new SingularityDeployKey(request.getRequestId(), request.getDeployId()))))
+        .values();
 
     AtomicInteger totalNewScheduledTasks = new AtomicInteger(0);
     AtomicInteger heldForScheduledActiveTask = new AtomicInteger(0);
     AtomicInteger obsoleteRequests = new AtomicInteger(0);
 
-    deployKeyToPendingRequests.forEach((deployKey, pendingRequestsForDeployKey) -> {
-          lock.runWithRequestLock(
+    final ItemDurations requestDurations;
+    try {
+      requestDurations = BoundedParallelRunner.runEach(pendingRequestsByRequest, configuration.getDrainPendingQueueThreads(), drainPendingQueueExecutor, drainRequestTimer,
+          (pendingRequestsForRequest) -> pendingRequestsForRequest.forEach((deployKey, pendingRequestsForDeployKey) -> lock.runWithRequestLock(
               () -> handlePendingRequestsForDeployKey(obsoleteRequests, heldForScheduledActiveTask, totalNewScheduledTasks, deployKey, pendingRequestsForDeployKey),
               deployKey.getRequestId(),
-              String.format("%s#%s", getClass().getSimpleName(), "drainPendingQueue"));
-        });
+              String.format("%s#%s", getClass().getSimpleName(), "drainPendingQueue"))));
+    } finally {
+      drainTimer.update(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
+    }
 
-    LOG.info("Scheduled {} new tasks ({} obsolete requests, {} held) in {}", totalNewScheduledTasks.get(), obsoleteRequests.get(), heldForScheduledActiveTask.get(), JavaUtils.duration(start));
+    LOG.info("Scheduled {} new tasks ({} obsolete requests, {} held) for {} requests in {} (per request {})",
+        totalNewScheduledTasks.get(), obsoleteRequests.get(), heldForScheduledActiveTask.get(), requestDurations.size(), JavaUtils.duration(start), requestDurations);
   }
 
   private void handlePendingRequestsForDeployKey(AtomicInteger obsoleteRequests, AtomicInteger heldForScheduledActiveTask, AtomicInteger totalNewScheduledTasks, SingularityDeployKey deployKey, List<SingularityPendingRequest> pendingRequestsForDeploy) {
@@ -350,17 +371,7 @@ public class SingularityScheduler {
 
   @Timed
   public List<SingularityTaskRequest> getDueTasks() {
-    final List<SingularityPendingTask> tasks = taskManager.getPendingTasks();
-
-    final long now = System.currentTimeMillis();
-
-    final List<SingularityPendingTask> dueTasks = Lists.newArrayListWithCapacity(tasks.size());
-
-    for (SingularityPendingTask task : tasks) {
-      if (task.getPendingTaskId().getNextRunAt() <= now) {
-        dueTasks.add(task);
-      }
-    }
+    final List<SingularityPendingTask> dueTasks = taskManager.getPendingTasksDueBy(System.currentTimeMillis());
 
     final List<SingularityTaskRequest> dueTaskRequests = taskRequestManager.getTaskRequests(dueTasks);
 
@@ -456,7 +467,7 @@ public class SingularityScheduler {
                             SingularityDeployStatistics deployStatistics, SingularityPendingRequest pendingRequest,
                             List<SingularityTaskId> matchingTaskIds, Optional<SingularityPendingDeploy> maybePendingDeploy) {
     if (request.getRequestType() != RequestType.ON_DEMAND) {
-      deleteScheduledTasks(leaderCache.getPendingTasks(), pendingRequest);
+      deleteScheduledTasks(leaderCache.getPendingTasksForRequest(pendingRequest.getRequestId()), pendingRequest);
     }
 
     final int numMissingInstances = getNumMissingInstances(matchingTaskIds, request, pendingRequest, maybePendingDeploy);
@@ -41,6 +41,7 @@ public class SingularitySchedulerModule extends AbstractModule {
     bind(SingularityMesosTaskPrioritizer.class).in(Scopes.SINGLETON);
     bind(SingularityMesosOfferScheduler.class).in(Scopes.SINGLETON);
     bind(SingularityLeaderCache.class).in(Scopes.SINGLETON);
+    bind(SingularityPollerWakeups.class).in(Scopes.SINGLETON);
     bind(SingularityLeaderCacheCoordinator.class).in(Scopes.SINGLETON);
     bind(SingularityAutoScaleSpreadAllPoller.class).in(Scopes.SINGLETON);
     bind(SingularityMesosHeartbeatChecker.class).in(Scopes.SINGLETON);
@@ -1,6 +1,7 @@
 package com.hubspot.singularity.scheduler;
 
 import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Singleton;
@@ -8,6 +9,7 @@ import javax.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import com.hubspot.singularity.SingularityAction;
 import com.hubspot.singularity.SingularityPendingTaskId;
@@ -16,6 +18,7 @@ import com.hubspot.singularity.data.DisasterManager;
 import com.hubspot.singularity.data.TaskManager;
 import com.hubspot.singularity.mesos.SingularityMesosOfferScheduler;
 import com.hubspot.singularity.mesos.SingularitySchedulerLock;
+import com.hubspot.singularity.scheduler.SingularityPollerWakeups.WakeupType;
 
 @Singleton
 public class SingularitySchedulerPoller extends SingularityLeaderOnlyPoller {
@@ -40,6 +43,11 @@ public class SingularitySchedulerPoller extends SingularityLeaderOnlyPoller {
     this.lock = lock;
   }
 
+  @Override
+  protected Set<WakeupType> getWakeupTypes() {
+    return ImmutableSet.of(WakeupType.PENDING_REQUEST);
+  }
+
   @Override
   public void runActionOnPoll() {
     if (disasterManager.isDisabled(SingularityAction.RUN_SCHEDULER_POLLER)) {
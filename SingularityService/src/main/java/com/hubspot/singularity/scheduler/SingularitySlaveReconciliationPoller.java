@@ -15,7 +15,6 @@ import com.hubspot.mesos.JavaUtils;
 import com.hubspot.singularity.data.InactiveSlaveManager;
 import com.hubspot.singularity.helpers.MesosUtils;
 import com.hubspot.mesos.client.MesosClient;
-import com.hubspot.mesos.json.MesosMasterStateObject;
 import com.hubspot.singularity.MachineState;
 import com.hubspot.singularity.SingularityDeleteResult;
 import com.hubspot.singularity.SingularitySlave;
@@ -65,9 +64,7 @@ public class SingularitySlaveReconciliationPoller extends SingularityLeaderOnlyP
       Optional<MasterInfo> maybeMasterInfo = mesosScheduler.getMaster();
       if (maybeMasterInfo.isPresent()) {
         final String uri = mesosClient.getMasterUri(MesosUtils.getMasterHostAndPort(maybeMasterInfo.get()));
-        MesosMasterStateObject state = mesosClient.getMasterState(uri);
-
-        slaveAndRackManager.loadSlavesAndRacksFromMaster(state, false);
+        slaveAndRackManager.loadSlavesAndRacksFromMaster((slaves) -> mesosClient.getMasterSlaves(uri, slaves), false);
       }
     } catch (Exception e) {
       LOG.error("Could not refresh slave data", e);
@@ -1,12 +1,14 @@
 package com.hubspot.singularity.scheduler;
 
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
 
@@ -18,7 +20,9 @@ import org.apache.mesos.v1.scheduler.Protos.Call.Reconcile.Task;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Snapshot;
 import com.codahale.metrics.UniformReservoir;
 import com.google.common.annotations.VisibleForTesting;
@@ -57,6 +61,9 @@ public class SingularityTaskReconciliation {
   private final SingularityExceptionNotifier exceptionNotifier;
   private final SingularityMesosSchedulerClient schedulerClient;
   private final StateManager stateManager;
+  private final Histogram taskLatencyHistogram;
+
+  private volatile ReconciliationProgress currentProgress;
 
   @Inject
   public SingularityTaskReconciliation(SingularityManagedScheduledExecutorServiceFactory executorServiceFactory,
@@ -67,7 +74,8 @@ public class SingularityTaskReconciliation {
                                        @Named(SingularityMainModule.SERVER_ID_PROPERTY) String serverId,
                                        SingularityAbort abort,
                                        MesosProtosUtils mesosProtosUtils,
-                                       SingularityMesosSchedulerClient schedulerClient) {
+                                       SingularityMesosSchedulerClient schedulerClient,
+                                       MetricRegistry metricRegistry) {
     this.taskManager = taskManager;
     this.stateManager = stateManager;
     this.serverId = serverId;
@@ -80,6 +88,12 @@ public class SingularityTaskReconciliation {
 
     this.isRunningReconciliation = new AtomicBoolean(false);
     this.executorService = executorServiceFactory.get(getClass().getSimpleName());
+
+    this.taskLatencyHistogram = metricRegistry.histogram("taskReconciliation.taskLatency");
+    metricRegistry.register("taskReconciliation.remainingTasks", (Gauge<Integer>) () -> {
+      ReconciliationProgress progress = currentProgress;
+      return progress == null ? 0 : progress.remaining.size();
+    });
   }
 
   enum ReconciliationState {
@@ -109,44 +123,56 @@ public class SingularityTaskReconciliation {
 
     LOG.info("Starting a reconciliation cycle - {} current active tasks", activeTaskIds.size());
 
+    ReconciliationProgress progress = new ReconciliationProgress(taskReconciliationStartedAt);
+    ReconciliationBatch implicitBatch = progress.newBatch(activeTaskIds.size(), taskReconciliationStartedAt);
+    for (SingularityTaskId taskId : activeTaskIds) {
+      progress.remaining.put(taskId, implicitBatch);
+    }
+    currentProgress = progress;
+
     schedulerClient.reconcile(Collections.emptyList());
 
-    scheduleReconciliationCheck(taskReconciliationStartedAt, activeTaskIds, 0, new Histogram(new UniformReservoir()));
+    scheduleReconciliationCheck(progress, configuration.getCheckReconcileWhenRunningEveryMillis());
 
     return ReconciliationState.STARTED;
   }
 
-  private void scheduleReconciliationCheck(final long reconciliationStart, final Collection<SingularityTaskId> remainingTaskIds, final int numTimes, final Histogram histogram) {
-    LOG.info("Scheduling reconciliation check #{} - {} tasks left - waiting {}", numTimes + 1, remainingTaskIds.size(), JavaUtils.durationFromMillis(configuration.getCheckReconcileWhenRunningEveryMillis()));
+  private void scheduleReconciliationCheck(final ReconciliationProgress progress, long delayMillis) {
+    LOG.info("Scheduling reconciliation check #{} - {} tasks left - waiting {}", progress.checks + 1, progress.remaining.size(), JavaUtils.durationFromMillis(delayMillis));
 
-    executorService.schedule(new Runnable() {
+    executorService.schedule(() -> runOrAbort(() -> checkReconciliation(progress), "checking for reconciliation tasks"), delayMillis, TimeUnit.MILLISECONDS);
+  }
 
-      @Override
-      public void run() {
-        try {
-          checkReconciliation(reconciliationStart, remainingTaskIds, numTimes + 1, histogram);
-        } catch (Throwable t) {
-          LOG.error("While checking for reconciliation tasks", t);
-          exceptionNotifier.notify(String.format("Error checking for reconciliation tasks (%s)", t.getMessage()), t);
-          abort.abort(AbortReason.UNRECOVERABLE_ERROR, Optional.of(t));
-        }
-      }
-    }, configuration.getCheckReconcileWhenRunningEveryMillis(), TimeUnit.MILLISECONDS);
+  private void runOrAbort(Runnable runnable, String description) {
+    try {
+      runnable.run();
+    } catch (Throwable t) {
+      LOG.error("While {}", description, t);
+      exceptionNotifier.notify(String.format("Error %s (%s)", description, t.getMessage()), t);
+      abort.abort(AbortReason.UNRECOVERABLE_ERROR, Optional.of(t));
+    }
   }
 
-  private void checkReconciliation(final long reconciliationStart, final Collection<SingularityTaskId> remainingTaskIds, final int numTimes, final Histogram histogram) {
-    final List<SingularityTaskStatusHolder> taskStatusHolders = taskManager.getLastActiveTaskStatusesFor(remainingTaskIds);
-    final List<MesosTaskStatusObject> taskStatuses = Lists.newArrayListWithCapacity(taskStatusHolders.size());
+  private void checkReconciliation(final ReconciliationProgress progress) {
+    progress.checks++;
+
+    final List<SingularityTaskStatusHolder> taskStatusHolders = taskManager.getLastActiveTaskStatusesFor(progress.remaining.keySet());
+    final Map<SingularityTaskId, MesosTaskStatusObject> taskStatuses = new LinkedHashMap<>(taskStatusHolders.size());
 
     for (SingularityTaskStatusHolder taskStatusHolder : taskStatusHolders) {
-      if (taskStatusHolder.getServerId().equals(serverId) && taskStatusHolder.getServerTimestamp() > reconciliationStart) {
-        histogram.update(taskStatusHolder.getServerTimestamp() - reconciliationStart);
+      if (taskStatusHolder.getServerId().equals(serverId) && taskStatusHolder.getServerTimestamp() > progress.startedAt) {
+        progress.histogram.update(taskStatusHolder.getServerTimestamp() - progress.startedAt);
+        ReconciliationBatch batch = progress.remaining.get(taskStatusHolder.getTaskId());
+        if (batch != null) {
+          batch.answered++;
+          taskLatencyHistogram.update(Math.max(0, taskStatusHolder.getServerTimestamp() - batch.sentAt));
+        }
         continue;
       }
 
       if (taskStatusHolder.getTaskStatus().isPresent()) {
         LOG.debug("Re-requesting task status for {}", taskStatusHolder.getTaskId());
-        taskStatuses.add(taskStatusHolder.getTaskStatus().get());
+        taskStatuses.put(taskStatusHolder.getTaskId(), taskStatusHolder.getTaskStatus().get());
       } else {
         TaskStatus.Builder fakeTaskStatusBuilder = TaskStatus.newBuilder()
             .setTaskId(TaskID.newBuilder().setValue(taskStatusHolder.getTaskId().getId()))
@@ -157,25 +183,100 @@ public class SingularityTaskReconciliation {
         }
 
         LOG.info("Task {} didn't have a TaskStatus yet, submitting fake status", taskStatusHolder.getTaskId());
-        taskStatuses.add(mesosProtosUtils.taskStatusFromProtos(fakeTaskStatusBuilder.build()));
+        taskStatuses.put(taskStatusHolder.getTaskId(), mesosProtosUtils.taskStatusFromProtos(fakeTaskStatusBuilder.build()));
       }
     }
 
+    for (ReconciliationBatch batch : progress.batchesSinceLastCheck) {
+      LOG.info("Reconciliation batch #{} - {}/{} tasks answered", batch.number, batch.answered, batch.size);
+    }
+    progress.batchesSinceLastCheck.clear();
+
+    // Tasks which were answered, or are no longer active, don't need to be asked about again
+    progress.remaining.keySet().retainAll(taskStatuses.keySet());
+
     if (taskStatuses.isEmpty()) {
-      LOG.info("Task reconciliation ended after {} checks and {}", numTimes, JavaUtils.duration(reconciliationStart));
+      LOG.info("Task reconciliation ended after {} checks, {} batches and {}", progress.checks, progress.batches, JavaUtils.duration(progress.startedAt));
 
-      final Snapshot snapshot = histogram.getSnapshot();
-      stateManager.saveTaskReconciliationStatistics(new SingularityTaskReconciliationStatistics(reconciliationStart, System.currentTimeMillis() - reconciliationStart, numTimes, histogram.getCount(), snapshot.getMax(), snapshot.getMean(), snapshot.getMin(), snapshot.getMedian(), snapshot.get75thPercentile(), snapshot.get95thPercentile(), snapshot.get98thPercentile(), snapshot.get99thPercentile(), snapshot.get999thPercentile(), snapshot.getStdDev()));
+      final Snapshot snapshot = progress.histogram.getSnapshot();
+      stateManager.saveTaskReconciliationStatistics(new SingularityTaskReconciliationStatistics(progress.startedAt, System.currentTimeMillis() - progress.startedAt, progress.checks, progress.histogram.getCount(), snapshot.getMax(), snapshot.getMean(), snapshot.getMin(), snapshot.getMedian(), snapshot.get75thPercentile(), snapshot.get95thPercentile(), snapshot.get98thPercentile(), snapshot.get99thPercentile(), snapshot.get999thPercentile(), snapshot.getStdDev()));
 
+      currentProgress = null;
       isRunningReconciliation.set(false);
 
       return;
     }
 
-    LOG.info("Requesting reconciliation of {} taskStatuses, task reconciliation has been running for {}", taskStatuses.size(), JavaUtils.duration(reconciliationStart));
+    List<List<Map.Entry<SingularityTaskId, MesosTaskStatusObject>>> batches = Lists.partition(new ArrayList<>(taskStatuses.entrySet()), configuration.getReconcileTaskBatchSize());
+
+    LOG.info("Requesting reconciliation of {} taskStatuses in {} batches, task reconciliation has been running for {}", taskStatuses.size(), batches.size(), JavaUtils.duration(progress.startedAt));
+
+    final long batchIntervalMillis = configuration.getReconcileTaskBatchIntervalMillis();
+    for (int i = 0; i < batches.size(); i++) {
+      final List<Map.Entry<SingularityTaskId, MesosTaskStatusObject>> batchStatuses = batches.get(i);
+      executorService.schedule(() -> runOrAbort(() -> sendReconciliationBatch(progress, batchStatuses), "sending a reconciliation batch"), i * batchIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // The next check can start sending right away, so keep it at least one interval after the last batch
+    scheduleReconciliationCheck(progress, Math.max(batches.size() * batchIntervalMillis, (batches.size() - 1) * batchIntervalMillis + configuration.getCheckReconcileWhenRunningEveryMillis()));
+  }
+
+  private void sendReconciliationBatch(ReconciliationProgress progress, List<Map.Entry<SingularityTaskId, MesosTaskStatusObject>> batchStatuses) {
+    ReconciliationBatch batch = progress.newBatch(batchStatuses.size(), System.currentTimeMillis());
+    List<Task> tasks = new ArrayList<>(batchStatuses.size());
+    for (Map.Entry<SingularityTaskId, MesosTaskStatusObject> taskStatus : batchStatuses) {
+      Task.Builder task = Task.newBuilder().setTaskId(MesosProtosUtils.toTaskId(taskStatus.getValue().getTaskId()));
+      if (taskStatus.getValue().hasAgentId()) {
+        task.setAgentId(MesosProtosUtils.toAgentId(taskStatus.getValue().getAgentId()));
+      }
+      tasks.add(task.build());
+      progress.remaining.put(taskStatus.getKey(), batch);
+    }
+
+    LOG.debug("Sending reconciliation batch #{} of {} tasks", batch.number, tasks.size());
+    schedulerClient.reconcile(tasks);
+  }
 
-    schedulerClient.reconcile(taskStatuses.stream().map((t) -> Task.newBuilder().setTaskId(MesosProtosUtils.toTaskId(t.getTaskId())).setAgentId(MesosProtosUtils.toAgentId(t.getAgentId())).build()).collect(Collectors.toList()));
+  /**
+   * A reconciliation cycle, from the implicit reconcile which starts it until every task it started with has been
+   * answered or is no longer active. Only touched from the reconciliation executor, aside from gauges.
+   */
+  private static class ReconciliationProgress {
+    private final long startedAt;
+    private final Map<SingularityTaskId, ReconciliationBatch> remaining;
+    private final List<ReconciliationBatch> batchesSinceLastCheck;
+    private final Histogram histogram;
+    private int checks;
+    private int batches;
+
+    private ReconciliationProgress(long startedAt) {
+      this.startedAt = startedAt;
+      this.remaining = new ConcurrentHashMap<>();
+      this.batchesSinceLastCheck = new ArrayList<>();
+      this.histogram = new Histogram(new UniformReservoir());
+    }
 
-    scheduleReconciliationCheck(reconciliationStart, remainingTaskIds, numTimes, histogram);
+    private ReconciliationBatch newBatch(int size, long sentAt) {
+      ReconciliationBatch batch = new ReconciliationBatch(batches++, size, sentAt);
+      batchesSinceLastCheck.add(batch);
+      return batch;
+    }
+  }
+
+  /**
+   * One reconcile call to the master. Batch #0 is the implicit reconcile, later batches explicitly ask about tasks
+   * which haven't been answered yet.
+   */
+  private static class ReconciliationBatch {
+    private final int number;
+    private final int size;
+    private final long sentAt;
+    private int answered;
+
+    private ReconciliationBatch(int number, int size, long sentAt) {
+      this.number = number;
+      this.size = size;
+      this.sentAt = sentAt;
+    }
   }
 }
@@ -2,18 +2,16 @@ package com.hubspot.singularity.scheduler;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Optional;
-import com.google.common.util.concurrent.AtomicDouble;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.hubspot.mesos.Resources;
@@ -54,8 +52,6 @@ public class SingularityUsageHelper {
   private final TaskManager taskManager;
   private final UsageManager usageManager;
 
-  private final ConcurrentHashMap<String, ReentrantLock> requestLocks;
-
   @Inject
   public SingularityUsageHelper(
       MesosClient mesosClient,
@@ -72,8 +68,6 @@ public class SingularityUsageHelper {
     this.slaveManager = slaveManager;
     this.taskManager = taskManager;
     this.usageManager = usageManager;
-
-    this.requestLocks = new ConcurrentHashMap<>();
   }
 
   public List<SingularitySlave> getSlavesToTrackUsageFor() {
@@ -95,19 +89,25 @@ public class SingularityUsageHelper {
     return mesosClient.getSlaveMetricsSnapshot(host, true);
   }
 
-  public void collectSlaveUsage(
+  public CompletableFuture<List<MesosTaskMonitorObject>> getSlaveResourceUsage(String host) {
+    return mesosClient.getSlaveResourceUsageAsync(host);
+  }
+
+  public CompletableFuture<MesosSlaveMetricsSnapshotObject> getSlaveMetricsSnapshot(String host) {
+    return mesosClient.getSlaveMetricsSnapshotAsync(host);
+  }
+
+  /**
+   * Builds the usage for one slave from the task usages and metrics snapshot fetched from it, without saving anything.
+   * The caller decides whether the result is still wanted, then folds it into the poll's request utilizations and
+   * cluster totals and saves it with {@link #saveSlaveUsage}.
+   */
+  Optional<SlaveUsageResult> collectSlaveUsage(
       SingularitySlave slave,
       long now,
-      Map<String, RequestUtilization> utilizationPerRequestId,
       Map<String, RequestUtilization> previousUtilizations,
-      Map<SingularitySlaveUsage, List<TaskIdWithUsage>> overLoadedHosts,
-      AtomicLong totalMemBytesUsed,
-      AtomicLong totalMemBytesAvailable,
-      AtomicDouble totalCpuUsed,
-      AtomicDouble totalCpuAvailable,
-      AtomicLong totalDiskBytesUsed,
-      AtomicLong totalDiskBytesAvailable,
-      boolean useShortTimeout) {
+      List<MesosTaskMonitorObject> allTaskUsage,
+      MesosSlaveMetricsSnapshotObject slaveMetricsSnapshot) {
     Optional<Long> memoryMbTotal = Optional.absent();
     Optional<Double> cpusTotal = Optional.absent();
     Optional<Long> diskMbTotal = Optional.absent();
@@ -121,8 +121,6 @@ public class SingularityUsageHelper {
     long diskMbUsedOnSlave = 0;
 
     try {
-      List<MesosTaskMonitorObject> allTaskUsage = mesosClient.getSlaveResourceUsage(slave.getHost(), useShortTimeout);
-      MesosSlaveMetricsSnapshotObject slaveMetricsSnapshot = mesosClient.getSlaveMetricsSnapshot(slave.getHost());
       double systemMemTotalBytes = 0;
       double systemMemFreeBytes = 0;
       double systemLoad1Min = 0;
@@ -159,6 +157,8 @@ public class SingularityUsageHelper {
       boolean slaveOverloadedForCpu = systemCpusTotal > 0 && systemLoad / systemCpusTotal > 1.0;
       boolean slaveExperiencingHighMemUsage = ((systemMemTotalBytes - systemMemFreeBytes) / systemMemTotalBytes) > configuration.getShuffleTasksWhenSlaveMemoryUtilizationPercentageExceeds();
       List<TaskIdWithUsage> possibleTasksToShuffle = new ArrayList<>();
+      List<SlaveUsageResult.TaskUtilization> taskUtilizations = new ArrayList<>();
+      Map<SingularityTaskId, SingularityTaskUsage> latestTaskUsages = new LinkedHashMap<>();
 
       for (MesosTaskMonitorObject taskUsage : allTaskUsage) {
         if (!taskUsage.getFrameworkId().equals(configuration.getMesosConfiguration().getFrameworkId())) {
@@ -176,7 +176,7 @@ public class SingularityUsageHelper {
 
         SingularityTaskUsage latestUsage = getUsage(taskUsage);
         List<SingularityTaskUsage> pastTaskUsages = usageManager.getTaskUsage(task);
-        usageManager.saveSpecificTaskUsage(task, latestUsage);
+        latestTaskUsages.put(task, latestUsage);
 
         Optional<SingularityTask> maybeTask = taskManager.getTask(task);
         Optional<Resources> maybeResources = Optional.absent();
@@ -192,7 +192,7 @@ public class SingularityUsageHelper {
             cpuReservedOnSlave += cpuReservedForTask;
             diskMbReservedOnSlave += diskMbReservedForTask;
 
-            updateRequestUtilization(utilizationPerRequestId, previousUtilizations.get(maybeTask.get().getTaskRequest().getRequest().getId()), pastTaskUsages, latestUsage, task, memoryMbReservedForTask, cpuReservedForTask, diskMbReservedForTask);
+            taskUtilizations.add(new SlaveUsageResult.TaskUtilization(previousUtilizations.get(maybeTask.get().getTaskRequest().getRequest().getId()), pastTaskUsages, latestUsage, task, memoryMbReservedForTask, cpuReservedForTask, diskMbReservedForTask));
           }
         }
         memoryBytesUsedOnSlave += latestUsage.getMemoryTotalBytes();
@@ -245,29 +245,22 @@ public class SingularityUsageHelper {
           memoryMbTotal, diskMbUsedOnSlave, diskMbReservedOnSlave, diskMbTotal, allTaskUsage.size(), now,
           systemMemTotalBytes, systemMemFreeBytes, systemCpusTotal, systemLoad1Min, systemLoad5Min, systemLoad15Min, slaveDiskUsed, slaveDiskTotal);
 
-      if (slaveOverloadedForCpu || slaveExperiencingHighMemUsage) {
-        overLoadedHosts.put(slaveUsage, possibleTasksToShuffle);
-      }
-
-      if (slaveUsage.getMemoryBytesTotal().isPresent() && slaveUsage.getCpusTotal().isPresent()) {
-        totalMemBytesUsed.getAndAdd((long) slaveUsage.getMemoryBytesUsed());
-        totalCpuUsed.getAndAdd(slaveUsage.getCpusUsed());
-        totalDiskBytesUsed.getAndAdd((long) slaveUsage.getDiskBytesUsed());
-
-        totalMemBytesAvailable.getAndAdd(slaveUsage.getMemoryBytesTotal().get());
-        totalCpuAvailable.getAndAdd(slaveUsage.getCpusTotal().get());
-        totalDiskBytesAvailable.getAndAdd(slaveUsage.getDiskBytesTotal().get());
-      }
-
-      LOG.debug("Saving slave {} usage {}", slave.getHost(), slaveUsage);
-      usageManager.saveCurrentSlaveUsage(new SingularitySlaveUsageWithId(slaveUsage, slave.getId()));
+      return Optional.of(new SlaveUsageResult(slaveUsage, slaveOverloadedForCpu || slaveExperiencingHighMemUsage, possibleTasksToShuffle, taskUtilizations, latestTaskUsages));
     } catch (Throwable t) {
       String message = String.format("Could not get slave usage for host %s", slave.getHost());
       LOG.error(message, t);
       exceptionNotifier.notify(message, t);
+      return Optional.absent();
     }
   }
 
+  void saveSlaveUsage(SingularitySlave slave, SlaveUsageResult result) {
+    result.getLatestTaskUsages().forEach(usageManager::saveSpecificTaskUsage);
+
+    LOG.debug("Saving slave {} usage {}", slave.getHost(), result.getSlaveUsage());
+    usageManager.saveCurrentSlaveUsage(new SingularitySlaveUsageWithId(result.getSlaveUsage(), slave.getId()));
+  }
+
   private SingularityTaskUsage getUsage(MesosTaskMonitorObject taskUsage) {
     double timestampMillis = taskUsage.getStatistics().getTimestamp() * 1000;
     return new SingularityTaskUsage(
@@ -280,7 +273,7 @@ public class SingularityUsageHelper {
         taskUsage.getStatistics().getCpusThrottledTimeSecs());
   }
 
-  private List<SingularityTaskUsage> getFullListOfTaskUsages(List<SingularityTaskUsage> pastTaskUsages, SingularityTaskUsage latestUsage, SingularityTaskId task) {
+  private static List<SingularityTaskUsage> getFullListOfTaskUsages(List<SingularityTaskUsage> pastTaskUsages, SingularityTaskUsage latestUsage, SingularityTaskId task) {
     List<SingularityTaskUsage> pastTaskUsagesCopy = new ArrayList<>();
     pastTaskUsagesCopy.add(new SingularityTaskUsage(0, task.getStartedAt(), 0, 0, 0 , 0, 0)); // to calculate oldest cpu usage
     pastTaskUsagesCopy.addAll(pastTaskUsages);
@@ -328,7 +321,7 @@ public class SingularityUsageHelper {
     return false;
   }
 
-  private void updateRequestUtilization(Map<String, RequestUtilization> utilizationPerRequestId,
+  static RequestUtilization updateRequestUtilization(RequestUtilization current,
       RequestUtilization previous,
       List<SingularityTaskUsage> pastTaskUsages,
       SingularityTaskUsage latestUsage,
@@ -337,7 +330,7 @@ public class SingularityUsageHelper {
       double cpuReservedForTask,
       double diskMbReservedForTask) {
     String requestId = task.getRequestId();
-    RequestUtilization newRequestUtilization = utilizationPerRequestId.getOrDefault(requestId, new RequestUtilization(requestId, task.getDeployId()));
+    RequestUtilization newRequestUtilization = current != null ? current : new RequestUtilization(requestId, task.getDeployId());
     // Take the previous request utilization into account to better measure 24 hour max/min values
     if (previous != null) {
       if (previous.getMaxMemTimestamp() < DAY_IN_SECONDS) {
@@ -440,6 +433,6 @@ public class SingularityUsageHelper {
         .addDiskBytesReserved((long) diskMbReservedForTask * SingularitySlaveUsage.BYTES_PER_MEGABYTE * numTasks)
         .setCpuBurstRating(cpuBurstRating);
 
-    utilizationPerRequestId.put(requestId, newRequestUtilization);
+    return newRequestUtilization;
   }
 }
@@ -6,18 +6,25 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Optional;
-import com.google.common.util.concurrent.AtomicDouble;
 import com.google.inject.Inject;
+import com.hubspot.mesos.JavaUtils;
+import com.hubspot.mesos.json.MesosSlaveMetricsSnapshotObject;
+import com.hubspot.mesos.json.MesosTaskMonitorObject;
 import com.hubspot.singularity.RequestUtilization;
 import com.hubspot.singularity.SingularityAction;
 import com.hubspot.singularity.SingularityClusterUtilization;
@@ -26,6 +33,7 @@ import com.hubspot.singularity.SingularityManagedCachedThreadPoolFactory;
 import com.hubspot.singularity.SingularityManagedScheduledExecutorServiceFactory;
 import com.hubspot.singularity.SingularityPendingRequest;
 import com.hubspot.singularity.SingularityPendingRequest.PendingType;
+import com.hubspot.singularity.SingularitySlave;
 import com.hubspot.singularity.SingularitySlaveUsage;
 import com.hubspot.singularity.SingularityTaskCleanup;
 import com.hubspot.singularity.TaskCleanupType;
@@ -38,6 +46,7 @@ import com.hubspot.singularity.data.RequestManager;
 import com.hubspot.singularity.data.TaskManager;
 import com.hubspot.singularity.data.usage.UsageManager;
 import com.hubspot.singularity.scheduler.SingularityUsagePoller.OverusedResource.Type;
+import com.hubspot.singularity.sentry.SingularityExceptionNotifier;
 
 import io.dropwizard.util.SizeUnit;
 
@@ -53,8 +62,12 @@ public class SingularityUsagePoller extends SingularityLeaderOnlyPoller {
   private final TaskManager taskManager;
   private final DisasterManager disasterManager;
 
+  private final SingularityExceptionNotifier exceptionNotifier;
+
   private final AsyncSemaphore<Void> usageCollectionSemaphore;
   private final ExecutorService usageExecutor;
+  private final Timer slaveCollectionTimer;
+  private final AtomicInteger slavesMissingDeadline = new AtomicInteger(0);
 
   @Inject
   SingularityUsagePoller(SingularityConfiguration configuration,
@@ -65,7 +78,9 @@ public class SingularityUsagePoller extends SingularityLeaderOnlyPoller {
                          TaskManager taskManager,
                          DisasterManager disasterManager,
                          SingularityManagedScheduledExecutorServiceFactory executorServiceFactory,
-                         SingularityManagedCachedThreadPoolFactory cachedThreadPoolFactory) {
+                         SingularityManagedCachedThreadPoolFactory cachedThreadPoolFactory,
+                         SingularityExceptionNotifier exceptionNotifier,
+                         MetricRegistry metricRegistry) {
     super(configuration.getCheckUsageEveryMillis(), TimeUnit.MILLISECONDS);
 
     this.configuration = configuration;
@@ -75,47 +90,110 @@ public class SingularityUsagePoller extends SingularityLeaderOnlyPoller {
     this.deployManager = deployManager;
     this.taskManager = taskManager;
     this.disasterManager = disasterManager;
+    this.exceptionNotifier = exceptionNotifier;
 
     this.usageCollectionSemaphore = AsyncSemaphore.newBuilder(configuration::getMaxConcurrentUsageCollections, executorServiceFactory.get("usage-semaphore", 5)).build();
     this.usageExecutor = cachedThreadPoolFactory.get("usage-collection");
+    this.slaveCollectionTimer = metricRegistry.timer("usage.slaveCollection");
+    metricRegistry.register("usage.slavesMissingDeadline", (Gauge<Integer>) slavesMissingDeadline::get);
   }
 
   @Override
   public void runActionOnPoll() {
-    Map<String, RequestUtilization> utilizationPerRequestId = new ConcurrentHashMap<>();
     Map<String, RequestUtilization> previousUtilizations = usageManager.getRequestUtilizations(false);
     final long now = System.currentTimeMillis();
 
-    AtomicLong totalMemBytesUsed = new AtomicLong(0);
-    AtomicLong totalMemBytesAvailable = new AtomicLong(0);
-    AtomicDouble totalCpuUsed = new AtomicDouble(0.00);
-    AtomicDouble totalCpuAvailable = new AtomicDouble(0.00);
-    AtomicLong totalDiskBytesUsed = new AtomicLong(0);
-    AtomicLong totalDiskBytesAvailable = new AtomicLong(0);
-
-    Map<SingularitySlaveUsage, List<TaskIdWithUsage>> overLoadedHosts = new ConcurrentHashMap<>();
+    ClusterUsageAccumulator accumulator = new ClusterUsageAccumulator();
+    List<SingularitySlave> slaves = usageHelper.getSlavesToTrackUsageFor();
+    List<CompletableFuture<Void>> usageFutures = new ArrayList<>(slaves.size());
 
-    List<CompletableFuture<Void>> usageFutures = new ArrayList<>();
+    for (SingularitySlave slave : slaves) {
+      CompletableFuture<Void> collected = new CompletableFuture<>();
+      usageCollectionSemaphore.call(() -> collectSlaveUsage(slave, now, previousUtilizations, accumulator, collected))
+          .whenComplete((ignored, t) -> collected.complete(null));
+      usageFutures.add(collected);
+    }
 
-    usageHelper.getSlavesToTrackUsageFor().forEach((slave) -> {
-      usageFutures.add(usageCollectionSemaphore.call(() ->
-          CompletableFuture.runAsync(() -> {
-            usageHelper.collectSlaveUsage(slave, now, utilizationPerRequestId, previousUtilizations, overLoadedHosts, totalMemBytesUsed, totalMemBytesAvailable,
-                totalCpuUsed, totalCpuAvailable, totalDiskBytesUsed, totalDiskBytesAvailable, false);
-          }, usageExecutor)
-      ));
-    });
+    try {
+      CompletableFutures.allOf(usageFutures).get(configuration.getUsageCollectionDeadlineMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException te) {
+      LOG.warn("Collected usage from {} of {} slaves within {}, publishing partial cluster utilization",
+          accumulator.getSlavesCollected(), slaves.size(), JavaUtils.durationFromMillis(configuration.getUsageCollectionDeadlineMillis()));
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException ee) {
+      // Each slave's collection handles its own failures, this only happens if the semaphore itself fails
+      LOG.error("Error while collecting slave usage", ee.getCause());
+    }
 
-    CompletableFutures.allOf(usageFutures).join();
+    accumulator.close();
+    slavesMissingDeadline.set(slaves.size() - accumulator.getSlavesCollected());
 
     usageManager.saveClusterUtilization(
         getClusterUtilization(
-            utilizationPerRequestId, totalMemBytesUsed.get(), totalMemBytesAvailable.get(),
-            totalCpuUsed.get(), totalCpuAvailable.get(), totalDiskBytesUsed.get(), totalDiskBytesAvailable.get(), now));
-    utilizationPerRequestId.values().forEach(usageManager::saveRequestUtilization);
+            accumulator.getUtilizationPerRequestId(), accumulator.getTotalMemBytesUsed(), accumulator.getTotalMemBytesAvailable(),
+            accumulator.getTotalCpuUsed(), accumulator.getTotalCpuAvailable(), accumulator.getTotalDiskBytesUsed(), accumulator.getTotalDiskBytesAvailable(), now));
+    accumulator.getUtilizationPerRequestId().values().forEach(usageManager::saveRequestUtilization);
 
     if (configuration.isShuffleTasksForOverloadedSlaves() && !disasterManager.isDisabled(SingularityAction.TASK_SHUFFLE)) {
-      shuffleTasksOnOverloadedHosts(overLoadedHosts);
+      shuffleTasksOnOverloadedHosts(accumulator.getOverLoadedHosts());
+    }
+  }
+
+  /**
+   * Fetches a slave's task usages and metrics snapshot concurrently without holding a thread, then folds the slave's
+   * usage into the accumulator and saves it if it arrives within the per-slave timeout and before the poll has published
+   * its results. Completes {@code collected} once the usage is either folded in or given up on. The returned future only
+   * completes once the requests to the slave have finished, so a slow slave keeps its semaphore permit.
+   */
+  private CompletableFuture<Void> collectSlaveUsage(SingularitySlave slave,
+                                                    long now,
+                                                    Map<String, RequestUtilization> previousUtilizations,
+                                                    ClusterUsageAccumulator accumulator,
+                                                    CompletableFuture<Void> collected) {
+    final long start = System.currentTimeMillis();
+
+    CompletableFuture<List<MesosTaskMonitorObject>> taskUsages = usageHelper.getSlaveResourceUsage(slave.getHost());
+    CompletableFuture<MesosSlaveMetricsSnapshotObject> metricsSnapshot = usageHelper.getSlaveMetricsSnapshot(slave.getHost());
+    CompletableFuture<Optional<SlaveUsageResult>> slaveUsage = taskUsages.thenCombineAsync(metricsSnapshot,
+        (usages, snapshot) -> usageHelper.collectSlaveUsage(slave, now, previousUtilizations, usages, snapshot), usageExecutor);
+
+    CompletableFuture<Void> handled = CompletableFutures.enforceTimeout(slaveUsage, configuration.getSlaveUsageTimeoutMillis(), TimeUnit.MILLISECONDS)
+        .handle((maybeResult, t) -> {
+          long duration = System.currentTimeMillis() - start;
+          slaveCollectionTimer.update(duration, TimeUnit.MILLISECONDS);
+
+          if (t != null) {
+            Throwable cause = t instanceof CompletionException ? t.getCause() : t;
+            if (cause instanceof TimeoutException) {
+              LOG.warn("Timed out collecting usage from slave {} after {}", slave.getHost(), JavaUtils.durationFromMillis(duration));
+            } else {
+              String message = String.format("Could not get slave usage for host %s", slave.getHost());
+              LOG.error(message, cause);
+              exceptionNotifier.notify(message, cause);
+            }
+          } else if (maybeResult.isPresent()) {
+            if (accumulator.add(maybeResult.get())) {
+              LOG.debug("Collected usage from slave {} in {}", slave.getHost(), JavaUtils.durationFromMillis(duration));
+              saveSlaveUsage(slave, maybeResult.get());
+            } else {
+              LOG.info("Usage from slave {} arrived after {}, not included in this poll's utilization", slave.getHost(), JavaUtils.durationFromMillis(duration));
+            }
+          }
+          collected.complete(null);
+          return null;
+        });
+
+    return CompletableFuture.allOf(handled, slaveUsage).handle((ignored, t) -> null);
+  }
+
+  private void saveSlaveUsage(SingularitySlave slave, SlaveUsageResult result) {
+    try {
+      usageHelper.saveSlaveUsage(slave, result);
+    } catch (Throwable t) {
+      String message = String.format("Could not save slave usage for host %s", slave.getHost());
+      LOG.error(message, t);
+      exceptionNotifier.notify(message, t);
     }
   }
 
@@ -0,0 +1,89 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.List;
+import java.util.Map;
+
+import com.hubspot.singularity.RequestUtilization;
+import com.hubspot.singularity.SingularitySlaveUsage;
+import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.SingularityTaskUsage;
+
+/**
+ * Everything one slave contributes to a usage poll, collected before anything is added to the poll's shared state
+ */
+class SlaveUsageResult {
+  private final SingularitySlaveUsage slaveUsage;
+  private final boolean overloaded;
+  private final List<TaskIdWithUsage> possibleTasksToShuffle;
+  private final List<TaskUtilization> taskUtilizations;
+  private final Map<SingularityTaskId, SingularityTaskUsage> latestTaskUsages;
+
+  SlaveUsageResult(SingularitySlaveUsage slaveUsage,
+                   boolean overloaded,
+                   List<TaskIdWithUsage> possibleTasksToShuffle,
+                   List<TaskUtilization> taskUtilizations,
+                   Map<SingularityTaskId, SingularityTaskUsage> latestTaskUsages) {
+    this.slaveUsage = slaveUsage;
+    this.overloaded = overloaded;
+    this.possibleTasksToShuffle = possibleTasksToShuffle;
+    this.taskUtilizations = taskUtilizations;
+    this.latestTaskUsages = latestTaskUsages;
+  }
+
+  public SingularitySlaveUsage getSlaveUsage() {
+    return slaveUsage;
+  }
+
+  public boolean isOverloaded() {
+    return overloaded;
+  }
+
+  public List<TaskIdWithUsage> getPossibleTasksToShuffle() {
+    return possibleTasksToShuffle;
+  }
+
+  public List<TaskUtilization> getTaskUtilizations() {
+    return taskUtilizations;
+  }
+
+  public Map<SingularityTaskId, SingularityTaskUsage> getLatestTaskUsages() {
+    return latestTaskUsages;
+  }
+
+  static class TaskUtilization {
+    private final RequestUtilization previous;
+    private final List<SingularityTaskUsage> pastTaskUsages;
+    private final SingularityTaskUsage latestUsage;
+    private final SingularityTaskId taskId;
+    private final double memoryMbReserved;
+    private final double cpuReserved;
+    private final double diskMbReserved;
+
+    TaskUtilization(RequestUtilization previous,
+                    List<SingularityTaskUsage> pastTaskUsages,
+                    SingularityTaskUsage latestUsage,
+                    SingularityTaskId taskId,
+                    double memoryMbReserved,
+                    double cpuReserved,
+                    double diskMbReserved) {
+      this.previous = previous;
+      this.pastTaskUsages = pastTaskUsages;
+      this.latestUsage = latestUsage;
+      this.taskId = taskId;
+      this.memoryMbReserved = memoryMbReserved;
+      this.cpuReserved = cpuReserved;
+      this.diskMbReserved = diskMbReserved;
+    }
+
+    public String getRequestId() {
+      return taskId.getRequestId();
+    }
+
+    /**
+     * Adds this task's usage to the utilization accumulated so far for its request, which may be null
+     */
+    RequestUtilization addTo(RequestUtilization current) {
+      return SingularityUsageHelper.updateRequestUtilization(current, previous, pastTaskUsages, latestUsage, taskId, memoryMbReserved, cpuReserved, diskMbReserved);
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.hubspot.singularity.SingularityTaskUsage;
+
+/**
+ * The most recent usage samples for one task, kept as one primitive array per field in timestamp order. Adding a
+ * sample past the retention limit drops the oldest one. Not thread safe, SingularityLeaderCache guards each series.
+ * <p>
+ * A series can be created before the stored samples are read, so samples written meanwhile aren't lost. Until
+ * {@link #finishLoading} merges in the stored samples it only holds those writes, and remembers removals so a stored
+ * sample that was removed meanwhile isn't merged back in.
+ */
+class TaskUsageSeries {
+  private long[] timestamps;
+  private long[] memoryTotalBytes;
+  private double[] cpuSeconds;
+  private long[] diskTotalBytes;
+  private long[] cpusNrPeriods;
+  private long[] cpusNrThrottled;
+  private double[] cpusThrottledTimeSecs;
+  private int size;
+  private Set<Long> removedWhileLoading;
+
+  TaskUsageSeries(int capacity) {
+    allocate(Math.max(1, capacity));
+  }
+
+  static TaskUsageSeries loading(int capacity) {
+    TaskUsageSeries series = new TaskUsageSeries(capacity);
+    series.removedWhileLoading = new HashSet<>();
+    return series;
+  }
+
+  boolean isLoaded() {
+    return removedWhileLoading == null;
+  }
+
+  /**
+   * Merges in the stored samples, samples added while loading take precedence over stored ones with the same timestamp
+   */
+  void finishLoading(List<SingularityTaskUsage> stored, int maxUsages) {
+    if (isLoaded()) {
+      return;
+    }
+    for (SingularityTaskUsage usage : stored) {
+      if (!removedWhileLoading.contains(usage.getTimestamp()) && Arrays.binarySearch(timestamps, 0, size, usage.getTimestamp()) < 0) {
+        add(usage, maxUsages);
+      }
+    }
+    removedWhileLoading = null;
+  }
+
+  private void allocate(int capacity) {
+    timestamps = new long[capacity];
+    memoryTotalBytes = new long[capacity];
+    cpuSeconds = new double[capacity];
+    diskTotalBytes = new long[capacity];
+    cpusNrPeriods = new long[capacity];
+    cpusNrThrottled = new long[capacity];
+    cpusThrottledTimeSecs = new double[capacity];
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Adds a sample, replacing any existing sample with the same timestamp, then drops the oldest samples until at most
+   * maxUsages remain
+   */
+  void add(SingularityTaskUsage usage, int maxUsages) {
+    int index = Arrays.binarySearch(timestamps, 0, size, usage.getTimestamp());
+    if (index >= 0) {
+      set(index, usage);
+      return;
+    }
+
+    int insertAt = -index - 1;
+    if (size == timestamps.length) {
+      resize(Math.max(size + 1, maxUsages));
+    }
+    shift(insertAt, insertAt + 1, size - insertAt);
+    set(insertAt, usage);
+    size++;
+
+    if (size > maxUsages) {
+      int toDrop = size - Math.max(0, maxUsages);
+      shift(toDrop, 0, size - toDrop);
+      size -= toDrop;
+    }
+  }
+
+  void remove(long timestamp) {
+    if (!isLoaded()) {
+      removedWhileLoading.add(timestamp);
+    }
+    int index = Arrays.binarySearch(timestamps, 0, size, timestamp);
+    if (index >= 0) {
+      shift(index + 1, index, size - index - 1);
+      size--;
+    }
+  }
+
+  List<SingularityTaskUsage> toList() {
+    List<SingularityTaskUsage> usages = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      usages.add(new SingularityTaskUsage(memoryTotalBytes[i], timestamps[i], cpuSeconds[i], diskTotalBytes[i], cpusNrPeriods[i], cpusNrThrottled[i], cpusThrottledTimeSecs[i]));
+    }
+    return usages;
+  }
+
+  private void set(int index, SingularityTaskUsage usage) {
+    timestamps[index] = usage.getTimestamp();
+    memoryTotalBytes[index] = usage.getMemoryTotalBytes();
+    cpuSeconds[index] = usage.getCpuSeconds();
+    diskTotalBytes[index] = usage.getDiskTotalBytes();
+    cpusNrPeriods[index] = usage.getCpusNrPeriods();
+    cpusNrThrottled[index] = usage.getCpusNrThrottled();
+    cpusThrottledTimeSecs[index] = usage.getCpusThrottledTimeSecs();
+  }
+
+  private void shift(int from, int to, int length) {
+    System.arraycopy(timestamps, from, timestamps, to, length);
+    System.arraycopy(memoryTotalBytes, from, memoryTotalBytes, to, length);
+    System.arraycopy(cpuSeconds, from, cpuSeconds, to, length);
+    System.arraycopy(diskTotalBytes, from, diskTotalBytes, to, length);
+    System.arraycopy(cpusNrPeriods, from, cpusNrPeriods, to, length);
+    System.arraycopy(cpusNrThrottled, from, cpusNrThrottled, to, length);
+    System.arraycopy(cpusThrottledTimeSecs, from, cpusThrottledTimeSecs, to, length);
+  }
+
+  private void resize(int capacity) {
+    timestamps = Arrays.copyOf(timestamps, capacity);
+    memoryTotalBytes = Arrays.copyOf(memoryTotalBytes, capacity);
+    cpuSeconds = Arrays.copyOf(cpuSeconds, capacity);
+    diskTotalBytes = Arrays.copyOf(diskTotalBytes, capacity);
+    cpusNrPeriods = Arrays.copyOf(cpusNrPeriods, capacity);
+    cpusNrThrottled = Arrays.copyOf(cpusNrThrottled, capacity);
+    cpusThrottledTimeSecs = Arrays.copyOf(cpusThrottledTimeSecs, capacity);
+  }
+}
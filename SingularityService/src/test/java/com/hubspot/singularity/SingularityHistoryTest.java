@@ -5,6 +5,7 @@ import static org.mockito.Mockito.*;
 
 import java.io.IOException;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -209,6 +210,35 @@ public class SingularityHistoryTest extends SingularitySchedulerTestBase {
     Assertions.assertTrue(parent.getPendingRequest().getRunId().isPresent());
   }
 
+  @Test
+  public void testPersistsTasksInBatches() {
+    try {
+      configuration.setHistoryPersisterBatchSize(2);
+      configuration.setHistoryPersisterMaxBatchesInFlight(1);
+
+      initOnDemandRequest();
+      initFirstDeploy();
+
+      List<SingularityTask> tasks = new ArrayList<>();
+      for (int i = 1; i <= 5; i++) {
+        SingularityTask task = launchTask(request, firstDeploy, i * 1000L, 10L, i, TaskState.TASK_RUNNING, true);
+        statusUpdate(task, TaskState.TASK_FINISHED);
+        tasks.add(task);
+      }
+
+      taskHistoryPersister.runActionOnPoll();
+
+      Assertions.assertTrue(taskManager.getInactiveTaskIdsForRequest(requestId).isEmpty());
+      Assertions.assertEquals(5, getTaskHistoryForRequest(requestId, 0, 10).size());
+      for (SingularityTask task : tasks) {
+        Assertions.assertEquals(task.getTaskId(), historyManager.getTaskHistory(task.getTaskId().getId()).get().getTask().getTaskId());
+      }
+    } finally {
+      configuration.setHistoryPersisterBatchSize(100);
+      configuration.setHistoryPersisterMaxBatchesInFlight(4);
+    }
+  }
+
   @Test
   public void testPersisterRaceCondition() {
     final TaskManager taskManagerSpy = spy(taskManager);
@@ -439,6 +469,19 @@ public class SingularityHistoryTest extends SingularitySchedulerTestBase {
     }
   }
 
+  @Test
+  public void testRequestHistoryParentIsDeletedAfterPersisting() {
+    initRequest();
+    requestResource.scale(requestId, new SingularityScaleRequest(Optional.of(2), Optional.absent(), Optional.absent(), Optional.absent(), Optional.absent(), Optional.absent(), Optional.absent(), Optional.absent()), singularityUser);
+
+    Assertions.assertFalse(requestManager.getRequestIdsWithHistory().isEmpty());
+
+    requestHistoryPersister.runActionOnPoll();
+
+    Assertions.assertEquals(2, historyManager.getRequestHistory(requestId, Optional.of(OrderDirection.DESC), 0, 100).size());
+    Assertions.assertTrue(requestManager.getRequestIdsWithHistory().isEmpty());
+  }
+
   @Test
   public void testMessage() {
     initRequest();
@@ -0,0 +1,85 @@
+package com.hubspot.singularity.async;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.hubspot.singularity.async.BoundedParallelRunner.ItemDurations;
+import com.jayway.awaitility.Awaitility;
+
+public class BoundedParallelRunnerTest {
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @AfterEach
+  public void shutdownExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void itRunsAtMostMaxWorkersItemsAtOnceWithoutStallingBehindASlowOne() throws Exception {
+    CountDownLatch releaseSlowItem = new CountDownLatch(1);
+    CountDownLatch releaseFastItems = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger peakRunning = new AtomicInteger();
+    Queue<Integer> finished = new ConcurrentLinkedQueue<>();
+    List<Integer> items = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+
+    CompletableFuture<ItemDurations> run = CompletableFuture.supplyAsync(() -> BoundedParallelRunner.runEach(items, 3, executor, new Timer(), (item) -> {
+      peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      Uninterruptibles.awaitUninterruptibly(item == 0 ? releaseSlowItem : releaseFastItems);
+      running.decrementAndGet();
+      finished.add(item);
+    }));
+
+    Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> running.get() == 3);
+    Thread.sleep(100);
+    Assertions.assertEquals(3, running.get());
+    Assertions.assertTrue(finished.isEmpty());
+
+    // The other workers get through every remaining item while the slow one is still running
+    releaseFastItems.countDown();
+    Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> finished.size() == items.size() - 1);
+    Assertions.assertFalse(finished.contains(0));
+    Assertions.assertFalse(run.isDone());
+
+    releaseSlowItem.countDown();
+    Assertions.assertEquals(items.size(), run.get(5, TimeUnit.SECONDS).size());
+    Assertions.assertEquals(3, peakRunning.get());
+  }
+
+  @Test
+  public void itRunsTheRemainingItemsAfterOneThrowsAndRethrows() {
+    Queue<Integer> finished = new ConcurrentLinkedQueue<>();
+    List<Integer> items = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+
+    IllegalStateException thrown = Assertions.assertThrows(IllegalStateException.class, () -> BoundedParallelRunner.runEach(items, 1, executor, new Timer(), (item) -> {
+      if (item == 2) {
+        throw new IllegalStateException("item 2 failed");
+      }
+      finished.add(item);
+    }));
+
+    Assertions.assertEquals("item 2 failed", thrown.getMessage());
+    Assertions.assertEquals(items.size() - 1, finished.size());
+    Assertions.assertFalse(finished.contains(2));
+  }
+
+  @Test
+  public void itDoesNothingWithoutItems() {
+    Assertions.assertEquals(0, BoundedParallelRunner.runEach(new ConcurrentLinkedQueue<Integer>(), 3, executor, new Timer(), (item) -> Assertions.fail("Ran an item")).size());
+  }
+}
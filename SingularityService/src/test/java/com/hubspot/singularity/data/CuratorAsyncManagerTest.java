@@ -0,0 +1,126 @@
+package com.hubspot.singularity.data;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.GetDataBuilder;
+import org.apache.curator.utils.ZKPaths;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hubspot.singularity.data.transcoders.StringTranscoder;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+
+public class CuratorAsyncManagerTest extends SingularitySchedulerTestBase {
+  private AtomicInteger sent;
+  private AtomicInteger inFlight;
+  private AtomicInteger peakInFlight;
+  private long callbackDelayMillis;
+
+  private int maxInFlight;
+  private long timeout;
+
+  public CuratorAsyncManagerTest() {
+    super(false);
+  }
+
+  @BeforeEach
+  public void resetCounters() {
+    sent = new AtomicInteger();
+    inFlight = new AtomicInteger();
+    peakInFlight = new AtomicInteger();
+    callbackDelayMillis = 0;
+    maxInFlight = configuration.getZookeeperAsyncMaxInFlight();
+    timeout = configuration.getZookeeperAsyncTimeout();
+  }
+
+  @AfterEach
+  public void restoreSettings() {
+    configuration.setZookeeperAsyncMaxInFlight(maxInFlight);
+    configuration.setZookeeperAsyncTimeout(timeout);
+  }
+
+  @Test
+  public void itNeverHasMoreThanMaxInFlightAsyncCalls() throws Exception {
+    configuration.setZookeeperAsyncMaxInFlight(2);
+    List<String> paths = createNodes("/in-flight-test", 20);
+
+    Map<String, String> fetched = countingManager().getAsyncWithPath("asyncTest", paths, StringTranscoder.INSTANCE);
+
+    Assertions.assertEquals(paths.size(), fetched.size());
+    Assertions.assertEquals(paths.size(), sent.get());
+    Assertions.assertTrue(peakInFlight.get() > 0);
+    Assertions.assertTrue(peakInFlight.get() <= 2, "Peak in-flight calls was " + peakInFlight.get());
+  }
+
+  @Test
+  public void itStopsSendingCallsOnceTheCallerTimesOut() throws Exception {
+    configuration.setZookeeperAsyncMaxInFlight(1);
+    configuration.setZookeeperAsyncTimeout(100);
+    callbackDelayMillis = 50;
+    List<String> paths = createNodes("/timeout-test", 20);
+
+    CuratorAsyncManager manager = countingManager();
+    Assertions.assertThrows(RuntimeException.class, () -> manager.getAsyncWithPath("asyncTest", paths, StringTranscoder.INSTANCE));
+
+    // Let the calls that were already sent finish
+    Thread.sleep(callbackDelayMillis * 4);
+    int sentAfterTimeout = sent.get();
+    Thread.sleep(callbackDelayMillis * 4);
+
+    Assertions.assertEquals(sentAfterTimeout, sent.get());
+    Assertions.assertTrue(sent.get() < paths.size(), String.format("Sent %d of %d calls", sent.get(), paths.size()));
+  }
+
+  private List<String> createNodes(String parent, int count) throws Exception {
+    List<String> paths = IntStream.range(0, count)
+        .mapToObj((i) -> ZKPaths.makePath(parent, Integer.toString(i)))
+        .collect(Collectors.toList());
+    for (String path : paths) {
+      cf.create().creatingParentsIfNeeded().forPath(path, StringTranscoder.INSTANCE.toBytes(path));
+    }
+    return paths;
+  }
+
+  /**
+   * Counts the background getData calls sent through it, and how many of them are outstanding at once
+   */
+  private CuratorAsyncManager countingManager() {
+    // Captured so calls still finishing from another test's query aren't counted here
+    AtomicInteger sent = this.sent;
+    AtomicInteger inFlight = this.inFlight;
+    AtomicInteger peakInFlight = this.peakInFlight;
+    long callbackDelayMillis = this.callbackDelayMillis;
+    CuratorFramework countingCurator = Mockito.spy(cf);
+    Mockito.doAnswer((invocation) -> {
+      GetDataBuilder builder = (GetDataBuilder) invocation.callRealMethod();
+      GetDataBuilder counting = Mockito.mock(GetDataBuilder.class, AdditionalAnswers.delegatesTo(builder));
+      Mockito.doAnswer((inBackground) -> {
+        BackgroundCallback callback = inBackground.getArgument(0);
+        sent.incrementAndGet();
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return builder.inBackground((client, event) -> {
+          if (callbackDelayMillis > 0) {
+            Thread.sleep(callbackDelayMillis);
+          }
+          inFlight.decrementAndGet();
+          callback.processResult(client, event);
+        });
+      }).when(counting).inBackground(ArgumentMatchers.any(BackgroundCallback.class));
+      return counting;
+    }).when(countingCurator).getData();
+
+    return new CuratorAsyncManager(countingCurator, configuration, new MetricRegistry()) {};
+  }
+}
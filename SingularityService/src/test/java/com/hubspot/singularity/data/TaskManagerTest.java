@@ -0,0 +1,95 @@
+package com.hubspot.singularity.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import com.google.common.base.Optional;
+import com.hubspot.singularity.ExtendedTaskState;
+import com.hubspot.singularity.SingularityTaskHealthcheckResult;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+
+public class TaskManagerTest extends SingularitySchedulerTestBase {
+
+  public TaskManagerTest() {
+    super(false);
+  }
+
+  @Test
+  public void itSavesHealthcheckResultsForTasksWithResultsInOneTransaction() {
+    SingularityTaskId first = new SingularityTaskId("request", "deploy", 1, 1, "host", "rack");
+    SingularityTaskId second = new SingularityTaskId("request", "deploy", 1, 2, "host", "rack");
+    taskManager.saveHealthcheckResult(healthcheckResult(first, 1));
+    taskManager.saveHealthcheckResult(healthcheckResult(second, 1));
+
+    TaskManager spy = Mockito.spy(taskManager);
+    spy.saveHealthcheckResults(Arrays.asList(healthcheckResult(first, 2), healthcheckResult(second, 2), healthcheckResult(first, 3)));
+
+    Mockito.verify(spy, Mockito.never()).save(ArgumentMatchers.anyString(), ArgumentMatchers.any());
+    Assertions.assertEquals(Arrays.asList(1L, 2L, 3L), timestamps(taskManager.getHealthcheckResults(first)));
+    Assertions.assertEquals(Arrays.asList(1L, 2L), timestamps(taskManager.getHealthcheckResults(second)));
+    Assertions.assertEquals(3L, taskManager.getLastHealthcheck(first).get().getTimestamp());
+    Assertions.assertEquals(2L, taskManager.getLastHealthcheck(second).get().getTimestamp());
+  }
+
+  @Test
+  public void itSavesHealthcheckResultsOneAtATimeWhenTheTransactionIsRejected() {
+    SingularityTaskId withResults = new SingularityTaskId("request", "deploy", 1, 1, "host", "rack");
+    SingularityTaskId withoutResults = new SingularityTaskId("request", "deploy", 1, 2, "host", "rack");
+    taskManager.saveHealthcheckResult(healthcheckResult(withResults, 1));
+
+    // The task without results has no healthcheck nodes yet, so its create fails the whole transaction
+    TaskManager spy = Mockito.spy(taskManager);
+    spy.saveHealthcheckResults(Arrays.asList(healthcheckResult(withResults, 2), healthcheckResult(withoutResults, 2)));
+
+    Mockito.verify(spy, Mockito.times(4)).save(ArgumentMatchers.anyString(), ArgumentMatchers.any());
+    Assertions.assertEquals(Arrays.asList(1L, 2L), timestamps(taskManager.getHealthcheckResults(withResults)));
+    Assertions.assertEquals(Arrays.asList(2L), timestamps(taskManager.getHealthcheckResults(withoutResults)));
+    Assertions.assertEquals(2L, taskManager.getLastHealthcheck(withoutResults).get().getTimestamp());
+  }
+
+  @Test
+  public void itDoesNotSaveHealthcheckResultsOnceHealthchecksHaveFinished() {
+    SingularityTaskId taskId = new SingularityTaskId("request", "deploy", 1, 1, "host", "rack");
+    taskManager.saveHealthcheckResult(healthcheckResult(taskId, 1));
+    taskManager.markHealthchecksFinished(taskId);
+
+    taskManager.saveHealthcheckResults(Arrays.asList(healthcheckResult(taskId, 2)));
+
+    Assertions.assertEquals(Arrays.asList(1L), timestamps(taskManager.getHealthcheckResults(taskId)));
+  }
+
+  @Test
+  public void itOnlyCachesTaskHistoryUpdatesOnceTheyAreSaved() {
+    SingularityTaskId taskId = new SingularityTaskId("request", "deploy", 1, 10, "host", "rack");
+    // Not a valid ZooKeeper path, so the whole batch fails before anything is written
+    SingularityTaskId unsaveableTaskId = new SingularityTaskId("request\u0001", "deploy", 1, 11, "host", "rack");
+
+    Assertions.assertThrows(RuntimeException.class,
+        () -> taskManager.saveTaskStatusUpdates(Arrays.asList(taskHistoryUpdate(taskId), taskHistoryUpdate(unsaveableTaskId)), Collections.emptyList()));
+    Assertions.assertTrue(taskManager.getTaskHistoryUpdates(taskId).isEmpty());
+
+    taskManager.saveTaskStatusUpdates(Arrays.asList(taskHistoryUpdate(taskId)), Collections.emptyList());
+    Assertions.assertEquals(1, taskManager.getTaskHistoryUpdates(taskId).size());
+  }
+
+  private SingularityTaskHistoryUpdate taskHistoryUpdate(SingularityTaskId taskId) {
+    return new SingularityTaskHistoryUpdate(taskId, 1, ExtendedTaskState.TASK_RUNNING, Optional.absent(), Optional.absent());
+  }
+
+  private SingularityTaskHealthcheckResult healthcheckResult(SingularityTaskId taskId, long timestamp) {
+    return new SingularityTaskHealthcheckResult(Optional.of(200), Optional.of(1L), timestamp, Optional.absent(), Optional.absent(), taskId, Optional.absent());
+  }
+
+  private List<Long> timestamps(List<SingularityTaskHealthcheckResult> results) {
+    return results.stream().map(SingularityTaskHealthcheckResult::getTimestamp).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,124 @@
+package com.hubspot.singularity.data.transcoders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.iq80.snappy.Snappy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.hubspot.mesos.JavaUtils;
+import com.hubspot.singularity.SingularityDeploy;
+import com.hubspot.singularity.SingularityDeployBuilder;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.config.ZooKeeperCompressionConfiguration.Codec;
+
+public class CompressingJsonTranscoderTest {
+  private static final ObjectMapper OBJECT_MAPPER = JavaUtils.newObjectMapper();
+
+  private final SingularityDeploy smallDeploy = new SingularityDeployBuilder("request", "deploy").setCommand(Optional.of("sleep 1")).build();
+  private final SingularityDeploy largeDeploy = new SingularityDeployBuilder("request", "deploy").setCommand(Optional.of(Strings.repeat("echo compress me; ", 200))).build();
+
+  @Test
+  public void itReadsLegacyPayloads() throws Exception {
+    byte[] json = OBJECT_MAPPER.writeValueAsBytes(largeDeploy);
+
+    CompressingJsonTranscoder<SingularityDeploy> transcoder = transcoder(framedConfiguration(Codec.ZSTD));
+    Assertions.assertEquals(largeDeploy.getCommand(), transcoder.fromBytes(Snappy.compress(json)).getCommand());
+    Assertions.assertEquals(largeDeploy.getCommand(), transcoder.fromBytes(json).getCommand());
+
+    SingularityConfiguration uncompressed = new SingularityConfiguration();
+    uncompressed.setCompressLargeDataObjects(false);
+    Assertions.assertEquals(largeDeploy.getCommand(), transcoder(uncompressed).fromBytes(json).getCommand());
+  }
+
+  @Test
+  public void itWritesLegacySnappyUnlessFramedFormatIsEnabled() {
+    CompressingJsonTranscoder<SingularityDeploy> transcoder = transcoder(new SingularityConfiguration());
+    byte[] bytes = transcoder.toBytes(largeDeploy);
+
+    Assertions.assertNotEquals(CompressingTranscoder.FRAME_MAGIC, bytes[0]);
+    Assertions.assertEquals(largeDeploy.getCommand(), transcoder(framedConfiguration(Codec.SNAPPY)).fromBytes(bytes).getCommand());
+  }
+
+  @Test
+  public void itSkipsCompressionBelowTheThreshold() throws Exception {
+    CompressingJsonTranscoder<SingularityDeploy> transcoder = transcoder(framedConfiguration(Codec.SNAPPY));
+    byte[] bytes = transcoder.toBytes(smallDeploy);
+
+    Assertions.assertEquals(CompressingTranscoder.FRAME_MAGIC, bytes[0]);
+    Assertions.assertEquals(CompressingTranscoder.FrameCodec.NONE, CompressingTranscoder.FrameCodec.fromId(bytes[1]));
+    Assertions.assertEquals(OBJECT_MAPPER.writeValueAsBytes(smallDeploy).length + CompressingTranscoder.FRAME_HEADER_LENGTH, bytes.length);
+    Assertions.assertEquals(smallDeploy.getCommand(), transcoder.fromBytes(bytes).getCommand());
+
+    SingularityConfiguration overridden = framedConfiguration(Codec.SNAPPY);
+    overridden.getZooKeeperCompressionConfiguration().setMinimumBytesToCompressOverrides(ImmutableMap.of("SingularityDeploy", 100000));
+    Assertions.assertEquals(CompressingTranscoder.FrameCodec.NONE, CompressingTranscoder.FrameCodec.fromId(transcoder(overridden).toBytes(largeDeploy)[1]));
+  }
+
+  @Test
+  public void itRoundTripsEachCodec(@TempDir Path tempDir) throws Exception {
+    Path dictionary = tempDir.resolve("dictionary");
+    Files.write(dictionary, Strings.repeat("echo compress me; ", 50).getBytes(StandardCharsets.UTF_8));
+    SingularityConfiguration withDictionary = framedConfiguration(Codec.ZSTD);
+    withDictionary.getZooKeeperCompressionConfiguration().setZstdDictionaryFile(Optional.of(dictionary.toString()));
+
+    int jsonLength = OBJECT_MAPPER.writeValueAsBytes(largeDeploy).length;
+
+    for (SingularityConfiguration configuration : new SingularityConfiguration[] {framedConfiguration(Codec.SNAPPY), framedConfiguration(Codec.ZSTD), withDictionary}) {
+      CompressingJsonTranscoder<SingularityDeploy> transcoder = transcoder(configuration);
+      byte[] bytes = transcoder.toBytes(largeDeploy);
+
+      Assertions.assertEquals(CompressingTranscoder.FRAME_MAGIC, bytes[0]);
+      Assertions.assertTrue(bytes.length < jsonLength);
+      Assertions.assertEquals(largeDeploy.getCommand(), transcoder.fromBytes(bytes).getCommand());
+    }
+
+    Assertions.assertEquals(CompressingTranscoder.FrameCodec.ZSTD_DICTIONARY, CompressingTranscoder.FrameCodec.fromId(transcoder(withDictionary).toBytes(largeDeploy)[1]));
+    Assertions.assertThrows(SingularityTranscoderException.class, () -> transcoder(framedConfiguration(Codec.ZSTD)).fromBytes(transcoder(withDictionary).toBytes(largeDeploy)));
+  }
+
+  @Test
+  public void itReadsJsonAndSmileRegardlessOfTheWrittenFormat() throws Exception {
+    SingularityConfiguration smileConfiguration = framedConfiguration(Codec.SNAPPY);
+    smileConfiguration.setWriteZkDataAsSmile(true);
+    CompressingJsonTranscoder<SingularityDeploy> smileTranscoder = transcoder(smileConfiguration);
+    CompressingJsonTranscoder<SingularityDeploy> jsonTranscoder = transcoder(framedConfiguration(Codec.SNAPPY));
+
+    byte[] smallSmile = smileTranscoder.toBytes(smallDeploy);
+    Assertions.assertTrue(JacksonSerializer.isSmile(Arrays.copyOfRange(smallSmile, CompressingTranscoder.FRAME_HEADER_LENGTH, smallSmile.length)));
+
+    for (SingularityDeploy deploy : new SingularityDeploy[] {smallDeploy, largeDeploy}) {
+      Assertions.assertEquals(deploy.getCommand(), jsonTranscoder.fromBytes(smileTranscoder.toBytes(deploy)).getCommand());
+      Assertions.assertEquals(deploy.getCommand(), smileTranscoder.fromBytes(jsonTranscoder.toBytes(deploy)).getCommand());
+    }
+
+    SingularityConfiguration uncompressedSmile = new SingularityConfiguration();
+    uncompressedSmile.setCompressLargeDataObjects(false);
+    uncompressedSmile.setWriteZkDataAsSmile(true);
+    byte[] rawSmile = transcoder(uncompressedSmile).toBytes(largeDeploy);
+    Assertions.assertTrue(JacksonSerializer.isSmile(rawSmile));
+    Assertions.assertEquals(largeDeploy.getCommand(), jsonTranscoder.fromBytes(rawSmile).getCommand());
+
+    JsonTranscoder<SingularityDeploy> plainSmileTranscoder = new JsonTranscoder<>(OBJECT_MAPPER, SingularityDeploy.class, true);
+    Assertions.assertEquals(largeDeploy.getCommand(), new JsonTranscoder<>(OBJECT_MAPPER, SingularityDeploy.class).fromBytes(plainSmileTranscoder.toBytes(largeDeploy)).getCommand());
+  }
+
+  private SingularityConfiguration framedConfiguration(Codec codec) {
+    SingularityConfiguration configuration = new SingularityConfiguration();
+    configuration.getZooKeeperCompressionConfiguration().setWriteFramedFormat(true);
+    configuration.getZooKeeperCompressionConfiguration().setCodec(codec);
+    return configuration;
+  }
+
+  private CompressingJsonTranscoder<SingularityDeploy> transcoder(SingularityConfiguration configuration) {
+    return new CompressingJsonTranscoder<>(configuration, OBJECT_MAPPER, SingularityDeploy.class);
+  }
+}
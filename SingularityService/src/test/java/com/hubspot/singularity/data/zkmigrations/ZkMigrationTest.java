@@ -1,6 +1,8 @@
 package com.hubspot.singularity.data.zkmigrations;
 
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.util.List;
 
 import org.apache.curator.framework.CuratorFramework;
@@ -11,7 +13,11 @@ import org.junit.jupiter.api.Test;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
 import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
 import com.hubspot.singularity.RequestState;
 import com.hubspot.singularity.RequestType;
 import com.hubspot.singularity.SingularityPendingRequest;
@@ -19,11 +25,16 @@ import com.hubspot.singularity.SingularityPendingRequest.PendingType;
 import com.hubspot.singularity.SingularityPendingTask;
 import com.hubspot.singularity.SingularityPendingTaskBuilder;
 import com.hubspot.singularity.SingularityPendingTaskId;
+import com.hubspot.singularity.SingularityTask;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
 import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.SingularityTaskStatusHolder;
+import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.MetadataManager;
 import com.hubspot.singularity.data.RequestManager;
 import com.hubspot.singularity.data.TaskManager;
+import com.hubspot.singularity.data.transcoders.SingularityTranscoderModule;
+import com.hubspot.singularity.data.transcoders.Transcoder;
 import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
 
 public class ZkMigrationTest extends SingularitySchedulerTestBase {
@@ -42,6 +53,8 @@ public class ZkMigrationTest extends SingularitySchedulerTestBase {
   private CuratorFramework curator;
   @Inject
   private List<ZkDataMigration> migrations;
+  @Inject
+  private SmileTaskDataRewriter smileTaskDataRewriter;
 
   public ZkMigrationTest() {
     super(false, false);
@@ -70,6 +83,45 @@ public class ZkMigrationTest extends SingularitySchedulerTestBase {
     Assertions.assertThat(migrationRunner.checkMigrations()).isEqualTo(0);
   }
 
+  @Test
+  public void testSmileRewriteRunsWhenEnabledAfterMigrations() throws Exception {
+    // Flag off while the migrations run
+    Assertions.assertThat(migrationRunner.checkMigrations()).isEqualTo(migrations.size());
+
+    long now = System.currentTimeMillis();
+    SingularityPendingTaskId pendingTaskId = new SingularityPendingTaskId("test", "deploy", now, 1, PendingType.IMMEDIATE, now);
+    SingularityPendingTask pendingTask = new SingularityPendingTaskBuilder().setPendingTaskId(pendingTaskId).build();
+    taskManager.savePendingTask(pendingTask);
+    String pendingTaskPath = "/tasks/scheduled/test/" + pendingTaskId.getId();
+
+    Assertions.assertThat(migrationRunner.checkMigrations()).isEqualTo(0);
+    Assertions.assertThat(curator.getData().forPath(pendingTaskPath)[0]).isEqualTo((byte) '{');
+    Assertions.assertThat(metadataManager.isSmileTaskDataRewritten()).isFalse();
+
+    // A later leader starts with the flag on, with nothing left to migrate
+    SingularityConfiguration smileConfiguration = new SingularityConfiguration();
+    smileConfiguration.setWriteZkDataAsSmile(true);
+    Injector smileTranscoders = Guice.createInjector((binder) -> {
+      binder.bind(ObjectMapper.class).toInstance(objectMapper);
+      binder.bind(SingularityConfiguration.class).toInstance(smileConfiguration);
+    }, new SingularityTranscoderModule());
+    SmileTaskDataRewriter smileRewriter = new SmileTaskDataRewriter(curator, smileConfiguration, taskManager, metadataManager,
+        smileTranscoders.getInstance(Key.get(new TypeLiteral<Transcoder<SingularityTask>>() {})),
+        smileTranscoders.getInstance(Key.get(new TypeLiteral<Transcoder<SingularityTaskHistoryUpdate>>() {})),
+        smileTranscoders.getInstance(Key.get(new TypeLiteral<Transcoder<SingularityPendingTask>>() {})));
+
+    Assertions.assertThat(new ZkDataMigrationRunner(metadataManager, migrations, smileRewriter).checkMigrations()).isEqualTo(0);
+    Assertions.assertThat(new String(curator.getData().forPath(pendingTaskPath), 0, 3, UTF_8)).isEqualTo(":)\n");
+    Assertions.assertThat(metadataManager.isSmileTaskDataRewritten()).isTrue();
+    Assertions.assertThat(taskManager.getPendingTask(pendingTaskId).get()).isEqualTo(pendingTask);
+    Assertions.assertThat(smileRewriter.rewriteIfNecessary()).isEqualTo(0);
+
+    // Turning the flag off again clears the marker, so tasks written as JSON meanwhile are rewritten when it's back on
+    smileTaskDataRewriter.rewriteIfNecessary();
+    Assertions.assertThat(metadataManager.isSmileTaskDataRewritten()).isFalse();
+    Assertions.assertThat(smileRewriter.rewriteIfNecessary()).isEqualTo(1);
+  }
+
   @Test
   public void testNamespaceTasksMigration() throws Exception {
     metadataManager.setZkDataVersion("11");
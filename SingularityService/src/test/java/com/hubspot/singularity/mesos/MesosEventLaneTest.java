@@ -0,0 +1,120 @@
+package com.hubspot.singularity.mesos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mesos.v1.Protos.OfferID;
+import org.apache.mesos.v1.scheduler.Protos.Event;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hubspot.singularity.mesos.MesosEventLane.OverflowStrategy;
+
+public class MesosEventLaneTest {
+
+  @Test
+  public void itDropsTheOldestEventWhenFull() {
+    List<Event> overflowed = new ArrayList<>();
+    MetricRegistry metricRegistry = new MetricRegistry();
+    MesosEventLane lane = new MesosEventLane("offers", 2, OverflowStrategy.DROP_OLDEST, (event) -> {}, overflowed::add, metricRegistry);
+
+    lane.offer(rescind("1"));
+    lane.offer(rescind("2"));
+    lane.offer(rescind("3"));
+
+    Assertions.assertEquals(2, lane.size());
+    Assertions.assertEquals(1, overflowed.size());
+    Assertions.assertEquals("1", overflowed.get(0).getRescind().getOfferId().getValue());
+    Assertions.assertEquals(1, metricRegistry.meter("mesos.events.offers.dropped").getCount());
+  }
+
+  @Test
+  public void itRejectsNewEventsWhenFull() {
+    List<Event> overflowed = new ArrayList<>();
+    MesosEventLane lane = new MesosEventLane("updates", 1, OverflowStrategy.REJECT, (event) -> {}, overflowed::add, new MetricRegistry());
+
+    lane.offer(rescind("1"));
+    lane.offer(rescind("2"));
+
+    Assertions.assertEquals(1, lane.size());
+    Assertions.assertEquals("2", overflowed.get(0).getRescind().getOfferId().getValue());
+  }
+
+  @Test
+  public void itConsumesEventsOnItsOwnThread() throws Exception {
+    CountDownLatch consumed = new CountDownLatch(2);
+    List<String> consumerThreads = new ArrayList<>();
+    MesosEventLane lane = new MesosEventLane("rescinds", 10, OverflowStrategy.REJECT, (event) -> {
+      consumerThreads.add(Thread.currentThread().getName());
+      consumed.countDown();
+    }, (event) -> {}, new MetricRegistry());
+
+    lane.start();
+    try {
+      lane.offer(rescind("1"));
+      lane.offer(rescind("2"));
+      Assertions.assertTrue(consumed.await(5, TimeUnit.SECONDS));
+      Assertions.assertEquals("mesos-rescinds-events", consumerThreads.get(0));
+    } finally {
+      lane.stop();
+    }
+  }
+
+  @Test
+  public void itOnlyDropsDroppableEventsWhenFull() {
+    List<Event> overflowed = new ArrayList<>();
+    MesosEventLane lane = new MesosEventLane("offers", 2, OverflowStrategy.DROP_OLDEST, (event) -> {}, overflowed::add,
+        (event) -> event.getType() == Event.Type.OFFERS, new MetricRegistry());
+
+    lane.offer(rescind("1"));
+    lane.offer(offers("2"));
+    lane.offer(rescind("3"));
+
+    Assertions.assertEquals(2, lane.size());
+    Assertions.assertEquals(Event.Type.OFFERS, overflowed.get(0).getType());
+
+    lane.offer(rescind("4"));
+
+    Assertions.assertEquals(2, lane.size());
+    Assertions.assertEquals("4", overflowed.get(1).getRescind().getOfferId().getValue());
+  }
+
+  @Test
+  public void itStopsAConsumerThatSwallowsInterrupts() throws Exception {
+    CountDownLatch handling = new CountDownLatch(1);
+    List<Thread> consumerThreads = new ArrayList<>();
+    MesosEventLane lane = new MesosEventLane("other", 10, OverflowStrategy.REJECT, (event) -> {
+      consumerThreads.add(Thread.currentThread());
+      handling.countDown();
+      try {
+        Thread.sleep(TimeUnit.SECONDS.toMillis(1));
+      } catch (InterruptedException ie) {
+        // swallowed, like scheduler code might
+      }
+    }, (event) -> {}, new MetricRegistry());
+
+    lane.start();
+    lane.offer(rescind("1"));
+    Assertions.assertTrue(handling.await(5, TimeUnit.SECONDS));
+    lane.stop();
+
+    Assertions.assertFalse(consumerThreads.get(0).isAlive());
+  }
+
+  private Event offers(String offerId) {
+    return Event.newBuilder()
+        .setType(Event.Type.OFFERS)
+        .setOffers(Event.Offers.newBuilder().addOffers(SingularityMesosSchedulerClientTest.offer(offerId)))
+        .build();
+  }
+
+  private Event rescind(String offerId) {
+    return Event.newBuilder()
+        .setType(Event.Type.RESCIND)
+        .setRescind(Event.Rescind.newBuilder().setOfferId(OfferID.newBuilder().setValue(offerId)))
+        .build();
+  }
+}
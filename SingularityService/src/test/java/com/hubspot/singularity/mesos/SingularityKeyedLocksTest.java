@@ -0,0 +1,66 @@
+package com.hubspot.singularity.mesos;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SingularityKeyedLocksTest {
+
+  @Test
+  public void itEvictsLocksOnceReleased() {
+    SingularityKeyedLocks locks = new SingularityKeyedLocks();
+
+    ReentrantLock first = locks.acquire("request1");
+    ReentrantLock second = locks.acquire("request1");
+    locks.acquire("request2");
+
+    Assertions.assertSame(first, second);
+    Assertions.assertEquals(2, locks.size());
+
+    locks.release("request1");
+    Assertions.assertEquals(2, locks.size());
+    locks.release("request1");
+    locks.release("request2");
+    Assertions.assertEquals(0, locks.size());
+
+    Assertions.assertNotSame(first, locks.acquire("request1"));
+  }
+
+  @Test
+  public void itKeepsTheSameLockWhileAnotherThreadIsWaiting() throws Exception {
+    SingularityKeyedLocks locks = new SingularityKeyedLocks();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      ReentrantLock held = locks.acquire("request1");
+      held.lock();
+
+      CountDownLatch waiting = new CountDownLatch(1);
+      Future<ReentrantLock> waiter = executor.submit(() -> {
+        ReentrantLock lock = locks.acquire("request1");
+        waiting.countDown();
+        lock.lock();
+        try {
+          return lock;
+        } finally {
+          lock.unlock();
+          locks.release("request1");
+        }
+      });
+
+      Assertions.assertTrue(waiting.await(5, TimeUnit.SECONDS));
+      held.unlock();
+      locks.release("request1");
+
+      Assertions.assertSame(held, waiter.get(5, TimeUnit.SECONDS));
+      Assertions.assertEquals(0, locks.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -30,7 +30,6 @@ import com.hubspot.singularity.api.SingularityScaleRequest;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.DeployManager;
 import com.hubspot.singularity.data.usage.UsageManager;
-import com.hubspot.singularity.mesos.SingularitySlaveUsageWithCalculatedScores.MaxProbableUsage;
 import com.hubspot.singularity.scheduler.SingularityScheduler;
 import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
 import com.hubspot.singularity.scheduler.SingularityUsagePoller;
@@ -100,11 +99,11 @@ public class SingularityMesosOfferSchedulerTest extends SingularitySchedulerTest
     setRequestType(RequestType.SERVICE);
 
     // LR - no usage tracked -> default score
-    assertValueIs(0.50, scheduler.score(SLAVE_ID, Optional.absent()));
+    assertValueIs(0.50, score(null));
 
     // NLR - no deployStatistics -> default weights
     setRequestType(RequestType.ON_DEMAND);
-    assertValueIs(0.5, scheduler.score(SLAVE_ID, Optional.of(getUsage(5, 10, 5,  5, 10, 5, 5, 10, 5))));
+    assertValueIs(0.5, score(getSlaveUsage(5, 10, 5,  5, 10, 5, 5, 10, 5)));
   }
 
   @Test
@@ -112,35 +111,58 @@ public class SingularityMesosOfferSchedulerTest extends SingularitySchedulerTest
     setRequestType(RequestType.SERVICE);
 
     // new slave (no resources used) -> perfect score
-    assertValueIs(1, scheduler.score(SLAVE_ID, Optional.of(getUsage(0,10, 0, 0,10, 0, 0, 10, 0))));
+    assertValueIs(1, score(getSlaveUsage(0,10, 0, 0,10, 0, 0, 10, 0)));
 
     // cpu used, no mem used, no disk used
-    assertValueIs(0.85, scheduler.score(SLAVE_ID, Optional.of(getUsage(0, 10, 0, 5, 10, 5, 0, 10, 0))));
-    assertValueIs(0.76, scheduler.score(SLAVE_ID, Optional.of(getUsage(0, 10, 0, 8, 10, 8, 0, 10, 0))));
+    assertValueIs(0.85, score(getSlaveUsage(0, 10, 0, 5, 10, 5, 0, 10, 0)));
+    assertValueIs(0.76, score(getSlaveUsage(0, 10, 0, 8, 10, 8, 0, 10, 0)));
 
     // no cpu used, mem used, no disk used
-    assertValueIs(0.75, scheduler.score(SLAVE_ID, Optional.of(getUsage(5, 10, 5, 0, 10, 0, 0, 10, 0))));
-    assertValueIs(0.60, scheduler.score(SLAVE_ID, Optional.of(getUsage(8, 10, 8, 0, 10, 0, 0, 10, 0))));
+    assertValueIs(0.75, score(getSlaveUsage(5, 10, 5, 0, 10, 0, 0, 10, 0)));
+    assertValueIs(0.60, score(getSlaveUsage(8, 10, 8, 0, 10, 0, 0, 10, 0)));
 
     // no cpu used, no mem used, disk used
-    assertValueIs(0.90, scheduler.score(SLAVE_ID, Optional.of(getUsage(0, 10, 0, 0, 10, 0, 5, 10, 5))));
-    assertValueIs(0.84, scheduler.score(SLAVE_ID, Optional.of(getUsage(0, 10, 0, 0, 10, 0, 8, 10, 8))));
+    assertValueIs(0.90, score(getSlaveUsage(0, 10, 0, 0, 10, 0, 5, 10, 5)));
+    assertValueIs(0.84, score(getSlaveUsage(0, 10, 0, 0, 10, 0, 8, 10, 8)));
 
     // cpu used, mem used, no disk used
-    assertValueIs(0.60, scheduler.score(SLAVE_ID, Optional.of(getUsage(5, 10, 5, 5, 10, 5, 0, 10, 0))));
-    assertValueIs(0.36, scheduler.score(SLAVE_ID, Optional.of(getUsage(8, 10, 8, 8, 10, 8, 0, 10, 0))));
+    assertValueIs(0.60, score(getSlaveUsage(5, 10, 5, 5, 10, 5, 0, 10, 0)));
+    assertValueIs(0.36, score(getSlaveUsage(8, 10, 8, 8, 10, 8, 0, 10, 0)));
 
     // no cpu used, mem used, disk used
-    assertValueIs(0.65, scheduler.score(SLAVE_ID, Optional.of(getUsage(5,10, 5, 0, 10,0, 5, 10, 5))));
-    assertValueIs(0.44, scheduler.score(SLAVE_ID, Optional.of(getUsage(8,10, 8, 0,10, 0, 8, 10, 8))));
+    assertValueIs(0.65, score(getSlaveUsage(5,10, 5, 0, 10,0, 5, 10, 5)));
+    assertValueIs(0.44, score(getSlaveUsage(8,10, 8, 0,10, 0, 8, 10, 8)));
 
     // cpu used, no mem used, disk used
-    assertValueIs(0.75, scheduler.score(SLAVE_ID, Optional.of(getUsage(0,10, 0, 5,10, 5, 5, 10, 5))));
-    assertValueIs(0.60, scheduler.score(SLAVE_ID, Optional.of(getUsage(0,10, 0, 8,10, 8, 8, 10, 8))));
+    assertValueIs(0.75, score(getSlaveUsage(0,10, 0, 5,10, 5, 5, 10, 5)));
+    assertValueIs(0.60, score(getSlaveUsage(0,10, 0, 8,10, 8, 8, 10, 8)));
 
     // cpu used, mem used, disk used
-    assertValueIs(0.5, scheduler.score(SLAVE_ID, Optional.of(getUsage(5,10, 5, 5,10, 5, 5, 10, 5))));
-    assertValueIs(0.2, scheduler.score(SLAVE_ID, Optional.of(getUsage(8,10, 8, 8,10, 8, 8, 10, 8))));
+    assertValueIs(0.5, score(getSlaveUsage(5,10, 5, 5,10, 5, 5, 10, 5)));
+    assertValueIs(0.2, score(getSlaveUsage(8,10, 8, 8,10, 8, 8, 10, 8)));
+  }
+
+  @Test
+  public void itSpreadsTasksAsAcceptingThemChangesSlaveScores() {
+    initRequest();
+    initFirstDeployWithResources(1, 1000);
+    saveAndSchedule(requestManager.getRequest(requestId).get().getRequest().toBuilder().setInstances(Optional.of(2)));
+
+    SingularitySlaveUsage emptyUsage = new SingularitySlaveUsage(0, 0, Optional.of(10.0), 0, 0, Optional.of(30000L), 0, 0, Optional.of(102400L), 0, System.currentTimeMillis(), 30000 * SingularitySlaveUsage.BYTES_PER_MEGABYTE, 30000 * SingularitySlaveUsage.BYTES_PER_MEGABYTE, 10, 0, 0, 0, 0, 102400 * SingularitySlaveUsage.BYTES_PER_MEGABYTE);
+    usageManager.saveCurrentSlaveUsage(new SingularitySlaveUsageWithId(emptyUsage, "host1"));
+    usageManager.saveCurrentSlaveUsage(new SingularitySlaveUsageWithId(emptyUsage, "host2"));
+
+    Offer host1Offer = createOffer(10, 30000, 102400, "host1", "host1");
+    slaveAndRackManager.checkOffer(host1Offer);
+    Offer host2Offer = createOffer(10, 30000, 102400, "host2", "host2");
+    slaveAndRackManager.checkOffer(host2Offer);
+
+    Collection<SingularityOfferHolder> offerHolders = offerScheduler.checkOffers(ImmutableMap.of(host1Offer.getId().getValue(), host1Offer, host2Offer.getId().getValue(), host2Offer));
+
+    // Accepting the first task makes its slave the worse of the two, so the second task goes to the other one
+    for (SingularityOfferHolder offerHolder : offerHolders) {
+      Assertions.assertEquals(1, offerHolder.getAcceptedTasks().size());
+    }
   }
 
   @Test
@@ -236,29 +258,32 @@ public class SingularityMesosOfferSchedulerTest extends SingularitySchedulerTest
     Assertions.assertEquals(actualValue, expectedValue, String.format("Expected %f but found %f", expectedValue, actualValue));
   }
 
-  private SingularitySlaveUsageWithCalculatedScores getUsage(long memMbReserved,
-                                                             long memMbTotal,
-                                                             long memMbInUse,
-                                                             double cpusReserved,
-                                                             double cpusTotal,
-                                                             double cpuInUse,
-                                                             long diskMbReserved,
-                                                             long diskMbTotal,
-                                                             long diskMbInUse) {
+  private double score(SingularitySlaveUsage slaveUsage) {
+    SlaveUsageScoreTable slaveUsages = new SlaveUsageScoreTable(1, MachineLoadMetric.LOAD_5, 0, 0);
+    int slot = slaveUsages.add(slaveUsage);
+    slaveUsages.recalculateScores(slot);
+    return scheduler.score(SLAVE_ID, slaveUsages, slot);
+  }
+
+  private SingularitySlaveUsage getSlaveUsage(long memMbReserved,
+                                              long memMbTotal,
+                                              long memMbInUse,
+                                              double cpusReserved,
+                                              double cpusTotal,
+                                              double cpuInUse,
+                                              long diskMbReserved,
+                                              long diskMbTotal,
+                                              long diskMbInUse) {
     long totalMemBytes = memMbTotal * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
     long memBytesInUse = memMbInUse * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
-    return new SingularitySlaveUsageWithCalculatedScores(
-        new SingularitySlaveUsage(
-            cpuInUse, cpusReserved, Optional.of(cpusTotal),
-            memBytesInUse, memMbReserved, Optional.of(memMbTotal),
-            diskMbInUse * SingularitySlaveUsage.BYTES_PER_MEGABYTE, diskMbReserved, Optional.of(diskMbTotal),
-            1, 0L,
-            totalMemBytes, totalMemBytes - memBytesInUse,
-            cpusTotal, cpuInUse, cpuInUse, cpuInUse,
-            diskMbInUse * SingularitySlaveUsage.BYTES_PER_MEGABYTE, diskMbTotal * SingularitySlaveUsage.BYTES_PER_MEGABYTE),
-        MachineLoadMetric.LOAD_5, new MaxProbableUsage(0, 0, 0),
-        0, 0, System.currentTimeMillis()
-    );
+    return new SingularitySlaveUsage(
+        cpuInUse, cpusReserved, Optional.of(cpusTotal),
+        memBytesInUse, memMbReserved, Optional.of(memMbTotal),
+        diskMbInUse * SingularitySlaveUsage.BYTES_PER_MEGABYTE, diskMbReserved, Optional.of(diskMbTotal),
+        1, 0L,
+        totalMemBytes, totalMemBytes - memBytesInUse,
+        cpusTotal, cpuInUse, cpuInUse, cpuInUse,
+        diskMbInUse * SingularitySlaveUsage.BYTES_PER_MEGABYTE, diskMbTotal * SingularitySlaveUsage.BYTES_PER_MEGABYTE);
   }
 
   private SingularityDeployStatistics getDeployStatistics(long avgRunTimeMillis) {
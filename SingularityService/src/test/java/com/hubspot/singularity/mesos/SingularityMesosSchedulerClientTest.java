@@ -0,0 +1,64 @@
+package com.hubspot.singularity.mesos;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import org.apache.mesos.v1.Protos.AgentID;
+import org.apache.mesos.v1.Protos.FrameworkID;
+import org.apache.mesos.v1.Protos.Offer;
+import org.apache.mesos.v1.Protos.OfferID;
+import org.apache.mesos.v1.scheduler.Protos.Event;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hubspot.singularity.config.MesosConfiguration;
+import com.hubspot.singularity.config.SingularityConfiguration;
+
+public class SingularityMesosSchedulerClientTest {
+
+  @Test
+  public void itHandlesARescindAfterTheOfferQueuedBeforeIt() {
+    SingularityMesosScheduler scheduler = mock(SingularityMesosScheduler.class);
+    doAnswer((invocation) -> {
+      // Slow enough that a rescind in another lane would be handled first
+      Thread.sleep(200);
+      return null;
+    }).when(scheduler).resourceOffers(any());
+
+    SingularityConfiguration configuration = new SingularityConfiguration();
+    configuration.setMesosConfiguration(new MesosConfiguration());
+    SingularityMesosSchedulerClient client = new SingularityMesosSchedulerClient(configuration, "", new MetricRegistry());
+    client.startLanes(scheduler);
+    try {
+      client.dispatch(Event.newBuilder()
+          .setType(Event.Type.OFFERS)
+          .setOffers(Event.Offers.newBuilder().addOffers(offer("1")))
+          .build());
+      client.dispatch(Event.newBuilder()
+          .setType(Event.Type.RESCIND)
+          .setRescind(Event.Rescind.newBuilder().setOfferId(OfferID.newBuilder().setValue("1")))
+          .build());
+
+      verify(scheduler, timeout(5000)).rescind(any());
+      InOrder inOrder = inOrder(scheduler);
+      inOrder.verify(scheduler).resourceOffers(any());
+      inOrder.verify(scheduler).rescind(OfferID.newBuilder().setValue("1").build());
+    } finally {
+      client.stopLanes();
+    }
+  }
+
+  static Offer offer(String offerId) {
+    return Offer.newBuilder()
+        .setId(OfferID.newBuilder().setValue(offerId))
+        .setFrameworkId(FrameworkID.newBuilder().setValue("framework"))
+        .setAgentId(AgentID.newBuilder().setValue("agent"))
+        .setHostname("host")
+        .build();
+  }
+}
@@ -0,0 +1,120 @@
+package com.hubspot.singularity.mesos;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.mesos.v1.Protos.AgentID;
+import org.apache.mesos.v1.Protos.FrameworkID;
+import org.apache.mesos.v1.Protos.Offer;
+import org.apache.mesos.v1.Protos.OfferID;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.hubspot.mesos.Resources;
+import com.hubspot.singularity.RequestType;
+import com.hubspot.singularity.SingularityDeploy;
+import com.hubspot.singularity.SingularityDeployBuilder;
+import com.hubspot.singularity.SingularityPendingRequest.PendingType;
+import com.hubspot.singularity.SingularityPendingTaskBuilder;
+import com.hubspot.singularity.SingularityPendingTaskId;
+import com.hubspot.singularity.SingularityRequest;
+import com.hubspot.singularity.SingularityRequestBuilder;
+import com.hubspot.singularity.SingularityTaskRequest;
+import com.hubspot.singularity.helpers.MesosUtils;
+
+public class SingularityOfferIndexTest {
+
+  @Test
+  public void itOnlyReturnsOffersWithEnoughResources() {
+    SingularityOfferIndex index = new SingularityOfferIndex(Arrays.asList(
+        offerHolder("small", 1, 1024, 1024, "rack1", Collections.emptyMap(), Collections.emptyMap()),
+        offerHolder("medium", 4, 2048, 1024, "rack1", Collections.emptyMap(), Collections.emptyMap()),
+        offerHolder("large", 16, 65536, 10240, "rack2", Collections.emptyMap(), Collections.emptyMap())), 0);
+
+    Assertions.assertEquals(ImmutableSet.of("small", "medium", "large"), candidates(index, taskRequest(new Resources(1, 512, 0), builder -> builder)));
+    Assertions.assertEquals(ImmutableSet.of("medium", "large"), candidates(index, taskRequest(new Resources(2, 512, 0), builder -> builder)));
+    Assertions.assertEquals(ImmutableSet.of("large"), candidates(index, taskRequest(new Resources(2, 4096, 0), builder -> builder)));
+    Assertions.assertEquals(ImmutableSet.of(), candidates(index, taskRequest(new Resources(32, 512, 0), builder -> builder)));
+  }
+
+  @Test
+  public void itFiltersByRequiredAttributesAndRackAffinity() {
+    SingularityOfferIndex index = new SingularityOfferIndex(Arrays.asList(
+        offerHolder("slave1", 4, 4096, 1024, "rack1", ImmutableMap.of("instance", "large"), Collections.emptyMap()),
+        offerHolder("slave2", 4, 4096, 1024, "rack2", ImmutableMap.of("instance", "large"), Collections.emptyMap()),
+        offerHolder("slave3", 4, 4096, 1024, "rack2", ImmutableMap.of("instance", "small"), Collections.emptyMap())), 0);
+
+    Resources resources = new Resources(1, 512, 0);
+    Assertions.assertEquals(ImmutableSet.of("slave1", "slave2"),
+        candidates(index, taskRequest(resources, builder -> builder.setRequiredSlaveAttributes(Optional.of(ImmutableMap.of("instance", "large"))))));
+    Assertions.assertEquals(ImmutableSet.of("slave2", "slave3"),
+        candidates(index, taskRequest(resources, builder -> builder.setRackAffinity(Optional.of(Collections.singletonList("rack2"))))));
+    Assertions.assertEquals(ImmutableSet.of("slave2"),
+        candidates(index, taskRequest(resources, builder -> builder
+            .setRequiredSlaveAttributes(Optional.of(ImmutableMap.of("instance", "large")))
+            .setRackAffinity(Optional.of(Collections.singletonList("rack2"))))));
+    Assertions.assertEquals(ImmutableSet.of(),
+        candidates(index, taskRequest(resources, builder -> builder.setRequiredSlaveAttributes(Optional.of(ImmutableMap.of("instance", "medium"))))));
+  }
+
+  @Test
+  public void itSkipsReservedSlavesForTasksWithoutAttributes() {
+    SingularityOfferIndex index = new SingularityOfferIndex(Arrays.asList(
+        offerHolder("reserved", 4, 4096, 1024, "rack1", ImmutableMap.of("team", "a"), ImmutableMap.of("team", "a")),
+        offerHolder("shared", 4, 4096, 1024, "rack1", Collections.emptyMap(), Collections.emptyMap())), 0);
+
+    Resources resources = new Resources(1, 512, 0);
+    Assertions.assertEquals(ImmutableSet.of("shared"), candidates(index, taskRequest(resources, builder -> builder)));
+    Assertions.assertEquals(ImmutableSet.of("reserved"),
+        candidates(index, taskRequest(resources, builder -> builder.setRequiredSlaveAttributes(Optional.of(ImmutableMap.of("team", "a"))))));
+  }
+
+  @Test
+  public void itReindexesOffersAfterResourcesAreUsed() {
+    SingularityOfferHolder offerHolder = offerHolder("slave1", 4, 4096, 1024, "rack1", Collections.emptyMap(), Collections.emptyMap());
+    SingularityOfferIndex index = new SingularityOfferIndex(Collections.singletonList(offerHolder), 0);
+
+    SingularityTaskRequestHolder taskRequestHolder = taskRequest(new Resources(3, 512, 0), builder -> builder);
+    Assertions.assertEquals(ImmutableSet.of("slave1"), candidates(index, taskRequestHolder));
+
+    offerHolder.subtractResources(Arrays.asList(MesosUtils.getCpuResource(3, Optional.absent()), MesosUtils.getMemoryResource(512, Optional.absent())));
+    index.updateOffer(offerHolder);
+
+    Assertions.assertEquals(ImmutableSet.of(), candidates(index, taskRequestHolder));
+    Assertions.assertEquals(ImmutableSet.of("slave1"), candidates(index, taskRequest(new Resources(1, 512, 0), builder -> builder)));
+  }
+
+  private Set<String> candidates(SingularityOfferIndex index, SingularityTaskRequestHolder taskRequestHolder) {
+    return index.getCandidateOffers(taskRequestHolder).stream().map(SingularityOfferHolder::getSlaveId).collect(Collectors.toSet());
+  }
+
+  private SingularityTaskRequestHolder taskRequest(Resources resources, Function<SingularityRequestBuilder, SingularityRequestBuilder> customizer) {
+    SingularityRequest request = customizer.apply(new SingularityRequestBuilder("request", RequestType.WORKER)).build();
+    SingularityDeploy deploy = new SingularityDeployBuilder("request", "deploy").setCommand(Optional.of("sleep 1")).setResources(Optional.of(resources)).build();
+    SingularityTaskRequest taskRequest = new SingularityTaskRequest(request, deploy, new SingularityPendingTaskBuilder()
+        .setPendingTaskId(new SingularityPendingTaskId("request", "deploy", 1, 1, PendingType.IMMEDIATE, 1))
+        .build());
+    return new SingularityTaskRequestHolder(taskRequest, resources, Resources.EMPTY_RESOURCES);
+  }
+
+  private SingularityOfferHolder offerHolder(String slaveId, double cpus, double memory, double disk, String rackId, Map<String, String> attributes, Map<String, String> reservedAttributes) {
+    List<Offer> offers = Collections.singletonList(Offer.newBuilder()
+        .setId(OfferID.newBuilder().setValue("offer-" + slaveId))
+        .setFrameworkId(FrameworkID.newBuilder().setValue("framework"))
+        .setAgentId(AgentID.newBuilder().setValue(slaveId))
+        .setHostname("host-" + slaveId)
+        .addResources(MesosUtils.getCpuResource(cpus, Optional.absent()))
+        .addResources(MesosUtils.getMemoryResource(memory, Optional.absent()))
+        .addResources(MesosUtils.getDiskResource(disk, Optional.absent()))
+        .build());
+    return new SingularityOfferHolder(offers, 1, rackId, slaveId, "host-" + slaveId, attributes, reservedAttributes);
+  }
+}
@@ -0,0 +1,54 @@
+package com.hubspot.singularity.mesos;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Optional;
+import com.hubspot.singularity.MachineLoadMetric;
+import com.hubspot.singularity.SingularitySlaveUsage;
+
+public class SlaveUsageScoreTableTest {
+
+  @Test
+  public void itOnlyClearsTheStoredScoreOfTheRecalculatedSlot() {
+    SlaveUsageScoreTable slaveUsages = new SlaveUsageScoreTable(2, MachineLoadMetric.LOAD_5, 1, 1);
+    int host1Slot = slaveUsages.add("host1", emptyUsage());
+    int host2Slot = slaveUsages.add("host2", emptyUsage());
+    slaveUsages.recalculateScores();
+
+    Assertions.assertTrue(Double.isNaN(slaveUsages.getUsageScore(host1Slot)));
+    Assertions.assertTrue(Double.isNaN(slaveUsages.getUsageScore(host2Slot)));
+
+    slaveUsages.setUsageScore(host1Slot, 0.9);
+    slaveUsages.setUsageScore(host2Slot, 0.8);
+
+    slaveUsages.addEstimatedUsage(host1Slot, 5, 15000 * SingularitySlaveUsage.BYTES_PER_MEGABYTE, 0);
+    slaveUsages.recalculateScores(host1Slot);
+
+    Assertions.assertTrue(Double.isNaN(slaveUsages.getUsageScore(host1Slot)));
+    Assertions.assertEquals(0.8, slaveUsages.getUsageScore(host2Slot), 0);
+    Assertions.assertEquals(0.5, slaveUsages.getCpusAllocatedScore(host1Slot), 0.001);
+    Assertions.assertEquals(0.5, slaveUsages.getMemAllocatedScore(host1Slot), 0.001);
+    Assertions.assertEquals(0, slaveUsages.getCpusAllocatedScore(host2Slot), 0);
+    Assertions.assertEquals(0, slaveUsages.getMemAllocatedScore(host2Slot), 0);
+  }
+
+  @Test
+  public void itFindsSlotsBySlaveId() {
+    SlaveUsageScoreTable slaveUsages = new SlaveUsageScoreTable(2, MachineLoadMetric.LOAD_5, 1, 1);
+    int host1Slot = slaveUsages.add("host1", emptyUsage());
+    int host2Slot = slaveUsages.add("host2", null);
+
+    Assertions.assertEquals(host1Slot, slaveUsages.getSlot("host1"));
+    Assertions.assertEquals(host2Slot, slaveUsages.getSlot("host2"));
+    Assertions.assertEquals(-1, slaveUsages.getSlot("host3"));
+    Assertions.assertFalse(slaveUsages.isMissingUsageData(host1Slot));
+    Assertions.assertTrue(slaveUsages.isMissingUsageData(host2Slot));
+    Assertions.assertEquals(2, slaveUsages.size());
+  }
+
+  private SingularitySlaveUsage emptyUsage() {
+    return new SingularitySlaveUsage(0, 0, Optional.of(10.0), 0, 0, Optional.of(30000L), 0, 0, Optional.of(102400L), 0, System.currentTimeMillis(),
+        30000 * SingularitySlaveUsage.BYTES_PER_MEGABYTE, 30000 * SingularitySlaveUsage.BYTES_PER_MEGABYTE, 10, 0, 0, 0, 0, 102400 * SingularitySlaveUsage.BYTES_PER_MEGABYTE);
+  }
+}
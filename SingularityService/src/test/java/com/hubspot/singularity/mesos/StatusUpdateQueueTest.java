@@ -0,0 +1,126 @@
+package com.hubspot.singularity.mesos;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.mesos.v1.Protos.TaskID;
+import org.apache.mesos.v1.Protos.TaskState;
+import org.apache.mesos.v1.Protos.TaskStatus;
+import org.apache.mesos.v1.Protos.TaskStatus.Reason;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.mesos.StatusUpdateQueue.TaskStatusUpdates;
+
+public class StatusUpdateQueueTest {
+  private final SingularityTaskId taskId = new SingularityTaskId("request", "deploy", 1, 1, "host", "rack");
+  private final SingularityTaskId otherTaskId = new SingularityTaskId("request", "deploy", 1, 2, "host", "rack");
+
+  @Test
+  public void itCoalescesSupersededActiveUpdates() {
+    StatusUpdateQueue queue = new StatusUpdateQueue();
+    CompletableFuture<StatusUpdateResult> starting = new CompletableFuture<>();
+    CompletableFuture<StatusUpdateResult> running = new CompletableFuture<>();
+    CompletableFuture<StatusUpdateResult> failed = new CompletableFuture<>();
+
+    queue.add(taskId, status(taskId, TaskState.TASK_STARTING), starting, -1);
+    queue.add(taskId, status(taskId, TaskState.TASK_RUNNING), running, -1);
+    queue.add(taskId, status(taskId, TaskState.TASK_FAILED), failed, -1);
+
+    Assertions.assertEquals(2, queue.size());
+    Assertions.assertEquals(1, queue.getCoalescedCount());
+
+    List<TaskStatusUpdates> batch = queue.takeBatch(10);
+    Assertions.assertEquals(1, batch.size());
+    Assertions.assertEquals(TaskState.TASK_RUNNING, batch.get(0).getUpdates().get(0).getStatus().getState());
+    Assertions.assertEquals(TaskState.TASK_FAILED, batch.get(0).getUpdates().get(1).getStatus().getState());
+
+    batch.get(0).getUpdates().get(0).complete(StatusUpdateResult.DONE);
+    Assertions.assertEquals(StatusUpdateResult.DONE, running.join());
+    Assertions.assertEquals(StatusUpdateResult.IGNORED, starting.join());
+    Assertions.assertFalse(failed.isDone());
+  }
+
+  @Test
+  public void itNeverReplacesTerminalOrRecoveryUpdates() {
+    TaskStatus recovered = status(taskId, TaskState.TASK_RUNNING).toBuilder().setReason(Reason.REASON_AGENT_REREGISTERED).build();
+
+    Assertions.assertFalse(StatusUpdateQueue.isSupersededBy(status(taskId, TaskState.TASK_FINISHED), status(taskId, TaskState.TASK_RUNNING)));
+    Assertions.assertFalse(StatusUpdateQueue.isSupersededBy(recovered, status(taskId, TaskState.TASK_RUNNING)));
+    Assertions.assertTrue(StatusUpdateQueue.isSupersededBy(status(taskId, TaskState.TASK_KILLED), status(taskId, TaskState.TASK_KILLED)));
+  }
+
+  @Test
+  public void itOnlyReplacesActiveUpdatesWithLaterStates() {
+    Assertions.assertTrue(StatusUpdateQueue.isSupersededBy(status(taskId, TaskState.TASK_STAGING), status(taskId, TaskState.TASK_RUNNING)));
+    Assertions.assertTrue(StatusUpdateQueue.isSupersededBy(status(taskId, TaskState.TASK_RUNNING), status(taskId, TaskState.TASK_RUNNING)));
+    Assertions.assertFalse(StatusUpdateQueue.isSupersededBy(status(taskId, TaskState.TASK_RUNNING), status(taskId, TaskState.TASK_STARTING)));
+    Assertions.assertFalse(StatusUpdateQueue.isSupersededBy(status(taskId, TaskState.TASK_STARTING), status(taskId, TaskState.TASK_STAGING)));
+
+    StatusUpdateQueue queue = new StatusUpdateQueue();
+    queue.add(taskId, status(taskId, TaskState.TASK_RUNNING), new CompletableFuture<>(), -1);
+    queue.add(taskId, status(taskId, TaskState.TASK_STARTING), new CompletableFuture<>(), -1);
+
+    Assertions.assertEquals(2, queue.size());
+    Assertions.assertEquals(0, queue.getCoalescedCount());
+  }
+
+  @Test
+  public void itHandsEachTaskToOneBatchAtATime() {
+    StatusUpdateQueue queue = new StatusUpdateQueue();
+    queue.add(taskId, status(taskId, TaskState.TASK_RUNNING), new CompletableFuture<>(), -1);
+    queue.add(otherTaskId, status(otherTaskId, TaskState.TASK_RUNNING), new CompletableFuture<>(), -1);
+
+    List<TaskStatusUpdates> first = queue.takeBatch(1);
+    Assertions.assertEquals(taskId, first.get(0).getTaskId());
+
+    queue.add(taskId, status(taskId, TaskState.TASK_FINISHED), new CompletableFuture<>(), -1);
+    List<TaskStatusUpdates> second = queue.takeBatch(10);
+    Assertions.assertEquals(1, second.size());
+    Assertions.assertEquals(otherTaskId, second.get(0).getTaskId());
+    Assertions.assertTrue(queue.takeBatch(10).isEmpty());
+    Assertions.assertFalse(queue.hasAvailable());
+
+    queue.finished(first);
+    Assertions.assertTrue(queue.hasAvailable());
+    Assertions.assertEquals(TaskState.TASK_FINISHED, queue.takeBatch(10).get(0).getUpdates().get(0).getStatus().getState());
+  }
+
+  @Test
+  public void itQueuesReleasedTasksBehindTasksThatWereAlreadyAvailable() {
+    SingularityTaskId thirdTaskId = new SingularityTaskId("request", "deploy", 1, 3, "host", "rack");
+    StatusUpdateQueue queue = new StatusUpdateQueue();
+    queue.add(taskId, status(taskId, TaskState.TASK_RUNNING), new CompletableFuture<>(), -1);
+
+    List<TaskStatusUpdates> first = queue.takeBatch(10);
+    queue.add(taskId, status(taskId, TaskState.TASK_FINISHED), new CompletableFuture<>(), -1);
+    queue.add(otherTaskId, status(otherTaskId, TaskState.TASK_RUNNING), new CompletableFuture<>(), -1);
+    queue.finished(first);
+    queue.add(thirdTaskId, status(thirdTaskId, TaskState.TASK_RUNNING), new CompletableFuture<>(), -1);
+
+    Assertions.assertEquals(3, queue.size());
+    List<TaskStatusUpdates> second = queue.takeBatch(10);
+    Assertions.assertEquals(3, second.size());
+    Assertions.assertEquals(otherTaskId, second.get(0).getTaskId());
+    Assertions.assertEquals(taskId, second.get(1).getTaskId());
+    Assertions.assertEquals(thirdTaskId, second.get(2).getTaskId());
+    Assertions.assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void itRejectsUpdatesOnceFull() {
+    StatusUpdateQueue queue = new StatusUpdateQueue();
+    Assertions.assertTrue(queue.add(taskId, status(taskId, TaskState.TASK_STARTING), new CompletableFuture<>(), 1));
+    Assertions.assertFalse(queue.add(otherTaskId, status(otherTaskId, TaskState.TASK_RUNNING), new CompletableFuture<>(), 1));
+    // Replacing an update that is already queued doesn't grow the queue
+    Assertions.assertTrue(queue.add(taskId, status(taskId, TaskState.TASK_RUNNING), new CompletableFuture<>(), 1));
+  }
+
+  private TaskStatus status(SingularityTaskId taskId, TaskState state) {
+    return TaskStatus.newBuilder()
+        .setTaskId(TaskID.newBuilder().setValue(taskId.getId()))
+        .setState(state)
+        .build();
+  }
+}
@@ -0,0 +1,86 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class HealthcheckHostLimiterTest {
+
+  @Test
+  public void itHoldsChecksOverTheCapUntilOneFinishes() {
+    List<String> started = new ArrayList<>();
+    HealthcheckHostLimiter limiter = new HealthcheckHostLimiter(2, Runnable::run);
+
+    limiter.submit("host1", () -> started.add("a"), () -> false);
+    limiter.submit("host1", () -> started.add("b"), () -> false);
+    limiter.submit("host1", () -> started.add("c"), () -> false);
+    limiter.submit("host2", () -> started.add("d"), () -> false);
+
+    Assertions.assertEquals(3, started.size());
+    Assertions.assertFalse(started.contains("c"));
+    Assertions.assertEquals(1, limiter.getWaitingCount());
+
+    limiter.release("host1");
+    Assertions.assertTrue(started.contains("c"));
+    Assertions.assertEquals(0, limiter.getWaitingCount());
+    Assertions.assertEquals(2, limiter.getInFlight("host1"));
+
+    limiter.release("host1");
+    limiter.release("host1");
+    Assertions.assertEquals(0, limiter.getInFlight("host1"));
+    Assertions.assertEquals(1, limiter.getInFlight("host2"));
+  }
+
+  @Test
+  public void itDoesNotLimitWhenTheCapIsZero() {
+    List<String> started = new ArrayList<>();
+    HealthcheckHostLimiter limiter = new HealthcheckHostLimiter(0, Runnable::run);
+
+    for (int i = 0; i < 100; i++) {
+      limiter.submit("host1", () -> started.add("check"), () -> false);
+    }
+
+    Assertions.assertEquals(100, started.size());
+    Assertions.assertEquals(0, limiter.getWaitingCount());
+  }
+
+  @Test
+  public void itDropsWaitingChecksThatWereCancelled() {
+    List<String> started = new ArrayList<>();
+    AtomicBoolean cancelled = new AtomicBoolean(false);
+    HealthcheckHostLimiter limiter = new HealthcheckHostLimiter(1, Runnable::run);
+
+    limiter.submit("host1", () -> started.add("a"), () -> false);
+    limiter.submit("host1", () -> started.add("b"), cancelled::get);
+    limiter.submit("host1", () -> started.add("c"), () -> false);
+    Assertions.assertEquals(2, limiter.getWaitingCount());
+
+    cancelled.set(true);
+    limiter.release("host1");
+    Assertions.assertEquals(Arrays.asList("a", "c"), started);
+    Assertions.assertEquals(0, limiter.getWaitingCount());
+    Assertions.assertEquals(1, limiter.getInFlight("host1"));
+
+    limiter.release("host1");
+    Assertions.assertEquals(0, limiter.getInFlight("host1"));
+  }
+
+  @Test
+  public void itFreesTheSlotWhenEveryWaitingCheckWasCancelled() {
+    List<String> started = new ArrayList<>();
+    HealthcheckHostLimiter limiter = new HealthcheckHostLimiter(1, Runnable::run);
+
+    limiter.submit("host1", () -> started.add("a"), () -> false);
+    limiter.submit("host1", () -> started.add("b"), () -> true);
+
+    limiter.release("host1");
+    Assertions.assertEquals(Collections.singletonList("a"), started);
+    Assertions.assertEquals(0, limiter.getWaitingCount());
+    Assertions.assertEquals(0, limiter.getInFlight("host1"));
+  }
+}
@@ -0,0 +1,148 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import com.codahale.metrics.Timer;
+import com.google.common.base.Optional;
+import com.hubspot.singularity.SingularityTaskHealthcheckResult;
+import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.data.TaskManager;
+
+public class HealthcheckResultBatcherTest {
+  private static final SingularityTaskId FIRST_TASK = new SingularityTaskId("request", "deploy", 1, 1, "host", "rack");
+  private static final SingularityTaskId SECOND_TASK = new SingularityTaskId("request", "deploy", 1, 2, "host", "rack");
+
+  private TaskManager taskManager;
+  private ManualExecutor executor;
+  private HealthcheckResultBatcher batcher;
+  private List<String> saved;
+  private List<String> failed;
+
+  @BeforeEach
+  public void createBatcher() {
+    taskManager = Mockito.mock(TaskManager.class);
+    executor = new ManualExecutor();
+    batcher = new HealthcheckResultBatcher(taskManager, executor, 100, new Timer());
+    saved = new ArrayList<>();
+    failed = new ArrayList<>();
+  }
+
+  @Test
+  public void itSavesTheFirstResultForATaskOnItsOwn() {
+    SingularityTaskHealthcheckResult first = healthcheckResult(FIRST_TASK, 1);
+    save(first);
+    executor.runAll();
+
+    Mockito.verify(taskManager).saveHealthcheckResult(first);
+    Mockito.verify(taskManager, Mockito.never()).saveHealthcheckResults(ArgumentMatchers.anyList());
+    Assertions.assertEquals(Arrays.asList("1-1"), saved);
+  }
+
+  @Test
+  public void itSavesLaterResultsThatArriveTogetherInOneBatch() {
+    save(healthcheckResult(FIRST_TASK, 1));
+    executor.runAll();
+
+    SingularityTaskHealthcheckResult second = healthcheckResult(FIRST_TASK, 2);
+    SingularityTaskHealthcheckResult third = healthcheckResult(FIRST_TASK, 3);
+    SingularityTaskHealthcheckResult otherTask = healthcheckResult(SECOND_TASK, 3);
+    save(second);
+    save(third);
+    save(otherTask);
+    executor.runAll();
+
+    Mockito.verify(taskManager).saveHealthcheckResult(otherTask);
+    Mockito.verify(taskManager).saveHealthcheckResults(Arrays.asList(second, third));
+    Assertions.assertEquals(4, saved.size());
+    Assertions.assertTrue(saved.containsAll(Arrays.asList("1-2", "1-3", "2-3")));
+  }
+
+  @Test
+  public void itFailsEveryResultInABatchThatCouldNotBeSaved() {
+    save(healthcheckResult(FIRST_TASK, 1));
+    executor.runAll();
+
+    Mockito.doThrow(new RuntimeException("zk is down")).when(taskManager).saveHealthcheckResults(ArgumentMatchers.anyList());
+    save(healthcheckResult(FIRST_TASK, 2));
+    save(healthcheckResult(FIRST_TASK, 3));
+    executor.runAll();
+
+    Assertions.assertEquals(Arrays.asList("1-1"), saved);
+    Assertions.assertEquals(Arrays.asList("1-2", "1-3"), failed);
+  }
+
+  @Test
+  public void itSavesTheNextResultOnItsOwnAfterATaskIsForgotten() {
+    save(healthcheckResult(FIRST_TASK, 1));
+    executor.runAll();
+
+    batcher.forget(FIRST_TASK.getId());
+    SingularityTaskHealthcheckResult afterForget = healthcheckResult(FIRST_TASK, 2);
+    save(afterForget);
+    executor.runAll();
+
+    Mockito.verify(taskManager).saveHealthcheckResult(afterForget);
+    Mockito.verify(taskManager, Mockito.never()).saveHealthcheckResults(ArgumentMatchers.anyList());
+  }
+
+  private void save(SingularityTaskHealthcheckResult result) {
+    String name = String.format("%s-%s", result.getTaskId().getInstanceNo(), result.getTimestamp());
+    batcher.save(result, () -> saved.add(name), (t) -> failed.add(name));
+  }
+
+  private SingularityTaskHealthcheckResult healthcheckResult(SingularityTaskId taskId, long timestamp) {
+    return new SingularityTaskHealthcheckResult(Optional.of(200), Optional.of(1L), timestamp, Optional.absent(), Optional.absent(), taskId, Optional.absent());
+  }
+
+  /**
+   * Queues everything it is given until the test runs it, so results saved in between end up in the same batch
+   */
+  private static class ManualExecutor extends AbstractExecutorService {
+    private final List<Runnable> queued = new ArrayList<>();
+
+    void runAll() {
+      while (!queued.isEmpty()) {
+        queued.remove(0).run();
+      }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      queued.add(command);
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return queued;
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.hubspot.singularity.scheduler.IndexedSet.Index;
+
+public class IndexedSetTest {
+  private static final Index<Integer> BY_PARITY = Index.by((i) -> i % 2);
+
+  @Test
+  public void itSharesListingsUntilTheNextWrite() {
+    IndexedSet<Integer> set = new IndexedSet<>(ImmutableList.of(BY_PARITY));
+    set.replaceAll(ImmutableList.of(1, 2, 3));
+
+    List<Integer> listing = set.getAll();
+    Assertions.assertSame(listing, set.getAll());
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> listing.add(4));
+
+    set.add(4);
+    Assertions.assertNotSame(listing, set.getAll());
+    Assertions.assertEquals(3, listing.size());
+    Assertions.assertEquals(4, set.getAll().size());
+    Assertions.assertEquals(2, set.get(BY_PARITY, 0).size());
+
+    set.remove(2);
+    set.remove(4);
+    Assertions.assertTrue(set.get(BY_PARITY, 0).isEmpty());
+  }
+
+  @Test
+  public void itReadsConsistentlyWhileWritesAreInProgress() {
+    IndexedSet<Integer> set = new IndexedSet<>(ImmutableList.of(BY_PARITY));
+    AtomicBoolean writing = new AtomicBoolean(true);
+
+    CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+      for (int i = 0; i < 20000; i++) {
+        set.add(i);
+        if (i % 3 == 0) {
+          set.remove(i);
+        }
+      }
+      writing.set(false);
+    });
+
+    while (writing.get()) {
+      List<Integer> listing = set.getAll();
+      Assertions.assertEquals(listing.size(), listing.stream().distinct().count());
+      set.get(BY_PARITY, 1).forEach((i) -> Assertions.assertEquals(1, i % 2));
+    }
+    writer.join();
+
+    Assertions.assertEquals(13333, set.size());
+    Assertions.assertEquals(13333, set.getAll().size());
+  }
+}
@@ -0,0 +1,48 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.Map;
+
+import org.apache.mesos.v1.Protos.TaskState;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+
+public class SingularityLeaderCacheCoordinatorTest extends SingularitySchedulerTestBase {
+
+  @Inject
+  private MetricRegistry metricRegistry;
+
+  public SingularityLeaderCacheCoordinatorTest() {
+    super(false);
+  }
+
+  @Test
+  public void itLoadsEveryCollectionBeforeActivating() {
+    initRequest();
+    initFirstDeploy();
+    for (int i = 1; i <= 3; i++) {
+      launchTask(request, firstDeploy, i, TaskState.TASK_RUNNING);
+    }
+
+    cacheCoordinator.stopLeaderCache();
+    leaderCache.clear();
+    Assertions.assertFalse(leaderCache.active());
+
+    cacheCoordinator.activateLeaderCache();
+
+    Assertions.assertTrue(leaderCache.active());
+    Assertions.assertEquals(3, taskManager.getActiveTaskIds().size());
+    Assertions.assertEquals(1, requestManager.getRequests().size());
+
+    Map<String, Long> counts = cacheCoordinator.getLastLoadedObjectCounts();
+    Assertions.assertEquals(1L, (long) counts.get("requests"));
+    Assertions.assertEquals(1L, (long) counts.get("deploys"));
+    Assertions.assertTrue(counts.get("tasks") >= 3);
+    Assertions.assertTrue(counts.get("taskHistoryUpdates") >= 3);
+
+    Assertions.assertTrue((Long) metricRegistry.getGauges().get("leaderCache.load.requests.bytes").getValue() > 0);
+    Assertions.assertTrue(metricRegistry.timer("leaderCache.load.requests").getCount() > 0);
+  }
+}
@@ -0,0 +1,141 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.hubspot.singularity.ExtendedTaskState;
+import com.hubspot.singularity.RequestState;
+import com.hubspot.singularity.RequestType;
+import com.hubspot.singularity.SingularityPendingRequest.PendingType;
+import com.hubspot.singularity.SingularityPendingTask;
+import com.hubspot.singularity.SingularityPendingTaskBuilder;
+import com.hubspot.singularity.SingularityPendingTaskId;
+import com.hubspot.singularity.SingularityRequest;
+import com.hubspot.singularity.SingularityRequestBuilder;
+import com.hubspot.singularity.SingularityRequestWithState;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.SingularityTaskUsage;
+
+public class SingularityLeaderCacheTest {
+
+  @Test
+  public void itIndexesActiveTaskIds() {
+    SingularityTaskId first = new SingularityTaskId("request", "deploy1", 1, 1, "host1", "rack1");
+    SingularityTaskId second = new SingularityTaskId("request", "deploy2", 1, 2, "host2", "rack1");
+    SingularityTaskId other = new SingularityTaskId("other", "deploy1", 1, 1, "host1", "rack2");
+
+    SingularityLeaderCache leaderCache = new SingularityLeaderCache();
+    leaderCache.cacheActiveTaskIds(Arrays.asList(first, second));
+    leaderCache.activate();
+    leaderCache.putActiveTask(other);
+
+    Assertions.assertEquals(ImmutableSet.of(first, second), new HashSet<>(leaderCache.getActiveTaskIdsForRequest("request")));
+    Assertions.assertEquals(Collections.singletonList(second), leaderCache.getActiveTaskIdsForDeploy("request", "deploy2"));
+    Assertions.assertEquals(ImmutableSet.of(first, other), new HashSet<>(leaderCache.getActiveTaskIdsForHost("host1")));
+    Assertions.assertEquals(Collections.singletonList(other), leaderCache.getActiveTaskIdsForRack("rack2"));
+
+    leaderCache.deleteActiveTaskId(first);
+
+    Assertions.assertEquals(Collections.singletonList(second), leaderCache.getActiveTaskIdsForRequest("request"));
+    Assertions.assertEquals(Collections.singletonList(other), leaderCache.getActiveTaskIdsForHost("host1"));
+    Assertions.assertEquals(2, leaderCache.getNumActiveTasks());
+  }
+
+  @Test
+  public void itKeepsTaskUsageWrittenWhileTheTaskUsageIsBeingCached() {
+    SingularityTaskId taskId = new SingularityTaskId("request", "deploy1", 1, 1, "host1", "rack1");
+    SingularityLeaderCache leaderCache = new SingularityLeaderCache();
+    leaderCache.activate();
+
+    leaderCache.startCachingTaskUsage(taskId, 5);
+    // Saved and deleted after the task's usage was read from zk
+    leaderCache.addTaskUsage(taskId, taskUsage(3), 5);
+    leaderCache.removeTaskUsage(taskId, 1);
+
+    Assertions.assertFalse(leaderCache.getTaskUsage(taskId).isPresent());
+
+    leaderCache.finishCachingTaskUsage(taskId, Arrays.asList(taskUsage(1), taskUsage(2)), 5);
+
+    Assertions.assertEquals(Arrays.asList(2L, 3L), leaderCache.getTaskUsage(taskId).get().stream()
+        .map(SingularityTaskUsage::getTimestamp)
+        .collect(Collectors.toList()));
+  }
+
+  @Test
+  public void itOrdersPendingTasksByNextRunAt() {
+    SingularityLeaderCache leaderCache = new SingularityLeaderCache();
+    leaderCache.cachePendingTasks(Arrays.asList(pendingTask("request", 300), pendingTask("request", 100)));
+    leaderCache.cachePendingTasksToDelete(Collections.emptyList());
+    leaderCache.activate();
+    leaderCache.savePendingTask(pendingTask("other", 200));
+    leaderCache.savePendingTask(pendingTask("other", 400));
+
+    Assertions.assertEquals(Arrays.asList(100L, 200L, 300L), leaderCache.getPendingTasksDueBy(300).stream()
+        .map((p) -> p.getPendingTaskId().getNextRunAt())
+        .collect(Collectors.toList()));
+    Assertions.assertEquals(2, leaderCache.getPendingTasksForRequest("other").size());
+    Assertions.assertEquals(Arrays.asList(100L, 200L), leaderCache.getPendingTaskIdsDueBy(250).stream()
+        .map(SingularityPendingTaskId::getNextRunAt)
+        .collect(Collectors.toList()));
+
+    leaderCache.deletePendingTask(pendingTask("request", 100).getPendingTaskId());
+
+    Assertions.assertEquals(1, leaderCache.getPendingTaskIdsForRequest("request").size());
+    Assertions.assertTrue(leaderCache.getPendingTasksDueBy(150).isEmpty());
+    Assertions.assertEquals(3, leaderCache.getNumPendingTasks());
+  }
+
+  @Test
+  public void itCountsRequestStatesAndLaunchingTasksAsTheyChange() {
+    SingularityRequest request = new SingularityRequestBuilder("request", RequestType.SERVICE).build();
+    SingularityTaskId launching = new SingularityTaskId("request", "deploy1", 1, 1, "host1", "rack1");
+    SingularityTaskId running = new SingularityTaskId("request", "deploy1", 1, 2, "host1", "rack1");
+
+    SingularityLeaderCache leaderCache = new SingularityLeaderCache();
+    leaderCache.cacheRequests(Collections.singletonList(new SingularityRequestWithState(request, RequestState.ACTIVE, 1L)));
+    leaderCache.cacheActiveTaskIds(Arrays.asList(launching, running));
+    leaderCache.cacheTaskHistoryUpdates(Collections.singletonMap(running, Collections.singletonList(historyUpdate(running, ExtendedTaskState.TASK_RUNNING))));
+    leaderCache.activate();
+
+    Assertions.assertEquals(1, leaderCache.getNumRequestsInState(RequestState.ACTIVE));
+    Assertions.assertEquals(1, leaderCache.getNumLaunchingTasks());
+    Assertions.assertFalse(leaderCache.drainRequestsWithChangedInstances().isPresent());
+
+    leaderCache.putRequest(new SingularityRequestWithState(request, RequestState.PAUSED, 2L));
+    leaderCache.saveTaskHistoryUpdate(historyUpdate(launching, ExtendedTaskState.TASK_RUNNING), false);
+
+    Assertions.assertEquals(0, leaderCache.getNumRequestsInState(RequestState.ACTIVE));
+    Assertions.assertEquals(1, leaderCache.getNumRequestsInState(RequestState.PAUSED));
+    Assertions.assertEquals(0, leaderCache.getNumLaunchingTasks());
+    Assertions.assertEquals(Optional.of(Collections.singleton("request")), leaderCache.drainRequestsWithChangedInstances());
+    Assertions.assertEquals(Optional.of(Collections.emptySet()), leaderCache.drainRequestsWithChangedInstances());
+
+    leaderCache.deleteRequest("request");
+    leaderCache.deleteActiveTaskId(launching);
+
+    Assertions.assertEquals(0, leaderCache.getNumRequestsInState(RequestState.PAUSED));
+    Assertions.assertEquals(0, leaderCache.getNumLaunchingTasks());
+  }
+
+  private SingularityTaskHistoryUpdate historyUpdate(SingularityTaskId taskId, ExtendedTaskState state) {
+    return new SingularityTaskHistoryUpdate(taskId, 1L, state, Optional.absent(), Optional.absent(), Collections.emptySet());
+  }
+
+  private SingularityPendingTask pendingTask(String requestId, long nextRunAt) {
+    return new SingularityPendingTaskBuilder()
+        .setPendingTaskId(new SingularityPendingTaskId(requestId, "deploy", nextRunAt, 1, PendingType.IMMEDIATE, 1))
+        .build();
+  }
+
+  private SingularityTaskUsage taskUsage(long timestamp) {
+    return new SingularityTaskUsage(1024, timestamp, 1, 2048, 10, 1, 0.5);
+  }
+}
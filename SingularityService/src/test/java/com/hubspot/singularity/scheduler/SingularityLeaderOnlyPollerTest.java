@@ -0,0 +1,107 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.curator.framework.recipes.leader.LeaderLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.hubspot.singularity.SingularityAbort;
+import com.hubspot.singularity.SingularityManagedScheduledExecutorServiceFactory;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.mesos.SingularityMesosScheduler;
+import com.hubspot.singularity.scheduler.SingularityPollerWakeups.WakeupType;
+import com.hubspot.singularity.sentry.SingularityExceptionNotifier;
+import com.jayway.awaitility.Awaitility;
+
+public class SingularityLeaderOnlyPollerTest {
+  private static final long MIN_MILLIS_BETWEEN_WAKEUPS = 500;
+
+  private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+  private final SingularityPollerWakeups wakeups = new SingularityPollerWakeups();
+  private final CountingPoller poller = new CountingPoller();
+
+  @BeforeEach
+  public void setup() {
+    SingularityManagedScheduledExecutorServiceFactory executorServiceFactory = Mockito.mock(SingularityManagedScheduledExecutorServiceFactory.class);
+    Mockito.when(executorServiceFactory.get(Mockito.anyString())).thenReturn(executorService);
+    LeaderLatch leaderLatch = Mockito.mock(LeaderLatch.class);
+    Mockito.when(leaderLatch.hasLeadership()).thenReturn(true);
+    SingularityMesosScheduler mesosScheduler = Mockito.mock(SingularityMesosScheduler.class);
+    Mockito.when(mesosScheduler.isRunning()).thenReturn(true);
+
+    SingularityConfiguration configuration = new SingularityConfiguration();
+    configuration.setEnablePollerWakeups(true);
+    configuration.setMinMillisBetweenPollerWakeups(MIN_MILLIS_BETWEEN_WAKEUPS);
+
+    poller.injectPollerDependencies(executorServiceFactory, leaderLatch, Mockito.mock(SingularityExceptionNotifier.class), Mockito.mock(SingularityAbort.class),
+        mesosScheduler, configuration, new AtomicLong(), wakeups);
+    poller.start();
+  }
+
+  @AfterEach
+  public void teardown() {
+    poller.stop();
+    executorService.shutdownNow();
+  }
+
+  @Test
+  public void itRunsRightAwayOnTheFirstWakeup() {
+    wakeups.wakeUp(WakeupType.PENDING_REQUEST);
+
+    Awaitility.await().atMost(1, TimeUnit.SECONDS).until(() -> poller.runs.size() == 1);
+  }
+
+  @Test
+  public void itCoalescesWakeupsWithinTheWindowIntoOneRun() throws Exception {
+    wakeups.wakeUp(WakeupType.PENDING_REQUEST);
+    Awaitility.await().atMost(1, TimeUnit.SECONDS).until(() -> poller.runs.size() == 1);
+
+    for (int i = 0; i < 10; i++) {
+      wakeups.wakeUp(WakeupType.PENDING_REQUEST);
+    }
+
+    Awaitility.await().atMost(2, TimeUnit.SECONDS).until(() -> poller.runs.size() == 2);
+    Assertions.assertTrue(poller.runs.get(1) - poller.runs.get(0) >= MIN_MILLIS_BETWEEN_WAKEUPS,
+        String.format("Second run started %dms after the first", poller.runs.get(1) - poller.runs.get(0)));
+
+    Thread.sleep(MIN_MILLIS_BETWEEN_WAKEUPS * 2);
+    Assertions.assertEquals(2, poller.runs.size());
+  }
+
+  @Test
+  public void itIgnoresWakeupsForOtherTypes() throws Exception {
+    wakeups.wakeUp(WakeupType.CLEANUP);
+
+    Thread.sleep(MIN_MILLIS_BETWEEN_WAKEUPS);
+    Assertions.assertTrue(poller.runs.isEmpty());
+  }
+
+  private static class CountingPoller extends SingularityLeaderOnlyPoller {
+    private final List<Long> runs = new CopyOnWriteArrayList<>();
+
+    private CountingPoller() {
+      super(1, TimeUnit.HOURS);
+    }
+
+    @Override
+    protected Set<WakeupType> getWakeupTypes() {
+      return Collections.singleton(WakeupType.PENDING_REQUEST);
+    }
+
+    @Override
+    public void runActionOnPoll() {
+      runs.add(System.currentTimeMillis());
+    }
+  }
+}
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.WebApplicationException;
@@ -117,6 +118,9 @@ public class SingularitySchedulerTest extends SingularitySchedulerTestBase {
   @Inject
   SingularityMesosStatusUpdateHandler updateHandler;
 
+  @Inject
+  private SingularityPollerWakeups pollerWakeups;
+
   public SingularitySchedulerTest() {
     super(false);
   }
@@ -1048,6 +1052,56 @@ public class SingularitySchedulerTest extends SingularitySchedulerTestBase {
     Awaitility.await().atMost(10, TimeUnit.SECONDS).until(() -> !taskReconciliation.isReconciliationRunning());
   }
 
+  @Test
+  public void testReconciliationReRequestsTasksInBatches() {
+    long checkReconcileWhenRunningEveryMillis = configuration.getCheckReconcileWhenRunningEveryMillis();
+    int reconcileTaskBatchSize = configuration.getReconcileTaskBatchSize();
+    long reconcileTaskBatchIntervalMillis = configuration.getReconcileTaskBatchIntervalMillis();
+    List<Long> batchSentAt = Collections.synchronizedList(new ArrayList<>());
+    try {
+      configuration.setCheckReconcileWhenRunningEveryMillis(1);
+      configuration.setReconcileTaskBatchSize(1);
+      configuration.setReconcileTaskBatchIntervalMillis(200);
+      Mockito.clearInvocations(mesosSchedulerClient);
+      Mockito.doAnswer((invocation) -> {
+        if (!invocation.<List<?>>getArgument(0).isEmpty()) {
+          batchSentAt.add(System.currentTimeMillis());
+        }
+        return null;
+      }).when(mesosSchedulerClient).reconcile(ArgumentMatchers.anyList());
+
+      initRequest();
+      initFirstDeploy();
+
+      SingularityTask taskOne = launchTask(request, firstDeploy, 1, TaskState.TASK_RUNNING);
+      SingularityTask taskTwo = launchTask(request, firstDeploy, 2, TaskState.TASK_RUNNING);
+      saveLastActiveTaskStatus(taskOne, Optional.of(buildTaskStatus(taskOne)), -1000);
+      saveLastActiveTaskStatus(taskTwo, Optional.of(buildTaskStatus(taskTwo)), -1000);
+
+      Assertions.assertTrue(taskReconciliation.startReconciliation() == ReconciliationState.STARTED);
+
+      Mockito.verify(mesosSchedulerClient, Mockito.timeout(10000).atLeast(4)).reconcile(ArgumentMatchers.argThat((tasks) -> tasks.size() == 1));
+      Mockito.verify(mesosSchedulerClient, Mockito.never()).reconcile(ArgumentMatchers.argThat((tasks) -> tasks.size() > 1));
+
+      saveLastActiveTaskStatus(taskOne, Optional.of(buildTaskStatus(taskOne)), +1000);
+      saveLastActiveTaskStatus(taskTwo, Optional.of(buildTaskStatus(taskTwo)), +1000);
+
+      Awaitility.await().atMost(10, TimeUnit.SECONDS).until(() -> !taskReconciliation.isReconciliationRunning());
+
+      // Batches are spaced by the interval, within a check and from one check to the next
+      List<Long> sentAt = new ArrayList<>(batchSentAt);
+      for (int i = 1; i < sentAt.size(); i++) {
+        long gap = sentAt.get(i) - sentAt.get(i - 1);
+        Assertions.assertTrue(gap >= 150, String.format("Batch %d was sent %dms after the previous one", i, gap));
+      }
+    } finally {
+      Mockito.doNothing().when(mesosSchedulerClient).reconcile(ArgumentMatchers.anyList());
+      configuration.setCheckReconcileWhenRunningEveryMillis(checkReconcileWhenRunningEveryMillis);
+      configuration.setReconcileTaskBatchSize(reconcileTaskBatchSize);
+      configuration.setReconcileTaskBatchIntervalMillis(reconcileTaskBatchIntervalMillis);
+    }
+  }
+
 
   @Test
   public void testSchedulerPriority() {
@@ -2502,6 +2556,43 @@ public class SingularitySchedulerTest extends SingularitySchedulerTestBase {
     Assertions.assertEquals(1, requestManager.getSizeOfPendingQueue());
   }
 
+  @Test
+  public void itWakesUpPollersWhenWorkIsWritten() {
+    AtomicInteger pendingWakeups = new AtomicInteger();
+    AtomicInteger cleanupWakeups = new AtomicInteger();
+    pollerWakeups.register(SingularityPollerWakeups.WakeupType.PENDING_REQUEST, pendingWakeups::incrementAndGet);
+    pollerWakeups.register(SingularityPollerWakeups.WakeupType.CLEANUP, cleanupWakeups::incrementAndGet);
+
+    initRequest();
+    initFirstDeploy();
+    int pendingBefore = pendingWakeups.get();
+    requestManager.addToPendingQueue(new SingularityPendingRequest(requestId, firstDeployId, System.currentTimeMillis(), Optional.absent(), PendingType.UPDATED_REQUEST, Optional.absent(), Optional.absent()));
+    Assertions.assertEquals(pendingBefore + 1, pendingWakeups.get());
+
+    int cleanupBefore = cleanupWakeups.get();
+    requestManager.createCleanupRequest(new SingularityRequestCleanup(Optional.absent(), RequestCleanupType.PAUSING, System.currentTimeMillis(), Optional.absent(), Optional.absent(), requestId, Optional.absent(),
+        Optional.absent(), Optional.absent(), Optional.absent(), Optional.absent()));
+    Assertions.assertEquals(cleanupBefore + 1, cleanupWakeups.get());
+  }
+
+  @Test
+  public void itKillsAllOfARequestsCleanedTasksTogether() {
+    initRequest();
+    initFirstDeploy();
+    List<SingularityTaskId> taskIds = new ArrayList<>();
+    for (int instanceNo = 1; instanceNo <= 3; instanceNo++) {
+      taskIds.add(startTask(firstDeploy, instanceNo).getTaskId());
+    }
+
+    for (SingularityTaskId taskId : taskIds) {
+      taskManager.saveTaskCleanup(new SingularityTaskCleanup(Optional.absent(), TaskCleanupType.USER_REQUESTED, System.currentTimeMillis(), taskId, Optional.absent(), Optional.absent(), Optional.absent(), Optional.absent()));
+    }
+    cleaner.drainCleanupQueue();
+
+    Assertions.assertEquals(3, taskManager.getKilledTaskIdRecords().size());
+    Assertions.assertTrue(taskManager.getCleanupTaskIds().isEmpty());
+  }
+
   @Test
   public void itRetriesLostShortRunningRequests() {
     runTest(RequestType.ON_DEMAND, Reason.REASON_AGENT_RESTARTED, true);
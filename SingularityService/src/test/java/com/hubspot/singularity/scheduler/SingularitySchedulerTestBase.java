@@ -93,6 +93,7 @@ import com.hubspot.singularity.event.SingularityEventListener;
 import com.hubspot.singularity.helpers.MesosProtosUtils;
 import com.hubspot.singularity.helpers.MesosUtils;
 import com.hubspot.singularity.mesos.SingularityMesosScheduler;
+import com.hubspot.singularity.mesos.SingularityMesosSchedulerClient;
 import com.hubspot.singularity.resources.DeployResource;
 import com.hubspot.singularity.resources.PriorityResource;
 import com.hubspot.singularity.resources.RackResource;
@@ -155,6 +156,8 @@ public class SingularitySchedulerTestBase extends SingularityCuratorTestBase {
   @Inject
   protected SingularityTaskReconciliation taskReconciliation;
   @Inject
+  protected SingularityMesosSchedulerClient mesosSchedulerClient;
+  @Inject
   protected SingularityMailer mailer;
   @Inject
   protected SingularityJobPoller scheduledJobPoller;
@@ -4,17 +4,21 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.mesos.v1.Protos.TaskState;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Optional;
 import com.google.inject.Inject;
 import com.hubspot.mesos.json.MesosSlaveMetricsSnapshotObject;
 import com.hubspot.mesos.json.MesosTaskMonitorObject;
 import com.hubspot.singularity.MachineState;
+import com.hubspot.singularity.SingularityManagedCachedThreadPoolFactory;
+import com.hubspot.singularity.SingularityManagedScheduledExecutorServiceFactory;
 import com.hubspot.singularity.RequestUtilization;
 import com.hubspot.singularity.SingularityClusterUtilization;
 import com.hubspot.singularity.SingularitySlaveUsage;
@@ -22,8 +26,12 @@ import com.hubspot.singularity.SingularitySlaveUsageWithId;
 import com.hubspot.singularity.SingularityTask;
 import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.SingularityTaskUsage;
+import com.hubspot.singularity.SlavePlacement;
 import com.hubspot.singularity.TaskCleanupType;
+import com.hubspot.singularity.data.DisasterManager;
 import com.hubspot.singularity.data.usage.UsageManager;
+import com.hubspot.singularity.sentry.SingularityExceptionNotifier;
+import com.jayway.awaitility.Awaitility;
 
 public class SingularityUsageTest extends SingularitySchedulerTestBase {
 
@@ -42,6 +50,18 @@ public class SingularityUsageTest extends SingularitySchedulerTestBase {
   @Inject
   protected TestingMesosClient mesosClient;
 
+  @Inject
+  protected DisasterManager disasterManager;
+
+  @Inject
+  protected SingularityManagedScheduledExecutorServiceFactory executorServiceFactory;
+
+  @Inject
+  protected SingularityManagedCachedThreadPoolFactory cachedThreadPoolFactory;
+
+  @Inject
+  protected SingularityExceptionNotifier exceptionNotifier;
+
   public SingularityUsageTest() {
     super(false);
   }
@@ -624,6 +644,85 @@ public class SingularityUsageTest extends SingularitySchedulerTestBase {
     }
   }
 
+  @Test
+  public void itPublishesPartialUtilizationWhenASlaveMissesTheDeadline() throws Exception {
+    CountDownLatch slowSlave = new CountDownLatch(1);
+    try {
+      configuration.setUsageCollectionDeadlineMillis(500);
+
+      initRequest();
+      initFirstDeployWithResources(1, 64);
+      saveAndSchedule(request.toBuilder().setSlavePlacement(Optional.of(SlavePlacement.SEPARATE)).setInstances(Optional.of(2)));
+      resourceOffers();
+
+      List<SingularityTask> tasks = taskManager.getActiveTasks();
+      Assertions.assertEquals(2, tasks.size());
+      for (SingularityTask task : tasks) {
+        mesosClient.setSlaveResourceUsage(task.getHostname(), Collections.singletonList(getTaskMonitor(task.getTaskId().getId(), 2, getTimestampSeconds(task.getTaskId(), 5), 100)));
+      }
+      SingularityTask slowTask = tasks.get(0);
+      mesosClient.holdSlaveResourceUsage(slowTask.getHostname(), slowSlave);
+
+      long start = System.currentTimeMillis();
+      usagePoller.runActionOnPoll();
+      Assertions.assertTrue(System.currentTimeMillis() - start < TimeUnit.SECONDS.toMillis(5));
+
+      Assertions.assertTrue(usageManager.getClusterUtilization().isPresent());
+      Assertions.assertEquals(1, usageManager.getRequestUtilizations(false).get(requestId).getNumTasks());
+      Assertions.assertFalse(usageManager.getSlaveUsage(slowTask.getAgentId().getValue()).isPresent());
+
+      // The late usage is dropped rather than saved
+      slowSlave.countDown();
+      Thread.sleep(500);
+      Assertions.assertFalse(usageManager.getSlaveUsage(slowTask.getAgentId().getValue()).isPresent());
+      Assertions.assertTrue(usageManager.getTaskUsage(slowTask.getTaskId()).isEmpty());
+      Assertions.assertEquals(1, usageManager.getRequestUtilizations(false).get(requestId).getNumTasks());
+    } finally {
+      slowSlave.countDown();
+      configuration.setUsageCollectionDeadlineMillis(TimeUnit.MINUTES.toMillis(1));
+    }
+  }
+
+  @Test
+  public void itHoldsTheCollectionPermitUntilATimedOutSlaveResponds() throws Exception {
+    CountDownLatch slaveResponses = new CountDownLatch(1);
+    int maxConcurrentUsageCollections = configuration.getMaxConcurrentUsageCollections();
+    long slaveUsageTimeoutMillis = configuration.getSlaveUsageTimeoutMillis();
+    try {
+      configuration.setMaxConcurrentUsageCollections(1);
+      configuration.setSlaveUsageTimeoutMillis(100);
+      configuration.setUsageCollectionDeadlineMillis(1000);
+
+      initRequest();
+      initFirstDeployWithResources(1, 64);
+      saveAndSchedule(request.toBuilder().setSlavePlacement(Optional.of(SlavePlacement.SEPARATE)).setInstances(Optional.of(2)));
+      resourceOffers();
+
+      List<SingularityTask> tasks = taskManager.getActiveTasks();
+      Assertions.assertEquals(2, tasks.size());
+      for (SingularityTask task : tasks) {
+        mesosClient.holdSlaveResourceUsage(task.getHostname(), slaveResponses);
+      }
+
+      // A new poller so its semaphore picks up the lower limit
+      new SingularityUsagePoller(configuration, usageHelper, usageManager, requestManager, deployManager, taskManager, disasterManager,
+          executorServiceFactory, cachedThreadPoolFactory, exceptionNotifier, new MetricRegistry()).runActionOnPoll();
+
+      // The first slave timed out, but its request never finished so the second slave was never asked
+      long slavesAsked = tasks.stream().filter((task) -> !mesosClient.isHoldingSlaveResourceUsage(task.getHostname())).count();
+      Assertions.assertEquals(1, slavesAsked);
+
+      slaveResponses.countDown();
+      Awaitility.await("second slave asked").atMost(5, TimeUnit.SECONDS)
+          .until(() -> tasks.stream().noneMatch((task) -> mesosClient.isHoldingSlaveResourceUsage(task.getHostname())));
+    } finally {
+      slaveResponses.countDown();
+      configuration.setMaxConcurrentUsageCollections(maxConcurrentUsageCollections);
+      configuration.setSlaveUsageTimeoutMillis(slaveUsageTimeoutMillis);
+      configuration.setUsageCollectionDeadlineMillis(TimeUnit.MINUTES.toMillis(1));
+    }
+  }
+
   private double getTimestampSeconds(SingularityTaskId taskId, long seconds) {
     return ((double) taskId.getStartedAt() + seconds * 1000) / 1000;
   }
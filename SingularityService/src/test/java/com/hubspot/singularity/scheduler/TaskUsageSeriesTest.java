@@ -0,0 +1,54 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.hubspot.singularity.SingularityTaskUsage;
+
+public class TaskUsageSeriesTest {
+
+  @Test
+  public void itKeepsTheMostRecentUsagesInTimestampOrder() {
+    TaskUsageSeries series = new TaskUsageSeries(3);
+
+    series.add(usage(200, 2), 3);
+    series.add(usage(100, 1), 3);
+    series.add(usage(300, 3), 3);
+    series.add(usage(400, 4), 3);
+
+    Assertions.assertEquals(Arrays.asList(200L, 300L, 400L), timestamps(series.toList()));
+    Assertions.assertEquals(4, series.toList().get(2).getCpuSeconds(), 0);
+
+    series.add(usage(300, 30), 3);
+    Assertions.assertEquals(3, series.size());
+    Assertions.assertEquals(30, series.toList().get(1).getCpuSeconds(), 0);
+
+    series.remove(200);
+    Assertions.assertEquals(Arrays.asList(300L, 400L), timestamps(series.toList()));
+  }
+
+  @Test
+  public void itFollowsChangesToTheRetentionLimit() {
+    TaskUsageSeries series = new TaskUsageSeries(2);
+
+    for (long timestamp = 1; timestamp <= 4; timestamp++) {
+      series.add(usage(timestamp, timestamp), 4);
+    }
+    Assertions.assertEquals(Arrays.asList(1L, 2L, 3L, 4L), timestamps(series.toList()));
+
+    series.add(usage(5, 5), 2);
+    Assertions.assertEquals(Arrays.asList(4L, 5L), timestamps(series.toList()));
+  }
+
+  private SingularityTaskUsage usage(long timestamp, double cpuSeconds) {
+    return new SingularityTaskUsage(1024, timestamp, cpuSeconds, 2048, 10, 1, 0.5);
+  }
+
+  private List<Long> timestamps(List<SingularityTaskUsage> usages) {
+    return usages.stream().map(SingularityTaskUsage::getTimestamp).collect(Collectors.toList());
+  }
+}
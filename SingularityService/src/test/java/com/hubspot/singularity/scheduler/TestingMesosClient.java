@@ -4,9 +4,16 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import com.hubspot.mesos.client.MesosClient;
 import com.hubspot.mesos.json.MesosMasterMetricsSnapshotObject;
+import com.hubspot.mesos.json.MesosMasterSlaveObject;
 import com.hubspot.mesos.json.MesosMasterStateObject;
 import com.hubspot.mesos.json.MesosSlaveMetricsSnapshotObject;
 import com.hubspot.mesos.json.MesosSlaveStateObject;
@@ -16,16 +23,26 @@ public class TestingMesosClient implements MesosClient {
 
   private Map<String, List<MesosTaskMonitorObject>> slaveResourceUsage;
   private Map<String, MesosSlaveMetricsSnapshotObject> slaveMetrics;
+  private Map<String, CountDownLatch> slaveResponseLatches;
 
   public TestingMesosClient() {
     this.slaveResourceUsage = new HashMap<>();
     this.slaveMetrics = new HashMap<>();
+    this.slaveResponseLatches = new ConcurrentHashMap<>();
   }
 
   public void setSlaveResourceUsage(String hostname, List<MesosTaskMonitorObject> taskMonitorObjects) {
     slaveResourceUsage.put(hostname, taskMonitorObjects);
   }
 
+  public void holdSlaveResourceUsage(String hostname, CountDownLatch latch) {
+    slaveResponseLatches.put(hostname, latch);
+  }
+
+  public boolean isHoldingSlaveResourceUsage(String hostname) {
+    return slaveResponseLatches.containsKey(hostname);
+  }
+
   public void setSlaveMetricsSnapshot(String hostname, MesosSlaveMetricsSnapshotObject snapshotObject) {
     slaveMetrics.put(hostname, snapshotObject);
   }
@@ -45,6 +62,9 @@ public class TestingMesosClient implements MesosClient {
     return null;
   }
 
+  @Override
+  public void getMasterSlaves(String uri, Consumer<MesosMasterSlaveObject> consumer) {}
+
   @Override
   public MesosMasterMetricsSnapshotObject getMasterMetricsSnapshot(String uri) {
     return null;
@@ -55,6 +75,11 @@ public class TestingMesosClient implements MesosClient {
     return slaveMetrics.get(hostname);
   }
 
+  @Override
+  public CompletableFuture<MesosSlaveMetricsSnapshotObject> getSlaveMetricsSnapshotAsync(String hostname) {
+    return CompletableFuture.completedFuture(getSlaveMetricsSnapshot(hostname));
+  }
+
   @Override
   public String getSlaveUri(String hostname) {
     return null;
@@ -67,7 +92,19 @@ public class TestingMesosClient implements MesosClient {
 
   @Override
   public List<MesosTaskMonitorObject> getSlaveResourceUsage(String hostname, boolean useShortTimeout) {
+    CountDownLatch latch = slaveResponseLatches.remove(hostname);
+    if (latch != null) {
+      Uninterruptibles.awaitUninterruptibly(latch);
+    }
     return slaveResourceUsage.getOrDefault(hostname, Collections.emptyList());
   }
 
+  @Override
+  public CompletableFuture<List<MesosTaskMonitorObject>> getSlaveResourceUsageAsync(String hostname) {
+    if (slaveResponseLatches.containsKey(hostname)) {
+      return CompletableFuture.supplyAsync(() -> getSlaveResourceUsage(hostname));
+    }
+    return CompletableFuture.completedFuture(getSlaveResourceUsage(hostname));
+  }
+
 }